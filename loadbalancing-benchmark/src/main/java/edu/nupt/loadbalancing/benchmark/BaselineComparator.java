@@ -0,0 +1,134 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Compares a JMH result in CSV format with a saved baseline.
+ *               Every row is identified by its benchmark name and parameters.
+ *               Besides the primary scores, only the secondary rows of
+ *               <tt>gc.alloc.rate.norm</tt> are compared: the other rows of
+ *               the GC profiler vary from run to run, and the search counters
+ *               are totals which grow with the length of the run. A row
+ *               regresses when it moved in the bad direction by more than the
+ *               tolerance: down for throughput units (<tt>ops/...</tt>), up
+ *               for everything else.
+ */
+public class BaselineComparator {
+
+	/**
+	 * Compares two result files and returns a description of every
+	 * regression.
+	 *
+	 * @param baseline
+	 *            the saved baseline
+	 * @param current
+	 *            the result of the current run
+	 * @param tolerance
+	 *            the accepted relative change, e.g. 0.1 for 10%
+	 * @return a line per regressed row, empty if there is none
+	 * @throws IOException
+	 *             if one of the files cannot be read
+	 */
+	public static List<String> compare(File baseline, File current, double tolerance) throws IOException {
+		Map<String, Row> before = read(baseline);
+		Map<String, Row> after = read(current);
+		List<String> regressions = new ArrayList<String>();
+		for (Entry<String, Row> entry : after.entrySet()) {
+			Row now = entry.getValue();
+			Row then = before.get(entry.getKey());
+			if (then == null || then.score == 0D || !then.unit.equals(now.unit)) {
+				continue;
+			}
+			double change = (now.score - then.score) / then.score;
+			boolean higherIsBetter = now.unit.startsWith("ops/");
+			boolean regressed = higherIsBetter ? change < -tolerance : change > tolerance;
+			if (regressed) {
+				regressions.add(String.format("%s: %.3f -> %.3f %s (%+.1f%%)", entry.getKey(), then.score, now.score,
+						now.unit, change * 100));
+			}
+		}
+		return regressions;
+	}
+
+	private static Map<String, Row> read(File file) throws IOException {
+		Map<String, Row> rows = new LinkedHashMap<String, Row>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		try {
+			String line = reader.readLine();
+			if (line == null) {
+				return rows;
+			}
+			List<String> header = split(line);
+			int scoreColumn = header.indexOf("Score");
+			int unitColumn = header.indexOf("Unit");
+			while ((line = reader.readLine()) != null) {
+				List<String> fields = split(line);
+				if (fields.size() != header.size() || !isCompared(fields.get(0))) {
+					continue;
+				}
+				StringBuilder key = new StringBuilder(fields.get(0));
+				for (int i = 0; i < header.size(); i++) {
+					if (header.get(i).startsWith("Param: ")) {
+						key.append(' ').append(header.get(i).substring(7)).append('=').append(fields.get(i));
+					}
+				}
+				try {
+					rows.put(key.toString(),
+							new Row(Double.parseDouble(fields.get(scoreColumn)), fields.get(unitColumn)));
+				} catch (NumberFormatException e) {
+					// NaN or a localized number, not comparable
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return rows;
+	}
+
+	private static boolean isCompared(String benchmark) {
+		return benchmark.indexOf(':') < 0 || benchmark.endsWith("gc.alloc.rate.norm");
+	}
+
+	private static List<String> split(String line) {
+		List<String> fields = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (c == '"') {
+				quoted = !quoted;
+			} else if (c == ',' && !quoted) {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	private static class Row {
+		private final double score;
+		private final String unit;
+
+		private Row(double score, String unit) {
+			this.score = score;
+			this.unit = unit;
+		}
+	}
+
+}
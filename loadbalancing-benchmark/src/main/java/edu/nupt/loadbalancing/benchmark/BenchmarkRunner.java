@@ -0,0 +1,99 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * @Project: loadbalancing
+ * @Description: The entry point of <tt>benchmarks.jar</tt>. It accepts the
+ *               usual JMH command line, always adds the GC profiler so that
+ *               the allocation rate per operation is reported, writes the
+ *               result as CSV and compares it with the saved baseline:
+ *
+ *               <pre>
+ * java -jar target/benchmarks.jar KShortestPathBenchmark -p switches=500
+ * java -Dbenchmark.updateBaseline=true -jar target/benchmarks.jar
+ *               </pre>
+ *
+ *               The baseline is <tt>baselines/jmh-baseline.csv</tt> unless
+ *               <tt>benchmark.baseline</tt> names another file. It is only
+ *               written when <tt>benchmark.updateBaseline</tt> is set; without
+ *               it a missing baseline is an error, found before the
+ *               benchmarks run. The process exits with status 1 when a row
+ *               regressed by more than <tt>benchmark.tolerance</tt> (0.10 by
+ *               default).
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws Exception {
+		File result = new File(System.getProperty("benchmark.result", "target/jmh-result.csv"));
+		File baseline = new File(System.getProperty("benchmark.baseline", "baselines/jmh-baseline.csv"));
+		double tolerance = Double.parseDouble(System.getProperty("benchmark.tolerance", "0.10"));
+		boolean updateBaseline = Boolean.getBoolean("benchmark.updateBaseline");
+
+		if (!updateBaseline && !baseline.exists()) {
+			System.out.println("No baseline at " + baseline
+					+ ", run with -Dbenchmark.updateBaseline=true to record one");
+			System.exit(1);
+		}
+		if (result.getParentFile() != null) {
+			result.getParentFile().mkdirs();
+		}
+		Options options = new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.CSV).result(result.getPath()).build();
+		new Runner(options).run();
+
+		if (updateBaseline) {
+			copy(result, baseline);
+			System.out.println("Baseline saved to " + baseline);
+			return;
+		}
+		List<String> regressions = BaselineComparator.compare(baseline, result, tolerance);
+		if (regressions.isEmpty()) {
+			System.out.println("No regression against " + baseline);
+			return;
+		}
+		System.out.println("Regressions against " + baseline + ":");
+		for (String regression : regressions) {
+			System.out.println("  " + regression);
+		}
+		System.exit(1);
+	}
+
+	private static void copy(File from, File to) throws IOException {
+		if (to.getParentFile() != null) {
+			to.getParentFile().mkdirs();
+		}
+		InputStream in = new FileInputStream(from);
+		try {
+			OutputStream out = new FileOutputStream(to);
+			try {
+				byte[] buffer = new byte[8192];
+				int n;
+				while ((n = in.read(buffer)) > 0) {
+					out.write(buffer, 0, n);
+				}
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.nupt.loadbalancing.beans.LoadBalancingDisjointPath;
+import edu.nupt.loadbalancing.beans.LoadBalancingDisjointPath.Disjointness;
+import edu.nupt.loadbalancing.beans.NuptPath;
+import edu.nupt.loadbalancing.beans.SearchContext;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Measures the disjoint path search of
+ *               {@link LoadBalancingDisjointPath} over the same range of K as
+ *               {@link KShortestPathBenchmark}, so that the two candidate
+ *               generators can be compared row by row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class DisjointPathBenchmark {
+	@Param({ "1", "2", "3", "5", "8" })
+	public int k;
+
+	@Param({ "EDGE", "NODE" })
+	public String disjointness;
+
+	private LoadBalancingDisjointPath<Node, Edge> dp;
+	private Disjointness kind;
+
+	@Setup(Level.Trial)
+	public void setUp(TopologyState state) {
+		this.dp = new LoadBalancingDisjointPath<Node, Edge>(state.topology.getGraph(), this.k);
+		this.kind = Disjointness.valueOf(this.disjointness);
+	}
+
+	@Benchmark
+	public List<NuptPath> getPath(TopologyState state, SearchCounters counters) {
+		Node[] pair = state.nextPair();
+		SearchContext context = new SearchContext();
+		List<NuptPath> paths = this.dp.getPath(pair[0], pair[1], this.kind, context);
+		counters.add(context);
+		return paths;
+	}
+
+}
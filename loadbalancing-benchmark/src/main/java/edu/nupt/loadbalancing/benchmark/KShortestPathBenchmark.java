@@ -0,0 +1,70 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.nupt.loadbalancing.beans.LoadBalancingShortestPath;
+import edu.nupt.loadbalancing.beans.NuptPath;
+import edu.nupt.loadbalancing.beans.SearchContext;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Measures Yen's K-shortest path search of
+ *               {@link LoadBalancingShortestPath#getPath(Object, Object)} over
+ *               a range of K. The {@link SearchCounters} give the spur
+ *               searches, settled vertices and edge relaxations behind each
+ *               result, with and without Lawler's deviation index, so that
+ *               the spur searches it saves can be read off the report. The
+ *               GC profiler of {@link BenchmarkRunner} gives the bytes a
+ *               query allocates, <tt>gc.alloc.rate.norm</tt>, which the
+ *               scratch state of the spur searches keeps to the paths found.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class KShortestPathBenchmark {
+	@Param({ "1", "2", "3", "5", "8" })
+	public int k;
+
+	@Param({ "true", "false" })
+	public boolean deviationIndexed;
+
+	private LoadBalancingShortestPath<Node, Edge> spt;
+
+	@Setup(Level.Trial)
+	public void setUp(TopologyState state) {
+		this.spt = new LoadBalancingShortestPath<Node, Edge>(state.topology.getGraph(), this.k);
+		this.spt.setDeviationIndexed(this.deviationIndexed);
+	}
+
+	@Benchmark
+	public List<NuptPath> getPath(TopologyState state, SearchCounters counters) {
+		Node[] pair = state.nextPair();
+		SearchContext context = new SearchContext();
+		List<NuptPath> paths = this.spt.getPath(pair[0], pair[1], context);
+		counters.add(context);
+		return paths;
+	}
+
+}
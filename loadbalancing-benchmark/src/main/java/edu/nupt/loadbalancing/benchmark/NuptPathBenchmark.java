@@ -0,0 +1,101 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.utils.NodeConnectorCreator;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.nupt.loadbalancing.beans.NuptPath;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Measures the {@link NuptPath} operations that Yen's algorithm
+ *               calls inside its nested loops. Every benchmark touches all
+ *               indexes of the path once, the way <code>next()</code> walks
+ *               the spur nodes of the last accepted path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class NuptPathBenchmark {
+	@Param({ "4", "8", "16", "32" })
+	public int length;
+
+	private NuptPath path;
+	private NuptPath copy;
+
+	@Setup(Level.Trial)
+	public void setUp() throws ConstructionException {
+		List<Edge> edges = new ArrayList<Edge>();
+		Node previous = NodeCreator.createOFNode(1L);
+		for (int i = 0; i < this.length; i++) {
+			Node next = NodeCreator.createOFNode(Long.valueOf(i + 2));
+			edges.add(new Edge(NodeConnectorCreator.createOFNodeConnector((short) 2, previous),
+					NodeConnectorCreator.createOFNodeConnector((short) 1, next)));
+			previous = next;
+		}
+		this.path = new NuptPath(edges);
+		this.copy = new NuptPath(edges);
+	}
+
+	@Benchmark
+	public void getNode(Blackhole bh) {
+		for (int i = 0; i < this.path.nodeSize(); i++) {
+			bh.consume(this.path.getNode(i));
+		}
+	}
+
+	@Benchmark
+	public void getEdge(Blackhole bh) {
+		for (int i = 0; i < this.path.size(); i++) {
+			bh.consume(this.path.getEdge(i));
+		}
+	}
+
+	@Benchmark
+	public void getSubPathByNodeIndex(Blackhole bh) {
+		for (int i = 0; i < this.path.size(); i++) {
+			bh.consume(this.path.getSubPathByNodeIndex(0, i));
+		}
+	}
+
+	@Benchmark
+	public void getNodes(Blackhole bh) {
+		bh.consume(this.path.getNodes());
+	}
+
+	@Benchmark
+	public int hashCodeOfPath() {
+		return this.path.hashCode();
+	}
+
+	@Benchmark
+	public boolean equalsOfPath() {
+		return this.path.equals(this.copy);
+	}
+
+}
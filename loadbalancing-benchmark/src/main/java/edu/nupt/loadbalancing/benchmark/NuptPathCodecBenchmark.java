@@ -0,0 +1,118 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.nupt.loadbalancing.beans.LoadBalancingShortestPath;
+import edu.nupt.loadbalancing.beans.NuptPath;
+import edu.nupt.loadbalancing.beans.NuptPathCodec;
+import edu.nupt.loadbalancing.beans.TopologyDictionary;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Compares {@link NuptPathCodec} with Java serialization on a
+ *               route table of the K-Top paths between the pairs of
+ *               {@link TopologyState}. Every benchmark writes or reads the
+ *               whole table; the sizes of both encodings are printed when the
+ *               table is built.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class NuptPathCodecBenchmark {
+	private static final int KTOP = 5;
+
+	private ArrayList<NuptPath> table;
+	private NuptPathCodec codec;
+	private ByteBuffer buffer;
+	private byte[] serialized;
+
+	@Setup(Level.Trial)
+	public void setUp(TopologyState state) throws IOException {
+		LoadBalancingShortestPath<Node, Edge> spt = new LoadBalancingShortestPath<Node, Edge>(
+				state.topology.getGraph(), KTOP);
+		this.table = new ArrayList<NuptPath>();
+		for (Node[] pair : state.pairs) {
+			this.table.addAll(spt.getPath(pair[0], pair[1]));
+		}
+		this.codec = new NuptPathCodec(new TopologyDictionary(state.topology.getGraph().getEdges()));
+		int size = 16;
+		for (NuptPath path : this.table) {
+			size += this.codec.encodedSize(path);
+		}
+		this.buffer = ByteBuffer.allocate(size);
+		encode();
+		this.serialized = serialize();
+		System.out.println("Table of " + this.table.size() + " paths: " + this.buffer.position()
+				+ " bytes encoded, " + this.serialized.length + " bytes serialized");
+	}
+
+	@Benchmark
+	public ByteBuffer encode() {
+		this.buffer.clear();
+		this.codec.writeHeader(this.buffer);
+		for (NuptPath path : this.table) {
+			this.codec.encode(path, this.buffer);
+		}
+		return this.buffer;
+	}
+
+	@Benchmark
+	public List<NuptPath> decode() {
+		ByteBuffer in = ByteBuffer.wrap(this.buffer.array(), 0, this.buffer.position());
+		this.codec.readHeader(in);
+		List<NuptPath> paths = new ArrayList<NuptPath>(this.table.size());
+		NuptPath path;
+		while ((path = this.codec.decode(in)) != null) {
+			paths.add(path);
+		}
+		return paths;
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(this.table);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	@Benchmark
+	public Object deserialize() throws IOException, ClassNotFoundException {
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(this.serialized));
+		try {
+			return in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.opendaylight.controller.sal.core.Bandwidth;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.nupt.loadbalancing.beans.LoadBalancingShortestPath;
+import edu.nupt.loadbalancing.beans.NuptPath;
+import edu.nupt.loadbalancing.controls.LoadForecaster;
+import edu.nupt.loadbalancing.controls.PathLoadEvaluator;
+import edu.nupt.loadbalancing.controls.PathLoadEvaluator.LoadPolicy;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Measures the scoring of candidate paths by
+ *               {@link PathLoadEvaluator#getOptimalPath(List)}. The K
+ *               candidates of every pair are computed once, and the
+ *               statistics window is filled with synthetic, monotonically
+ *               growing byte counters for every port of the topology. The
+ *               paths are scored by the load of the given policy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class OptimalPathBenchmark {
+	private static final long TIME_SAMPLING_INTERVAL = 10;
+	private static final long TIME_SAMPLING_CYCLE = 100;
+
+	@Param({ "5" })
+	public int k;
+
+	@Param({ "OBSERVED", "PREDICTED", "PESSIMISTIC" })
+	public String loadPolicy;
+
+	private List<NuptPath>[] candidates;
+	private PathLoadEvaluator evaluator;
+	private int cursor;
+
+	@SuppressWarnings("unchecked")
+	@Setup(Level.Trial)
+	public void setUp(TopologyState state) {
+		LoadBalancingShortestPath<Node, Edge> spt = new LoadBalancingShortestPath<Node, Edge>(
+				state.topology.getGraph(), this.k);
+		this.candidates = new List[state.pairs.length];
+		for (int i = 0; i < state.pairs.length; i++) {
+			this.candidates[i] = spt.getPath(state.pairs[i][0], state.pairs[i][1]);
+		}
+
+		Random random = new Random(state.switches);
+		int windowLength = (int) (TIME_SAMPLING_CYCLE / TIME_SAMPLING_INTERVAL) + 1;
+		ConcurrentHashMap<NodeConnector, long[]> statisticsMap = new ConcurrentHashMap<NodeConnector, long[]>();
+		for (NodeConnector connector : state.topology.getConnectors()) {
+			long[] datas = new long[windowLength];
+			long counter = random.nextInt(Integer.MAX_VALUE);
+			for (int i = 0; i < windowLength; i++) {
+				counter += random.nextInt(125000000);
+				datas[i] = counter;
+			}
+			statisticsMap.put(connector, datas);
+		}
+		this.evaluator = new PathLoadEvaluator(statisticsMap, Bandwidth.BW1Gbps, TIME_SAMPLING_INTERVAL,
+				TIME_SAMPLING_CYCLE);
+		LoadPolicy policy = LoadPolicy.valueOf(this.loadPolicy);
+		if (policy != LoadPolicy.OBSERVED) {
+			this.evaluator.setLoadPolicy(policy, new LoadForecaster(0.5, 0.3, 1));
+		}
+		this.cursor = 0;
+	}
+
+	@Benchmark
+	public NuptPath getOptimalPath() {
+		List<NuptPath> paths = this.candidates[this.cursor];
+		this.cursor = (this.cursor + 1) % this.candidates.length;
+		return this.evaluator.getOptimalPath(paths);
+	}
+
+}
@@ -0,0 +1,50 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.nupt.loadbalancing.beans.SearchContext;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Reports the search work counted on
+ *               {@link SearchContext} as secondary JMH results, so that a
+ *               change in the number of Dijkstra runs or settled vertices
+ *               per query shows up next to the timing in the same report.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class SearchCounters {
+	public long spurSearches;
+	public long yenIterations;
+	public long settledVertices;
+	public long edgeRelaxations;
+
+	@Setup(Level.Iteration)
+	public void clean() {
+		this.spurSearches = 0;
+		this.yenIterations = 0;
+		this.settledVertices = 0;
+		this.edgeRelaxations = 0;
+	}
+
+	/**
+	 * Adds the work of one query.
+	 *
+	 * @param context
+	 *            the bookkeeping of the query
+	 */
+	public void add(SearchContext context) {
+		this.spurSearches += context.getSpurSearches();
+		this.yenIterations += context.getYenIterations();
+		this.settledVertices += context.getSettledVertices();
+		this.edgeRelaxations += context.getEdgeRelaxations();
+	}
+
+}
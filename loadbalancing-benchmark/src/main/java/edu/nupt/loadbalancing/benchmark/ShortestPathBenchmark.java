@@ -0,0 +1,63 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.nupt.loadbalancing.beans.LoadBalancingShortestPath;
+import edu.nupt.loadbalancing.beans.NuptPath;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Measures
+ *               {@link LoadBalancingShortestPath#getShortestPathByDijkstra(Object, Object)},
+ *               which gives the first path of every query. The tree of a
+ *               source is kept from one query to the next, so
+ *               <tt>dijkstra</tt> drops the tree of its source first and
+ *               times a whole Dijkstra run, the cost unit of each Yen spur
+ *               search, while <tt>cachedTree</tt> walks the same pairs over
+ *               and over and times the lookup in the trees already grown.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class ShortestPathBenchmark {
+	private LoadBalancingShortestPath<Node, Edge> spt;
+
+	@Setup(Level.Trial)
+	public void setUp(TopologyState state) {
+		this.spt = new LoadBalancingShortestPath<Node, Edge>(state.topology.getGraph(), 1);
+	}
+
+	@Benchmark
+	public NuptPath dijkstra(TopologyState state) {
+		Node[] pair = state.nextPair();
+		this.spt.reset(pair[0]);
+		return this.spt.getShortestPathByDijkstra(pair[0], pair[1]);
+	}
+
+	@Benchmark
+	public NuptPath cachedTree(TopologyState state) {
+		Node[] pair = state.nextPair();
+		return this.spt.getShortestPathByDijkstra(pair[0], pair[1]);
+	}
+
+}
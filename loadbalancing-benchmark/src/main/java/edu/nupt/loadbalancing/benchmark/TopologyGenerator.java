@@ -0,0 +1,227 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.utils.NodeConnectorCreator;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.SparseMultigraph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Generates synthetic OpenFlow topologies in the same shape as
+ *               the graphs kept by
+ *               {@link edu.nupt.loadbalancing.controls.LoadBalancingImplementation}:
+ *               every link is a pair of directed {@link Edge}s between
+ *               numbered ports. The generated switches are numbered from 1,
+ *               and the switches that hosts would be attached to are reported
+ *               as access switches, so that the benchmarks route between the
+ *               same kind of endpoints as in production.
+ */
+public class TopologyGenerator {
+
+	/**
+	 * The supported topology shapes.
+	 */
+	public enum Shape {
+		/**
+		 * The smallest k-ary fat tree with at least the requested number of
+		 * switches, hosts are attached to the edge layer.
+		 */
+		FAT_TREE,
+		/**
+		 * A two-tier Clos network with every leaf connected to every spine,
+		 * hosts are attached to the leaves.
+		 */
+		LEAF_SPINE,
+		/**
+		 * A ring with random chords, which gives an average degree of about
+		 * four, hosts may be attached anywhere.
+		 */
+		RANDOM
+	}
+
+	private final Graph<Node, Edge> graph;
+	private final List<Node> switches;
+	private final List<Node> accessSwitches;
+	private final List<NodeConnector> connectors;
+	private final Map<Node, Integer> nextPort;
+
+	private TopologyGenerator() {
+		this.graph = new SparseMultigraph<Node, Edge>();
+		this.switches = new ArrayList<Node>();
+		this.accessSwitches = new ArrayList<Node>();
+		this.connectors = new ArrayList<NodeConnector>();
+		this.nextPort = new HashMap<Node, Integer>();
+	}
+
+	/**
+	 * Generates a topology.
+	 *
+	 * @param shape
+	 *            the shape of the topology
+	 * @param switchCount
+	 *            the number of switches wanted, a fat tree is rounded up to
+	 *            the next complete tree
+	 * @param seed
+	 *            the seed of the random parts of the topology
+	 * @return the generated topology
+	 */
+	public static TopologyGenerator generate(Shape shape, int switchCount, long seed) {
+		TopologyGenerator topology = new TopologyGenerator();
+		switch (shape) {
+		case FAT_TREE:
+			topology.fatTree(switchCount);
+			break;
+		case LEAF_SPINE:
+			topology.leafSpine(switchCount);
+			break;
+		case RANDOM:
+			topology.random(switchCount, new Random(seed));
+			break;
+		}
+		return topology;
+	}
+
+	public Graph<Node, Edge> getGraph() {
+		return graph;
+	}
+
+	public List<Node> getSwitches() {
+		return switches;
+	}
+
+	public List<Node> getAccessSwitches() {
+		return accessSwitches;
+	}
+
+	public List<NodeConnector> getConnectors() {
+		return connectors;
+	}
+
+	/**
+	 * Picks random pairs of distinct access switches.
+	 *
+	 * @param count
+	 *            the number of pairs
+	 * @param seed
+	 *            the seed of the choice
+	 * @return an array of <code>count</code> pairs
+	 */
+	public Node[][] randomPairs(int count, long seed) {
+		Random random = new Random(seed);
+		Node[][] pairs = new Node[count][];
+		for (int i = 0; i < count; i++) {
+			Node src = this.accessSwitches.get(random.nextInt(this.accessSwitches.size()));
+			Node dst = src;
+			while (dst.equals(src)) {
+				dst = this.accessSwitches.get(random.nextInt(this.accessSwitches.size()));
+			}
+			pairs[i] = new Node[] { src, dst };
+		}
+		return pairs;
+	}
+
+	private void fatTree(int switchCount) {
+		int k = 4;
+		while (5 * k * k / 4 < switchCount) {
+			k += 2;
+		}
+		int half = k / 2;
+		Node[] cores = new Node[half * half];
+		for (int c = 0; c < cores.length; c++) {
+			cores[c] = newSwitch();
+		}
+		for (int pod = 0; pod < k; pod++) {
+			Node[] aggs = new Node[half];
+			for (int a = 0; a < half; a++) {
+				aggs[a] = newSwitch();
+				for (int c = 0; c < half; c++) {
+					link(aggs[a], cores[a * half + c]);
+				}
+			}
+			for (int e = 0; e < half; e++) {
+				Node edge = newSwitch();
+				this.accessSwitches.add(edge);
+				for (Node agg : aggs) {
+					link(edge, agg);
+				}
+			}
+		}
+	}
+
+	private void leafSpine(int switchCount) {
+		int spineCount = Math.max(2, Math.min(32, (int) Math.round(Math.sqrt(switchCount) / 2)));
+		Node[] spines = new Node[spineCount];
+		for (int s = 0; s < spineCount; s++) {
+			spines[s] = newSwitch();
+		}
+		for (int l = spineCount; l < switchCount; l++) {
+			Node leaf = newSwitch();
+			this.accessSwitches.add(leaf);
+			for (Node spine : spines) {
+				link(leaf, spine);
+			}
+		}
+	}
+
+	private void random(int switchCount, Random random) {
+		Node[] nodes = new Node[switchCount];
+		for (int i = 0; i < switchCount; i++) {
+			nodes[i] = newSwitch();
+			this.accessSwitches.add(nodes[i]);
+		}
+		// a ring keeps the graph connected
+		for (int i = 0; i < switchCount; i++) {
+			link(nodes[i], nodes[(i + 1) % switchCount]);
+		}
+		for (int i = 0; i < switchCount; i++) {
+			Node a = nodes[random.nextInt(switchCount)];
+			Node b = nodes[random.nextInt(switchCount)];
+			if (!a.equals(b) && this.graph.findEdge(a, b) == null) {
+				link(a, b);
+			}
+		}
+	}
+
+	private Node newSwitch() {
+		Node node = NodeCreator.createOFNode(Long.valueOf(this.switches.size() + 1));
+		this.switches.add(node);
+		this.graph.addVertex(node);
+		return node;
+	}
+
+	private NodeConnector newPort(Node node) {
+		Integer port = this.nextPort.get(node);
+		port = port == null ? 1 : port + 1;
+		this.nextPort.put(node, port);
+		NodeConnector connector = NodeConnectorCreator.createOFNodeConnector(port.shortValue(), node);
+		this.connectors.add(connector);
+		return connector;
+	}
+
+	private void link(Node a, Node b) {
+		NodeConnector portA = newPort(a);
+		NodeConnector portB = newPort(b);
+		try {
+			this.graph.addEdge(new Edge(portA, portB), a, b, EdgeType.DIRECTED);
+			this.graph.addEdge(new Edge(portB, portA), b, a, EdgeType.DIRECTED);
+		} catch (ConstructionException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.benchmark;
+
+import org.opendaylight.controller.sal.core.Node;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * @Project: loadbalancing
+ * @Description: The shared benchmark state: one generated topology per
+ *               combination of shape and size, and a fixed sequence of
+ *               source/destination pairs that every benchmark walks through,
+ *               so that results of different runs are comparable.
+ */
+@State(Scope.Benchmark)
+public class TopologyState {
+	private static final int PAIR_COUNT = 64;
+	private static final long SEED = 20170317L;
+
+	@Param({ "FAT_TREE", "LEAF_SPINE", "RANDOM" })
+	public String shape;
+
+	@Param({ "50", "500", "2000", "10000" })
+	public int switches;
+
+	public TopologyGenerator topology;
+	public Node[][] pairs;
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		this.topology = TopologyGenerator.generate(TopologyGenerator.Shape.valueOf(this.shape), this.switches, SEED);
+		this.pairs = this.topology.randomPairs(PAIR_COUNT, SEED);
+		this.cursor = 0;
+	}
+
+	/**
+	 * Gets the next source/destination pair, wrapping around after the last
+	 * one.
+	 *
+	 * @return an array of source and destination
+	 */
+	public Node[] nextPair() {
+		Node[] pair = this.pairs[this.cursor];
+		this.cursor = (this.cursor + 1) % this.pairs.length;
+		return pair;
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.harness;
+
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.core.UpdateType;
+
+/**
+ * @Project: loadbalancing
+ * @Description: One change of a topology churn stream: an edge update due at
+ *               a given offset from the start of the run. Its text form is one
+ *               line of a churn file:
+ *
+ *               <pre>
+ * &lt;offsetMillis&gt; &lt;ADDED|REMOVED|CHANGED&gt; &lt;tailNodeConnector&gt; &lt;headNodeConnector&gt;
+ *               </pre>
+ *
+ *               where the connectors are written with
+ *               {@link NodeConnector#toString()}.
+ */
+public class ChurnEvent {
+	private final long offsetMillis;
+	private final UpdateType type;
+	private final Edge edge;
+
+	public ChurnEvent(long offsetMillis, UpdateType type, Edge edge) {
+		this.offsetMillis = offsetMillis;
+		this.type = type;
+		this.edge = edge;
+	}
+
+	/**
+	 * Parses one line of a churn file.
+	 *
+	 * @param line
+	 *            the line
+	 * @return the event
+	 * @throws IllegalArgumentException
+	 *             if the line is malformed
+	 */
+	public static ChurnEvent parse(String line) {
+		String[] fields = line.trim().split("\\s+");
+		if (fields.length != 4) {
+			throw new IllegalArgumentException("Malformed churn event: " + line);
+		}
+		NodeConnector tail = NodeConnector.fromString(fields[2]);
+		NodeConnector head = NodeConnector.fromString(fields[3]);
+		if (tail == null || head == null) {
+			throw new IllegalArgumentException("Malformed node connector in churn event: " + line);
+		}
+		try {
+			return new ChurnEvent(Long.parseLong(fields[0]), UpdateType.valueOf(fields[1]), new Edge(tail, head));
+		} catch (ConstructionException e) {
+			throw new IllegalArgumentException("Malformed edge in churn event: " + line, e);
+		}
+	}
+
+	public long getOffsetMillis() {
+		return offsetMillis;
+	}
+
+	public UpdateType getType() {
+		return type;
+	}
+
+	public Edge getEdge() {
+		return edge;
+	}
+
+	@Override
+	public String toString() {
+		return offsetMillis + " " + type.name() + " " + edge.getTailNodeConnector() + " " + edge.getHeadNodeConnector();
+	}
+
+}
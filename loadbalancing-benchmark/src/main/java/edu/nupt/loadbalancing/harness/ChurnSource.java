@@ -0,0 +1,115 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.harness;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.UpdateType;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Produces the topology churn of a load test, either replayed
+ *               from a churn file or generated as random link flaps.
+ */
+public class ChurnSource {
+	private static final Comparator<ChurnEvent> BY_OFFSET = new Comparator<ChurnEvent>() {
+		public int compare(ChurnEvent a, ChurnEvent b) {
+			return a.getOffsetMillis() < b.getOffsetMillis() ? -1
+					: (a.getOffsetMillis() == b.getOffsetMillis() ? 0 : 1);
+		}
+	};
+
+	private ChurnSource() {
+	}
+
+	/**
+	 * Reads a churn file. Blank lines and lines starting with <tt>#</tt> are
+	 * skipped, and the events are sorted by offset.
+	 *
+	 * @param file
+	 *            the churn file
+	 * @return the events of the file
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public static List<ChurnEvent> replay(File file) throws IOException {
+		List<ChurnEvent> events = new ArrayList<ChurnEvent>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				events.add(ChurnEvent.parse(line));
+			}
+		} finally {
+			reader.close();
+		}
+		Collections.sort(events, BY_OFFSET);
+		return events;
+	}
+
+	/**
+	 * Generates random link flaps. A flap takes both directions of a link
+	 * down and brings them back up <code>downMillis</code> later; flaps start
+	 * at <code>flapsPerSecond</code> on average.
+	 *
+	 * @param links
+	 *            the links which may flap, each given by one of its two
+	 *            directed edges
+	 * @param flapsPerSecond
+	 *            the average rate of flaps
+	 * @param downMillis
+	 *            how long a link stays down
+	 * @param durationMillis
+	 *            the length of the run
+	 * @param seed
+	 *            the seed of the random choices
+	 * @return the events sorted by offset
+	 */
+	public static List<ChurnEvent> generate(List<Edge> links, double flapsPerSecond, long downMillis,
+			long durationMillis, long seed) {
+		List<ChurnEvent> events = new ArrayList<ChurnEvent>();
+		if (links.isEmpty() || flapsPerSecond <= 0) {
+			return events;
+		}
+		Random random = new Random(seed);
+		double offset = 0;
+		while (true) {
+			// exponential inter-arrival times give a Poisson stream of flaps
+			offset += -Math.log(1 - random.nextDouble()) * 1000 / flapsPerSecond;
+			if (offset >= durationMillis) {
+				break;
+			}
+			Edge edge = links.get(random.nextInt(links.size()));
+			Edge reverse;
+			try {
+				reverse = new Edge(edge.getHeadNodeConnector(), edge.getTailNodeConnector());
+			} catch (ConstructionException e) {
+				throw new IllegalStateException(e);
+			}
+			long down = (long) offset;
+			events.add(new ChurnEvent(down, UpdateType.REMOVED, edge));
+			events.add(new ChurnEvent(down, UpdateType.REMOVED, reverse));
+			events.add(new ChurnEvent(down + downMillis, UpdateType.ADDED, edge));
+			events.add(new ChurnEvent(down + downMillis, UpdateType.ADDED, reverse));
+		}
+		Collections.sort(events, BY_OFFSET);
+		return events;
+	}
+
+}
@@ -0,0 +1,346 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.harness;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opendaylight.controller.clustering.services.IClusterContainerServices;
+import org.opendaylight.controller.sal.core.Bandwidth;
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.core.Path;
+import org.opendaylight.controller.sal.core.UpdateType;
+import org.opendaylight.controller.sal.topology.TopoEdgeUpdate;
+import org.opendaylight.controller.statisticsmanager.IStatisticsManager;
+import org.opendaylight.controller.switchmanager.ISwitchManager;
+import org.opendaylight.controller.topologymanager.ITopologyManager;
+
+import edu.nupt.loadbalancing.benchmark.TopologyGenerator;
+import edu.nupt.loadbalancing.controls.LoadBalancingImplementation;
+import edu.nupt.loadbalancing.controls.RouteResult;
+import edu.nupt.loadbalancing.metrics.Histogram;
+import edu.nupt.loadbalancing.metrics.HistogramSnapshot;
+import edu.nupt.loadbalancing.metrics.RoutingMetrics;
+import edu.nupt.loadbalancing.stubs.InMemoryClusterServices;
+import edu.nupt.loadbalancing.stubs.InMemoryStatisticsManager;
+import edu.nupt.loadbalancing.stubs.InMemorySwitchManager;
+import edu.nupt.loadbalancing.stubs.InMemoryTopologyManager;
+import edu.nupt.loadbalancing.stubs.LocalCluster;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Drives a whole {@link LoadBalancingImplementation} without a
+ *               running OpenDaylight. The controller is wired to the
+ *               in-memory stand-ins of the topology, statistics, switch and
+ *               clustering services; the port counters grow at random
+ *               synthetic rates, a churn thread feeds link flaps to it, and
+ *               worker threads fire <code>getRoute</code> calls as fast as
+ *               they can. At the end the throughput and latency percentiles
+ *               are printed:
+ *
+ *               <pre>
+ * java -cp target/benchmarks.jar -Dharness.switches=2000 -Dharness.threads=8 \
+ *      edu.nupt.loadbalancing.harness.LoadTestHarness
+ *               </pre>
+ *
+ *               The run is configured by system properties:
+ *               <tt>harness.shape</tt> (FAT_TREE), <tt>harness.switches</tt>
+ *               (500), <tt>harness.threads</tt> (4), <tt>harness.duration</tt>
+ *               in seconds (60), <tt>harness.flapRate</tt> in link flaps per
+ *               second (1), <tt>harness.downMillis</tt> (2000),
+ *               <tt>harness.portRate</tt>, the highest synthetic port rate in
+ *               bytes per second (10000000), <tt>harness.budgetMicros</tt>,
+ *               the latency budget of every route query (0 for unbounded
+ *               queries), <tt>harness.async</tt>, which sends the queries
+ *               through <code>getRouteAsync</code> (false), and
+ *               <tt>harness.seed</tt> (42).
+ *               <tt>harness.replay</tt> names a churn file to replay instead of
+ *               generating flaps, and <tt>harness.record</tt> a file to which
+ *               the applied churn is written, in the format of
+ *               {@link ChurnEvent}. The sampling task of the controller first
+ *               runs 20 seconds after start, so shorter runs route on empty
+ *               statistics.
+ */
+public class LoadTestHarness {
+	private static final long COUNTER_TICK_MILLIS = 100;
+
+	private final TopologyGenerator topology;
+	private final InMemoryTopologyManager topologyManager;
+	private final InMemoryStatisticsManager statisticsManager;
+	private final InMemorySwitchManager switchManager;
+	private final LocalCluster cluster;
+	private final RoutingMetrics routingMetrics;
+	private final LoadBalancingImplementation routing;
+	private final Histogram latency;
+	private final AtomicLong failures;
+	private final AtomicLong updatesApplied;
+	private final AtomicLong incomplete;
+	private long budgetMicros;
+	private boolean async;
+
+	public LoadTestHarness(TopologyGenerator topology, long portRate, long seed) {
+		this.topology = topology;
+		this.topologyManager = new InMemoryTopologyManager();
+		this.statisticsManager = new InMemoryStatisticsManager();
+		this.switchManager = new InMemorySwitchManager();
+		this.cluster = new LocalCluster();
+		this.routingMetrics = new RoutingMetrics();
+		this.routing = new LoadBalancingImplementation();
+		this.latency = new Histogram();
+		this.failures = new AtomicLong();
+		this.updatesApplied = new AtomicLong();
+		this.incomplete = new AtomicLong();
+
+		Random random = new Random(seed);
+		for (NodeConnector connector : topology.getConnectors()) {
+			this.switchManager.addPort(connector, Bandwidth.BW100Mbps);
+			this.statisticsManager.setRate(connector, nextRate(random, portRate), nextRate(random, portRate));
+		}
+		for (Edge edge : topology.getGraph().getEdges()) {
+			this.topologyManager.update(edge, UpdateType.ADDED);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		TopologyGenerator.Shape shape = TopologyGenerator.Shape.valueOf(System.getProperty("harness.shape", "FAT_TREE"));
+		int switches = Integer.getInteger("harness.switches", 500);
+		int threads = Integer.getInteger("harness.threads", 4);
+		long durationMillis = Long.getLong("harness.duration", 60) * 1000;
+		double flapRate = Double.parseDouble(System.getProperty("harness.flapRate", "1"));
+		long downMillis = Long.getLong("harness.downMillis", 2000);
+		long portRate = Long.getLong("harness.portRate", 10000000);
+		long seed = Long.getLong("harness.seed", 42);
+		long budgetMicros = Long.getLong("harness.budgetMicros", 0);
+		String replay = System.getProperty("harness.replay");
+		String record = System.getProperty("harness.record");
+
+		TopologyGenerator topology = TopologyGenerator.generate(shape, switches, seed);
+		LoadTestHarness harness = new LoadTestHarness(topology, portRate, seed);
+		harness.setBudgetMicros(budgetMicros);
+		harness.setAsync(Boolean.getBoolean("harness.async"));
+		List<ChurnEvent> churn = replay != null ? ChurnSource.replay(new File(replay))
+				: ChurnSource.generate(harness.links(), flapRate, downMillis, durationMillis, seed);
+		System.out.println("Topology: " + shape + " with " + topology.getSwitches().size() + " switches and "
+				+ topology.getGraph().getEdgeCount() + " edges, " + churn.size() + " churn events, " + threads
+				+ " threads, " + durationMillis / 1000 + " s");
+		harness.run(threads, durationMillis, churn, record == null ? null : new File(record), seed);
+		harness.report(durationMillis);
+		System.exit(0);
+	}
+
+	/**
+	 * Sets the latency budget of every route query.
+	 *
+	 * @param budgetMicros
+	 *            the budget in microseconds, 0 for unbounded queries
+	 */
+	public void setBudgetMicros(long budgetMicros) {
+		this.budgetMicros = budgetMicros;
+	}
+
+	/**
+	 * Chooses between blocking and asynchronous route queries.
+	 *
+	 * @param async
+	 *            TRUE to wait on <code>getRouteAsync</code>
+	 */
+	public void setAsync(boolean async) {
+		this.async = async;
+	}
+
+	/**
+	 * Runs one load test.
+	 *
+	 * @param threads
+	 *            the number of threads calling <code>getRoute</code>
+	 * @param durationMillis
+	 *            the length of the run
+	 * @param churn
+	 *            the topology changes to apply, sorted by offset
+	 * @param record
+	 *            the file the applied changes are written to, or null
+	 * @param seed
+	 *            the seed of the route requests
+	 * @throws Exception
+	 *             if the run is interrupted or the record cannot be written
+	 */
+	public void run(int threads, long durationMillis, final List<ChurnEvent> churn, File record, long seed)
+			throws Exception {
+		this.routing.setTopologyManager(this.topologyManager.as(ITopologyManager.class));
+		this.routing.setStatisticsManager(this.statisticsManager.as(IStatisticsManager.class));
+		this.routing.setSwitchManager(this.switchManager.as(ISwitchManager.class));
+		InMemoryClusterServices member = this.cluster.join();
+		this.routing.setClusterContainerService(member.as(IClusterContainerServices.class));
+		this.routing.setRoutingMetrics(this.routingMetrics);
+		this.routing.init();
+		this.routing.start();
+
+		ScheduledExecutorService counters = Executors.newSingleThreadScheduledExecutor();
+		counters.scheduleAtFixedRate(new Runnable() {
+			public void run() {
+				statisticsManager.advance(COUNTER_TICK_MILLIS);
+			}
+		}, COUNTER_TICK_MILLIS, COUNTER_TICK_MILLIS, TimeUnit.MILLISECONDS);
+
+		final long begin = System.currentTimeMillis();
+		final long deadline = begin + durationMillis;
+		final PrintWriter recorder = record == null ? null : new PrintWriter(record, "UTF-8");
+		Thread churner = new Thread(new Runnable() {
+			public void run() {
+				replayChurn(churn, begin, deadline, recorder);
+			}
+		}, "harness-churn");
+		churner.start();
+
+		final Node[][] pairs = this.topology.randomPairs(1024, seed);
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final Random random = new Random(seed + t);
+			workers[t] = new Thread(new Runnable() {
+				public void run() {
+					while (System.currentTimeMillis() < deadline) {
+						Node[] pair = pairs[random.nextInt(pairs.length)];
+						route(pair[0], pair[1]);
+					}
+				}
+			}, "harness-worker-" + t);
+			workers[t].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		churner.join();
+		counters.shutdownNow();
+		if (recorder != null) {
+			recorder.close();
+		}
+		this.routing.stop();
+		this.routing.destroy();
+	}
+
+	/**
+	 * Prints the result of the last run.
+	 *
+	 * @param durationMillis
+	 *            the length of the run
+	 */
+	public void report(long durationMillis) {
+		HistogramSnapshot snapshot = this.latency.snapshot();
+		System.out.println(String.format("Routes: %d in %.1f s, %.1f routes/s", snapshot.getCount(),
+				durationMillis / 1000.0, snapshot.getCount() * 1000.0 / durationMillis));
+		System.out.println(String.format("Latency (us): p50 %.1f, p99 %.1f, p999 %.1f, max %.1f, mean %.1f",
+				snapshot.getP50() / 1000.0, snapshot.getP99() / 1000.0, snapshot.getP999() / 1000.0,
+				snapshot.getMax() / 1000.0, snapshot.getMean() / 1000.0));
+		System.out.println("Failures: " + this.failures.get() + ", incomplete at deadline: " + this.incomplete.get()
+				+ ", topology updates applied: " + this.updatesApplied.get());
+		System.out.println("Routing metrics: " + this.routingMetrics.getSnapshot());
+	}
+
+	/**
+	 * Gets the links of the topology, each given by one of its two directed
+	 * edges.
+	 *
+	 * @return the links
+	 */
+	public List<Edge> links() {
+		List<Edge> links = new ArrayList<Edge>();
+		Set<Edge> reverses = new HashSet<Edge>();
+		for (Edge edge : this.topology.getGraph().getEdges()) {
+			if (reverses.contains(edge)) {
+				continue;
+			}
+			links.add(edge);
+			try {
+				reverses.add(new Edge(edge.getHeadNodeConnector(), edge.getTailNodeConnector()));
+			} catch (ConstructionException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return links;
+	}
+
+	private void route(Node src, Node dst) {
+		long begin = System.nanoTime();
+		Path path;
+		try {
+			if (this.budgetMicros > 0) {
+				RouteResult result = this.routing.getRoute(src, dst, (short) 0, this.budgetMicros,
+						TimeUnit.MICROSECONDS);
+				if (!result.isComplete()) {
+					this.incomplete.incrementAndGet();
+				}
+				path = result.getPath();
+			} else if (this.async) {
+				path = this.routing.getRouteAsync(src, dst, (short) 0).get();
+			} else {
+				path = this.routing.getRoute(src, dst);
+			}
+		} catch (RuntimeException e) {
+			path = null;
+		} catch (ExecutionException e) {
+			path = null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			path = null;
+		}
+		this.latency.record(System.nanoTime() - begin);
+		if (path == null) {
+			this.failures.incrementAndGet();
+		}
+	}
+
+	private void replayChurn(List<ChurnEvent> churn, long begin, long deadline, PrintWriter recorder) {
+		int i = 0;
+		while (i < churn.size()) {
+			long due = begin + churn.get(i).getOffsetMillis();
+			if (due >= deadline) {
+				return;
+			}
+			long wait = due - System.currentTimeMillis();
+			if (wait > 0) {
+				try {
+					Thread.sleep(wait);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			// events due at the same time are delivered as one bulk update,
+			// as the topology manager does
+			List<TopoEdgeUpdate> batch = new ArrayList<TopoEdgeUpdate>();
+			long offset = System.currentTimeMillis() - begin;
+			while (i < churn.size() && begin + churn.get(i).getOffsetMillis() <= due) {
+				ChurnEvent event = churn.get(i++);
+				batch.add(this.topologyManager.update(event.getEdge(), event.getType()));
+				if (recorder != null) {
+					recorder.println(new ChurnEvent(offset, event.getType(), event.getEdge()));
+				}
+			}
+			try {
+				this.routing.edgeUpdate(batch);
+			} catch (RuntimeException e) {
+				this.failures.incrementAndGet();
+			}
+			this.updatesApplied.addAndGet(batch.size());
+		}
+	}
+
+	private static long nextRate(Random random, long portRate) {
+		return portRate <= 0 ? 0 : (long) (random.nextDouble() * portRate);
+	}
+
+}
@@ -18,7 +18,11 @@ import org.opendaylight.controller.topologymanager.ITopologyManagerClusterWideAw
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.nupt.loadbalancing.controls.IListenFlowMoves;
+import edu.nupt.loadbalancing.controls.ILoadBalancingRouting;
 import edu.nupt.loadbalancing.controls.LoadBalancingImplementation;
+import edu.nupt.loadbalancing.metrics.IRoutingMetrics;
+import edu.nupt.loadbalancing.metrics.RoutingMetrics;
 
 /**
  * 
@@ -44,7 +48,7 @@ public class Activator extends ComponentActivatorAbstractBase {
 	 */
 	@Override
 	public Object[] getImplementations() {
-		Object[] res = { LoadBalancingImplementation.class };
+		Object[] res = { LoadBalancingImplementation.class, RoutingMetrics.class };
 		return res;
 	}
 
@@ -70,14 +74,17 @@ public class Activator extends ComponentActivatorAbstractBase {
 			final Dictionary<String, Object> props = new Hashtable<String, Object>();
 			props.put("topoListenerName", "routing.LoadBalancer");
 
-			c.setInterface(new String[] { ITopologyManagerClusterWideAware.class.getName(), IRouting.class.getName() },
-					props);
+			c.setInterface(new String[] { ITopologyManagerClusterWideAware.class.getName(), IRouting.class.getName(),
+					ILoadBalancingRouting.class.getName() }, props);
 
 			// Now lets add a service dependency to make sure the
 			// provider of service exists
 			c.add(createContainerServiceDependency(containerName).setService(IListenRoutingUpdates.class)
 					.setCallbacks("setListenRoutingUpdates", "unsetListenRoutingUpdates").setRequired(false));
 
+			c.add(createContainerServiceDependency(containerName).setService(IListenFlowMoves.class)
+					.setCallbacks("setListenFlowMoves", "unsetListenFlowMoves").setRequired(false));
+
 			c.add(createContainerServiceDependency(containerName).setService(ISwitchManager.class)
 					.setCallbacks("setSwitchManager", "unsetSwitchManager").setRequired(true));
 
@@ -90,6 +97,12 @@ public class Activator extends ComponentActivatorAbstractBase {
 			c.add(createContainerServiceDependency(containerName).setService(IClusterContainerServices.class)
 					.setCallbacks("setClusterContainerService", "unsetClusterContainerService").setRequired(true));
 
+			c.add(createContainerServiceDependency(containerName).setService(IRoutingMetrics.class)
+					.setCallbacks("setRoutingMetrics", "unsetRoutingMetrics").setRequired(false));
+
+		} else if (imp.equals(RoutingMetrics.class)) {
+			// export the metrics registry so that other bundles can read it
+			c.setInterface(new String[] { IRoutingMetrics.class.getName() }, null);
 		}
 	}
 
@@ -0,0 +1,129 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.beans;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.opendaylight.controller.sal.core.Edge;
+
+import edu.uci.ics.jung.graph.Hypergraph;
+
+/**
+ * @Project: loadbalancing
+ * @Description: A read-only copy of a graph in arrays, on which the spur
+ *               searches of Yen's algorithm run without allocating. The
+ *               vertices and edges are numbered, and the arcs leaving a
+ *               vertex lie next to each other. An arc is an edge to check
+ *               from its tail, with the vertex at its other end and its
+ *               weight. The arcs of a vertex are in the order in which the
+ *               graph gives its edges, so that a search over the copy settles
+ *               the vertices in the same order as a search over the graph. A
+ *               copy is made once per version of the graph and shared by all
+ *               the threads.
+ */
+class IndexedGraph<V, E> {
+	private final long version;
+	private final int graphVertexCount;
+	private final int graphEdgeCount;
+	private final Map<V, Integer> vertexIds;
+	private final Map<E, Integer> edgeIds;
+	/**
+	 * The arcs of vertex v are <code>firstArc[v]</code> to
+	 * <code>firstArc[v + 1] - 1</code>.
+	 */
+	final int[] firstArc;
+	final int[] arcEdge;
+	final int[] arcTail;
+	final int[] arcHead;
+	final double[] arcWeight;
+	final Edge[] edges;
+
+	/**
+	 * Copies the graph of <code>distance</code> with the edges it checks from
+	 * every vertex and their current weights.
+	 *
+	 * @param distance
+	 *            the search whose graph is copied
+	 */
+	@SuppressWarnings("unchecked")
+	IndexedGraph(LoadBalancingDistance<V, E> distance) {
+		Hypergraph<V, E> g = distance.g;
+		this.version = distance.graphVersion;
+		this.graphVertexCount = g.getVertexCount();
+		this.graphEdgeCount = g.getEdgeCount();
+		this.vertexIds = new HashMap<V, Integer>(this.graphVertexCount * 2);
+		this.edgeIds = new HashMap<E, Integer>(this.graphEdgeCount * 2);
+		this.edges = new Edge[this.graphEdgeCount];
+		Object[] vertices = g.getVertices().toArray();
+		for (Object v : vertices) {
+			this.vertexIds.put((V) v, Integer.valueOf(this.vertexIds.size()));
+		}
+		int arcs = 0;
+		for (E e : g.getEdges()) {
+			this.edges[this.edgeIds.size()] = (Edge) e;
+			this.edgeIds.put(e, Integer.valueOf(this.edgeIds.size()));
+			// an edge is checked from each of its ends at most
+			arcs += g.getIncidentVertices(e).size();
+		}
+		this.firstArc = new int[vertices.length + 1];
+		this.arcEdge = new int[arcs];
+		this.arcTail = new int[arcs];
+		this.arcHead = new int[arcs];
+		this.arcWeight = new double[arcs];
+		int a = 0;
+		for (int tail = 0; tail < vertices.length; tail++) {
+			V v = (V) vertices[tail];
+			this.firstArc[tail] = a;
+			for (E e : distance.getEdgesToCheck(v)) {
+				for (V w : g.getIncidentVertices(e)) {
+					if (w.equals(v)) {
+						continue;
+					}
+					this.arcEdge[a] = this.edgeIds.get(e).intValue();
+					this.arcTail[a] = tail;
+					this.arcHead[a] = this.vertexIds.get(w).intValue();
+					this.arcWeight[a] = distance.transformer.transform((Edge) e).doubleValue();
+					a++;
+				}
+			}
+		}
+		this.firstArc[vertices.length] = a;
+	}
+
+	/**
+	 * Tells whether the copy still matches the graph. The version changes
+	 * whenever the search is reset after a change of the graph; the counts
+	 * guard against a change without a reset.
+	 */
+	boolean isCurrent(long graphVersion, Hypergraph<V, E> g) {
+		return this.version == graphVersion && this.graphVertexCount == g.getVertexCount()
+				&& this.graphEdgeCount == g.getEdgeCount();
+	}
+
+	int getVertexCount() {
+		return this.graphVertexCount;
+	}
+
+	int getEdgeCount() {
+		return this.graphEdgeCount;
+	}
+
+	/**
+	 * @return the number of a vertex, -1 if it is not in the copy
+	 */
+	int vertexId(V v) {
+		Integer id = this.vertexIds.get(v);
+		return id == null ? -1 : id.intValue();
+	}
+
+	/**
+	 * @return the number of an edge, -1 if it is not in the copy
+	 */
+	int edgeId(Object e) {
+		Integer id = this.edgeIds.get(e);
+		return id == null ? -1 : id.intValue();
+	}
+
+}
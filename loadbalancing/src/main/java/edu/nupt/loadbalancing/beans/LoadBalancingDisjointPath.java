@@ -0,0 +1,333 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.beans;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.apache.commons.collections15.Transformer;
+import org.apache.commons.collections15.functors.ConstantTransformer;
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Computes up to K mutually edge-disjoint or node-disjoint paths
+ *               between two vertices with the least total cost, following
+ *               Suurballe's and Bhandari's algorithm. Every further path is
+ *               one Dijkstra run over the residual graph, in which the edges
+ *               of the paths found so far are reversed, with Johnson's
+ *               potentials keeping all reduced edge costs non-negative. A later
+ *               path may take back part of an earlier one; the edges used by
+ *               both cancel out, and the paths are read off the remaining
+ *               edges at the end. Node-disjointness is obtained by splitting
+ *               every vertex into an entry and an exit joined by an edge which
+ *               only one path can take.
+ *
+ *               Unlike the K-Top paths of
+ *               {@link edu.nupt.loadbalancing.beans.LoadBalancingShortestPath<V,
+ *               E>}, no two of these paths share a link (or a switch), so the
+ *               load of one bottleneck link never rules out all candidates at
+ *               once. The graph is only read, so any number of queries may run
+ *               over it at the same time.
+ */
+public class LoadBalancingDisjointPath<V, E> {
+	private static Logger log = LoggerFactory.getLogger(LoadBalancingDisjointPath.class);
+	protected Graph<V, E> g;
+	protected Transformer<Edge, ? extends Number> transformer;
+	protected int kTop;
+
+	/**
+	 * The kind of disjointness between the paths.
+	 */
+	public enum Disjointness {
+		/** no two paths share an edge */
+		EDGE,
+		/** no two paths share a vertex other than the source and the target */
+		NODE
+	}
+
+	/**
+	 * Creates a LoadBalancingDisjointPath instance based on a given global
+	 * network graph {# g:{@link edu.uci.ics.jung.graph.Graph<V, E>}} and the
+	 * parameter k {# k:the maximum number of paths}.
+	 *
+	 * @param g
+	 *            a graph of global network
+	 * @param k
+	 *            the maximum number of paths
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public LoadBalancingDisjointPath(Graph<V, E> g, int k) {
+		this.g = g;
+		this.kTop = k;
+		this.transformer = new ConstantTransformer(1);
+	}
+
+	/**
+	 * Returns at most K disjoint paths from <code>source</code> to
+	 * <code>target</code>, in order of their cost. If either vertex is not in
+	 * the graph, throws <code>IllegalArgumentException</code>.
+	 *
+	 * @param source
+	 *            the vertex from which the paths start
+	 * @param target
+	 *            the vertex at which the paths end
+	 * @param disjointness
+	 *            whether the paths must not share edges or vertices
+	 * @return a <code>List</code> of {@link NuptPath}, empty if the target is
+	 *         not reachable
+	 */
+	public List<NuptPath> getPath(V source, V target, Disjointness disjointness) {
+		return getPath(source, target, disjointness, new SearchContext());
+	}
+
+	/**
+	 * Same as {@link #getPath(Object, Object, Disjointness)}, and counts the
+	 * work of every Dijkstra run into the given <code>context</code>. When
+	 * the context expires, the paths are built from the runs completed so far,
+	 * which are still disjoint and of least total cost for their number.
+	 *
+	 * @param source
+	 *            the vertex from which the paths start
+	 * @param target
+	 *            the vertex at which the paths end
+	 * @param disjointness
+	 *            whether the paths must not share edges or vertices
+	 * @param context
+	 *            the bookkeeping of the current query
+	 * @return a <code>List</code> of {@link NuptPath}, empty if the target is
+	 *         not reachable
+	 */
+	public List<NuptPath> getPath(V source, V target, Disjointness disjointness, SearchContext context) {
+		if (!g.containsVertex(source))
+			throw new IllegalArgumentException("Specified source vertex " + source + " is not part of graph " + g);
+
+		if (!g.containsVertex(target))
+			throw new IllegalArgumentException("Specified target vertex " + target + " is not part of graph " + g);
+
+		if (this.kTop < 1 || source.equals(target)) {
+			return Collections.emptyList();
+		}
+		ResidualNetwork network = new ResidualNetwork(disjointness);
+		int from = network.exit(source);
+		int to = network.entry(target);
+		int found = 0;
+		while (found < this.kTop && !context.isExpired() && network.augment(from, to, context)) {
+			found++;
+		}
+		return network.decompose(from, to, found);
+	}
+
+	/**
+	 * Computes the cost of a <code>path</code>{@link NuptPath}.
+	 *
+	 * @param path
+	 *            a {@link NuptPath} instance that is prepared to be computed
+	 * @return the sum of the edge weights of the path
+	 */
+	public double weightSum(NuptPath path) {
+		double result = 0;
+		for (Edge edge : path.getEdges()) {
+			result += this.transformer.transform(edge).doubleValue();
+		}
+		return result;
+	}
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: The flow network of one query. Vertex i of the graph is
+	 *               split into an entry 2i and an exit 2i+1. Arcs are stored in
+	 *               pairs, so that the reverse of arc a is a^1; an arc with
+	 *               capacity left belongs to the residual graph.
+	 */
+	private class ResidualNetwork {
+		private final Map<V, Integer> ids;
+		private final int size;
+		private int[] head;
+		private int[] next;
+		private int[] to;
+		private int[] capacity;
+		private double[] cost;
+		private Edge[] label;
+		private int arcs;
+		private final double[] potential;
+
+		@SuppressWarnings("unchecked")
+		private ResidualNetwork(Disjointness disjointness) {
+			this.ids = new HashMap<V, Integer>();
+			for (V v : g.getVertices()) {
+				this.ids.put(v, this.ids.size());
+			}
+			this.size = 2 * this.ids.size();
+			int expected = 2 * (this.ids.size() + g.getEdgeCount());
+			this.head = new int[this.size];
+			Arrays.fill(this.head, -1);
+			this.next = new int[expected];
+			this.to = new int[expected];
+			this.capacity = new int[expected];
+			this.cost = new double[expected];
+			this.label = new Edge[expected];
+			this.potential = new double[this.size];
+
+			// a vertex may be passed by one path only, unless edges alone have
+			// to be disjoint
+			int through = disjointness == Disjointness.NODE ? 1 : kTop;
+			for (int i = 0; i < this.ids.size(); i++) {
+				addArc(2 * i, 2 * i + 1, through, 0, null);
+			}
+			for (E e : g.getEdges()) {
+				double weight = transformer.transform((Edge) e).doubleValue();
+				if (weight < 0)
+					throw new IllegalArgumentException("Edges weights must be non-negative");
+				addArc(exit(g.getSource(e)), entry(g.getDest(e)), 1, weight, (Edge) e);
+			}
+		}
+
+		private int entry(V v) {
+			return 2 * this.ids.get(v).intValue();
+		}
+
+		private int exit(V v) {
+			return 2 * this.ids.get(v).intValue() + 1;
+		}
+
+		private void addArc(int from, int dest, int cap, double weight, Edge edge) {
+			link(from, dest, cap, weight, edge);
+			link(dest, from, 0, -weight, edge);
+		}
+
+		private void link(int from, int dest, int cap, double weight, Edge edge) {
+			if (this.arcs == this.to.length) {
+				int length = 2 * this.arcs + 2;
+				this.next = Arrays.copyOf(this.next, length);
+				this.to = Arrays.copyOf(this.to, length);
+				this.capacity = Arrays.copyOf(this.capacity, length);
+				this.cost = Arrays.copyOf(this.cost, length);
+				this.label = Arrays.copyOf(this.label, length);
+			}
+			this.to[this.arcs] = dest;
+			this.capacity[this.arcs] = cap;
+			this.cost[this.arcs] = weight;
+			this.label[this.arcs] = edge;
+			this.next[this.arcs] = this.head[from];
+			this.head[from] = this.arcs++;
+		}
+
+		/**
+		 * Finds the shortest path from <code>from</code> to <code>dest</code>
+		 * in the residual graph by Dijkstra's algorithm on the reduced costs,
+		 * and sends one unit of flow along it.
+		 *
+		 * @return FALSE if <code>dest</code> is not reachable any more
+		 */
+		private boolean augment(int from, int dest, SearchContext context) {
+			final double[] distance = new double[this.size];
+			Arrays.fill(distance, Double.POSITIVE_INFINITY);
+			int[] via = new int[this.size];
+			boolean[] settled = new boolean[this.size];
+			PriorityQueue<Integer> queue = new PriorityQueue<Integer>(16, new Comparator<Integer>() {
+				public int compare(Integer o1, Integer o2) {
+					return Double.compare(distance[o1.intValue()], distance[o2.intValue()]);
+				}
+			});
+			distance[from] = 0;
+			via[from] = -1;
+			queue.add(Integer.valueOf(from));
+			while (!queue.isEmpty()) {
+				int v = queue.poll().intValue();
+				if (settled[v]) {
+					continue;
+				}
+				settled[v] = true;
+				context.vertexSettled();
+				if (v == dest) {
+					break;
+				}
+				for (int a = this.head[v]; a >= 0; a = this.next[a]) {
+					int w = this.to[a];
+					if (this.capacity[a] == 0 || settled[w]) {
+						continue;
+					}
+					context.edgeRelaxed();
+					// rounding may leave a tiny negative reduced cost
+					double reduced = Math.max(0, this.cost[a] + this.potential[v] - this.potential[w]);
+					if (distance[v] + reduced < distance[w]) {
+						distance[w] = distance[v] + reduced;
+						via[w] = a;
+						// a stale entry is skipped when it is polled
+						queue.add(Integer.valueOf(w));
+					}
+				}
+			}
+			if (!settled[dest]) {
+				return false;
+			}
+			// vertices not settled before the target keep valid reduced costs
+			// with the distance of the target
+			for (int v = 0; v < this.size; v++) {
+				this.potential[v] += settled[v] ? distance[v] : distance[dest];
+			}
+			for (int v = dest; v != from; v = this.to[via[v] ^ 1]) {
+				this.capacity[via[v]]--;
+				this.capacity[via[v] ^ 1]++;
+			}
+			return true;
+		}
+
+		/**
+		 * Reads the paths off the arcs which carry flow. The flow of an arc is
+		 * the capacity of its reverse.
+		 */
+		private List<NuptPath> decompose(int from, int dest, int count) {
+			final List<NuptPath> paths = new ArrayList<NuptPath>(count);
+			for (int i = 0; i < count; i++) {
+				LinkedList<Edge> edges = new LinkedList<Edge>();
+				int v = from;
+				int hops = 0;
+				while (v != dest && hops++ <= this.size) {
+					int a = this.head[v];
+					while (a >= 0 && ((a & 1) == 1 || this.capacity[a ^ 1] == 0)) {
+						a = this.next[a];
+					}
+					if (a < 0) {
+						break;
+					}
+					this.capacity[a ^ 1]--;
+					if (this.label[a] != null) {
+						edges.add(this.label[a]);
+					}
+					v = this.to[a];
+				}
+				if (v != dest) {
+					log.debug("Cannot follow the flow of path {} to the target", i);
+					continue;
+				}
+				try {
+					paths.add(new NuptPath(edges));
+				} catch (ConstructionException e) {
+					log.debug("Caught an exception when construct a NuptPath instance.");
+				}
+			}
+			Collections.sort(paths, new Comparator<NuptPath>() {
+				public int compare(NuptPath o1, NuptPath o2) {
+					return Double.compare(weightSum(o1), weightSum(o2));
+				}
+			});
+			return paths;
+		}
+	}
+
+}
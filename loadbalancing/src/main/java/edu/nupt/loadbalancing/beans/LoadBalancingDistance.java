@@ -4,11 +4,11 @@
 package edu.nupt.loadbalancing.beans;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
 
@@ -24,7 +24,6 @@ import edu.uci.ics.jung.algorithms.util.BasicMapEntry;
 import edu.uci.ics.jung.algorithms.util.MapBinaryHeap;
 import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.Hypergraph;
-import edu.uci.ics.jung.graph.SparseMultigraph;
 
 /**
  * @Project: loadbalancing
@@ -39,8 +38,27 @@ import edu.uci.ics.jung.graph.SparseMultigraph;
  * @Date: 2017年3月17日
  */
 public class LoadBalancingDistance<V, E> implements Distance<V> {
+	private static final int DEADLINE_CHECK_INTERVAL = 16;
+	private static final int DEFAULT_CACHED_SOURCES = 128;
+	/**
+	 * The scratch state of the spur searches, one per thread, shared by all
+	 * the instances.
+	 */
+	private static final ThreadLocal<SearchArena> ARENAS = new ThreadLocal<SearchArena>() {
+		@Override
+		protected SearchArena initialValue() {
+			return new SearchArena();
+		}
+	};
 	protected Hypergraph<V, E> g;
-	protected Map<V, SourceData> sourceMap;
+	protected volatile Map<V, SourceData> sourceMap;
+	protected volatile long graphVersion;
+	/**
+	 * The copy of the graph the spur searches run on, made again after the
+	 * graph changed.
+	 */
+	private volatile IndexedGraph<V, E> indexedGraph;
+	protected int maxCachedSources;
 	protected Transformer<Edge, ? extends Number> transformer;
 	protected V source;
 	protected V target;
@@ -64,7 +82,8 @@ public class LoadBalancingDistance<V, E> implements Distance<V> {
 		super();
 		this.g = g;
 		this.kTop = k;
-		this.sourceMap = new HashMap<V, SourceData>();
+		this.maxCachedSources = Integer.getInteger("loadbalancing.cachedSources", DEFAULT_CACHED_SOURCES);
+		this.sourceMap = newSourceMap();
 		this.transformer = new ConstantTransformer(1);
 		this.max_distance = Double.POSITIVE_INFINITY;
 		this.max_targets = Integer.MAX_VALUE;
@@ -95,38 +114,132 @@ public class LoadBalancingDistance<V, E> implements Distance<V> {
 	 *         source} to target{# target}
 	 */
 	public NuptPath getShortestPathByDijkstra(V source, V target) {
-		// System.out.println("vertexs before:"+this.g.getVertices());
+		return getShortestPathByDijkstra(source, target, new SearchContext());
+	}
+
+	/**
+	 * Same as {@link #getShortestPathByDijkstra(Object, Object)}, and counts
+	 * the work of the search into the given <code>context</code>.
+	 *
+	 * @param source
+	 *            the vertex from which distances are to be measured
+	 * @param target
+	 *            the vertex to which distances are to be measured
+	 * @param context
+	 *            the bookkeeping of the current query
+	 * @return a NuptPath instance which indicates a shortest path from source{#
+	 *         source} to target{# target}
+	 */
+	public NuptPath getShortestPathByDijkstra(V source, V target, SearchContext context) {
+		checkVertices(source, target);
+
+		// the tree of the source is shared by all queries from it, and grown
+		// only as far as the farthest target asked for so far
+		SourceData sd = getSourceData(source);
+		synchronized (sd) {
+			if (!sd.distances.isEmpty()) {
+				context.treeReused();
+			}
+			if (!sd.distances.containsKey(target)) {
+				search(sd, Collections.singleton(target), 1, true, Collections.<V> emptySet(),
+						Collections.<E> emptySet(), context);
+			}
+			return toPath(sd, source, target);
+		}
+	}
+
+	/**
+	 * Same as {@link #getShortestPathByDijkstra(Object, Object, SearchContext)}
+	 * on the graph without the given vertices and edges. The graph itself is
+	 * never modified, and the search state is private to the call, so that
+	 * several searches may run over the same graph at the same time. The
+	 * search stops as soon as the distance to <code>target</code> is final.
+	 *
+	 * @param source
+	 *            the vertex from which distances are to be measured
+	 * @param target
+	 *            the vertex to which distances are to be measured
+	 * @param excludedVertices
+	 *            the vertices the path must not pass through
+	 * @param excludedEdges
+	 *            the edges the path must not use
+	 * @param context
+	 *            the bookkeeping of the current query
+	 * @return a NuptPath instance which indicates a shortest path from source{#
+	 *         source} to target{# target}, or NULL if there is none
+	 */
+	protected NuptPath getShortestPathByDijkstra(V source, V target, Set<V> excludedVertices, Set<E> excludedEdges,
+			SearchContext context) {
+		if (excludedVertices.isEmpty() && excludedEdges.isEmpty())
+			return getShortestPathByDijkstra(source, target, context);
+
+		checkVertices(source, target);
+		SourceData sd = newSourceData(source);
+		search(sd, Collections.singleton(target), 1, true, excludedVertices, excludedEdges, context);
+		return toPath(sd, source, target);
+	}
+
+	/**
+	 * Gets the copy of the graph for the spur searches, and makes it first if
+	 * the graph changed since the last one. Called with the graph locked
+	 * against changes, as every search is.
+	 */
+	IndexedGraph<V, E> getIndexedGraph() {
+		IndexedGraph<V, E> indexed = this.indexedGraph;
+		if (indexed == null || !indexed.isCurrent(this.graphVersion, this.g)) {
+			indexed = new IndexedGraph<V, E>(this);
+			this.indexedGraph = indexed;
+		}
+		return indexed;
+	}
+
+	/**
+	 * Gets the scratch state of the calling thread, large enough for the
+	 * given graph. It must not be held beyond the current call.
+	 */
+	static SearchArena getArena(IndexedGraph<?, ?> graph) {
+		SearchArena arena = ARENAS.get();
+		arena.prepare(graph);
+		return arena;
+	}
+
+	private void checkVertices(V source, V target) {
 		if (!g.containsVertex(source))
 			throw new IllegalArgumentException("Specified source vertex " + source + " is not part of graph " + g);
 
 		if (!g.containsVertex(target))
 			throw new IllegalArgumentException("Specified target vertex " + target + " is not part of graph " + g);
+	}
 
-		LinkedList<Edge> path = new LinkedList<Edge>();
-		NuptPath newPath = null;
-		// collect path data; must use internal method rather than
-		// calling getIncomingEdge() because getIncomingEdge() may
-		// wipe out results if results are not cached
-		Set<V> targets = new HashSet<V>();
-		targets.add(target);
-		singleSourceShortestPath(source, targets, g.getVertexCount(), true);
-		@SuppressWarnings({ "unchecked", "rawtypes" })
-		Map<V, E> incomingEdges = ((SourcePathData) sourceMap.get(source)).incomingEdges;
-		System.out.println("incomingEdges:" + incomingEdges);
+	/**
+	 * Follows the incoming edges of the given search state back from
+	 * <code>target</code> to <code>source</code>.
+	 * 
+	 * @return the path, or NULL if <code>target</code> has not been reached
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private NuptPath toPath(SourceData sd, V source, V target) {
+		Map<V, E> incomingEdges = ((SourcePathData) sd).incomingEdges;
 		if (incomingEdges.isEmpty() || incomingEdges.get(target) == null)
-			return newPath;
+			return null;
 
+		// the path is walked twice, to size its array and to fill it
+		int length = 0;
 		V current = target;
+		while (!current.equals(source)) {
+			current = ((Graph<V, E>) g).getOpposite(current, incomingEdges.get(current));
+			length++;
+		}
+		Edge[] path = new Edge[length];
+		current = target;
 		while (!current.equals(source)) {
 			E incoming = incomingEdges.get(current);
-			path.addFirst((Edge) incoming);
-			// System.out.println("current:"+current);
-			// System.out.println("incoming:"+incoming);
-			current = ((SparseMultigraph<V, E>) g).getOpposite(current, incoming);
-			// current = getOpposite(current, incoming);
+			path[--length] = (Edge) incoming;
+			current = ((Graph<V, E>) g).getOpposite(current, incoming);
 		}
+		NuptPath newPath = null;
 		try {
-			newPath = new NuptPath(path);
+			newPath = NuptPath.wrap(path);
 		} catch (ConstructionException e1) {
 			// TODO Auto-generated catch block
 			e1.printStackTrace();
@@ -182,9 +295,63 @@ public class LoadBalancingDistance<V, E> implements Distance<V> {
 	 */
 	public LinkedHashMap<V, Number> singleSourceShortestPath(V source, Collection<V> targets, int numDests,
 			boolean regular) {
-		reset(source);
-		SourceData sd = getSourceData(source);
+		return singleSourceShortestPath(source, targets, numDests, regular, new SearchContext());
+	}
 
+	/**
+	 * Same as {@link #singleSourceShortestPath(Object, Collection, int, boolean)},
+	 * and counts the settled vertices and relaxed edges into the given
+	 * <code>context</code>. Only the sums of the weights are kept in
+	 * {@link #sourceMap}; the search for the bottlenecks runs on a state of
+	 * its own, so that neither mode resumes a tree of the other.
+	 * 
+	 * @param source
+	 *            the vertex from which distances are to be measured
+	 * @param targets
+	 *            the set of vertices to which distances are to be measured
+	 * @param numDests
+	 *            the number of distances to measure
+	 * @param regular
+	 *            sums the edge weights along a path if TRUE, otherwise takes
+	 *            the largest one
+	 * @param context
+	 *            the bookkeeping of the current query
+	 */
+	public LinkedHashMap<V, Number> singleSourceShortestPath(V source, Collection<V> targets, int numDests,
+			boolean regular, SearchContext context) {
+		SourceData sd = regular ? getSourceData(source) : newSourceData(source);
+		synchronized (sd) {
+			return new LinkedHashMap<V, Number>(search(sd, targets, numDests, regular, Collections.<V> emptySet(),
+					Collections.<E> emptySet(), context));
+		}
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm on the given search state, skipping the given
+	 * vertices and edges, until one of the conditions described in
+	 * {@link #singleSourceShortestPath(Object, Collection, int, boolean)} is
+	 * met.
+	 * 
+	 * @param sd
+	 *            the search state to be continued
+	 * @param targets
+	 *            the set of vertices to which distances are to be measured
+	 * @param numDests
+	 *            the number of distances to measure
+	 * @param regular
+	 *            sums the edge weights along a path if TRUE, otherwise takes
+	 *            the largest one
+	 * @param excludedVertices
+	 *            the vertices which are regarded as removed from the graph
+	 * @param excludedEdges
+	 *            the edges which are regarded as removed from the graph
+	 * @param context
+	 *            the bookkeeping of the current query, the search stops
+	 *            early when it expires
+	 * @return the final distances found so far
+	 */
+	protected LinkedHashMap<V, Number> search(SourceData sd, Collection<V> targets, int numDests, boolean regular,
+			Set<V> excludedVertices, Set<E> excludedEdges, SearchContext context) {
 		Set<V> to_get = new HashSet<V>();
 		if (targets != null) {
 			to_get.addAll(targets);
@@ -198,14 +365,20 @@ public class LoadBalancingDistance<V, E> implements Distance<V> {
 		// if we've exceeded the max distance or max # of distances we're
 		// willing to calculate, or
 		// if we already have all the distances we need,
-		// terminate
-		if (sd.reached_max || (targets != null && to_get.isEmpty()) || (sd.distances.size() >= numDests)) {
+		// terminate. A resumed search must not stop only because it already
+		// holds numDests distances while some targets are still unknown.
+		if (sd.reached_max || (to_get.isEmpty() && sd.distances.size() >= numDests)) {
 			return sd.distances;
 		}
 
+		int settled = 0;
 		while (!sd.unknownVertices.isEmpty() && (sd.distances.size() < numDests || !to_get.isEmpty())) {
-			System.out.println("current node:" + source);
+			// the clock is only read every DEADLINE_CHECK_INTERVAL vertices
+			if (++settled % DEADLINE_CHECK_INTERVAL == 0 && context.isExpired()) {
+				break;
+			}
 			Map.Entry<V, Number> p = sd.getNextVertex();
+			context.vertexSettled();
 			V v = p.getKey();
 			double v_dist = p.getValue().doubleValue();
 			to_get.remove(v);
@@ -225,8 +398,12 @@ public class LoadBalancingDistance<V, E> implements Distance<V> {
 			}
 
 			for (E e : getEdgesToCheck(v)) {
+				if (excludedEdges.contains(e)) {
+					continue;
+				}
 				for (V w : g.getIncidentVertices(e)) {
-					if (!sd.distances.containsKey(w)) {
+					if (!sd.distances.containsKey(w) && !excludedVertices.contains(w)) {
+						context.edgeRelaxed();
 						double edge_weight = this.transformer.transform((Edge) e).doubleValue();
 						if (edge_weight < 0)
 							throw new IllegalArgumentException("Edges weights must be non-negative");
@@ -264,7 +441,7 @@ public class LoadBalancingDistance<V, E> implements Distance<V> {
 	 *            the vertex that is prepared to be cleared all stored distances
 	 */
 	public void reset(V source) {
-		sourceMap.put(source, null);
+		sourceMap.remove(source);
 	}
 
 	/**
@@ -274,7 +451,37 @@ public class LoadBalancingDistance<V, E> implements Distance<V> {
 	 * a change, <code>reset(V)</code> may be appropriate instead.
 	 */
 	public void reset() {
-		sourceMap = new HashMap<V, SourceData>();
+		graphVersion++;
+		sourceMap = newSourceMap();
+		indexedGraph = null;
+	}
+
+	/**
+	 * Gets the number of sources whose search state is cached.
+	 * 
+	 * @return at most the number of cached sources given at creation
+	 */
+	public int getCachedSourceCount() {
+		return sourceMap.size();
+	}
+
+	/**
+	 * Creates the map which caches the search state of the most recently used
+	 * sources, at most {@link #maxCachedSources} of them. A source which falls
+	 * out of the map simply has its tree rebuilt on its next query.
+	 * 
+	 * @return an empty, synchronized map in access order
+	 */
+	protected Map<V, SourceData> newSourceMap() {
+		final int capacity = this.maxCachedSources;
+		return Collections.synchronizedMap(new LinkedHashMap<V, SourceData>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<V, SourceData> eldest) {
+				return size() > capacity;
+			}
+		});
 	}
 
 	/**
@@ -290,10 +497,28 @@ public class LoadBalancingDistance<V, E> implements Distance<V> {
 	 *         <code>source {# source}</code>
 	 */
 	protected SourceData getSourceData(V source) {
-		SourceData sd = sourceMap.get(source);
-		if (sd == null)
-			sd = new SourceData(source);
-		return sd;
+		Map<V, SourceData> map = sourceMap;
+		synchronized (map) {
+			SourceData sd = map.get(source);
+			if (sd == null || sd.version != graphVersion) {
+				sd = newSourceData(source);
+				map.put(source, sd);
+			}
+			return sd;
+		}
+	}
+
+	/**
+	 * Creates a fresh {@link SourceData} for the given
+	 * <code>source {# source}</code> without recording it in @see
+	 * {@link #sourceMap}.
+	 * 
+	 * @param source
+	 *            the vertex from which distances are to be measured
+	 * @return a new {@link SourceData} instance
+	 */
+	protected SourceData newSourceData(V source) {
+		return new SourceData(source);
 	}
 
 	/**
@@ -356,14 +581,13 @@ public class LoadBalancingDistance<V, E> implements Distance<V> {
 		protected MapBinaryHeap<V> unknownVertices;
 		protected boolean reached_max = false;
 		protected double dist_reached = 0;
+		protected final long version = graphVersion;
 
 		protected SourceData(V source) {
 			distances = new LinkedHashMap<V, Number>();
 			estimatedDistances = new HashMap<V, Number>();
 			unknownVertices = new MapBinaryHeap<V>(new VertexComparator<V>(estimatedDistances));
 
-			sourceMap.put(source, this);
-
 			// initialize priority queue
 			estimatedDistances.put(source, new Double(0)); // distance from
 															// source to itself
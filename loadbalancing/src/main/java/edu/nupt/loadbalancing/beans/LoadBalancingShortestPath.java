@@ -3,23 +3,20 @@
  */
 package edu.nupt.loadbalancing.beans;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-
+import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 
 import org.opendaylight.controller.sal.core.ConstructionException;
 import org.opendaylight.controller.sal.core.Edge;
 import org.opendaylight.controller.sal.core.Node;
 import edu.uci.ics.jung.algorithms.shortestpath.ShortestPath;
 import edu.uci.ics.jung.graph.Graph;
-import edu.uci.ics.jung.graph.SparseMultigraph;
-import edu.uci.ics.jung.graph.util.EdgeType;
-import edu.uci.ics.jung.graph.util.Pair;
 
 /**
  * 
@@ -35,9 +32,7 @@ import edu.uci.ics.jung.graph.util.Pair;
  * @Date: 2017年3月17日
  */
 public class LoadBalancingShortestPath<V, E> extends LoadBalancingDistance<V, E> implements ShortestPath<V, E> {
-	protected List<NuptPath> results;
-	protected List<NuptPath> candidates;
-	private boolean more = true;
+	protected boolean deviationIndexed = true;
 
 	/**
 	 * Creates a LoadBalancingShortestPath instance based on a given global
@@ -51,8 +46,24 @@ public class LoadBalancingShortestPath<V, E> extends LoadBalancingDistance<V, E>
 	 */
 	public LoadBalancingShortestPath(Graph<V, E> g, int k) {
 		super(g, k);
-		this.results = new LinkedList<NuptPath>();
-		this.candidates = new LinkedList<NuptPath>();
+	}
+
+	public boolean isDeviationIndexed() {
+		return deviationIndexed;
+	}
+
+	/**
+	 * Turns Lawler's refinement of Yen's algorithm on or off. When it is on,
+	 * which is the default, the spur nodes of a path are only tried from the
+	 * node where that path deviates from its parent, because the spur
+	 * searches before that node were already done for the parent. Turning it
+	 * off is only useful to compare the two.
+	 * 
+	 * @param deviationIndexed
+	 *            TRUE to search spurs from the deviation node on only
+	 */
+	public void setDeviationIndexed(boolean deviationIndexed) {
+		this.deviationIndexed = deviationIndexed;
 	}
 
 	@Override
@@ -73,190 +84,53 @@ public class LoadBalancingShortestPath<V, E> extends LoadBalancingDistance<V, E>
 	 *         shortest paths from source{# source} to target{# target}
 	 */
 	public List<NuptPath> getPath(V source, V target) {
-		this.source = source;
-		this.target = target;
-		prepare();
-		int count = 1;
-		while (hasNext() && count < this.kTop) {
-			next();
-			count++;
-		}
-		return this.results;
+		return getPath(source, target, new SearchContext());
 	}
 
 	/**
-	 * Calculates the first shortest path by Dijkstra's algorithm and then
-	 * provides seed for the Yen's algorithm.
-	 */
-	private void prepare() {
-		System.out.println("prepare:" + this.g);
-		NuptPath firstPath = getShortestPathByDijkstra(source, target);
-		System.out.println("firstPath:" + firstPath);
-		this.results.add(firstPath);
-	}
-
-	/**
-	 * Determines whether it is necessary to continue the iteration.
+	 * Same as {@link #getPath(Object, Object)}, and counts the Yen iterations,
+	 * spur searches and the work of every Dijkstra run into the given
+	 * <code>context</code>.
 	 * 
-	 * @return boolean type which indicates determination result
+	 * @param source
+	 *            the vertex from which distances are to be measured
+	 * @param target
+	 *            the vertex to which distances are to be measured
+	 * @param context
+	 *            the bookkeeping of the current query
+	 * @return a <code>List</code> of {@link NuptPath} which indicates the K-Top
+	 *         shortest paths from source{# source} to target{# target}
 	 */
-	private boolean hasNext() {
-		return this.more;
+	public List<NuptPath> getPath(V source, V target, SearchContext context) {
+		List<NuptPath> results = new ArrayList<NuptPath>(kTop);
+		Iterator<NuptPath> paths = iterator(source, target, context);
+		while (paths.hasNext()) {
+			results.add(paths.next());
+		}
+		return results;
 	}
 
 	/**
-	 * Implements Yen's single-source K-shortest algorithm for an acyclic graph
-	 * with non-negative edge cost.
-	 * 
-	 * The algorithm can be broken down into two parts, determining the first
-	 * k-shortest path A[1], and then determining all other k-shortest paths. It
-	 * is assumed that the container A will hold the k-shortest path, whereas
-	 * the container B, will hold the potential k-shortest paths. To determine
-	 * A[1], the shortest path from the source to the sink, any efficient
-	 * shortest path algorithm can be used.
+	 * Returns an <code>Iterator</code> over the K-Top shortest paths from
+	 * <code>source</code> to <code>target</code> in order of their cost. The
+	 * paths are computed on demand: the first one costs a single Dijkstra run,
+	 * and every further one an iteration of Yen's algorithm, so a caller which
+	 * is satisfied early does not pay for the rest. When the
+	 * <code>context</code> expires, the iterator ends after the paths found so
+	 * far, and {@link SearchContext#isTruncated()} tells the caller so. The
+	 * iterator holds all the state of the query, and the graph must not be
+	 * modified while it is in use.
 	 * 
-	 * To find the A[k], where k ranges from 2 to K, the algorithm assumes that
-	 * all paths from A[1] to A[k-1] have previously been found. The k iteration
-	 * can be divided into two processes, finding all the deviations A[k][i] and
-	 * choosing a minimum length path to become A[k]. Note that in this
-	 * iteration,i ranges from 1 to the size of A[k] minus 1.
-	 * 
-	 * The first process can be further subdivided into three operations,
-	 * choosing the R[k][i], finding S[k][i], and then adding A[k][i] to the
-	 * container B. The root path, R[k][i], is chosen by finding the sub-path in
-	 * A[k-1] that follows the first i nodes of A[j], where j ranges from 1 to
-	 * k-1. Then, if a path is found, the cost of edge d[i][i+1] of A[j] is set
-	 * to infinity. Next, the spur path, S[k][i], is found by computing the
-	 * shortest path from the spur node, node i, to the sink. The removal of
-	 * previous used edges from (i) to (i+1) ensures that the spur path is
-	 * different.A[k][i]=R[k][i]+S[K][i], the addition of the root path and the
-	 * spur path, is added to B. Next, the edges that were removed, i.e. had
-	 * their cost set to infinity, are restored to their initial values.
-	 * 
-	 * The second process determines a suitable path for A[K] by finding the
-	 * path in container B with the lowest cost. This path is removed from
-	 * container B and inserted into container A and the algorithm continues to
-	 * the next iteration. Note that if the amount of paths in container B equal
-	 * or exceed the amount of k-shortest paths that still need to be found,
-	 * then the necessary paths of container B are added to container A and the
-	 * algorithm is finished.
-	 * 
-	 * space complexity: To store the edges of the graph, the shortest path list
-	 * A, and the potential shortest path list B,N^2+KN memory addresses are
-	 * required,where N is the amount of nodes in the graph.
-	 * 
-	 * time complexity: The time complexity of Yen's algorithm is dependent on
-	 * the shortest path algorithm used in the computation of the spur paths, so
-	 * the Dijkstra algorithm is assumed.At worse case,the time complexity
-	 * becomes O(KN(M+NlogN)),where M is the amount of edges in the graph.
-	 * 
-	 * It is worth noting that even if the Dijkstra algorithm does not calculate
-	 * the shortest path, the deleted nodes and edges should be restored to
-	 * avoid affecting the next iteration.
+	 * @param source
+	 *            the vertex from which distances are to be measured
+	 * @param target
+	 *            the vertex to which distances are to be measured
+	 * @param context
+	 *            the bookkeeping of the current query
+	 * @return an <code>Iterator</code> of at most K {@link NuptPath}
 	 */
-	@SuppressWarnings("unchecked")
-	private void next() {
-		System.out.println("the graph before starting to calculate:" + this.g);
-		NuptPath curPath = this.results.get(this.results.size() - 1);
-		int size = curPath.nodeSize();
-		Node spurVertex = null;
-		NuptPath rootPath = null;
-		List<V> removedNodes = new LinkedList<V>();
-		Map<E, Pair<V>> removedMap = new HashMap<E, Pair<V>>();
-		E remoEdge = null;
-		V remoNode = null;
-		for (int i = 0; i < size - 1; i++) {
-			// System.out.println("before:"+g);
-			removedNodes.clear();
-			removedMap.clear();
-			spurVertex = curPath.getNode(i);
-			rootPath = curPath.getSubPathByNodeIndex(0, i);
-			for (NuptPath path : this.results) {
-				if (i <= path.size() && rootPath.equals(path.getSubPathByNodeIndex(0, i))) {
-					// remove (i,i+1) from graph
-					// System.out.println("edge coming
-					// remove:"+this.g.getEdge(s,t));
-					remoEdge = (E) path.getEdge(i);
-					if (remoEdge != null) {
-						System.out.println("from 1 section:" + ((SparseMultigraph<V, E>) g).getEndpoints(remoEdge));
-						if (((SparseMultigraph<V, E>) g).getEndpoints(remoEdge) != null) {
-							removedMap.put(remoEdge, ((SparseMultigraph<V, E>) g).getEndpoints(remoEdge));
-						}
-						// removedEdges.add(remoEdge);
-						this.g.removeEdge(remoEdge);
-					}
-				}
-			}
-			Collection<E> incidentEdges = null;
-
-			for (Node v : rootPath.getNodes()) {
-				// remove v from graph
-				if (v != spurVertex) {
-					remoNode = (V) v;
-					System.out.println("nodes removed:");
-					incidentEdges = this.g.getIncidentEdges(remoNode);
-					if (incidentEdges != null) {
-						for (E e : incidentEdges) {
-							System.out.println("from 2 section:" + ((SparseMultigraph<V, E>) g).getEndpoints(e));
-							removedMap.put(e, ((SparseMultigraph<V, E>) g).getEndpoints(e));
-						}
-					}
-					removedNodes.add(remoNode);
-					this.g.removeVertex(remoNode);
-				}
-			}
-
-			// calculate the shortest path between spur node and target node
-			// based on Dijkstra
-			System.out.println("the graph before getShortestPathByDijkstra:" + this.g);
-			NuptPath subPath = getShortestPathByDijkstra((V) spurVertex, this.target);
-			System.out.println("the graph after getShortestPathByDijkstra NuptPath:");
-			System.out.println(subPath);
-			if (subPath != null) {
-				// merge path newPath=rootPath+subPath
-				NuptPath newPath = merge(rootPath, subPath);
-				if (!this.candidates.contains(newPath)) {
-					this.candidates.add(newPath);
-				}
-			}
-
-			System.out.println("the graph before restoring:" + this.g);
-			// restore nodes in rootPath to graph;
-			for (V v : removedNodes) {
-				this.g.addVertex(v);
-			}
-			// restore edges to graph;
-			for (Entry<E, Pair<V>> entry : removedMap.entrySet()) {
-				System.out.println("from 3 section:" + entry.getValue());
-				this.g.addEdge(entry.getKey(), entry.getValue(), EdgeType.DIRECTED);
-			}
-
-			System.out.println("the graph after restoring:" + this.g);
-		}
-		/**
-		 * This judgment is necessary, because it determines whether it is
-		 * necessary to iterate. If there is no splittable path in the candidate
-		 * set, the iteration is terminated.
-		 */
-		if (this.candidates.isEmpty()) {
-			this.more = false;
-			return;
-		}
-
-		Integer min = Integer.MAX_VALUE;
-		NuptPath newPath = null;
-		int wh = 0;
-		for (NuptPath p : this.candidates) {
-			wh = weightSum(p);
-			if (wh < min) {
-				min = wh;
-				newPath = p;
-			}
-		}
-		// System.out.println("newPath:"+(newPath==null))
-
-		this.results.add(newPath);
-		this.candidates.remove(newPath);
+	public Iterator<NuptPath> iterator(V source, V target, SearchContext context) {
+		return new PathIterator(source, target, context);
 	}
 
 	/**
@@ -268,8 +142,8 @@ public class LoadBalancingShortestPath<V, E> extends LoadBalancingDistance<V, E>
 	 */
 	public int weightSum(NuptPath path) {
 		int result = 0;
-		for (Edge edge : path.getEdges()) {
-			result += this.transformer.transform(edge).intValue();
+		for (int i = 0; i < path.size(); i++) {
+			result += this.transformer.transform(path.getEdge(i)).intValue();
 		}
 		return result;
 	}
@@ -309,46 +183,291 @@ public class LoadBalancingShortestPath<V, E> extends LoadBalancingDistance<V, E>
 
 		Node tail = before.lastNode();
 		Node head = after.firstNode();
-		NuptPath newPath = null;
-		try {
-			newPath = new NuptPath(before);
-		} catch (ConstructionException e) {
-			e.printStackTrace();
+		if (tail.equals(head)) {
+			return before.concat(after);
+		}
+		Collection<V> col = this.g.getSuccessors((V) tail);
+		for (V v : col) {
+			// check the continuity between NuptPath before and NuptPath after
+			if (((Node) v).equals(head)) {
+				// get and add edge
+				return before.append((Edge) this.g.findEdge((V) tail, v)).concat(after);
+			}
 		}
+		return before;
 
-		if (tail == head) {
-			for (Edge edge : after.getEdges()) {
-				newPath.append(edge);
+	}
+
+	@Override
+	protected LoadBalancingDistance<V, E>.SourceData newSourceData(V source) {
+		return new SourcePathData(source);
+	}
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: The state of one K-Top shortest path query: the container
+	 *               A of the paths handed out so far and the container B of
+	 *               the potential next paths, each with the index of the node
+	 *               where it deviates from the path it was derived from. Every
+	 *               call of {@link #hasNext()} after a path was taken runs at
+	 *               most one iteration of Yen's algorithm.
+	 */
+	protected class PathIterator implements Iterator<NuptPath> {
+		private final V source;
+		private final V target;
+		private final SearchContext context;
+		private final List<NuptPath> results;
+		private final List<NuptPath> candidates;
+		private final Map<NuptPath, Integer> deviations;
+		private final PathTrie accepted;
+		private NuptPath pending;
+		private boolean exhausted;
+
+		protected PathIterator(V source, V target, SearchContext context) {
+			this.source = source;
+			this.target = target;
+			this.context = context;
+			this.results = new ArrayList<NuptPath>(kTop);
+			this.candidates = new ArrayList<NuptPath>();
+			this.deviations = new HashMap<NuptPath, Integer>();
+			this.accepted = new PathTrie();
+		}
+
+		public boolean hasNext() {
+			if (this.pending == null && !this.exhausted) {
+				if (this.context.isExpired()) {
+					this.exhausted = true;
+					return false;
+				}
+				this.pending = this.results.isEmpty() ? prepare() : next(this.results.get(this.results.size() - 1));
+				this.exhausted = this.pending == null;
+			}
+			return this.pending != null;
+		}
+
+		public NuptPath next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			NuptPath path = this.pending;
+			this.pending = null;
+			this.results.add(path);
+			this.accepted.add(path);
+			return path;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		/**
+		 * Calculates the first shortest path by Dijkstra's algorithm and then
+		 * provides seed for the Yen's algorithm.
+		 */
+		private NuptPath prepare() {
+			if (kTop < 1) {
+				return null;
+			}
+			NuptPath path = getShortestPathByDijkstra(this.source, this.target, this.context);
+			if (path != null) {
+				this.deviations.put(path, 0);
+			}
+			return path;
+		}
+
+		/**
+		 * Implements Yen's single-source K-shortest algorithm for an acyclic
+		 * graph with non-negative edge cost.
+		 * 
+		 * The algorithm can be broken down into two parts, determining the
+		 * first k-shortest path A[1], and then determining all other
+		 * k-shortest paths. It is assumed that the container A will hold the
+		 * k-shortest path, whereas the container B, will hold the potential
+		 * k-shortest paths. To determine A[1], the shortest path from the
+		 * source to the sink, any efficient shortest path algorithm can be
+		 * used.
+		 * 
+		 * To find the A[k], where k ranges from 2 to K, the algorithm assumes
+		 * that all paths from A[1] to A[k-1] have previously been found. The k
+		 * iteration can be divided into two processes, finding all the
+		 * deviations A[k][i] and choosing a minimum length path to become
+		 * A[k]. Note that in this iteration,i ranges from 1 to the size of
+		 * A[k] minus 1.
+		 * 
+		 * The first process can be further subdivided into three operations,
+		 * choosing the R[k][i], finding S[k][i], and then adding A[k][i] to
+		 * the container B. The root path, R[k][i], is chosen by finding the
+		 * sub-path in A[k-1] that follows the first i nodes of A[j], where j
+		 * ranges from 1 to k-1. Then, if a path is found, the edge d[i][i+1]
+		 * of A[j] is excluded from the search. Next, the spur path, S[k][i],
+		 * is found by computing the shortest path from the spur node, node i,
+		 * to the sink, without the excluded edges and the nodes of the root
+		 * path. The exclusion of previous used edges from (i) to (i+1) ensures
+		 * that the spur path is different. A[k][i]=R[k][i]+S[K][i], the
+		 * addition of the root path and the spur path, is added to B.
+		 * 
+		 * The second process determines a suitable path for A[K] by finding
+		 * the path in container B with the lowest cost. This path is removed
+		 * from container B and inserted into container A and the algorithm
+		 * continues to the next iteration.
+		 * 
+		 * space complexity: To store the edges of the graph, the shortest path
+		 * list A, and the potential shortest path list B,N^2+KN memory
+		 * addresses are required,where N is the amount of nodes in the graph.
+		 * 
+		 * time complexity: The time complexity of Yen's algorithm is dependent
+		 * on the shortest path algorithm used in the computation of the spur
+		 * paths, so the Dijkstra algorithm is assumed.At worse case,the time
+		 * complexity becomes O(KN(M+NlogN)),where M is the amount of edges in
+		 * the graph.
+		 * 
+		 * With Lawler's refinement the spur nodes of A[k-1] are only tried
+		 * from its deviation index on, i.e. the node at which its root path
+		 * ends: before that node A[k-1] shares the root path of its parent,
+		 * whose spur paths are already in A or B.
+		 * 
+		 * The edges d[i][i+1] to exclude are the branches of the prefix trie
+		 * of A after the root path, so they are found by walking down the trie
+		 * along A[k-1] once, instead of comparing the root path with every
+		 * path of A at every spur node.
+		 * 
+		 * It is worth noting that the excluded nodes and edges are only
+		 * skipped by the spur search, the shared graph is never modified, so
+		 * any number of queries may run over it at the same time.
+		 * 
+		 * The spur searches run over the array copy of the graph with the
+		 * scratch state of the calling thread, which marks the excluded
+		 * nodes and edges as well, and every candidate is written straight
+		 * into the array of its path. So an iteration only allocates the
+		 * candidates it finds.
+		 * 
+		 * @param curPath
+		 *            the path A[k-1] which was taken last
+		 * @return the path A[k], or NULL if there is none or K paths were
+		 *         already taken
+		 */
+		@SuppressWarnings("unchecked")
+		private NuptPath next(NuptPath curPath) {
+			if (this.results.size() >= kTop) {
+				return null;
 			}
-		} else {
-			Collection<V> col = this.g.getSuccessors((V) tail);
-			Node temp = null;
-			for (V v : col) {
-				temp = (Node) v;
-				// check the continuity between NuptPath before and NuptPath
-				// after
-				if (temp == head) {
-					// get and add edge
-					newPath.append((Edge) this.g.findEdge((V) tail, v));
-					for (Edge edge : after.getEdges()) {
-						newPath.append(edge);
+			IndexedGraph<V, E> graph = getIndexedGraph();
+			SearchArena arena = getArena(graph);
+			int target = graph.vertexId(this.target);
+			int size = curPath.nodeSize();
+			int first = deviationIndexed ? this.deviations.get(curPath).intValue() : 0;
+			arena.clearExcludedVertices();
+			PathTrie prefix = this.accepted;
+			for (int i = 0; i < first; i++) {
+				arena.excludeVertex(graph.vertexId((V) curPath.getNode(i)));
+				prefix = prefix.child(curPath.getEdge(i));
+			}
+			for (int i = first; i < size - 1; i++) {
+				int spurVertex = graph.vertexId((V) curPath.getNode(i));
+				// exclude (i,i+1) of all the paths of A which share the root
+				// path, and the nodes of the root path but the spur node
+				arena.clearExcludedEdges();
+				for (int b = 0; b < prefix.size(); b++) {
+					arena.excludeEdge(graph.edgeId(prefix.edge(b)));
+				}
+
+				// a partial iteration cannot tell which candidate is the next
+				// shortest path, so it is given up as a whole
+				if (this.context.isExpired()) {
+					return null;
+				}
+				// calculate the shortest path between spur node and target node
+				// based on Dijkstra
+				this.context.spurSearched();
+				int spurSize = arena.search(graph, spurVertex, target, max_distance, max_targets, this.context);
+				if (spurSize >= 0) {
+					// newPath=rootPath+subPath
+					Edge[] edges = new Edge[i + spurSize];
+					for (int j = 0; j < i; j++) {
+						edges[j] = curPath.getEdge(j);
+					}
+					arena.copyPath(graph, target, edges, edges.length);
+					NuptPath newPath;
+					try {
+						newPath = NuptPath.wrap(edges);
+					} catch (ConstructionException e) {
+						throw new IllegalStateException(e);
+					}
+					if (!this.deviations.containsKey(newPath)) {
+						this.candidates.add(newPath);
+						this.deviations.put(newPath, i);
 					}
-					break;
 				}
+				arena.excludeVertex(spurVertex);
+				prefix = prefix.child(curPath.getEdge(i));
+			}
+			this.context.yenIterated(this.candidates.size());
+			if (this.context.isExpired()) {
+				return null;
+			}
+			/**
+			 * This judgment is necessary, because it determines whether it is
+			 * necessary to iterate. If there is no splittable path in the
+			 * candidate set, the iteration is terminated.
+			 */
+			if (this.candidates.isEmpty()) {
+				return null;
 			}
 
+			int min = Integer.MAX_VALUE;
+			NuptPath newPath = null;
+			int wh = 0;
+			for (NuptPath p : this.candidates) {
+				wh = weightSum(p);
+				if (wh < min) {
+					min = wh;
+					newPath = p;
+				}
+			}
+			this.candidates.remove(newPath);
+			return newPath;
 		}
 
-		return newPath;
-
 	}
 
-	@Override
-	protected LoadBalancingDistance<V, E>.SourceData getSourceData(V source) {
-		SourceData sd = sourceMap.get(source);
-		if (sd == null)
-			sd = new SourcePathData(source);
-		return sd;
+	/**
+	 * @Project: loadbalancing
+	 * @Description: A prefix trie of paths keyed by edge. The children of the
+	 *               node reached by a root path are the edges with which the
+	 *               paths sharing that root path go on.
+	 */
+	private static class PathTrie {
+		private final Map<Edge, PathTrie> children = new HashMap<Edge, PathTrie>(4);
+		/**
+		 * The keys of {@link #children}, walked without an iterator.
+		 */
+		private final List<Edge> branches = new ArrayList<Edge>(4);
+
+		private void add(NuptPath path) {
+			PathTrie node = this;
+			for (int i = 0; i < path.size(); i++) {
+				Edge edge = path.getEdge(i);
+				PathTrie child = node.children.get(edge);
+				if (child == null) {
+					child = new PathTrie();
+					node.children.put(edge, child);
+					node.branches.add(edge);
+				}
+				node = child;
+			}
+		}
+
+		private PathTrie child(Edge edge) {
+			return this.children.get(edge);
+		}
+
+		private int size() {
+			return this.branches.size();
+		}
+
+		private Edge edge(int index) {
+			return this.branches.get(index);
+		}
 	}
 
 	/**
@@ -384,14 +503,8 @@ public class LoadBalancingShortestPath<V, E> extends LoadBalancingDistance<V, E>
 		public Map.Entry<V, Number> getNextVertex() {
 			Map.Entry<V, Number> p = super.getNextVertex();
 			V v = p.getKey();
-			System.out.println("next node:" + v);
-			System.out.println("weight of n->s:" + p.getValue());
-			System.out.println("contains v:" + tentativeIncomingEdges.containsKey(v));
-			System.out.println("tentativeIncomingEdges:" + tentativeIncomingEdges);
 			E incoming = tentativeIncomingEdges.remove(v);
 			incomingEdges.put(v, incoming);
-			System.out.println("V:" + v);
-			System.out.println("incoming:" + incoming);
 			return p;
 		}
 
@@ -4,13 +4,15 @@
 package edu.nupt.loadbalancing.beans;
 
 import java.io.Serializable;
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 
 import org.opendaylight.controller.sal.core.ConstructionException;
 import org.opendaylight.controller.sal.core.Edge;
 import org.opendaylight.controller.sal.core.Node;
-import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.core.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,14 +23,23 @@ import org.slf4j.LoggerFactory;
  *               similar to {@link org.opendaylight.controller.sal.core.Path},
  *               the class's function attribute is only edges list,while
  *               provides some convenient operation.
+ *
+ *               A path is immutable. Its edges are kept in an array, so that
+ *               indexed access is O(1), and a sub-path is a view on a range of
+ *               the array of its parent, which costs neither a copy nor a
+ *               validation. The hash code is computed once and then cached.
  * @Author: Yanjun Wang
  * @Date: 2017年3月17日
  */
 public class NuptPath implements Serializable {
 
-	private static final long serialVersionUID = -3440647827570577550L;
+	private static final long serialVersionUID = 6183419752042315829L;
+	private static final Edge[] NO_EDGES = new Edge[0];
 	protected static final Logger logger = LoggerFactory.getLogger(NuptPath.class);
-	private List<Edge> edges;
+	private final Edge[] edges;
+	private final int offset;
+	private final int length;
+	private transient int hash;
 
 	/**
 	 * Creates a path instance based on a given list of edges
@@ -40,12 +51,11 @@ public class NuptPath implements Serializable {
 	 */
 	public NuptPath(List<Edge> edges) throws ConstructionException {
 		if (validate(edges)) {
-			this.edges = new LinkedList<Edge>();
-			for (Edge e : edges) {
-				this.edges.add(e);
-			}
+			this.edges = edges.toArray(new Edge[edges.size()]);
+			this.offset = 0;
+			this.length = this.edges.length;
 		} else {
-			System.out.println(edges);
+			logger.debug("Invalid edge list: {}", edges);
 			throw new ConstructionException(
 					"the link list does not satisfy the continuity and consistency constraints.");
 		}
@@ -59,12 +69,12 @@ public class NuptPath implements Serializable {
 	 *             throws ConstructionException if validates fails
 	 */
 	public NuptPath() throws ConstructionException {
-		this.edges = new LinkedList<Edge>();
+		this(NO_EDGES, 0, 0);
 	}
 
 	/**
 	 * Constructor overload: creates a path instance based on a given instance,
-	 * and copy all edges into the new instance.
+	 * and shares all edges with the new instance.
 	 * 
 	 * @param path
 	 *            an original path which is a given instance
@@ -72,14 +82,44 @@ public class NuptPath implements Serializable {
 	 *             throws ConstructionException if validates fails
 	 */
 	public NuptPath(NuptPath path) throws ConstructionException {
-		this();
 		if (path == null) {
 			throw new ConstructionException("parameter path is null.");
 		}
+		this.edges = path.edges;
+		this.offset = path.offset;
+		this.length = path.length;
+		this.hash = path.hash;
+	}
+
+	/**
+	 * Creates a view on <code>length</code> edges of <code>edges</code>,
+	 * starting at <code>offset</code>, which are known to be continuous.
+	 */
+	private NuptPath(Edge[] edges, int offset, int length) {
+		this.edges = edges;
+		this.offset = offset;
+		this.length = length;
+	}
 
-		for (Edge e : path.edges) {
-			this.edges.add(e);
+	/**
+	 * Creates a path of <code>edges</code> without copying them, so the
+	 * caller must not change the array afterwards.
+	 * 
+	 * @param edges
+	 *            the edges of the path
+	 * @return the path
+	 * @throws ConstructionException
+	 *             throws ConstructionException if validates fails
+	 */
+	static NuptPath wrap(Edge[] edges) throws ConstructionException {
+		for (int i = 0; i < edges.length; i++) {
+			if (edges[i] == null || (i > 0 && !edges[i - 1].getHeadNodeConnector().getNode()
+					.equals(edges[i].getTailNodeConnector().getNode()))) {
+				throw new ConstructionException(
+						"the link list does not satisfy the continuity and consistency constraints.");
+			}
 		}
+		return new NuptPath(edges, 0, edges.length);
 	}
 
 	/**
@@ -99,14 +139,12 @@ public class NuptPath implements Serializable {
 		if (edges == null) {
 			return false;
 		}
-		if (edges.isEmpty()) {
-			return true;
-		}
-		Edge pre = edges.get(0);
-		Edge cur = null;
-		for (int i = 1; i < edges.size(); i++) {
-			cur = edges.get(i);
-			if (!pre.getHeadNodeConnector().getNode().equals(cur.getTailNodeConnector().getNode())) {
+		Edge pre = null;
+		for (Edge cur : edges) {
+			if (cur == null) {
+				return false;
+			}
+			if (pre != null && !pre.getHeadNodeConnector().getNode().equals(cur.getTailNodeConnector().getNode())) {
 				return false;
 			}
 			pre = cur;
@@ -117,10 +155,21 @@ public class NuptPath implements Serializable {
 	/**
 	 * Gets all edges in the path.
 	 * 
-	 * @return edge list
+	 * @return a read-only list of the edges, backed by the path
 	 */
 	public List<Edge> getEdges() {
-		return edges;
+		return new EdgeList();
+	}
+
+	/**
+	 * Converts the path into an OpenDaylight {@link Path}.
+	 * 
+	 * @return a path with the same edges
+	 * @throws ConstructionException
+	 *             if the path has no edge
+	 */
+	public Path toPath() throws ConstructionException {
+		return new Path(Arrays.asList(Arrays.copyOfRange(this.edges, this.offset, this.offset + this.length)));
 	}
 
 	/**
@@ -142,7 +191,7 @@ public class NuptPath implements Serializable {
 	 * 			the size of vertexes in the path
 	 */
 	public int nodeSize() {
-		return this.edges.isEmpty() ? 0 : this.edges.size() + 1;
+		return this.length == 0 ? 0 : this.length + 1;
 	}
 
 	/**
@@ -156,17 +205,13 @@ public class NuptPath implements Serializable {
 	 * 			  the corresponding vertex
 	 */
 	public Node getNode(int index) {
-		if (index < 0 || index > this.edges.size()) {
+		if (index < 0 || index > this.length || this.length == 0) {
 			return null;
 		}
-		NodeConnector connector = null;
 		if (index == 0) {
-			connector = this.edges.get(index).getTailNodeConnector();
-		} else {
-			connector = this.edges.get(index - 1).getHeadNodeConnector();
+			return this.edges[this.offset].getTailNodeConnector().getNode();
 		}
-
-		return connector.getNode();
+		return this.edges[this.offset + index - 1].getHeadNodeConnector().getNode();
 	}
 
 	/**
@@ -178,10 +223,10 @@ public class NuptPath implements Serializable {
 	 * 			  the corresponding edge
 	 */
 	public Edge getEdge(int index) {
-		if (index < 0 || index >= this.edges.size()) {
+		if (index < 0 || index >= this.length) {
 			return null;
 		}
-		return this.edges.get(index);
+		return this.edges[this.offset + index];
 	}
 
 	/**
@@ -189,18 +234,10 @@ public class NuptPath implements Serializable {
 	 * {@link #nodeSize()} for the principles involved in this method.
 	 * 
 	 * @return 
-	 * 			a list which storages all vertexes
+	 * 			a read-only list of all vertexes, backed by the path
 	 */
 	public List<Node> getNodes() {
-		LinkedList<Node> nodes = new LinkedList<Node>();
-		if (size() == 0)
-			return nodes;
-		int i = 0;
-		for (; i < this.edges.size(); i++) {
-			nodes.add(this.edges.get(i).getTailNodeConnector().getNode());
-		}
-		nodes.add(this.edges.get(i - 1).getHeadNodeConnector().getNode());
-		return nodes;
+		return new NodeList();
 	}
 
 	/**
@@ -210,10 +247,7 @@ public class NuptPath implements Serializable {
 	 * @return the head vertex in the path
 	 */
 	public Node firstNode() {
-		if (this.edges.isEmpty()) {
-			return null;
-		}
-		return this.edges.get(0).getTailNodeConnector().getNode();
+		return getNode(0);
 	}
 
 	/**
@@ -224,10 +258,7 @@ public class NuptPath implements Serializable {
 	 * 			the tail vertex in the path
 	 */
 	public Node lastNode() {
-		if (this.edges.isEmpty()) {
-			return null;
-		}
-		return this.edges.get(size() - 1).getHeadNodeConnector().getNode();
+		return getNode(this.length);
 	}
 
 	/**
@@ -238,7 +269,7 @@ public class NuptPath implements Serializable {
 	 * 			the length of the path
 	 */
 	public int size() {
-		return this.edges.size();
+		return this.length;
 	}
 
 	/**
@@ -251,7 +282,8 @@ public class NuptPath implements Serializable {
 	 * <tt>starting {#start}</tt> index must be non-negative, and less than or
 	 * equal to the <tt>
 	 * terminating {#end}</tt> index, and the terminating index can not be
-	 * greater than the number of edges, otherwise returns directly NULL.
+	 * greater than the number of edges, otherwise returns directly NULL. The
+	 * sub-path shares the edges of this path.
 	 * 
 	 * @param start
 	 *            the first vertex index of the sub-path
@@ -261,66 +293,69 @@ public class NuptPath implements Serializable {
 	 * 			  a sub-path retrieved from current path
 	 */
 	public NuptPath getSubPathByNodeIndex(int start, int end) {
-		int size = size();
-		if (size == 0) {
+		if (this.length == 0 || start < 0 || start > end || end > this.length) {
 			return null;
 		}
-		if (start > end) {
-			return null;
-		}
-		if (start < 0 && end > size) {
-			return null;
-		}
-
-		List<Edge> subPath = this.edges.subList(start, end);
-		NuptPath path = null;
-		try {
-			path = new NuptPath(subPath);
-		} catch (ConstructionException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
-		return path;
+		return new NuptPath(this.edges, this.offset + start, end - start);
 	}
 
 	/**
-	 * The method is used to append a new edge to the end of the current path.
-	 * If the length of current path is equal to 0, the edge is added directly
-	 * to the current path without continuity checking, but if the current path
-	 * already contains other edges, a continuity check must be made. The check
-	 * is whether the last node in the current path is the same as the TAIL node
-	 * on the new edge, and if true, the operation successes and returns TRUE,
-	 * or fails and return FALSE.The principle of the check is the same as that
-	 * of @see {@link #validate(List)}.
+	 * Returns a new path made of this path followed by the given
+	 * <code>edge</code>. The check is whether the last node in the current
+	 * path is the same as the TAIL node on the new edge. The principle of the
+	 * check is the same as that of @see {@link #validate(List)}.
 	 * 
 	 * @param edge
 	 *            an edge which is prepared to be added into the last position
 	 *            of the path
 	 * @return 
-	 * 			  boolean type which indicates the operation result
+	 * 			  the longer path, or NULL if the edge does not continue this path
 	 */
-	public boolean append(Edge edge) {
+	public NuptPath append(Edge edge) {
 		if (edge == null) {
-			return false;
+			return null;
 		}
-		if (size() == 0) {
-			this.edges.add(edge);
-			return true;
+		if (this.length > 0 && !lastNode().equals(edge.getTailNodeConnector().getNode())) {
+			return null;
 		}
+		Edge[] joined = Arrays.copyOfRange(this.edges, this.offset, this.offset + this.length + 1);
+		joined[this.length] = edge;
+		return new NuptPath(joined, 0, joined.length);
+	}
 
-		if (this.lastNode() == edge.getTailNodeConnector().getNode()) {
-			this.edges.add(edge);
-			return true;
+	/**
+	 * Returns a new path made of this path followed by <code>after</code>,
+	 * which must start where this path ends.
+	 * 
+	 * @param after
+	 *            the path which is prepared to be added behind this path
+	 * @return 
+	 * 			  the joined path, or NULL if <code>after</code> does not continue
+	 *         this path
+	 */
+	public NuptPath concat(NuptPath after) {
+		if (after == null) {
+			return null;
 		}
-
-		return false;
+		if (this.length > 0 && after.length > 0 && !lastNode().equals(after.firstNode())) {
+			return null;
+		}
+		Edge[] joined = Arrays.copyOfRange(this.edges, this.offset, this.offset + this.length + after.length);
+		System.arraycopy(after.edges, after.offset, joined, this.length, after.length);
+		return new NuptPath(joined, 0, joined.length);
 	}
 
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((edges == null) ? 0 : edges.hashCode());
+		int result = this.hash;
+		if (result == 0) {
+			// the same as the hash code of the list of the edges
+			result = 1;
+			for (int i = this.offset; i < this.offset + this.length; i++) {
+				result = 31 * result + this.edges[i].hashCode();
+			}
+			this.hash = result;
+		}
 		return result;
 	}
 
@@ -333,11 +368,16 @@ public class NuptPath implements Serializable {
 		if (getClass() != obj.getClass())
 			return false;
 		NuptPath other = (NuptPath) obj;
-		if (edges == null) {
-			if (other.edges != null)
-				return false;
-		} else if (!edges.equals(other.edges))
+		if (this.length != other.length)
 			return false;
+		if (this.hash != 0 && other.hash != 0 && this.hash != other.hash)
+			return false;
+		for (int i = 0; i < this.length; i++) {
+			Edge edge = this.edges[this.offset + i];
+			Edge otherEdge = other.edges[other.offset + i];
+			if (edge != otherEdge && !edge.equals(otherEdge))
+				return false;
+		}
 		return true;
 	}
 
@@ -345,15 +385,57 @@ public class NuptPath implements Serializable {
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("[");
-		for (int i = 0; i < this.edges.size(); i++) {
+		for (int i = 0; i < this.length; i++) {
 			if (i != 0) {
 				// add the comma to the previous element
 				sb.append(",");
 			}
-			sb.append(this.edges.get(i).toString());
+			sb.append(this.edges[this.offset + i].toString());
 		}
 		sb.append("]");
 		return sb.toString();
 	}
 
+	/**
+	 * A sub-path only writes its own edges, not the whole array of its
+	 * parent.
+	 */
+	private Object writeReplace() {
+		if (this.offset == 0 && this.length == this.edges.length) {
+			return this;
+		}
+		return new NuptPath(Arrays.copyOfRange(this.edges, this.offset, this.offset + this.length), 0, this.length);
+	}
+
+	private class EdgeList extends AbstractList<Edge> implements RandomAccess {
+		@Override
+		public Edge get(int index) {
+			if (index < 0 || index >= length) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+			}
+			return edges[offset + index];
+		}
+
+		@Override
+		public int size() {
+			return length;
+		}
+	}
+
+	private class NodeList extends AbstractList<Node> implements RandomAccess {
+		@Override
+		public Node get(int index) {
+			Node node = getNode(index);
+			if (node == null) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + nodeSize());
+			}
+			return node;
+		}
+
+		@Override
+		public int size() {
+			return nodeSize();
+		}
+	}
+
 }
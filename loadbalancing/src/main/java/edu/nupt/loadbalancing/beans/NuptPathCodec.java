@@ -0,0 +1,192 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.beans;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Writes paths as the numbers of their edges in a
+ *               {@link TopologyDictionary}, each number as a varint, so that a
+ *               path of a few hops takes a few bytes instead of the hundreds
+ *               of bytes of Java serialization. A route table is written as a
+ *               header, made of the format and the version of the dictionary,
+ *               followed by its paths:
+ *
+ *               <pre>
+ * header: varint format, long dictionary version
+ * path:   varint number of edges, varint edge number*
+ *               </pre>
+ *
+ *               The paths are encoded and decoded one at a time on a
+ *               {@link ByteBuffer}, so that a table of any size can be
+ *               streamed through a buffer of a fixed size: a path which does
+ *               not fit is left for the next buffer.
+ */
+public class NuptPathCodec {
+	/**
+	 * The format of the encoding, changed with any change of the layout.
+	 */
+	public static final int FORMAT = 1;
+	private final TopologyDictionary dictionary;
+
+	/**
+	 * Creates a codec for the paths of the given topology.
+	 *
+	 * @param dictionary
+	 *            the numbers of the edges
+	 */
+	public NuptPathCodec(TopologyDictionary dictionary) {
+		this.dictionary = dictionary;
+	}
+
+	public TopologyDictionary getDictionary() {
+		return this.dictionary;
+	}
+
+	/**
+	 * Writes the header of a route table.
+	 *
+	 * @param out
+	 *            the buffer to write to
+	 * @throws java.nio.BufferOverflowException
+	 *             if the buffer is too small
+	 */
+	public void writeHeader(ByteBuffer out) {
+		putVarint(out, FORMAT);
+		out.putLong(this.dictionary.getVersion());
+	}
+
+	/**
+	 * Reads the header of a route table, and checks that it was written with
+	 * this format against the dictionary of this codec.
+	 *
+	 * @param in
+	 *            the buffer to read from
+	 * @throws IllegalStateException
+	 *             if the format or the dictionary differ
+	 */
+	public void readHeader(ByteBuffer in) {
+		int format = getVarint(in);
+		if (format != FORMAT) {
+			throw new IllegalStateException("format " + format + " is not " + FORMAT);
+		}
+		long version = in.getLong();
+		if (version != this.dictionary.getVersion()) {
+			throw new IllegalStateException("the paths were written against another topology");
+		}
+	}
+
+	/**
+	 * Gets the number of bytes taken by a path.
+	 *
+	 * @param path
+	 *            the path to measure
+	 * @return its encoded size
+	 */
+	public int encodedSize(NuptPath path) {
+		int size = varintSize(path.size());
+		for (int i = 0; i < path.size(); i++) {
+			size += varintSize(id(path.getEdge(i)));
+		}
+		return size;
+	}
+
+	/**
+	 * Writes a path, if it fits in the buffer.
+	 *
+	 * @param path
+	 *            the path to write
+	 * @param out
+	 *            the buffer to write to
+	 * @return TRUE if the path was written, FALSE if the buffer has not
+	 *         enough room left, in which case nothing was written
+	 * @throws IllegalArgumentException
+	 *             if an edge of the path is not in the dictionary
+	 */
+	public boolean encode(NuptPath path, ByteBuffer out) {
+		if (out.remaining() < encodedSize(path)) {
+			return false;
+		}
+		putVarint(out, path.size());
+		for (int i = 0; i < path.size(); i++) {
+			putVarint(out, id(path.getEdge(i)));
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the next path, if the buffer holds all of it.
+	 *
+	 * @param in
+	 *            the buffer to read from
+	 * @return the path, or NULL if the buffer ends before it, in which case
+	 *         nothing was read
+	 * @throws IllegalArgumentException
+	 *             if an edge number is unknown or the edges are not
+	 *             continuous
+	 */
+	public NuptPath decode(ByteBuffer in) {
+		int start = in.position();
+		try {
+			Edge[] edges = new Edge[getVarint(in)];
+			for (int i = 0; i < edges.length; i++) {
+				edges[i] = this.dictionary.getEdge(getVarint(in));
+			}
+			return new NuptPath(Arrays.asList(edges));
+		} catch (BufferUnderflowException e) {
+			in.position(start);
+			return null;
+		} catch (ConstructionException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+	}
+
+	private int id(Edge edge) {
+		int id = this.dictionary.idOf(edge);
+		if (id < 0) {
+			throw new IllegalArgumentException("edge " + edge + " is not in the dictionary");
+		}
+		return id;
+	}
+
+	static int varintSize(int value) {
+		int size = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	/**
+	 * Writes an unsigned integer seven bits at a time, the lowest first, with
+	 * the high bit of every byte but the last one set.
+	 */
+	static void putVarint(ByteBuffer out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.put((byte) value);
+	}
+
+	static int getVarint(ByteBuffer in) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = in.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("varint is too long");
+	}
+
+}
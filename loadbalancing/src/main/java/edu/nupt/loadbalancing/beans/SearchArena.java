@@ -0,0 +1,259 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.beans;
+
+import java.util.Arrays;
+
+import org.opendaylight.controller.sal.core.Edge;
+
+/**
+ * @Project: loadbalancing
+ * @Description: The scratch state of the spur searches of one thread, kept
+ *               from one query to the next so that a search allocates
+ *               nothing. It holds the distances, the incoming arcs and the
+ *               priority queue of Dijkstra's algorithm over an
+ *               {@link IndexedGraph}, and the vertices and edges the search
+ *               must skip. Instead of clearing the arrays between searches,
+ *               every search, set of excluded vertices and set of excluded
+ *               edges gets a new stamp, and an entry only counts when it
+ *               carries the current stamp. The queue is the binary heap of
+ *               {@link edu.uci.ics.jung.algorithms.util.MapBinaryHeap} on
+ *               vertex numbers, so that the vertices of equal distance come
+ *               out in the same order as from the searches over the graph.
+ */
+class SearchArena {
+	private static final int DEADLINE_CHECK_INTERVAL = 16;
+	private double[] distance = new double[0];
+	private int[] incomingArc = new int[0];
+	private int[] reached = new int[0];
+	private int[] settled = new int[0];
+	private int[] excludedVertex = new int[0];
+	private int[] excludedEdge = new int[0];
+	private int[] heap = new int[0];
+	private int[] heapIndex = new int[0];
+	private int heapSize;
+	private int search;
+	/**
+	 * The stamps of the current exclusions, never 0 so that the entries of
+	 * fresh arrays are not excluded.
+	 */
+	private int vertexExclusion = 1;
+	private int edgeExclusion = 1;
+
+	/**
+	 * Makes room for the searches over <code>graph</code>.
+	 */
+	void prepare(IndexedGraph<?, ?> graph) {
+		int n = graph.getVertexCount();
+		if (this.distance.length < n) {
+			this.distance = new double[n];
+			this.incomingArc = new int[n];
+			this.reached = new int[n];
+			this.settled = new int[n];
+			this.excludedVertex = new int[n];
+			this.heap = new int[n];
+			this.heapIndex = new int[n];
+			this.search = 0;
+			this.vertexExclusion = 1;
+		}
+		if (this.excludedEdge.length < graph.getEdgeCount()) {
+			this.excludedEdge = new int[graph.getEdgeCount()];
+			this.edgeExclusion = 1;
+		}
+	}
+
+	/**
+	 * Starts a new, empty set of excluded vertices.
+	 */
+	void clearExcludedVertices() {
+		if (this.vertexExclusion == Integer.MAX_VALUE) {
+			Arrays.fill(this.excludedVertex, 0);
+			this.vertexExclusion = 0;
+		}
+		this.vertexExclusion++;
+	}
+
+	void excludeVertex(int v) {
+		if (v >= 0) {
+			this.excludedVertex[v] = this.vertexExclusion;
+		}
+	}
+
+	/**
+	 * Starts a new, empty set of excluded edges.
+	 */
+	void clearExcludedEdges() {
+		if (this.edgeExclusion == Integer.MAX_VALUE) {
+			Arrays.fill(this.excludedEdge, 0);
+			this.edgeExclusion = 0;
+		}
+		this.edgeExclusion++;
+	}
+
+	void excludeEdge(int e) {
+		if (e >= 0) {
+			this.excludedEdge[e] = this.edgeExclusion;
+		}
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm from <code>source</code> until the distance
+	 * to <code>target</code> is final, skipping the excluded vertices and
+	 * edges, as the search of {@link LoadBalancingDistance} does for a
+	 * single target.
+	 *
+	 * @param graph
+	 *            the graph to search, given to {@link #prepare(IndexedGraph)}
+	 * @param source
+	 *            the number of the vertex from which distances are measured
+	 * @param target
+	 *            the number of the vertex to reach
+	 * @param maxDistance
+	 *            the distance beyond which the search gives up
+	 * @param maxTargets
+	 *            the number of vertices after which the search gives up
+	 * @param context
+	 *            the bookkeeping of the current query, the search stops
+	 *            early when it expires
+	 * @return the number of edges of the path found, -1 if
+	 *         <code>target</code> was not reached
+	 */
+	int search(IndexedGraph<?, ?> graph, int source, int target, double maxDistance, int maxTargets,
+			SearchContext context) {
+		if (this.search == Integer.MAX_VALUE) {
+			Arrays.fill(this.reached, 0);
+			Arrays.fill(this.settled, 0);
+			this.search = 0;
+		}
+		int stamp = ++this.search;
+		this.heapSize = 0;
+		this.distance[source] = 0D;
+		this.incomingArc[source] = -1;
+		this.reached[source] = stamp;
+		add(source);
+		int count = 0;
+		while (this.heapSize > 0) {
+			// the clock is only read every DEADLINE_CHECK_INTERVAL vertices
+			if (++count % DEADLINE_CHECK_INTERVAL == 0 && context.isExpired()) {
+				return -1;
+			}
+			int v = poll();
+			this.settled[v] = stamp;
+			context.vertexSettled();
+			double vDistance = this.distance[v];
+			if (vDistance > maxDistance) {
+				return -1;
+			}
+			if (v == target) {
+				int length = 0;
+				for (int a = this.incomingArc[v]; a >= 0; a = this.incomingArc[graph.arcTail[a]]) {
+					length++;
+				}
+				return length;
+			}
+			if (count >= maxTargets) {
+				return -1;
+			}
+			for (int a = graph.firstArc[v]; a < graph.firstArc[v + 1]; a++) {
+				if (this.excludedEdge[graph.arcEdge[a]] == this.edgeExclusion) {
+					continue;
+				}
+				int w = graph.arcHead[a];
+				if (this.settled[w] == stamp || this.excludedVertex[w] == this.vertexExclusion) {
+					continue;
+				}
+				context.edgeRelaxed();
+				double weight = graph.arcWeight[a];
+				if (weight < 0) {
+					throw new IllegalArgumentException("Edges weights must be non-negative");
+				}
+				double newDistance = vDistance + weight;
+				if (this.reached[w] != stamp) {
+					this.reached[w] = stamp;
+					this.distance[w] = newDistance;
+					this.incomingArc[w] = a;
+					add(w);
+				} else if (newDistance < this.distance[w]) {
+					this.distance[w] = newDistance;
+					this.incomingArc[w] = a;
+					update(w);
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Copies the path found by the last {@link #search} to the given
+	 * <code>target</code> into <code>edges</code>, so that its last edge is
+	 * at <code>end - 1</code>.
+	 */
+	void copyPath(IndexedGraph<?, ?> graph, int target, Edge[] edges, int end) {
+		int i = end;
+		for (int a = this.incomingArc[target]; a >= 0; a = this.incomingArc[graph.arcTail[a]]) {
+			edges[--i] = graph.edges[graph.arcEdge[a]];
+		}
+	}
+
+	private int compare(int v, int w) {
+		return Double.compare(this.distance[v], this.distance[w]);
+	}
+
+	private void add(int v) {
+		percolateUp(this.heapSize++, v);
+	}
+
+	private void update(int v) {
+		percolateDown(percolateUp(this.heapIndex[v], v));
+	}
+
+	private int poll() {
+		int top = this.heap[0];
+		int bottom = this.heap[--this.heapSize];
+		this.heap[0] = bottom;
+		this.heapIndex[bottom] = 0;
+		if (this.heapSize > 1) {
+			percolateDown(0);
+		}
+		return top;
+	}
+
+	private int percolateUp(int cur, int v) {
+		int i = cur;
+		while (i > 0 && compare(this.heap[(i - 1) >> 1], v) > 0) {
+			int parent = this.heap[(i - 1) >> 1];
+			this.heap[i] = parent;
+			this.heapIndex[parent] = i;
+			i = (i - 1) >> 1;
+		}
+		this.heap[i] = v;
+		this.heapIndex[v] = i;
+		return i;
+	}
+
+	private void percolateDown(int cur) {
+		int i = cur;
+		while (true) {
+			int left = (i << 1) + 1;
+			int right = left + 1;
+			int smallest = i;
+			if (left < this.heapSize && compare(this.heap[left], this.heap[i]) < 0) {
+				smallest = left;
+			}
+			if (right < this.heapSize && compare(this.heap[right], this.heap[smallest]) < 0) {
+				smallest = right;
+			}
+			if (smallest == i) {
+				return;
+			}
+			int v = this.heap[i];
+			this.heap[i] = this.heap[smallest];
+			this.heapIndex[this.heap[i]] = i;
+			this.heap[smallest] = v;
+			this.heapIndex[v] = smallest;
+			i = smallest;
+		}
+	}
+
+}
@@ -0,0 +1,145 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.beans;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Per-query bookkeeping of a route computation. One instance is
+ *               created for each query and handed through Dijkstra's and Yen's
+ *               algorithm, which only bump plain counters on it, so the
+ *               accounting stays cheap whether or not anyone reads the numbers
+ *               afterwards. It also carries the optional deadline of the
+ *               query, which the algorithms poll to give up cooperatively. An
+ *               instance must not be shared between threads, except that
+ *               {@link #cancel()} may be called from any thread.
+ */
+public class SearchContext {
+	private int settledVertices;
+	private int edgeRelaxations;
+	private int spurSearches;
+	private int yenIterations;
+	private int maxCandidateSize;
+	private int reusedTrees;
+	private boolean bounded;
+	private long deadline;
+	private boolean truncated;
+	private volatile boolean cancelled;
+
+	/**
+	 * Bounds the query by a point in time.
+	 *
+	 * @param deadline
+	 *            the deadline in the time base of {@link System#nanoTime()}
+	 */
+	public void setDeadline(long deadline) {
+		this.bounded = true;
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Asks the query to stop as soon as possible, as if its deadline had
+	 * passed. May be called from any thread.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	/**
+	 * Tells whether the query should stop now, because it was cancelled or
+	 * its deadline has passed. Once this returns TRUE the query is marked as
+	 * truncated.
+	 *
+	 * @return TRUE if the query should stop
+	 */
+	public boolean isExpired() {
+		if (!this.truncated && (this.cancelled || (this.bounded && System.nanoTime() - this.deadline >= 0))) {
+			this.truncated = true;
+		}
+		return this.truncated;
+	}
+
+	/**
+	 * Tells whether the query was stopped before it could finish.
+	 *
+	 * @return TRUE if the results of the query are incomplete
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * Records that the distance of one more vertex became final.
+	 */
+	public void vertexSettled() {
+		this.settledVertices++;
+	}
+
+	/**
+	 * Records that one more edge was examined to improve a tentative distance.
+	 */
+	public void edgeRelaxed() {
+		this.edgeRelaxations++;
+	}
+
+	/**
+	 * Records that one more spur path was searched by Yen's algorithm.
+	 */
+	public void spurSearched() {
+		this.spurSearches++;
+	}
+
+	/**
+	 * Records that a search resumed a shortest-path tree left behind by an
+	 * earlier query from the same source.
+	 */
+	public void treeReused() {
+		this.reusedTrees++;
+	}
+
+	/**
+	 * Records one more iteration of Yen's algorithm and the size of the
+	 * candidate set it left behind.
+	 *
+	 * @param candidateSize
+	 *            the number of candidate paths after the iteration
+	 */
+	public void yenIterated(int candidateSize) {
+		this.yenIterations++;
+		if (candidateSize > this.maxCandidateSize) {
+			this.maxCandidateSize = candidateSize;
+		}
+	}
+
+	public int getSettledVertices() {
+		return settledVertices;
+	}
+
+	public int getEdgeRelaxations() {
+		return edgeRelaxations;
+	}
+
+	public int getSpurSearches() {
+		return spurSearches;
+	}
+
+	public int getYenIterations() {
+		return yenIterations;
+	}
+
+	public int getMaxCandidateSize() {
+		return maxCandidateSize;
+	}
+
+	public int getReusedTrees() {
+		return reusedTrees;
+	}
+
+	@Override
+	public String toString() {
+		return "SearchContext [settledVertices=" + settledVertices + ", edgeRelaxations=" + edgeRelaxations
+				+ ", spurSearches=" + spurSearches + ", yenIterations=" + yenIterations + ", maxCandidateSize="
+				+ maxCandidateSize + ", reusedTrees=" + reusedTrees + ", truncated=" + truncated + "]";
+	}
+
+}
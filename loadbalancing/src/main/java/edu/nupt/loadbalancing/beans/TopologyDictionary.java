@@ -0,0 +1,183 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.beans;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.NodeConnector;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Numbers the edges of a topology, so that a path can be written
+ *               as a few small integers instead of full edge objects. The
+ *               edges are numbered in the order of their names, and the
+ *               version is a fingerprint of all the names, so that two
+ *               controllers which know the same topology build the same
+ *               dictionary with the same version without exchanging it, and a
+ *               path written against one topology is never read against
+ *               another.
+ */
+public class TopologyDictionary {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private final Edge[] edges;
+	private final String[][] names;
+	private final Map<Edge, Integer> ids;
+	private final long version;
+
+	/**
+	 * Creates the dictionary of the given edges.
+	 *
+	 * @param edges
+	 *            the edges of the topology, in any order
+	 */
+	public TopologyDictionary(Collection<Edge> edges) {
+		Edge[] sorted = edges.toArray(new Edge[edges.size()]);
+		final Map<Edge, String[]> named = new HashMap<Edge, String[]>(sorted.length * 2);
+		for (Edge edge : sorted) {
+			named.put(edge, new String[] { edge.getTailNodeConnector().toString(),
+					edge.getHeadNodeConnector().toString() });
+		}
+		Arrays.sort(sorted, new Comparator<Edge>() {
+			public int compare(Edge a, Edge b) {
+				String[] x = named.get(a);
+				String[] y = named.get(b);
+				int c = x[0].compareTo(y[0]);
+				return c != 0 ? c : x[1].compareTo(y[1]);
+			}
+		});
+		this.edges = sorted;
+		this.names = new String[sorted.length][];
+		this.ids = new HashMap<Edge, Integer>(sorted.length * 2);
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < sorted.length; i++) {
+			this.names[i] = named.get(sorted[i]);
+			this.ids.put(sorted[i], Integer.valueOf(i));
+			h = fingerprint(h, this.names[i][0]);
+			h = fingerprint(h, this.names[i][1]);
+		}
+		this.version = h;
+	}
+
+	private static long fingerprint(long h, String name) {
+		for (byte b : name.getBytes(UTF8)) {
+			h ^= b & 0xff;
+			h *= 0x100000001b3L;
+		}
+		// a separator, so that "ab","c" and "a","bc" differ
+		h ^= 0xff;
+		h *= 0x100000001b3L;
+		return h;
+	}
+
+	/**
+	 * Gets the version of the dictionary.
+	 *
+	 * @return the fingerprint of the names of all the edges
+	 */
+	public long getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * Gets the number of edges.
+	 */
+	public int size() {
+		return this.edges.length;
+	}
+
+	/**
+	 * Gets the number of an edge.
+	 *
+	 * @param edge
+	 *            the edge to look for
+	 * @return its number, or -1 if the edge is not in the dictionary
+	 */
+	public int idOf(Edge edge) {
+		Integer id = this.ids.get(edge);
+		return id == null ? -1 : id.intValue();
+	}
+
+	/**
+	 * Gets the edge of a number.
+	 *
+	 * @param id
+	 *            the number of the edge
+	 * @return the edge
+	 * @throws IllegalArgumentException
+	 *             if no edge has that number
+	 */
+	public Edge getEdge(int id) {
+		if (id < 0 || id >= this.edges.length) {
+			throw new IllegalArgumentException("unknown edge " + id);
+		}
+		return this.edges[id];
+	}
+
+	/**
+	 * Writes the dictionary, for a reader which does not know the topology:
+	 * the number of edges, then the names of the ports of every edge, each as
+	 * a varint length and UTF-8 bytes.
+	 *
+	 * @param out
+	 *            the buffer to write to
+	 * @throws java.nio.BufferOverflowException
+	 *             if the buffer is too small
+	 */
+	public void writeTo(ByteBuffer out) {
+		NuptPathCodec.putVarint(out, this.edges.length);
+		for (String[] name : this.names) {
+			for (String port : name) {
+				byte[] bytes = port.getBytes(UTF8);
+				NuptPathCodec.putVarint(out, bytes.length);
+				out.put(bytes);
+			}
+		}
+	}
+
+	/**
+	 * Reads a dictionary written by {@link #writeTo(ByteBuffer)}.
+	 *
+	 * @param in
+	 *            the buffer to read from
+	 * @return the dictionary
+	 * @throws IllegalArgumentException
+	 *             if a port or an edge cannot be rebuilt
+	 * @throws java.nio.BufferUnderflowException
+	 *             if the buffer ends before the dictionary
+	 */
+	public static TopologyDictionary readFrom(ByteBuffer in) {
+		int size = NuptPathCodec.getVarint(in);
+		Edge[] edges = new Edge[size];
+		for (int i = 0; i < size; i++) {
+			NodeConnector tail = port(in);
+			NodeConnector head = port(in);
+			try {
+				edges[i] = new Edge(tail, head);
+			} catch (ConstructionException e) {
+				throw new IllegalArgumentException("bad edge " + tail + "->" + head);
+			}
+		}
+		return new TopologyDictionary(Arrays.asList(edges));
+	}
+
+	private static NodeConnector port(ByteBuffer in) {
+		byte[] bytes = new byte[NuptPathCodec.getVarint(in)];
+		in.get(bytes);
+		String name = new String(bytes, UTF8);
+		NodeConnector port = NodeConnector.fromString(name);
+		if (port == null) {
+			throw new IllegalArgumentException("bad port " + name);
+		}
+		return port;
+	}
+
+}
@@ -0,0 +1,176 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Runs bulk route queries on a work-stealing pool. The requests
+ *               are grouped by source and bandwidth, every group first grows
+ *               the search state of its source for all its destinations, and
+ *               a large group is split, so that idle threads steal the rest of
+ *               its destinations. The pool threads run at a lower priority
+ *               than the others and leave some processors free, so that the
+ *               routes asked for by packet-in events are not held up by a
+ *               bulk query.
+ */
+class BulkRouteExecutor {
+	private static Logger log = LoggerFactory.getLogger(BulkRouteExecutor.class);
+	/**
+	 * A group with more destinations than this is split between threads.
+	 */
+	private static final int SPLIT_THRESHOLD = 16;
+	private final ForkJoinPool pool;
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: What the executor runs for the requests.
+	 */
+	interface RouteComputation {
+		/**
+		 * Prepares the search state of a source for the given destinations.
+		 */
+		void prepare(Node src, Collection<Node> dsts, Short bw);
+
+		/**
+		 * Computes one route.
+		 */
+		Path compute(Node src, Node dst, Short bw);
+	}
+
+	/**
+	 * Creates a BulkRouteExecutor with the given number of threads.
+	 *
+	 * @param threads
+	 *            the parallelism of the pool
+	 */
+	BulkRouteExecutor(int threads) {
+		this.pool = new ForkJoinPool(Math.max(1, threads), new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setName("loadbalancing-bulk-" + this.count.incrementAndGet());
+				thread.setPriority(Thread.NORM_PRIORITY - 1);
+				return thread;
+			}
+		}, null, false);
+	}
+
+	/**
+	 * Starts the computation of the given routes.
+	 *
+	 * @param requests
+	 *            the routes to compute
+	 * @param computation
+	 *            computes them
+	 * @return the batch from which the routes can be taken as they come
+	 */
+	RouteBatch submit(Collection<RouteRequest> requests, RouteComputation computation) {
+		Map<RouteRequest, List<RouteRequest>> groups = new LinkedHashMap<RouteRequest, List<RouteRequest>>();
+		for (RouteRequest request : requests) {
+			// the groups are keyed by a request without destination
+			RouteRequest key = new RouteRequest(request.getSrc(), null, request.getBw());
+			List<RouteRequest> group = groups.get(key);
+			if (group == null) {
+				group = new ArrayList<RouteRequest>();
+				groups.put(key, group);
+			}
+			group.add(request);
+		}
+		RouteBatch batch = new RouteBatch(requests.size());
+		for (List<RouteRequest> group : groups.values()) {
+			this.pool.execute(new GroupTask(batch, computation, group, 0, group.size(), true));
+		}
+		log.debug("Bulk query of {} routes from {} sources", requests.size(), groups.size());
+		return batch;
+	}
+
+	/**
+	 * Stops the pool; the batches in progress are abandoned.
+	 */
+	void shutdown() {
+		this.pool.shutdownNow();
+		try {
+			this.pool.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: Computes a range of the routes of one group.
+	 */
+	private static class GroupTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final RouteBatch batch;
+		private final RouteComputation computation;
+		private final List<RouteRequest> group;
+		private final int from;
+		private final int to;
+		private final boolean whole;
+
+		private GroupTask(RouteBatch batch, RouteComputation computation, List<RouteRequest> group, int from,
+				int to, boolean whole) {
+			this.batch = batch;
+			this.computation = computation;
+			this.group = group;
+			this.from = from;
+			this.to = to;
+			this.whole = whole;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.batch.isCancelled()) {
+				return;
+			}
+			RouteRequest first = this.group.get(this.from);
+			if (this.whole) {
+				List<Node> dsts = new ArrayList<Node>(this.group.size());
+				for (RouteRequest request : this.group) {
+					dsts.add(request.getDst());
+				}
+				try {
+					this.computation.prepare(first.getSrc(), dsts, first.getBw());
+				} catch (RuntimeException e) {
+					log.debug("Cannot prepare the routes from {}", first.getSrc(), e);
+				}
+			}
+			if (this.to - this.from > SPLIT_THRESHOLD) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new GroupTask(this.batch, this.computation, this.group, this.from, middle, false),
+						new GroupTask(this.batch, this.computation, this.group, middle, this.to, false));
+				return;
+			}
+			for (int i = this.from; i < this.to && !this.batch.isCancelled(); i++) {
+				RouteRequest request = this.group.get(i);
+				Path path = null;
+				try {
+					path = this.computation.compute(request.getSrc(), request.getDst(), request.getBw());
+				} catch (RuntimeException e) {
+					log.debug("Cannot compute the route of {}", request, e);
+				}
+				this.batch.complete(request, path);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,223 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import org.opendaylight.controller.clustering.services.CacheConfigException;
+import org.opendaylight.controller.clustering.services.CacheExistException;
+import org.opendaylight.controller.clustering.services.IClusterContainerServices;
+import org.opendaylight.controller.clustering.services.IClusterServices;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.core.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @Project: loadbalancing
+ * @Description: The caches which the controllers of a cluster share, so that
+ *               the routes and the port counters are computed and polled once
+ *               for the whole cluster. The coordinator publishes them, and the
+ *               other members read them, falling back to their own
+ *               computation when a route is missing. A route is only served
+ *               while it is younger than a sampling interval, since the load
+ *               it was chosen for changes at every sampling round. A route
+ *               over a link which changed is withdrawn, but its request is
+ *               kept, so that it is computed again at the next refresh.
+ */
+class ClusterRouteCache {
+	private static Logger log = LoggerFactory.getLogger(ClusterRouteCache.class);
+	static final String ROUTE_CACHE = "loadbalancing.routes";
+	static final String UTILIZATION_CACHE = "loadbalancing.utilization";
+	private final IClusterContainerServices clusterServices;
+	private final ConcurrentMap<RouteRequest, SharedRoute> routes;
+	private final ConcurrentMap<NodeConnector, long[]> utilization;
+	private final long ttlMillis;
+
+	/**
+	 * Creates the caches, or joins them if another member already did.
+	 *
+	 * @param clusterServices
+	 *            the clustering services of this controller
+	 * @param ttlMillis
+	 *            how long a published route is served
+	 * @throws IllegalStateException
+	 *             if the caches can be neither created nor found
+	 */
+	ClusterRouteCache(IClusterContainerServices clusterServices, long ttlMillis) {
+		this.clusterServices = clusterServices;
+		this.ttlMillis = ttlMillis;
+		this.routes = cache(clusterServices, ROUTE_CACHE);
+		this.utilization = cache(clusterServices, UTILIZATION_CACHE);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K, V> ConcurrentMap<K, V> cache(IClusterContainerServices clusterServices, String name) {
+		try {
+			clusterServices.createCache(name, EnumSet.of(IClusterServices.cacheMode.NON_TRANSACTIONAL));
+		} catch (CacheExistException e) {
+			log.debug("Cache {} already exists", name);
+		} catch (CacheConfigException e) {
+			log.error("Cache {} is not configured correctly", name);
+		}
+		ConcurrentMap<K, V> cache = (ConcurrentMap<K, V>) clusterServices.getCache(name);
+		if (cache == null) {
+			throw new IllegalStateException("Cannot retrieve the cache " + name);
+		}
+		return cache;
+	}
+
+	/**
+	 * Tells whether this controller computes and publishes for the cluster.
+	 *
+	 * @return TRUE on the coordinator
+	 */
+	boolean isPublisher() {
+		return this.clusterServices.amICoordinator();
+	}
+
+	/**
+	 * Gets a route published by the coordinator.
+	 *
+	 * @param request
+	 *            the route to look for
+	 * @return the route, or NULL if there is none or it is too old
+	 */
+	Path getRoute(RouteRequest request) {
+		SharedRoute route = this.routes.get(request);
+		if (route == null || route.path == null || System.currentTimeMillis() - route.computedMillis > this.ttlMillis) {
+			return null;
+		}
+		return route.path;
+	}
+
+	/**
+	 * Publishes a route to the other members.
+	 */
+	void putRoute(RouteRequest request, Path path) {
+		if (path != null) {
+			this.routes.put(request, new SharedRoute(path, System.currentTimeMillis()));
+		}
+	}
+
+	/**
+	 * Gets the routes published so far, whether they are outdated, withdrawn
+	 * or not.
+	 *
+	 * @return a copy of the requests of the published routes
+	 */
+	List<RouteRequest> getRequests() {
+		return new ArrayList<RouteRequest>(this.routes.keySet());
+	}
+
+	/**
+	 * Gets the number of routes published so far.
+	 */
+	int getRouteCount() {
+		return this.routes.size();
+	}
+
+	/**
+	 * Drops the routes nobody refreshed for a while, e.g. those of switches
+	 * which left the network.
+	 *
+	 * @param idleMillis
+	 *            how long a route may stay without being refreshed
+	 * @return the number of routes dropped
+	 */
+	int evictRoutes(long idleMillis) {
+		long now = System.currentTimeMillis();
+		int count = 0;
+		for (Map.Entry<RouteRequest, SharedRoute> entry : this.routes.entrySet()) {
+			if (now - entry.getValue().computedMillis > idleMillis) {
+				this.routes.remove(entry.getKey());
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Withdraws the published routes which cross one of the given links,
+	 * after the topology changed.
+	 *
+	 * @param changed
+	 *            the links which were added, removed or changed
+	 * @return the number of routes withdrawn
+	 */
+	int invalidateRoutes(Collection<Edge> changed) {
+		Set<Edge> edges = new HashSet<Edge>(changed);
+		int count = 0;
+		for (Map.Entry<RouteRequest, SharedRoute> entry : this.routes.entrySet()) {
+			SharedRoute route = entry.getValue();
+			if (route.path != null && !Collections.disjoint(route.path.getEdges(), edges)) {
+				// the request stays until it is refreshed or evicted
+				this.routes.put(entry.getKey(), new SharedRoute(null, route.computedMillis));
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Publishes the sampled counters of the ports, and withdraws those of the
+	 * ports which were evicted.
+	 */
+	void publishUtilization(Map<NodeConnector, long[]> statistics) {
+		for (Map.Entry<NodeConnector, long[]> entry : statistics.entrySet()) {
+			this.utilization.put(entry.getKey(), entry.getValue().clone());
+		}
+		for (NodeConnector connector : new ArrayList<NodeConnector>(this.utilization.keySet())) {
+			if (!statistics.containsKey(connector)) {
+				this.utilization.remove(connector);
+			}
+		}
+	}
+
+	/**
+	 * Copies the counters published by the coordinator into
+	 * <code>statistics</code>, and drops those of the ports it withdrew.
+	 * Nothing is dropped while nothing is published.
+	 *
+	 * @return the number of ports copied
+	 */
+	int readUtilization(Map<NodeConnector, long[]> statistics) {
+		int count = 0;
+		for (Map.Entry<NodeConnector, long[]> entry : this.utilization.entrySet()) {
+			statistics.put(entry.getKey(), entry.getValue().clone());
+			count++;
+		}
+		if (count > 0) {
+			statistics.keySet().retainAll(this.utilization.keySet());
+		}
+		return count;
+	}
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: A published route and the time it was computed. The
+	 *               path of a withdrawn route is NULL.
+	 */
+	static class SharedRoute implements Serializable {
+		private static final long serialVersionUID = 4717931870124386203L;
+		private final Path path;
+		private final long computedMillis;
+
+		SharedRoute(Path path, long computedMillis) {
+			this.path = path;
+			this.computedMillis = computedMillis;
+		}
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.net.InetAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.opendaylight.controller.clustering.services.IClusterContainerServices;
+import org.opendaylight.controller.sal.core.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Splits the source switches between the controllers of a
+ *               cluster by consistent hashing, so that every controller
+ *               computes the routes of its own share only. Each controller
+ *               is placed at {@link #VIRTUAL_NODES} points of a ring of 64-bit
+ *               hashes and owns the switches hashed between its points and the
+ *               previous ones; when a controller joins or leaves, only the
+ *               switches next to its points change hands. The hashes only
+ *               depend on the names of the switches and the addresses of the
+ *               controllers, so that all the members agree on the owners
+ *               without talking to each other.
+ */
+class ClusterShards {
+	private static Logger log = LoggerFactory.getLogger(ClusterShards.class);
+	private static final int VIRTUAL_NODES = 64;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private final IClusterContainerServices clusterServices;
+	private volatile Ring ring;
+
+	ClusterShards(IClusterContainerServices clusterServices) {
+		this.clusterServices = clusterServices;
+		this.ring = new Ring(Collections.<InetAddress> emptyList());
+		refresh();
+	}
+
+	/**
+	 * Rebuilds the ring if the members of the cluster changed.
+	 *
+	 * @return TRUE if the shares were rebalanced
+	 */
+	boolean refresh() {
+		List<InetAddress> members = new ArrayList<InetAddress>(this.clusterServices.getClusteredControllers());
+		Collections.sort(members, new Comparator<InetAddress>() {
+			public int compare(InetAddress a, InetAddress b) {
+				return a.getHostAddress().compareTo(b.getHostAddress());
+			}
+		});
+		if (members.equals(this.ring.members)) {
+			return false;
+		}
+		log.info("Rebalancing the route shares between {}", members);
+		this.ring = new Ring(members);
+		return true;
+	}
+
+	/**
+	 * Gets the controller which computes the routes from the given switch.
+	 *
+	 * @param node
+	 *            the source switch
+	 * @return the address of its owner, or NULL if the cluster is empty
+	 */
+	InetAddress ownerOf(Node node) {
+		return this.ring.ownerOf(hash(node.toString()));
+	}
+
+	/**
+	 * Tells whether this controller computes the routes from the given
+	 * switch. Without any known member, every controller owns everything.
+	 */
+	boolean owns(Node node) {
+		InetAddress owner = ownerOf(node);
+		return owner == null || owner.equals(this.clusterServices.getMyAddress());
+	}
+
+	/**
+	 * FNV-1a followed by the finalizer of MurmurHash3, which spreads the
+	 * close names of the switches over the whole ring.
+	 */
+	private static long hash(String key) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : key.getBytes(UTF8)) {
+			h ^= b & 0xff;
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: The points of the members on the ring, sorted by hash.
+	 */
+	private static class Ring {
+		private final List<InetAddress> members;
+		private final long[] points;
+		private final InetAddress[] owners;
+
+		private Ring(List<InetAddress> members) {
+			this.members = members;
+			int size = members.size() * VIRTUAL_NODES;
+			long[][] entries = new long[size][];
+			int k = 0;
+			for (int m = 0; m < members.size(); m++) {
+				String name = members.get(m).getHostAddress();
+				for (int i = 0; i < VIRTUAL_NODES; i++) {
+					entries[k++] = new long[] { hash(name + "#" + i), m };
+				}
+			}
+			Arrays.sort(entries, new Comparator<long[]>() {
+				public int compare(long[] a, long[] b) {
+					return a[0] < b[0] ? -1 : (a[0] == b[0] ? 0 : 1);
+				}
+			});
+			this.points = new long[size];
+			this.owners = new InetAddress[size];
+			for (int i = 0; i < size; i++) {
+				this.points[i] = entries[i][0];
+				this.owners[i] = members.get((int) entries[i][1]);
+			}
+		}
+
+		private InetAddress ownerOf(long hash) {
+			if (this.points.length == 0) {
+				return null;
+			}
+			int i = Arrays.binarySearch(this.points, hash);
+			if (i < 0) {
+				i = -i - 1;
+			}
+			return this.owners[i == this.points.length ? 0 : i];
+		}
+	}
+
+}
@@ -0,0 +1,177 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.reader.NodeConnectorStatistics;
+
+/**
+ * @Project: loadbalancing
+ * @Description: The counters of a port besides the received bytes, kept in
+ *               windows like the received bytes of the statistics map: the
+ *               transmitted bytes and packets, and the packets dropped or
+ *               damaged on each side of the port. A directed link is
+ *               measured by the transmit side of its tail and the receive
+ *               side of its head, so that both directions of a full-duplex
+ *               link are scored apart.
+ */
+public class DirectionalCounters {
+	private final int length;
+	private final ConcurrentMap<NodeConnector, long[]> transmitBytes;
+	private final ConcurrentMap<NodeConnector, long[]> transmitPackets;
+	private final ConcurrentMap<NodeConnector, long[]> transmitLosses;
+	private final ConcurrentMap<NodeConnector, long[]> receiveLosses;
+	/**
+	 * How many samples of each port the windows hold, since a counter may
+	 * well be 0 when it is sampled.
+	 */
+	private final ConcurrentMap<NodeConnector, AtomicInteger> samples;
+
+	/**
+	 * Creates DirectionalCounters.
+	 *
+	 * @param length
+	 *            the number of samples in a window, the length of the windows
+	 *            of the statistics map
+	 */
+	public DirectionalCounters(int length) {
+		this.length = length;
+		this.transmitBytes = new ConcurrentHashMap<NodeConnector, long[]>();
+		this.transmitPackets = new ConcurrentHashMap<NodeConnector, long[]>();
+		this.transmitLosses = new ConcurrentHashMap<NodeConnector, long[]>();
+		this.receiveLosses = new ConcurrentHashMap<NodeConnector, long[]>();
+		this.samples = new ConcurrentHashMap<NodeConnector, AtomicInteger>();
+	}
+
+	/**
+	 * Adds a sample of the counters of a port. Called by the sampling thread.
+	 *
+	 * @param ncs
+	 *            the counters of the port
+	 */
+	public void update(NodeConnectorStatistics ncs) {
+		record(ncs.getNodeConnector(), ncs.getTransmitByteCount(), ncs.getTransmitPacketCount(),
+				ncs.getTransmitDropCount() + ncs.getTransmitErrorCount(),
+				ncs.getReceiveDropCount() + ncs.getReceiveErrorCount());
+	}
+
+	/**
+	 * Adds a sample of the counters of a port.
+	 *
+	 * @param connector
+	 *            the port
+	 * @param txBytes
+	 *            the bytes it transmitted
+	 * @param txPackets
+	 *            the packets it transmitted
+	 * @param txLosses
+	 *            the packets it dropped or failed to transmit
+	 * @param rxLosses
+	 *            the packets it dropped or received damaged
+	 */
+	public void record(NodeConnector connector, long txBytes, long txPackets, long txLosses, long rxLosses) {
+		shift(this.transmitBytes, connector, txBytes);
+		shift(this.transmitPackets, connector, txPackets);
+		shift(this.transmitLosses, connector, txLosses);
+		shift(this.receiveLosses, connector, rxLosses);
+		AtomicInteger count = this.samples.get(connector);
+		if (count == null) {
+			count = new AtomicInteger();
+			this.samples.put(connector, count);
+		}
+		if (count.get() < this.length) {
+			count.incrementAndGet();
+		}
+	}
+
+	private void shift(ConcurrentMap<NodeConnector, long[]> windows, NodeConnector connector, long newData) {
+		long[] datas = windows.get(connector);
+		if (datas == null) {
+			datas = new long[this.length];
+			windows.put(connector, datas);
+		}
+		int i = 0;
+		for (; i < datas.length - 1; i++) {
+			datas[i] = datas[i + 1];
+		}
+		datas[i] = newData;
+	}
+
+	/**
+	 * Forgets a port which is gone.
+	 */
+	public void remove(NodeConnector connector) {
+		this.transmitBytes.remove(connector);
+		this.transmitPackets.remove(connector);
+		this.transmitLosses.remove(connector);
+		this.receiveLosses.remove(connector);
+		this.samples.remove(connector);
+	}
+
+	/**
+	 * Gets the number of ports which have windows.
+	 */
+	public int getPortCount() {
+		return this.samples.size();
+	}
+
+	/**
+	 * Gets the number of samples of a port its windows hold. The received
+	 * bytes of the statistics map are sampled together with these counters,
+	 * so it holds for their window as well.
+	 *
+	 * @return the number of samples, 0 if the port was never sampled
+	 */
+	public int getSampleCount(NodeConnector connector) {
+		AtomicInteger count = this.samples.get(connector);
+		return count == null ? 0 : count.get();
+	}
+
+	/**
+	 * Gets the index of the oldest sample of a port in its windows.
+	 *
+	 * @return the index, the length of the windows if the port was never
+	 *         sampled
+	 */
+	public int getFirstSample(NodeConnector connector) {
+		return this.length - getSampleCount(connector);
+	}
+
+	/**
+	 * @return the window of the transmitted bytes of a port, NULL if it was
+	 *         never sampled
+	 */
+	public long[] getTransmitBytes(NodeConnector connector) {
+		return this.transmitBytes.get(connector);
+	}
+
+	/**
+	 * @return the window of the transmitted packets of a port, NULL if it was
+	 *         never sampled
+	 */
+	public long[] getTransmitPackets(NodeConnector connector) {
+		return this.transmitPackets.get(connector);
+	}
+
+	/**
+	 * @return the window of the packets a port lost on transmit, NULL if it
+	 *         was never sampled
+	 */
+	public long[] getTransmitLosses(NodeConnector connector) {
+		return this.transmitLosses.get(connector);
+	}
+
+	/**
+	 * @return the window of the packets a port lost on receive, NULL if it
+	 *         was never sampled
+	 */
+	public long[] getReceiveLosses(NodeConnector connector) {
+		return this.receiveLosses.get(connector);
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.io.Serializable;
+
+import org.opendaylight.controller.sal.core.Path;
+
+/**
+ * @Project: loadbalancing
+ * @Description: One flow which the rebalancer moved to another route: the
+ *               flow, the route it was assigned to and the route it should
+ *               take from now on.
+ */
+public class FlowMove implements Serializable {
+	private static final long serialVersionUID = -2286937424791653108L;
+	private final String flowId;
+	private final RouteRequest request;
+	private final Path from;
+	private final Path to;
+
+	public FlowMove(String flowId, RouteRequest request, Path from, Path to) {
+		this.flowId = flowId;
+		this.request = request;
+		this.from = from;
+		this.to = to;
+	}
+
+	public String getFlowId() {
+		return flowId;
+	}
+
+	public RouteRequest getRequest() {
+		return request;
+	}
+
+	/**
+	 * Gets the route the flow was assigned to before the move.
+	 */
+	public Path getFrom() {
+		return from;
+	}
+
+	/**
+	 * Gets the route the flow is assigned to now.
+	 */
+	public Path getTo() {
+		return to;
+	}
+
+	@Override
+	public String toString() {
+		return "FlowMove [flowId=" + flowId + ", from=" + from + ", to=" + to + "]";
+	}
+
+}
@@ -0,0 +1,339 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.nupt.loadbalancing.beans.NuptPath;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Moves long-lived flows to other routes when the routes chosen
+ *               one request at a time have made hotspots. The rebalancer
+ *               knows which route every flow was assigned to and how fast it
+ *               goes. Each cycle it takes the hottest link carrying such
+ *               flows and moves one of them to the candidate route whose
+ *               bottleneck stays lowest, as long as that bottleneck stays
+ *               below the load of the hot link by at least the minimum gain.
+ *               A moved flow takes its rate from every link it leaves and
+ *               adds it to every link it joins. The maximum link utilization
+ *               of the network therefore never grows. A cycle moves at most
+ *               a bounded number of flows, and each flow at most once, so
+ *               that the network is reprogrammed a little at a time. The
+ *               sampled counters show a move only after a while, so the
+ *               cycles which follow it add the rate it shifted to the load
+ *               they read, instead of moving more flows off a link which was
+ *               already relieved.
+ */
+public class FlowRebalancer {
+	private static Logger log = LoggerFactory.getLogger(FlowRebalancer.class);
+	private final ConcurrentMap<String, Flow> flows;
+	private final PathLoadEvaluator evaluator;
+	private final CandidatePaths candidatePaths;
+	private final int maxMoves;
+	private final double minGain;
+	private final int settleCycles;
+	/**
+	 * The moves which the counters do not show yet, only used by the thread
+	 * which runs the cycles.
+	 */
+	private final List<Shift> settling;
+	private long cycle;
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: Gives the routes a flow may be moved to.
+	 */
+	public interface CandidatePaths {
+
+		/**
+		 * Computes the candidate routes of a pair on the current topology.
+		 *
+		 * @param request
+		 *            the switches of the flow
+		 * @return the candidate routes, empty if there is none
+		 */
+		public List<NuptPath> getCandidates(RouteRequest request);
+	}
+
+	/**
+	 * Creates a FlowRebalancer.
+	 *
+	 * @param evaluator
+	 *            the load of the links
+	 * @param candidatePaths
+	 *            the routes the flows may be moved to
+	 * @param maxMoves
+	 *            the most flows moved by one cycle
+	 * @param minGain
+	 *            how much a move must lower the load rate of the hot link
+	 *            below its own bottleneck, so that flows are not moved back
+	 *            and forth for nothing
+	 * @param settleCycles
+	 *            the number of cycles after a move before the sampled
+	 *            counters show it
+	 * @throws IllegalArgumentException
+	 *             if a parameter is negative
+	 */
+	public FlowRebalancer(PathLoadEvaluator evaluator, CandidatePaths candidatePaths, int maxMoves, double minGain,
+			int settleCycles) {
+		if (maxMoves < 0 || !(minGain >= 0D) || settleCycles < 0) {
+			throw new IllegalArgumentException("maxMoves=" + maxMoves + ", minGain=" + minGain + ", settleCycles="
+					+ settleCycles);
+		}
+		this.flows = new ConcurrentHashMap<String, Flow>();
+		this.evaluator = evaluator;
+		this.candidatePaths = candidatePaths;
+		this.maxMoves = maxMoves;
+		this.minGain = minGain;
+		this.settleCycles = settleCycles;
+		this.settling = new ArrayList<Shift>();
+	}
+
+	/**
+	 * Records the route of a flow, replacing the one it had.
+	 *
+	 * @param flowId
+	 *            the identifier of the flow, reported back when it is moved
+	 * @param request
+	 *            the switches of the flow
+	 * @param path
+	 *            its route
+	 * @param bytesPerSecond
+	 *            its rate
+	 * @throws IllegalArgumentException
+	 *             if the route is empty or the rate is not positive
+	 */
+	public void assign(String flowId, RouteRequest request, NuptPath path, long bytesPerSecond) {
+		if (path == null || path.getEdges().isEmpty() || bytesPerSecond <= 0) {
+			throw new IllegalArgumentException("flow " + flowId + " on " + path + " at " + bytesPerSecond);
+		}
+		this.flows.put(flowId, new Flow(flowId, request, path, bytesPerSecond));
+	}
+
+	/**
+	 * Forgets a flow which ended.
+	 *
+	 * @param flowId
+	 *            the identifier of the flow
+	 * @return TRUE if the flow was known
+	 */
+	public boolean remove(String flowId) {
+		return this.flows.remove(flowId) != null;
+	}
+
+	/**
+	 * Gets the route a flow is assigned to.
+	 *
+	 * @param flowId
+	 *            the identifier of the flow
+	 * @return the route, NULL if the flow is not known
+	 */
+	public NuptPath getPath(String flowId) {
+		Flow flow = this.flows.get(flowId);
+		return flow == null ? null : flow.path;
+	}
+
+	public int getFlowCount() {
+		return this.flows.size();
+	}
+
+	/**
+	 * Runs one cycle. Called by one thread at a time.
+	 *
+	 * @return the flows which were moved, in the order of the moves
+	 */
+	public List<FlowMove> rebalance() {
+		List<FlowMove> moves = new ArrayList<FlowMove>();
+		this.cycle++;
+		Map<Edge, Double> load = new HashMap<Edge, Double>();
+		Iterator<Shift> shifts = this.settling.iterator();
+		while (shifts.hasNext()) {
+			Shift shift = shifts.next();
+			if (shift.until < this.cycle) {
+				shifts.remove();
+				continue;
+			}
+			for (Edge edge : shift.from) {
+				load(load, edge);
+				load.put(edge, load.get(edge) - shift.share);
+			}
+			for (Edge edge : shift.to) {
+				load(load, edge);
+				load.put(edge, load.get(edge) + shift.share);
+			}
+		}
+		if (this.maxMoves == 0 || this.flows.isEmpty()) {
+			return moves;
+		}
+		Map<Edge, Set<Flow>> crossing = new HashMap<Edge, Set<Flow>>();
+		for (Flow flow : this.flows.values()) {
+			for (Edge edge : flow.path.getEdges()) {
+				Set<Flow> onEdge = crossing.get(edge);
+				if (onEdge == null) {
+					onEdge = new HashSet<Flow>();
+					crossing.put(edge, onEdge);
+				}
+				onEdge.add(flow);
+				load(load, edge);
+			}
+		}
+		Map<RouteRequest, List<NuptPath>> candidates = new HashMap<RouteRequest, List<NuptPath>>();
+		Set<Edge> exhausted = new HashSet<Edge>();
+		Set<String> moved = new HashSet<String>();
+		while (moves.size() < this.maxMoves) {
+			Edge hottest = null;
+			double bottleneck = 0D;
+			for (Map.Entry<Edge, Set<Flow>> entry : crossing.entrySet()) {
+				double rate = load.get(entry.getKey());
+				if (!entry.getValue().isEmpty() && !exhausted.contains(entry.getKey())
+						&& (hottest == null || rate > bottleneck)) {
+					hottest = entry.getKey();
+					bottleneck = rate;
+				}
+			}
+			if (hottest == null) {
+				break;
+			}
+			Flow best = null;
+			NuptPath target = null;
+			double targetRate = bottleneck - this.minGain;
+			for (Flow flow : crossing.get(hottest)) {
+				if (moved.contains(flow.flowId)) {
+					continue;
+				}
+				Set<Edge> current = new HashSet<Edge>(flow.path.getEdges());
+				double share = this.evaluator.getLoadRate(flow.rate);
+				for (NuptPath candidate : candidates(candidates, flow.request)) {
+					if (candidate.getEdges().contains(hottest)) {
+						continue;
+					}
+					double rate = 0D;
+					for (Edge edge : candidate.getEdges()) {
+						// the links the flow already takes keep their load
+						double after = load(load, edge) + (current.contains(edge) ? 0D : share);
+						if (after > rate) {
+							rate = after;
+						}
+					}
+					if (rate < targetRate) {
+						targetRate = rate;
+						best = flow;
+						target = candidate;
+					}
+				}
+			}
+			if (best == null) {
+				exhausted.add(hottest);
+				continue;
+			}
+			moved.add(best.flowId);
+			Flow next = new Flow(best.flowId, best.request, target, best.rate);
+			FlowMove move;
+			try {
+				move = new FlowMove(best.flowId, best.request, best.path.toPath(), target.toPath());
+			} catch (ConstructionException e) {
+				log.debug("Cannot move flow {} to {}", best.flowId, target);
+				continue;
+			}
+			if (!this.flows.replace(best.flowId, best, next)) {
+				// the flow was reassigned or removed meanwhile
+				continue;
+			}
+			double share = this.evaluator.getLoadRate(best.rate);
+			for (Edge edge : best.path.getEdges()) {
+				load.put(edge, load.get(edge) - share);
+				crossing.get(edge).remove(best);
+			}
+			for (Edge edge : target.getEdges()) {
+				load.put(edge, load(load, edge) + share);
+				Set<Flow> onEdge = crossing.get(edge);
+				if (onEdge == null) {
+					onEdge = new HashSet<Flow>();
+					crossing.put(edge, onEdge);
+				}
+				onEdge.add(next);
+			}
+			if (this.settleCycles > 0) {
+				this.settling.add(new Shift(best.path.getEdges(), target.getEdges(), share, this.cycle
+						+ this.settleCycles));
+			}
+			log.debug("Moved flow {} off {} with a load rate of {}, new bottleneck {}",
+					new Object[] { best.flowId, hottest, bottleneck, targetRate });
+			moves.add(move);
+		}
+		return moves;
+	}
+
+	private double load(Map<Edge, Double> load, Edge edge) {
+		Double rate = load.get(edge);
+		if (rate == null) {
+			rate = Double.valueOf(this.evaluator.getEdgeLoadRate(edge));
+			load.put(edge, rate);
+		}
+		return rate.doubleValue();
+	}
+
+	private List<NuptPath> candidates(Map<RouteRequest, List<NuptPath>> candidates, RouteRequest request) {
+		List<NuptPath> paths = candidates.get(request);
+		if (paths == null) {
+			paths = this.candidatePaths.getCandidates(request);
+			candidates.put(request, paths);
+		}
+		return paths;
+	}
+
+	/**
+	 * The rate a move took from the links of a route to give it to the links
+	 * of another one.
+	 */
+	private static class Shift {
+		private final List<Edge> from;
+		private final List<Edge> to;
+		private final double share;
+		/**
+		 * The last cycle which adds the shift to the sampled load.
+		 */
+		private final long until;
+
+		private Shift(List<Edge> from, List<Edge> to, double share, long until) {
+			this.from = from;
+			this.to = to;
+			this.share = share;
+			this.until = until;
+		}
+	}
+
+	/**
+	 * A flow and its route. Replaced as a whole when the flow is moved, so
+	 * that a concurrent assignment is never overwritten by a cycle.
+	 */
+	private static class Flow {
+		private final String flowId;
+		private final RouteRequest request;
+		private final NuptPath path;
+		private final long rate;
+
+		private Flow(String flowId, RouteRequest request, NuptPath path, long rate) {
+			this.flowId = flowId;
+			this.request = request;
+			this.path = path;
+			this.rate = rate;
+		}
+	}
+
+}
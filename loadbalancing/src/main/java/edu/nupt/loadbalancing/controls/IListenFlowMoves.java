@@ -0,0 +1,26 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.List;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Implemented by the services which install the flows whose
+ *               routes were given by
+ *               {@link ILoadBalancingRouting#assignFlow(String, RouteRequest, org.opendaylight.controller.sal.core.Path, long)},
+ *               so that they reprogram the flows the rebalancer moved.
+ */
+public interface IListenFlowMoves {
+
+	/**
+	 * Called after a rebalancing cycle which moved at least one flow. The
+	 * flows which kept their route are not part of <code>moves</code>.
+	 *
+	 * @param moves
+	 *            the flows which were given another route
+	 */
+	public void flowsMoved(List<FlowMove> moves);
+
+}
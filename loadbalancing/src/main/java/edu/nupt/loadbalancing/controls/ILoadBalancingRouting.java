@@ -0,0 +1,148 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.Path;
+import org.opendaylight.controller.sal.routing.IRouting;
+
+/**
+ * @Project: loadbalancing
+ * @Description: The routing service of the load balancer. Besides the plain
+ *               {@link IRouting} queries it offers the ones which only exist
+ *               here, so that callers which know about the load balancer can
+ *               use them while all the others keep using {@link IRouting}.
+ */
+public interface ILoadBalancingRouting extends IRouting {
+
+	/**
+	 * Computes a route within a latency budget. The K-Top search stops when
+	 * the budget is used up, and the least loaded of the paths found so far is
+	 * returned.
+	 *
+	 * @param src
+	 *            the source switch
+	 * @param dst
+	 *            the destination switch
+	 * @param bw
+	 *            the bandwidth of the topology to route on, 0 for the base one
+	 * @param budget
+	 *            the time the computation may take
+	 * @param unit
+	 *            the unit of <code>budget</code>
+	 * @return the route and whether the search was complete
+	 */
+	public RouteResult getRoute(Node src, Node dst, Short bw, long budget, TimeUnit unit);
+
+	/**
+	 * Computes a route on the route computation threads of the load balancer.
+	 * Concurrent requests for the same switches and bandwidth on the same
+	 * topology share one computation and its result.
+	 *
+	 * @param src
+	 *            the source switch
+	 * @param dst
+	 *            the destination switch
+	 * @param bw
+	 *            the bandwidth of the topology to route on, 0 for the base one
+	 * @return the pending route, whose value is NULL if there is no route
+	 */
+	public Future<Path> getRouteAsync(Node src, Node dst, Short bw);
+
+	/**
+	 * Computes the routes from one switch to many. The shortest-path tree of
+	 * the source is grown once for all destinations, and every route starts
+	 * from it instead of searching the graph again.
+	 *
+	 * @param src
+	 *            the source switch
+	 * @param dsts
+	 *            the destination switches
+	 * @param bw
+	 *            the bandwidth of the topology to route on, 0 for the base one
+	 * @return the route to each destination in the order of
+	 *         <code>dsts</code>, without the destinations which cannot be
+	 *         reached
+	 */
+	public Map<Node, Path> getRoutes(Node src, Collection<Node> dsts, Short bw);
+
+	/**
+	 * Starts the computation of many routes at once on the bulk threads of
+	 * the load balancer, which leave some processors to the other queries.
+	 * The requests from the same source share its search state.
+	 *
+	 * @param requests
+	 *            the routes to compute
+	 * @return the batch from which the routes can be taken as soon as each
+	 *         one is computed
+	 */
+	public RouteBatch getRoutes(Collection<RouteRequest> requests);
+
+	/**
+	 * Reserves the expected rate of a new flow along its route, so that the
+	 * routes computed before its traffic shows in the statistics count it as
+	 * load of the links it takes.
+	 *
+	 * @param path
+	 *            the route of the flow
+	 * @param bytesPerSecond
+	 *            the expected rate of the flow
+	 * @param ttl
+	 *            the time after which the reservation expires if it is not
+	 *            released before
+	 * @param unit
+	 *            the unit of <code>ttl</code>
+	 * @return the reservation, whose <code>release()</code> gives the rate
+	 *         back
+	 */
+	public ReservationLedger.Reservation reserve(Path path, long bytesPerSecond, long ttl, TimeUnit unit);
+
+	/**
+	 * Records the route a long-lived flow was installed on, so that the
+	 * rebalancer may move it to another route when its links get hot. The
+	 * {@link IListenFlowMoves} services are told about every move.
+	 *
+	 * @param flowId
+	 *            the identifier of the flow, reported back when it is moved
+	 * @param request
+	 *            the switches and bandwidth of the flow
+	 * @param path
+	 *            the route the flow is installed on
+	 * @param bytesPerSecond
+	 *            the rate of the flow
+	 */
+	public void assignFlow(String flowId, RouteRequest request, Path path, long bytesPerSecond);
+
+	/**
+	 * Forgets a flow which ended, so that it is never moved again.
+	 *
+	 * @param flowId
+	 *            the identifier given to
+	 *            {@link #assignFlow(String, RouteRequest, Path, long)}
+	 * @return TRUE if the flow was known
+	 */
+	public boolean removeFlow(String flowId);
+
+	/**
+	 * Gets the demand between the switches, as estimated from the port
+	 * counters after the last sampling round.
+	 *
+	 * @return the traffic matrix, NULL if it is not estimated or not yet
+	 */
+	public TrafficMatrix getTrafficMatrix();
+
+	/**
+	 * Gets how much state the load balancer holds, per subsystem, e.g. to
+	 * check that it stays bounded while switches come and go.
+	 *
+	 * @return the entries and estimated heap of every subsystem
+	 */
+	public MemoryReport getMemoryReport();
+
+}
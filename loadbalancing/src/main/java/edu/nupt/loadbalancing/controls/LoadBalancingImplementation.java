@@ -3,18 +3,31 @@
  */
 package edu.nupt.loadbalancing.controls;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.opendaylight.controller.clustering.services.IClusterContainerServices;
 import org.opendaylight.controller.sal.core.Bandwidth;
@@ -27,7 +40,6 @@ import org.opendaylight.controller.sal.core.Property;
 import org.opendaylight.controller.sal.core.UpdateType;
 import org.opendaylight.controller.sal.reader.NodeConnectorStatistics;
 import org.opendaylight.controller.sal.routing.IListenRoutingUpdates;
-import org.opendaylight.controller.sal.routing.IRouting;
 import org.opendaylight.controller.sal.topology.TopoEdgeUpdate;
 import org.opendaylight.controller.statisticsmanager.IStatisticsManager;
 import org.opendaylight.controller.switchmanager.ISwitchManager;
@@ -36,8 +48,13 @@ import org.opendaylight.controller.topologymanager.ITopologyManagerClusterWideAw
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.nupt.loadbalancing.beans.LoadBalancingDisjointPath;
+import edu.nupt.loadbalancing.beans.LoadBalancingDisjointPath.Disjointness;
 import edu.nupt.loadbalancing.beans.LoadBalancingShortestPath;
 import edu.nupt.loadbalancing.beans.NuptPath;
+import edu.nupt.loadbalancing.beans.SearchContext;
+import edu.nupt.loadbalancing.controls.PathLoadEvaluator.LoadPolicy;
+import edu.nupt.loadbalancing.metrics.IRoutingMetrics;
 import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.SparseMultigraph;
 import edu.uci.ics.jung.graph.util.EdgeType;
@@ -50,16 +67,117 @@ import edu.uci.ics.jung.graph.util.Pair;
  * @Author: Yanjun Wang
  * @Date: 2017年3月17日
  */
-public class LoadBalancingImplementation implements IRouting, ITopologyManagerClusterWideAware {
+public class LoadBalancingImplementation implements ILoadBalancingRouting, ITopologyManagerClusterWideAware {
 	private static Logger log = LoggerFactory.getLogger(LoadBalancingImplementation.class);
 	private ConcurrentMap<Short, Graph<Node, Edge>> topologyBWAware;
 	private ConcurrentMap<Short, LoadBalancingShortestPath<Node, Edge>> sptBWAware;
 	private Set<IListenRoutingUpdates> routingAware;
+	private final Set<IListenFlowMoves> flowMoveAware = new CopyOnWriteArraySet<IListenFlowMoves>();
 	private ISwitchManager switchManager;
 	private ITopologyManager topologyManager;
 	private IStatisticsManager statisticsManager;
 	private IClusterContainerServices clusterContainerService;
 	private DataStatisticsExecutor dataStatisticsExecutor;
+	private volatile IRoutingMetrics routingMetrics;
+	/**
+	 * Guards the graphs: route queries share the read lock, and topology
+	 * updates take the write lock, so that no search sees a half-updated
+	 * graph.
+	 */
+	private final ReentrantReadWriteLock topologyLock = new ReentrantReadWriteLock();
+	/**
+	 * A candidate path whose bottleneck load rate is below this value is taken
+	 * at once, without computing the remaining K-Top candidates.
+	 */
+	private volatile double goodEnoughLoadRate = Double
+			.parseDouble(System.getProperty("loadbalancing.goodEnoughLoadRate", "0.3"));
+	/**
+	 * Bumped by every change of the graphs, so that a route computed for an
+	 * older topology is never shared with a request for a newer one.
+	 */
+	private final AtomicLong topologyVersion = new AtomicLong();
+	/**
+	 * Where the candidate paths come from: NULL for the K-Top shortest paths
+	 * of Yen's algorithm, otherwise K paths which are disjoint in the given
+	 * way.
+	 */
+	private volatile Disjointness disjointness = disjointness(System.getProperty("loadbalancing.disjointPaths"));
+	private RouteComputationExecutor routeComputationExecutor;
+	private BulkRouteExecutor bulkRouteExecutor;
+	private ReservationLedger reservationLedger;
+	private FlowRebalancer flowRebalancer;
+	/**
+	 * Estimates the demands between the switches after every sampling round;
+	 * NULL unless <code>loadbalancing.trafficMatrix</code> is set.
+	 */
+	private TrafficMatrixEstimator trafficMatrixEstimator;
+	/**
+	 * The seconds between two rebalancing cycles, 0 to never move the
+	 * assigned flows.
+	 */
+	private final long rebalanceInterval = Long.getLong("loadbalancing.rebalance.interval",
+			3 * DataStatisticsExecutor.TIME_SAMPLING_INTERVAL).longValue();
+	/**
+	 * How long a port may go unsampled, a bandwidth unrouted and a
+	 * published route unrefreshed before their state is dropped, in
+	 * milliseconds; 0 to keep them.
+	 */
+	private final long idleTimeout = TimeUnit.SECONDS.toMillis(Long.getLong("loadbalancing.idleTimeout", 300L)
+			.longValue());
+	/**
+	 * When a route was last asked for on each bandwidth.
+	 */
+	private final ConcurrentMap<Short, Long> lastRouted = new ConcurrentHashMap<Short, Long>();
+	/**
+	 * Coalesces the topology updates of a window and damps the flapping
+	 * links before they reach the graphs.
+	 */
+	private TopologyDamper topologyDamper;
+	/**
+	 * Keeps the topology, the sampled counters and the recently routed pairs
+	 * across a restart; NULL unless <code>loadbalancing.snapshot.file</code>
+	 * is set.
+	 */
+	private SnapshotStore snapshotStore;
+	/**
+	 * The links taken from the snapshot at start which the topology manager
+	 * has not reported yet. They are dropped unless it knows them when it
+	 * first reports a link, or when the grace period of
+	 * <code>loadbalancing.snapshot.grace</code> is over, and they are never
+	 * saved again meanwhile.
+	 */
+	private final Set<Edge> provisionalEdges = Collections
+			.newSetFromMap(new ConcurrentHashMap<Edge, Boolean>());
+	/**
+	 * The routes and port counters shared with the other controllers of the
+	 * cluster; NULL unless <code>loadbalancing.clusterCaches</code> is set.
+	 */
+	private volatile ClusterRouteCache clusterRouteCache;
+	/**
+	 * The source switches whose routes this controller publishes; NULL
+	 * unless <code>loadbalancing.clusterShards</code> is set, in which case
+	 * the coordinator no longer publishes all the routes alone.
+	 */
+	private volatile ClusterShards clusterShards;
+	/**
+	 * The last refresh of the routes of this controller's share, only used
+	 * on the sampling thread.
+	 */
+	private RouteBatch shareRefresh;
+	/**
+	 * The pairs routed lately, in order of use, whose trees are grown again
+	 * after a restart. Only kept while there is a snapshot store.
+	 */
+	private final Map<RouteRequest, Boolean> recentRoutes = Collections
+			.synchronizedMap(new LinkedHashMap<RouteRequest, Boolean>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<RouteRequest, Boolean> eldest) {
+					return size() > MAX_RECENT_ROUTES;
+				}
+			});
+	private static final int MAX_RECENT_ROUTES = 1024;
 	private static final long DEFAULT_LINK_SPEED = Bandwidth.BW100Mbps;
 	private static final int DEFAULT_KTOP = 5;
 
@@ -88,6 +206,16 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 		}
 	}
 
+	public void setListenFlowMoves(final IListenFlowMoves i) {
+		log.debug("Adding flowMoveAware listener: {}", i);
+		this.flowMoveAware.add(i);
+	}
+
+	public void unsetListenFlowMoves(final IListenFlowMoves i) {
+		log.debug("Removing flowMoveAware listener");
+		this.flowMoveAware.remove(i);
+	}
+
 	public void setSwitchManager(ISwitchManager switchManager) {
 		this.switchManager = switchManager;
 	}
@@ -118,15 +246,103 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 		}
 	}
 
-	void setClusterContainerService(IClusterContainerServices s) {
+	public void setClusterContainerService(IClusterContainerServices s) {
 		log.debug("Cluster Service set");
 		this.clusterContainerService = s;
 	}
 
-	void unsetClusterContainerService(IClusterContainerServices s) {
+	public void unsetClusterContainerService(IClusterContainerServices s) {
 		if (this.clusterContainerService == s) {
 			log.debug("Cluster Service removed!");
 			this.clusterContainerService = null;
+			this.clusterRouteCache = null;
+			this.clusterShards = null;
+		}
+	}
+
+	public void setRoutingMetrics(IRoutingMetrics metrics) {
+		log.debug("Routing metrics set");
+		this.routingMetrics = metrics;
+	}
+
+	public void unsetRoutingMetrics(IRoutingMetrics metrics) {
+		if (this.routingMetrics == metrics) {
+			log.debug("Routing metrics removed!");
+			this.routingMetrics = null;
+		}
+	}
+
+	public double getGoodEnoughLoadRate() {
+		return goodEnoughLoadRate;
+	}
+
+	/**
+	 * Sets the load rate below which a candidate path is taken without
+	 * looking at the remaining ones. 0 always compares all K-Top paths.
+	 * 
+	 * @param goodEnoughLoadRate
+	 *            the load rate of a path which is good enough
+	 */
+	public void setGoodEnoughLoadRate(double goodEnoughLoadRate) {
+		this.goodEnoughLoadRate = goodEnoughLoadRate;
+	}
+
+	public Disjointness getDisjointness() {
+		return disjointness;
+	}
+
+	/**
+	 * Chooses the candidate paths among which the least loaded is taken.
+	 * 
+	 * @param disjointness
+	 *            NULL for the K-Top shortest paths, EDGE or NODE for K
+	 *            edge-disjoint or node-disjoint paths
+	 */
+	public void setDisjointness(Disjointness disjointness) {
+		log.info("Candidate paths: {}", disjointness == null ? "K-Top shortest" : disjointness + " disjoint");
+		this.disjointness = disjointness;
+	}
+
+	public LoadPolicy getLoadPolicy() {
+		return this.dataStatisticsExecutor.pathLoadEvaluator.getLoadPolicy();
+	}
+
+	/**
+	 * Chooses whether the candidate paths are compared by their observed or
+	 * by their predicted load.
+	 * 
+	 * @param loadPolicy
+	 *            the load of a port to use
+	 * @param forecaster
+	 *            the forecaster of the predicted load, NULL for
+	 *            {@link LoadPolicy#OBSERVED}
+	 */
+	public void setLoadPolicy(LoadPolicy loadPolicy, LoadForecaster forecaster) {
+		log.info("Load of the paths: {} {}", loadPolicy, forecaster == null ? "" : forecaster);
+		this.dataStatisticsExecutor.pathLoadEvaluator.setLoadPolicy(loadPolicy, forecaster);
+	}
+
+	private static LoadPolicy loadPolicy(String name) {
+		if (name == null || name.isEmpty()) {
+			return LoadPolicy.OBSERVED;
+		}
+		try {
+			return LoadPolicy.valueOf(name.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			log.warn("Unknown load policy {}, using the observed load", name);
+			return LoadPolicy.OBSERVED;
+		}
+	}
+
+	private static Disjointness disjointness(String name) {
+		if (name == null || name.isEmpty()) {
+			return null;
+		}
+		try {
+			return Disjointness.valueOf(name.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			log.warn("Unknown kind of disjoint paths {}, using K-Top shortest paths", name);
+			return null;
 		}
 	}
 
@@ -138,8 +354,17 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 	 * Updates the total network.
 	 * 
 	 */
-	@SuppressWarnings({ "unchecked" })
-	private synchronized boolean updateTopo(Edge edge, Short bw, UpdateType type) {
+	private boolean updateTopo(Edge edge, Short bw, UpdateType type) {
+		this.topologyLock.writeLock().lock();
+		try {
+			this.topologyVersion.incrementAndGet();
+			return updateTopoLocked(edge, bw, type);
+		} finally {
+			this.topologyLock.writeLock().unlock();
+		}
+	}
+
+	private boolean updateTopoLocked(Edge edge, Short bw, UpdateType type) {
 		Graph<Node, Edge> topo = this.topologyBWAware.get(bw);
 		LoadBalancingShortestPath<Node, Edge> spt = this.sptBWAware.get(bw);
 		boolean edgePresentInGraph = false;
@@ -221,23 +446,54 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 	 */
 	public void removeNode(Node node) {
 		Graph<Node, Edge> g = this.topologyBWAware.get(Short.valueOf((short) 0));
-		g.removeVertex(node);
+		this.topologyLock.writeLock().lock();
+		try {
+			this.topologyVersion.incrementAndGet();
+			g.removeVertex(node);
+			this.sptBWAware.get(Short.valueOf((short) 0)).reset();
+		} finally {
+			this.topologyLock.writeLock().unlock();
+		}
+		evictRemoved(Collections.<Edge> emptyList());
 	}
 
 	public void removeEdge(Edge edge) {
 		Graph<Node, Edge> g = this.topologyBWAware.get(Short.valueOf((short) 0));
-		g.removeEdge(edge);
+		this.topologyLock.writeLock().lock();
+		try {
+			this.topologyVersion.incrementAndGet();
+			g.removeEdge(edge);
+			this.sptBWAware.get(Short.valueOf((short) 0)).reset();
+		} finally {
+			this.topologyLock.writeLock().unlock();
+		}
+		evictRemoved(Collections.singletonList(edge));
 	}
 
 	public void addNode(Node node) {
 		Graph<Node, Edge> g = this.topologyBWAware.get(Short.valueOf((short) 0));
-		g.addVertex(node);
+		this.topologyLock.writeLock().lock();
+		try {
+			this.topologyVersion.incrementAndGet();
+			g.addVertex(node);
+			this.sptBWAware.get(Short.valueOf((short) 0)).reset();
+		} finally {
+			this.topologyLock.writeLock().unlock();
+		}
 	}
 
 	public void addEdge(Edge edge) {
 		Graph<Node, Edge> g = this.topologyBWAware.get(Short.valueOf((short) 0));
-		g.addEdge(edge, new Pair<Node>(edge.getTailNodeConnector().getNode(), edge.getHeadNodeConnector().getNode()),
-				EdgeType.DIRECTED);
+		this.topologyLock.writeLock().lock();
+		try {
+			this.topologyVersion.incrementAndGet();
+			g.addEdge(edge,
+					new Pair<Node>(edge.getTailNodeConnector().getNode(), edge.getHeadNodeConnector().getNode()),
+					EdgeType.DIRECTED);
+			this.sptBWAware.get(Short.valueOf((short) 0)).reset();
+		} finally {
+			this.topologyLock.writeLock().unlock();
+		}
 	}
 
 	public void printGraph() {
@@ -295,17 +551,140 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 	 * 
 	 */
 	public void edgeUpdate(List<TopoEdgeUpdate> topoedgeupdateList) {
+		if (this.provisionalEdges.isEmpty()) {
+			ingest(topoedgeupdateList, false);
+			return;
+		}
+		for (TopoEdgeUpdate update : topoedgeupdateList) {
+			if (update.getEdge() != null) {
+				// the topology manager decides on this link from now on
+				this.provisionalEdges.remove(update.getEdge());
+			}
+		}
+		ingest(topoedgeupdateList, false);
+		confirmRestoredEdges(false);
+	}
+
+	/**
+	 * Drops the links of the snapshot the topology manager does not know,
+	 * once it knows any link or once the grace period is over. It would
+	 * never report the removal of a link which went away while the
+	 * controller was down.
+	 *
+	 * @param expired
+	 *            whether the grace period is over
+	 */
+	private void confirmRestoredEdges(boolean expired) {
+		if (this.provisionalEdges.isEmpty()) {
+			return;
+		}
+		Map<Edge, Set<Property>> known = this.topologyManager.getEdges();
+		if (known.isEmpty() && !expired) {
+			return;
+		}
+		List<TopoEdgeUpdate> removals = new ArrayList<TopoEdgeUpdate>();
+		for (Edge e : new ArrayList<Edge>(this.provisionalEdges)) {
+			if (this.provisionalEdges.remove(e) && !known.containsKey(e)) {
+				removals.add(new TopoEdgeUpdate(e, null, UpdateType.REMOVED));
+			}
+		}
+		if (!removals.isEmpty()) {
+			log.info("Dropping {} links of the snapshot the topology manager did not report", removals.size());
+			ingest(removals, true);
+		}
+	}
+
+	/**
+	 * Hands the updates to {@link #topologyDamper}. They are applied at once
+	 * when there is no window, or when <code>immediate</code> is set;
+	 * otherwise the end of the window is scheduled on the sampling thread
+	 * by the batch which opened it.
+	 */
+	private void ingest(List<TopoEdgeUpdate> topoedgeupdateList, boolean immediate) {
+		IRoutingMetrics metrics = this.routingMetrics;
+		if (metrics != null) {
+			metrics.recordTopologyUpdates(topoedgeupdateList.size());
+		}
+		TopologyDamper damper = this.topologyDamper;
+		boolean opened = damper.offer(topoedgeupdateList, System.currentTimeMillis());
+		if (immediate || damper.getWindowMillis() == 0) {
+			endTopologyWindow();
+		} else if (opened && !this.dataStatisticsExecutor.scheduleOnce(new Runnable() {
+			public void run() {
+				endTopologyWindow();
+			}
+		}, damper.getWindowMillis())) {
+			// the sampling thread is gone
+			endTopologyWindow();
+		}
+	}
+
+	/**
+	 * Applies the updates of the window of {@link #topologyDamper} which
+	 * just ended. The damper is locked until the updates are applied, so
+	 * that the updates of two windows, or of a window and a release, are
+	 * never applied out of order.
+	 */
+	private void endTopologyWindow() {
+		TopologyDamper damper = this.topologyDamper;
+		synchronized (damper) {
+			long before = damper.getSuppressedCount();
+			List<TopoEdgeUpdate> updates = damper.endWindow(System.currentTimeMillis());
+			int suppressed = (int) (damper.getSuppressedCount() - before);
+			IRoutingMetrics metrics = this.routingMetrics;
+			if (metrics != null && suppressed > 0) {
+				metrics.recordSuppressedTopologyUpdates(suppressed);
+			}
+			if (suppressed > 0) {
+				log.debug("Suppressed {} topology updates, {} links damped", suppressed,
+						damper.getSuppressedEdgeCount());
+			}
+			if (!updates.isEmpty()) {
+				applyEdgeUpdates(updates);
+			}
+		}
+	}
+
+	/**
+	 * Applies the additions of the links whose damping is over. Runs on the
+	 * sampling thread, and leaves the current window open.
+	 */
+	private void releaseDampedLinks() {
+		TopologyDamper damper = this.topologyDamper;
+		synchronized (damper) {
+			List<TopoEdgeUpdate> updates = damper.releaseSuppressed(System.currentTimeMillis());
+			if (!updates.isEmpty()) {
+				log.debug("Releasing {} damped links", updates.size());
+				applyEdgeUpdates(updates);
+			}
+		}
+	}
+
+	/**
+	 * Applies the updates which went through {@link #topologyDamper} to the
+	 * graphs.
+	 */
+	private void applyEdgeUpdates(List<TopoEdgeUpdate> topoedgeupdateList) {
 		log.trace("Start of a Bulk EdgeUpdate with " + topoedgeupdateList.size() + " elements");
 		boolean callListeners = false;
+		List<Edge> changed = new ArrayList<Edge>();
+		List<Edge> removed = new ArrayList<Edge>();
 		for (int i = 0; i < topoedgeupdateList.size(); i++) {
 			Edge e = topoedgeupdateList.get(i).getEdge();
 			Set<Property> p = topoedgeupdateList.get(i).getProperty();
 			UpdateType type = topoedgeupdateList.get(i).getUpdateType();
 			boolean isLocal = topoedgeupdateList.get(i).isLocal();
-			if ((edgeUpdate(e, type, p, isLocal)) && (!callListeners)) {
+			if (edgeUpdate(e, type, p, isLocal)) {
 				callListeners = true;
+				changed.add(e);
+			}
+			if (type == UpdateType.REMOVED && e != null) {
+				removed.add(e);
 			}
 		}
+		if (!removed.isEmpty()) {
+			evictRemoved(removed);
+		}
 
 		// The routing listeners should only be called on the coordinator, to
 		// avoid multiple controller cluster nodes to actually do the
@@ -314,6 +693,13 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 		if (this.clusterContainerService != null) {
 			amICoordinator = this.clusterContainerService.amICoordinator();
 		}
+		ClusterRouteCache shared = this.clusterRouteCache;
+		if (shared != null && amICoordinator && callListeners) {
+			// the published routes over the changed links were chosen on the
+			// old topology
+			int withdrawn = shared.invalidateRoutes(changed);
+			log.debug("Withdrew {} published routes over {} changed links", withdrawn, changed.size());
+		}
 		if ((callListeners) && (this.routingAware != null) && amICoordinator) {
 			log.trace("Calling the routing listeners");
 			for (IListenRoutingUpdates ra : this.routingAware) {
@@ -325,7 +711,270 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 			}
 		}
 		log.trace("End of a Bulk EdgeUpdate");
-		System.out.println("graph:" + this.topologyBWAware.get(Short.valueOf((short) 0)));
+	}
+
+	/**
+	 * Drops the state kept for the links and switches which left the
+	 * topology: the counters of the ports of the switches which are no
+	 * longer in the base topology, the reserved rates of the removed links,
+	 * and the topologies and trees of the bandwidths without any switch left.
+	 *
+	 * @param removed
+	 *            the links which were removed
+	 */
+	private void evictRemoved(Collection<Edge> removed) {
+		Short baseBW = Short.valueOf((short) 0);
+		Set<Node> nodes;
+		List<Edge> gone = new ArrayList<Edge>();
+		int bandwidths = 0;
+		this.topologyLock.writeLock().lock();
+		try {
+			Graph<Node, Edge> g = this.topologyBWAware.get(baseBW);
+			nodes = new HashSet<Node>(g.getVertices());
+			for (Edge edge : removed) {
+				if (!g.containsEdge(edge)) {
+					gone.add(edge);
+				}
+			}
+			Iterator<Map.Entry<Short, Graph<Node, Edge>>> it = this.topologyBWAware.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<Short, Graph<Node, Edge>> entry = it.next();
+				if (!entry.getKey().equals(baseBW) && entry.getValue().getVertexCount() == 0) {
+					it.remove();
+					this.sptBWAware.remove(entry.getKey());
+					this.lastRouted.remove(entry.getKey());
+					bandwidths++;
+				}
+			}
+		} finally {
+			this.topologyLock.writeLock().unlock();
+		}
+		this.reservationLedger.forget(gone);
+		int ports = this.dataStatisticsExecutor.evictNodes(nodes);
+		log.debug("Evicted {} ports, {} links and {} bandwidths after a removal", new Object[] { ports,
+				gone.size(), bandwidths });
+	}
+
+	/**
+	 * Drops the state nobody used for {@link #idleTimeout}: the counters of
+	 * the ports which are no longer sampled, the trees of the bandwidths no
+	 * route was asked for, and the published routes nobody refreshed. Runs
+	 * on the sampling thread.
+	 */
+	private void evictIdle() {
+		long since = System.currentTimeMillis() - this.idleTimeout;
+		int ports = this.dataStatisticsExecutor.evictIdle(since);
+		int trees = 0;
+		for (Map.Entry<Short, Long> entry : this.lastRouted.entrySet()) {
+			if (entry.getValue().longValue() >= since || !this.lastRouted.remove(entry.getKey(), entry.getValue())) {
+				continue;
+			}
+			LoadBalancingShortestPath<Node, Edge> spt = this.sptBWAware.get(entry.getKey());
+			if (spt != null) {
+				this.topologyLock.writeLock().lock();
+				try {
+					spt.reset();
+				} finally {
+					this.topologyLock.writeLock().unlock();
+				}
+				trees++;
+			}
+		}
+		ClusterRouteCache shared = this.clusterRouteCache;
+		int routes = shared == null ? 0 : shared.evictRoutes(this.idleTimeout);
+		log.debug("Evicted {} idle ports, the trees of {} bandwidths and {} published routes", new Object[] {
+				ports, trees, routes });
+	}
+
+	/**
+	 * Entry called by the monitoring of the controller.
+	 */
+	public MemoryReport getMemoryReport() {
+		MemoryReport report = new MemoryReport(System.currentTimeMillis());
+		DataStatisticsExecutor executor = this.dataStatisticsExecutor;
+		int length = (int) (DataStatisticsExecutor.TIME_SAMPLING_CYCLE / DataStatisticsExecutor.TIME_SAMPLING_INTERVAL) + 1;
+		int ports = executor.statisticsMap.size();
+		report.add("statistics", ports, MemoryReport.windowBytes(ports, 1, length)
+				+ MemoryReport.windowBytes(executor.directionalCounters.getPortCount(), 4, length)
+				+ executor.lastSampled.size() * (MemoryReport.MAP_ENTRY_BYTES + MemoryReport.OBJECT_BYTES)
+				+ executor.restored.size() * MemoryReport.MAP_ENTRY_BYTES);
+
+		long elements = 0L, sources = 0L, treeBytes = 0L;
+		this.topologyLock.readLock().lock();
+		try {
+			for (Map.Entry<Short, Graph<Node, Edge>> entry : this.topologyBWAware.entrySet()) {
+				Graph<Node, Edge> g = entry.getValue();
+				elements += g.getVertexCount() + g.getEdgeCount();
+				LoadBalancingShortestPath<Node, Edge> spt = this.sptBWAware.get(entry.getKey());
+				if (spt != null) {
+					int cached = spt.getCachedSourceCount();
+					sources += cached;
+					// the distance, incoming edge and tentative edge of
+					// every vertex
+					treeBytes += cached * (long) g.getVertexCount() * 3 * MemoryReport.MAP_ENTRY_BYTES;
+				}
+			}
+		} finally {
+			this.topologyLock.readLock().unlock();
+		}
+		// a vertex or an edge is an entry of the graph and of its
+		// incidence sets
+		report.add("topology", elements, elements * (2 * MemoryReport.MAP_ENTRY_BYTES + MemoryReport.OBJECT_BYTES));
+		report.add("shortestPathTrees", sources, treeBytes);
+
+		int counters = this.reservationLedger.getCounterCount();
+		int reservations = this.reservationLedger.getActiveReservations();
+		report.add("reservations", counters + reservations, counters
+				* (MemoryReport.MAP_ENTRY_BYTES + MemoryReport.OBJECT_BYTES) + reservations
+				* (2 * MemoryReport.OBJECT_BYTES + MemoryReport.ARRAY_BYTES));
+		int routes = this.recentRoutes.size();
+		report.add("recentRoutes", routes, routes * (MemoryReport.MAP_ENTRY_BYTES + MemoryReport.OBJECT_BYTES));
+		int flows = this.flowRebalancer.getFlowCount();
+		report.add("flows", flows, flows * (MemoryReport.MAP_ENTRY_BYTES + 2 * MemoryReport.OBJECT_BYTES));
+		TrafficMatrix matrix = getTrafficMatrix();
+		long n = matrix == null ? 0L : matrix.getNodes().size();
+		report.add("trafficMatrix", n * n, n * (MemoryReport.ARRAY_BYTES + 8L * n + MemoryReport.MAP_ENTRY_BYTES));
+		ClusterRouteCache shared = this.clusterRouteCache;
+		int published = shared == null ? 0 : shared.getRouteCount();
+		report.add("clusterRoutes", published, published
+				* (MemoryReport.MAP_ENTRY_BYTES + 2 * MemoryReport.OBJECT_BYTES));
+		int damped = this.topologyDamper.getEdgeCount();
+		report.add("topologyDamper", damped, damped * (MemoryReport.MAP_ENTRY_BYTES + MemoryReport.OBJECT_BYTES));
+		return report;
+	}
+
+	/**
+	 * Entry called by the callers which admit a flow on a route.
+	 */
+	public ReservationLedger.Reservation reserve(Path path, long bytesPerSecond, long ttl, TimeUnit unit) {
+		return this.reservationLedger.reserve(path.getEdges(), bytesPerSecond, ttl, unit);
+	}
+
+	/**
+	 * Entry called by the callers which install long-lived flows.
+	 */
+	public void assignFlow(String flowId, RouteRequest request, Path path, long bytesPerSecond) {
+		NuptPath route;
+		try {
+			route = new NuptPath(path.getEdges());
+		} catch (ConstructionException e) {
+			throw new IllegalArgumentException("Not a route: " + path, e);
+		}
+		this.flowRebalancer.assign(flowId, request, route, bytesPerSecond);
+	}
+
+	/**
+	 * Entry called by the callers whose flows ended.
+	 */
+	public boolean removeFlow(String flowId) {
+		return this.flowRebalancer.remove(flowId);
+	}
+
+	/**
+	 * Moves some of the assigned flows off the hottest links and tells the
+	 * listeners about the flows which moved. Runs on the sampling thread, so
+	 * that no counter changes while the moves are decided.
+	 */
+	private void rebalance() {
+		List<FlowMove> moves = this.flowRebalancer.rebalance();
+		if (moves.isEmpty()) {
+			return;
+		}
+		log.debug("Rebalancing moved {} flows", moves.size());
+		List<FlowMove> unmodifiable = Collections.unmodifiableList(moves);
+		for (IListenFlowMoves listener : this.flowMoveAware) {
+			try {
+				listener.flowsMoved(unmodifiable);
+			} catch (Exception ex) {
+				log.error("Exception on flowMoveAware listener call", ex);
+			}
+		}
+	}
+
+	/**
+	 * Entry called by the callers which plan ahead.
+	 */
+	public TrafficMatrix getTrafficMatrix() {
+		TrafficMatrixEstimator estimator = this.trafficMatrixEstimator;
+		return estimator == null ? null : estimator.getLast();
+	}
+
+	/**
+	 * Estimates the traffic matrix from the counters of the last sampling
+	 * round, and grows the shortest-path trees of the sources of the largest
+	 * demands, so that the routes of their flows are ready when the flows
+	 * come. Runs on the sampling thread.
+	 */
+	private void estimateTrafficMatrix() {
+		Graph<Node, Edge> g = this.topologyBWAware.get(Short.valueOf((short) 0));
+		List<Edge> edges;
+		long version;
+		this.topologyLock.readLock().lock();
+		try {
+			edges = new ArrayList<Edge>(g.getEdges());
+			version = this.topologyVersion.get();
+		} finally {
+			this.topologyLock.readLock().unlock();
+		}
+		TrafficMatrix matrix = this.trafficMatrixEstimator.estimate(edges,
+				this.dataStatisticsExecutor.statisticsMap, version);
+		int precompute = Integer.getInteger("loadbalancing.trafficMatrix.precompute", 0).intValue();
+		if (precompute <= 0) {
+			return;
+		}
+		Map<Node, List<Node>> dsts = new LinkedHashMap<Node, List<Node>>();
+		for (RouteRequest request : matrix.getLargestDemands(precompute)) {
+			List<Node> forSrc = dsts.get(request.getSrc());
+			if (forSrc == null) {
+				forSrc = new ArrayList<Node>();
+				dsts.put(request.getSrc(), forSrc);
+			}
+			forSrc.add(request.getDst());
+		}
+		for (Map.Entry<Node, List<Node>> entry : dsts.entrySet()) {
+			prepareRoutes(entry.getKey(), entry.getValue(), Short.valueOf((short) 0));
+		}
+	}
+
+	/**
+	 * Computes the shortest path of a pair, which the traffic matrix assumes
+	 * its demand to take.
+	 */
+	private NuptPath getShortestPath(Node src, Node dst) {
+		LoadBalancingShortestPath<Node, Edge> spt = this.sptBWAware.get(Short.valueOf((short) 0));
+		this.topologyLock.readLock().lock();
+		try {
+			Iterator<NuptPath> paths = spt.iterator(src, dst, new SearchContext());
+			return paths.hasNext() ? paths.next() : null;
+		} catch (IllegalArgumentException e) {
+			log.debug("A vertex is yet not known between {} {}", src, dst);
+			return null;
+		} finally {
+			this.topologyLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Computes the candidate paths of a pair, among which the rebalancer
+	 * chooses the new route of a flow.
+	 */
+	private List<NuptPath> getCandidatePaths(RouteRequest request) {
+		LoadBalancingShortestPath<Node, Edge> spt = this.sptBWAware.get(request.getBw());
+		if (spt == null || request.getSrc() == null || request.getDst() == null) {
+			return Collections.emptyList();
+		}
+		this.topologyLock.readLock().lock();
+		try {
+			Disjointness kind = this.disjointness;
+			return kind == null ? spt.getPath(request.getSrc(), request.getDst())
+					: new LoadBalancingDisjointPath<Node, Edge>(this.topologyBWAware.get(request.getBw()),
+							DEFAULT_KTOP).getPath(request.getSrc(), request.getDst(), kind);
+		} catch (IllegalArgumentException e) {
+			log.debug("A vertex is yet not known between {} {}", request.getSrc(), request.getDst());
+			return Collections.emptyList();
+		} finally {
+			this.topologyLock.readLock().unlock();
+		}
 	}
 
 	/**
@@ -350,28 +999,185 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 	 * 
 	 */
 	public Path getRoute(Node src, Node dst, Short Bw) {
+		ClusterRouteCache shared = this.clusterRouteCache;
+		if (shared == null || src == null || dst == null) {
+			return getRoute(src, dst, Bw, new SearchContext()).getPath();
+		}
+		RouteRequest request = new RouteRequest(src, dst, Bw);
+		Path route = shared.getRoute(request);
+		if (route != null) {
+			return route;
+		}
+		route = getRoute(src, dst, Bw, new SearchContext()).getPath();
+		// with shards, any member publishes a new pair, and the owner of
+		// its source keeps it fresh from then on
+		if (this.clusterShards != null || shared.isPublisher()) {
+			shared.putRoute(request, route);
+		}
+		return route;
+	}
+
+	/**
+	 * Entry called by the callers which can live with a route that is not the
+	 * best one, as long as it comes in time.
+	 */
+	public RouteResult getRoute(Node src, Node dst, Short bw, long budget, TimeUnit unit) {
+		SearchContext context = new SearchContext();
+		context.setDeadline(System.nanoTime() + unit.toNanos(budget));
+		return getRoute(src, dst, bw, context);
+	}
+
+	/**
+	 * Entry called by the callers which need routes to many destinations.
+	 */
+	public Map<Node, Path> getRoutes(Node src, Collection<Node> dsts, Short bw) {
+		Map<Node, Path> routes = new LinkedHashMap<Node, Path>();
+		if ((src == null) || (dsts == null)) {
+			return routes;
+		}
+		prepareRoutes(src, dsts, bw);
+		for (Node dst : dsts) {
+			Path route = getRoute(src, dst, bw, new SearchContext()).getPath();
+			if (route != null) {
+				routes.put(dst, route);
+			}
+		}
+		return routes;
+	}
+
+	/**
+	 * Entry called by the callers which need many routes at once.
+	 */
+	public RouteBatch getRoutes(Collection<RouteRequest> requests) {
+		return this.bulkRouteExecutor.submit(requests, new BulkRouteExecutor.RouteComputation() {
+			public void prepare(Node src, Collection<Node> dsts, Short bw) {
+				prepareRoutes(src, dsts, bw);
+			}
+
+			public Path compute(Node src, Node dst, Short bw) {
+				return getRoute(src, dst, bw);
+			}
+		});
+	}
+
+	/**
+	 * Grows the cached shortest-path tree of <code>src</code> by one
+	 * multi-target search until it covers all the known destinations, so
+	 * that the first candidate of every route from it costs no further
+	 * search.
+	 */
+	private void prepareRoutes(Node src, Collection<Node> dsts, Short bw) {
+		LoadBalancingShortestPath<Node, Edge> spt = this.sptBWAware.get(bw);
+		Graph<Node, Edge> topo = this.topologyBWAware.get(bw);
+		if (src == null || spt == null || topo == null || this.disjointness != null) {
+			return;
+		}
+		this.topologyLock.readLock().lock();
+		try {
+			if (topo.containsVertex(src)) {
+				List<Node> targets = new ArrayList<Node>(dsts.size());
+				for (Node dst : dsts) {
+					if (dst != null && topo.containsVertex(dst)) {
+						targets.add(dst);
+					}
+				}
+				spt.singleSourceShortestPath(src, targets, 1, true);
+			}
+		} finally {
+			this.topologyLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Entry called by the callers which must not block on the computation.
+	 */
+	public Future<Path> getRouteAsync(final Node src, final Node dst, final Short bw) {
+		if (src == null || dst == null || bw == null) {
+			// no route, as getRoute answers
+			return RouteComputationExecutor.completed(null);
+		}
+		return this.routeComputationExecutor.submit(src, dst, bw, this.topologyVersion.get(), new Callable<Path>() {
+			public Path call() {
+				return getRoute(src, dst, bw);
+			}
+		}, this.routingMetrics);
+	}
+
+	/**
+	 * Gets the version of the topology, which changes with every update of
+	 * the graphs.
+	 * 
+	 * @return the current topology version
+	 */
+	public long getTopologyVersion() {
+		return this.topologyVersion.get();
+	}
+
+	/**
+	 * Computes a route, as far as the given <code>context</code> lets the
+	 * search go.
+	 * 
+	 * @param src
+	 *            the source switch
+	 * @param dst
+	 *            the destination switch
+	 * @param Bw
+	 *            the bandwidth of the topology to route on
+	 * @param context
+	 *            the bookkeeping and deadline of the query
+	 * @return the route and whether the search was complete
+	 */
+	private RouteResult getRoute(Node src, Node dst, Short Bw, SearchContext context) {
+		if ((src == null) || (dst == null)) {
+			return new RouteResult(null, true);
+		}
 		LoadBalancingShortestPath<Node, Edge> spt = this.sptBWAware.get(Bw);
 		if (spt == null) {
 			log.info("Algorithm about shortest path is not found.");
-			return null;
+			return new RouteResult(null, true);
 		}
-		List<Edge> path = null;
-		List<NuptPath> paths = spt.getPath(src, dst);
-		path = this.dataStatisticsExecutor.getOptimalPath(paths).getEdges();
-
-		int i = 1;
-		for (NuptPath np : paths) {
-			System.out.println("index of path [" + (i++) + "]:" + np);
+		this.lastRouted.put(Bw, Long.valueOf(System.currentTimeMillis()));
+		IRoutingMetrics metrics = this.routingMetrics;
+		boolean measured = metrics != null && metrics.isEnabled();
+		long begin = measured ? System.nanoTime() : 0L;
+		NuptPath optimalPath = null;
+		this.topologyLock.readLock().lock();
+		try {
+			// the K-Top candidates are computed only as far as the selection
+			// needs them
+			Disjointness kind = this.disjointness;
+			Iterator<NuptPath> paths = kind == null ? spt.iterator(src, dst, context)
+					: new LoadBalancingDisjointPath<Node, Edge>(this.topologyBWAware.get(Bw), DEFAULT_KTOP)
+							.getPath(src, dst, kind, context).iterator();
+			optimalPath = this.dataStatisticsExecutor.getOptimalPath(paths, this.goodEnoughLoadRate);
+		} catch (IllegalArgumentException e) {
+			log.debug("A vertex is yet not known between {} {}", src, dst);
+			return new RouteResult(null, true);
+		} finally {
+			this.topologyLock.readLock().unlock();
+		}
+		if (measured) {
+			metrics.recordRoute(Bw, System.nanoTime() - begin, context);
+		}
+		if (context.isTruncated()) {
+			log.debug("Route search between {} {} stopped at its deadline", src, dst);
+		}
+		if (optimalPath == null) {
+			log.debug("No path is found between {} {}", src, dst);
+			return new RouteResult(null, !context.isTruncated());
+		}
+		log.trace("Optimal path between {} {}: {}", new Object[] { src, dst, optimalPath });
+		if (this.snapshotStore != null) {
+			this.recentRoutes.put(new RouteRequest(src, dst, Bw), Boolean.TRUE);
 		}
-		// System.out.println("**************************"+paths.get(0).equals(paths.get(1)));
 		Path res;
 		try {
-			res = new Path(path);
+			res = optimalPath.toPath();
 		} catch (ConstructionException e) {
 			log.debug("Caught an exception when construct a Path instance.");
-			return null;
+			return new RouteResult(null, !context.isTruncated());
 		}
-		return res;
+		return new RouteResult(res, !context.isTruncated());
 	}
 
 	/**
@@ -379,11 +1185,16 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 	 */
 	public void clear() {
 		LoadBalancingShortestPath<Node, Edge> spt;
-		for (Short bw : this.sptBWAware.keySet()) {
-			spt = this.sptBWAware.get(bw);
-			if (spt != null) {
-				spt.reset();
+		this.topologyLock.writeLock().lock();
+		try {
+			for (Short bw : this.sptBWAware.keySet()) {
+				spt = this.sptBWAware.get(bw);
+				if (spt != null) {
+					spt.reset();
+				}
 			}
+		} finally {
+			this.topologyLock.writeLock().unlock();
 		}
 
 	}
@@ -433,6 +1244,69 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 		this.topologyBWAware = new ConcurrentHashMap<Short, Graph<Node, Edge>>();
 		this.sptBWAware = new ConcurrentHashMap<Short, LoadBalancingShortestPath<Node, Edge>>();
 		this.dataStatisticsExecutor = new DataStatisticsExecutor();
+		// the reservations expire on the sampling thread, one tick a second
+		this.reservationLedger = new ReservationLedger(TimeUnit.SECONDS.toMillis(1));
+		this.dataStatisticsExecutor.pathLoadEvaluator.setReservationLedger(this.reservationLedger);
+		this.dataStatisticsExecutor.schedule(new Runnable() {
+			public void run() {
+				reservationLedger.tick();
+			}
+		}, 1);
+		// no damping unless a flap penalty is set; with a penalty of 1000, a
+		// link removed twice within a half-life is suppressed, and used again
+		// after some twenty seconds without a flap
+		double flapPenalty = Double.parseDouble(System.getProperty("loadbalancing.topology.flapPenalty", "0"));
+		this.topologyDamper = new TopologyDamper(Long.getLong("loadbalancing.topology.window", 0L).longValue(),
+				flapPenalty,
+				Double.parseDouble(System.getProperty("loadbalancing.topology.suppressLimit", "1500")),
+				Double.parseDouble(System.getProperty("loadbalancing.topology.reuseLimit", "750")),
+				TimeUnit.SECONDS.toMillis(Long.getLong("loadbalancing.topology.halfLife", 15L).longValue()),
+				TimeUnit.SECONDS.toMillis(Long.getLong("loadbalancing.topology.maxSuppress", 300L).longValue()));
+		if (flapPenalty > 0) {
+			// the suppressed links are released within a second after their
+			// penalty decayed
+			this.dataStatisticsExecutor.schedule(new Runnable() {
+				public void run() {
+					releaseDampedLinks();
+				}
+			}, 1);
+		}
+		// a move shows in the counters once the window has slid over it
+		this.flowRebalancer = new FlowRebalancer(this.dataStatisticsExecutor.pathLoadEvaluator,
+				new FlowRebalancer.CandidatePaths() {
+					public List<NuptPath> getCandidates(RouteRequest request) {
+						return getCandidatePaths(request);
+					}
+				}, Integer.getInteger("loadbalancing.rebalance.maxMoves", 8).intValue(),
+				Double.parseDouble(System.getProperty("loadbalancing.rebalance.minGain", "0.05")),
+				(int) ((DataStatisticsExecutor.TIME_SAMPLING_CYCLE + this.rebalanceInterval - 1)
+						/ Math.max(1L, this.rebalanceInterval)));
+		if (Boolean.getBoolean("loadbalancing.trafficMatrix")) {
+			this.trafficMatrixEstimator = new TrafficMatrixEstimator(new TrafficMatrixEstimator.Routes() {
+				public NuptPath getRoute(Node src, Node dst) {
+					return getShortestPath(src, dst);
+				}
+			}, DataStatisticsExecutor.TIME_SAMPLING_INTERVAL,
+					Integer.getInteger("loadbalancing.trafficMatrix.iterations", 10).intValue(),
+					Double.parseDouble(System.getProperty("loadbalancing.trafficMatrix.priorWeight", "0.5")));
+		}
+		this.routeComputationExecutor = new RouteComputationExecutor(Integer.getInteger(
+				"loadbalancing.routeThreads", Runtime.getRuntime().availableProcessors()));
+		// bulk queries leave some processors to the routes of packet-in events
+		this.bulkRouteExecutor = new BulkRouteExecutor(Runtime.getRuntime().availableProcessors()
+				- Integer.getInteger("loadbalancing.bulkReservedThreads", 1));
+		if (this.clusterContainerService != null && Boolean.getBoolean("loadbalancing.clusterCaches")) {
+			// a published route lives as long as the counters it was chosen on
+			this.clusterRouteCache = new ClusterRouteCache(this.clusterContainerService,
+					TimeUnit.SECONDS.toMillis(DataStatisticsExecutor.TIME_SAMPLING_INTERVAL));
+			if (Boolean.getBoolean("loadbalancing.clusterShards")) {
+				this.clusterShards = new ClusterShards(this.clusterContainerService);
+			}
+		}
+		String snapshotFile = System.getProperty("loadbalancing.snapshot.file");
+		if (snapshotFile != null && !snapshotFile.isEmpty()) {
+			this.snapshotStore = new SnapshotStore(new File(snapshotFile));
+		}
 		// Now create the default topology, which doesn't consider the
 		// BW, also create the corresponding Dijkstra calculation
 		Graph<Node, Edge> g = new SparseMultigraph();
@@ -448,8 +1322,17 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 	 * example bundle is being stopped.
 	 *
 	 */
-	void destroy() {
+	public void destroy() {
 		log.debug("Routing destroy() is called");
+		if (this.dataStatisticsExecutor != null) {
+			this.dataStatisticsExecutor.stop();
+		}
+		if (this.routeComputationExecutor != null) {
+			this.routeComputationExecutor.shutdown();
+		}
+		if (this.bulkRouteExecutor != null) {
+			this.bulkRouteExecutor.shutdown();
+		}
 	}
 
 	/**
@@ -457,25 +1340,190 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 	 * the services provided by the class are registered in the service registry
 	 *
 	 */
-	void start() {
+	public void start() {
 		log.debug("Routing start() is called");
+		SnapshotStore.Snapshot snapshot = loadSnapshot();
 		// build the routing database from the topology if it exists.
 		Map<Edge, Set<Property>> edges = topologyManager.getEdges();
-		if (edges.isEmpty()) {
-			return;
+		if (edges.isEmpty() && snapshot != null && !snapshot.edges.isEmpty()) {
+			// the topology manager has not rediscovered the links yet, those
+			// of the snapshot are used until it reports its own
+			log.debug("Creating routing database from the snapshot");
+			edges = new HashMap<Edge, Set<Property>>();
+			for (Edge e : snapshot.edges) {
+				edges.put(e, null);
+			}
+			this.provisionalEdges.addAll(snapshot.edges);
+		}
+		if (!edges.isEmpty()) {
+			List<TopoEdgeUpdate> topoedgeupdateList = new ArrayList<TopoEdgeUpdate>();
+			log.debug("Creating routing database from the topology");
+			Iterator<Map.Entry<Edge, Set<Property>>> it = edges.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<Edge, Set<Property>> entry = it.next();
+				Edge e = entry.getKey();
+				Set<Property> props = entry.getValue();
+				TopoEdgeUpdate topoedgeupdate = new TopoEdgeUpdate(e, props, UpdateType.ADDED);
+				topoedgeupdateList.add(topoedgeupdate);
+			}
+			// the initial topology is not worth waiting for a window
+			ingest(topoedgeupdateList, true);
 		}
-		List<TopoEdgeUpdate> topoedgeupdateList = new ArrayList<TopoEdgeUpdate>();
-		log.debug("Creating routing database from the topology");
-		Iterator<Map.Entry<Edge, Set<Property>>> it = edges.entrySet().iterator();
-		while (it.hasNext()) {
-			Map.Entry<Edge, Set<Property>> entry = it.next();
-			Edge e = entry.getKey();
-			Set<Property> props = entry.getValue();
-			TopoEdgeUpdate topoedgeupdate = new TopoEdgeUpdate(e, props, UpdateType.ADDED);
-			topoedgeupdateList.add(topoedgeupdate);
-		}
-		edgeUpdate(topoedgeupdateList);
+		if (!this.provisionalEdges.isEmpty()) {
+			this.dataStatisticsExecutor.scheduleOnce(new Runnable() {
+				public void run() {
+					confirmRestoredEdges(true);
+				}
+			}, TimeUnit.SECONDS.toMillis(Long.getLong("loadbalancing.snapshot.grace", 60L).longValue()));
+		}
+		// sampled and saved even before the first link is discovered
 		this.dataStatisticsExecutor.start();
+		if (this.snapshotStore != null) {
+			long interval = Long.getLong("loadbalancing.snapshot.interval", 60L).longValue();
+			this.dataStatisticsExecutor.schedule(new Runnable() {
+				public void run() {
+					saveSnapshot();
+				}
+			}, interval);
+			if (snapshot != null && !edges.isEmpty() && !snapshot.routes.isEmpty()) {
+				// nobody waits for these routes, they only grow the trees
+				getRoutes(snapshot.routes);
+			}
+		}
+		if (this.clusterShards != null) {
+			this.dataStatisticsExecutor.schedule(new Runnable() {
+				public void run() {
+					refreshShare();
+				}
+			}, DataStatisticsExecutor.TIME_SAMPLING_INTERVAL);
+		}
+		if (this.rebalanceInterval > 0) {
+			this.dataStatisticsExecutor.schedule(new Runnable() {
+				public void run() {
+					rebalance();
+				}
+			}, this.rebalanceInterval);
+		}
+		if (this.idleTimeout > 0) {
+			this.dataStatisticsExecutor.schedule(new Runnable() {
+				public void run() {
+					evictIdle();
+				}
+			}, DataStatisticsExecutor.TIME_SAMPLING_CYCLE);
+		}
+	}
+
+	/**
+	 * Computes again the published routes whose source belongs to the share
+	 * of this controller, and publishes them before they get outdated. A
+	 * change of the members rebalances the shares first, so that a
+	 * controller takes over the routes of a member which left at its next
+	 * refresh. Runs on the sampling thread, right after the counters the
+	 * routes are chosen on were updated.
+	 */
+	private void refreshShare() {
+		final ClusterShards shards = this.clusterShards;
+		final ClusterRouteCache shared = this.clusterRouteCache;
+		if (shards == null || shared == null) {
+			return;
+		}
+		shards.refresh();
+		if (this.shareRefresh != null) {
+			// nobody reads these routes, they are only published
+			try {
+				while (this.shareRefresh.poll(0, TimeUnit.SECONDS) != null) {
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			if (!this.shareRefresh.isDone()) {
+				log.debug("The previous refresh of the route share is still running");
+				return;
+			}
+		}
+		List<RouteRequest> share = new ArrayList<RouteRequest>();
+		for (RouteRequest request : shared.getRequests()) {
+			if (shards.owns(request.getSrc())) {
+				share.add(request);
+			}
+		}
+		log.debug("Refreshing {} routes of the share", share.size());
+		this.shareRefresh = this.bulkRouteExecutor.submit(share, new BulkRouteExecutor.RouteComputation() {
+			public void prepare(Node src, Collection<Node> dsts, Short bw) {
+				prepareRoutes(src, dsts, bw);
+			}
+
+			public Path compute(Node src, Node dst, Short bw) {
+				Path route = getRoute(src, dst, bw, new SearchContext()).getPath();
+				shared.putRoute(new RouteRequest(src, dst, bw), route);
+				return route;
+			}
+		});
+	}
+
+	/**
+	 * Reads the snapshot of the previous run and gives its sampled counters
+	 * back to the statistics executor.
+	 * 
+	 * @return the snapshot, with its topology and counters dropped if it is
+	 *         too old to describe the network, or NULL if there is none
+	 */
+	private SnapshotStore.Snapshot loadSnapshot() {
+		if (this.snapshotStore == null) {
+			return null;
+		}
+		SnapshotStore.Snapshot snapshot;
+		try {
+			snapshot = this.snapshotStore.load();
+		} catch (IOException e) {
+			log.warn("Cannot read the snapshot {}", this.snapshotStore.getFile(), e);
+			return null;
+		}
+		if (snapshot == null) {
+			return null;
+		}
+		long age = System.currentTimeMillis() - snapshot.createdMillis;
+		if (age > TimeUnit.SECONDS.toMillis(Long.getLong("loadbalancing.snapshot.maxAge", 300L).longValue())) {
+			log.info("Snapshot {} is {} ms old, only its routes are used", this.snapshotStore.getFile(), age);
+			snapshot.edges.clear();
+			snapshot.statistics.clear();
+		}
+		this.dataStatisticsExecutor.restore(snapshot.statistics);
+		log.info("Restored {} edges, {} ports and {} routes from the snapshot", new Object[] {
+				snapshot.edges.size(), snapshot.statistics.size(), snapshot.routes.size() });
+		return snapshot;
+	}
+
+	/**
+	 * Writes the current topology, sampled counters and recently routed pairs
+	 * to the snapshot store. The links of the previous snapshot the topology
+	 * manager has not reported yet are left out. Runs on the sampling thread,
+	 * so that no ring is shifted while it is copied.
+	 */
+	private void saveSnapshot() {
+		SnapshotStore.Snapshot snapshot = new SnapshotStore.Snapshot(System.currentTimeMillis());
+		Graph<Node, Edge> g = this.topologyBWAware.get(Short.valueOf((short) 0));
+		this.topologyLock.readLock().lock();
+		try {
+			for (Edge e : g.getEdges()) {
+				if (!this.provisionalEdges.contains(e)) {
+					snapshot.edges.add(e);
+				}
+			}
+		} finally {
+			this.topologyLock.readLock().unlock();
+		}
+		this.dataStatisticsExecutor.copyStatistics(snapshot.statistics);
+		synchronized (this.recentRoutes) {
+			snapshot.routes.addAll(this.recentRoutes.keySet());
+		}
+		try {
+			this.snapshotStore.save(snapshot);
+			log.debug("Saved the snapshot {}", this.snapshotStore.getFile());
+		} catch (IOException e) {
+			log.warn("Cannot write the snapshot {}", this.snapshotStore.getFile(), e);
+		}
 	}
 
 	/**
@@ -486,6 +1534,14 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 	 */
 	public void stop() {
 		log.debug("Routing stop() is called");
+		if (this.snapshotStore != null && this.dataStatisticsExecutor != null) {
+			// the last snapshot is the freshest one the next start can use
+			this.dataStatisticsExecutor.runAndWait(new Runnable() {
+				public void run() {
+					saveSnapshot();
+				}
+			});
+		}
 	}
 
 	/**
@@ -515,13 +1571,46 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 		 * the first sampling time in the current sampling cycle.
 		 */
 		private ConcurrentHashMap<NodeConnector, long[]> statisticsMap;
+		/**
+		 * The ports whose counters were restored from a snapshot, and whose
+		 * rings are rebased at their first new sample.
+		 */
+		private Set<NodeConnector> restored;
+		/**
+		 * The transmit and loss counters of the ports, which score every link
+		 * by its own direction.
+		 */
+		private DirectionalCounters directionalCounters;
+		/**
+		 * When each port was last sampled, or last copied from the
+		 * coordinator, in milliseconds.
+		 */
+		private ConcurrentHashMap<NodeConnector, Long> lastSampled;
 		private static final long TIME_SAMPLING_INTERVAL = 10;
 		private static final long TIME_SAMPLING_CYCLE = 100;
 		private static final long TIME_SAMPLING_DELAY = 20;
+		private PathLoadEvaluator pathLoadEvaluator;
 
 		private DataStatisticsExecutor() {
 			this.scheduledThreadPool = Executors.newScheduledThreadPool(1);
 			this.statisticsMap = new ConcurrentHashMap<NodeConnector, long[]>();
+			this.restored = Collections.newSetFromMap(new ConcurrentHashMap<NodeConnector, Boolean>());
+			this.lastSampled = new ConcurrentHashMap<NodeConnector, Long>();
+			this.directionalCounters = new DirectionalCounters(
+					(int) (TIME_SAMPLING_CYCLE / TIME_SAMPLING_INTERVAL) + 1);
+			this.pathLoadEvaluator = new PathLoadEvaluator(this.statisticsMap, DEFAULT_LINK_SPEED,
+					TIME_SAMPLING_INTERVAL, TIME_SAMPLING_CYCLE);
+			if (Boolean.parseBoolean(System.getProperty("loadbalancing.directionalLoad", "true"))) {
+				this.pathLoadEvaluator.setDirectionalCounters(this.directionalCounters,
+						Double.parseDouble(System.getProperty("loadbalancing.congestionWeight", "1.0")));
+			}
+			LoadPolicy policy = loadPolicy(System.getProperty("loadbalancing.loadPolicy"));
+			if (policy != LoadPolicy.OBSERVED) {
+				this.pathLoadEvaluator.setLoadPolicy(policy, new LoadForecaster(
+						Double.parseDouble(System.getProperty("loadbalancing.forecast.alpha", "0.5")),
+						Double.parseDouble(System.getProperty("loadbalancing.forecast.beta", "0.3")),
+						Double.parseDouble(System.getProperty("loadbalancing.forecast.horizon", "1"))));
+			}
 		}
 
 		private void start() {
@@ -532,99 +1621,155 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 			 * 
 			 */
 			this.scheduledThreadPool.scheduleWithFixedDelay(
-					new StatisticsSamplingTimerTask(this.statisticsMap,
-							(int) (TIME_SAMPLING_CYCLE / TIME_SAMPLING_INTERVAL)+1),
+					new StatisticsSamplingTimerTask(this.statisticsMap, this.restored, this.directionalCounters,
+							this.lastSampled, (int) (TIME_SAMPLING_CYCLE / TIME_SAMPLING_INTERVAL)+1),
 					TIME_SAMPLING_DELAY, TIME_SAMPLING_INTERVAL, TimeUnit.SECONDS);
 		}
 
 		/**
-		 * Filters the shortest path with the lowest load rate from the given
-		 * <code>List</code>. The load rate of the path depends on the highest
-		 * load rate in all segments.
+		 * Cancels the sampling task and releases its thread.
+		 */
+		private void stop() {
+			this.scheduledThreadPool.shutdownNow();
+		}
+
+		/**
+		 * Runs the given task every <code>interval</code> seconds on the
+		 * sampling thread.
+		 */
+		private void schedule(Runnable task, long interval) {
+			this.scheduledThreadPool.scheduleWithFixedDelay(task, interval, interval, TimeUnit.SECONDS);
+		}
+
+		/**
+		 * Runs the given task once on the sampling thread after
+		 * <code>delay</code> milliseconds.
+		 *
+		 * @return FALSE if the sampling thread was already stopped
+		 */
+		private boolean scheduleOnce(Runnable task, long delay) {
+			try {
+				this.scheduledThreadPool.schedule(task, delay, TimeUnit.MILLISECONDS);
+				return true;
+			} catch (RejectedExecutionException e) {
+				return false;
+			}
+		}
+
+		/**
+		 * Runs the given task on the sampling thread and waits a few seconds
+		 * for it.
+		 */
+		private void runAndWait(Runnable task) {
+			try {
+				this.scheduledThreadPool.submit(task).get(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				log.warn("Task on the sampling thread failed", e.getCause());
+			} catch (TimeoutException e) {
+				log.warn("Task on the sampling thread did not finish in time");
+			} catch (RuntimeException e) {
+				// the executor was already stopped
+				log.debug("Cannot run a task on the sampling thread", e);
+			}
+		}
+
+		/**
+		 * Takes the counters of a previous run. A ring of another length than
+		 * the current one is ignored.
+		 */
+		private void restore(Map<NodeConnector, long[]> statistics) {
+			int length = (int) (TIME_SAMPLING_CYCLE / TIME_SAMPLING_INTERVAL) + 1;
+			Long now = Long.valueOf(System.currentTimeMillis());
+			for (Map.Entry<NodeConnector, long[]> entry : statistics.entrySet()) {
+				if (entry.getValue().length == length) {
+					this.statisticsMap.put(entry.getKey(), entry.getValue().clone());
+					this.restored.add(entry.getKey());
+					this.lastSampled.put(entry.getKey(), now);
+				}
+			}
+		}
+
+		/**
+		 * Drops the counters of a port.
+		 */
+		private void evict(NodeConnector connector) {
+			this.statisticsMap.remove(connector);
+			this.restored.remove(connector);
+			this.directionalCounters.remove(connector);
+			this.lastSampled.remove(connector);
+		}
+
+		/**
+		 * Drops the counters of the ports of the switches which are not in
+		 * <code>nodes</code>.
 		 * 
-		 * @param paths
-		 *            a candidate list of paths
-		 * @return a shortest path with the lowest load rate
+		 * @return the number of ports dropped
 		 */
-		private NuptPath getOptimalPath(List<NuptPath> paths) {
-			List<Edge> edges = null;
-			NodeConnector tailConnector = null;
-			NodeConnector headConnector = null;
-			NuptPath result = null;
-			double pathLoadRate = Integer.MAX_VALUE;
-			for (NuptPath path : paths) {
-				edges = path.getEdges();
-				double edgeLoadRate = 0D;
-				double temp = 0D;
-				for (Edge edge : edges) {
-					tailConnector = edge.getTailNodeConnector();
-					headConnector = edge.getHeadNodeConnector();
-					try {
-						temp = calculateBWUtilizationRate(tailConnector, headConnector);
-					} catch (Exception e) {
-						log.error(e.getMessage());
-					}
-					if (temp > edgeLoadRate) {
-						edgeLoadRate = temp;
-					}
+		private int evictNodes(Set<Node> nodes) {
+			int count = 0;
+			for (NodeConnector connector : this.statisticsMap.keySet()) {
+				if (!nodes.contains(connector.getNode())) {
+					evict(connector);
+					count++;
 				}
+			}
+			return count;
+		}
 
-				if (edgeLoadRate < pathLoadRate) {
-					pathLoadRate = edgeLoadRate;
-					result = path;
+		/**
+		 * Drops the counters of the ports which were not sampled since
+		 * <code>since</code>, e.g. those a switch no longer reports.
+		 * 
+		 * @return the number of ports dropped
+		 */
+		private int evictIdle(long since) {
+			int count = 0;
+			for (Map.Entry<NodeConnector, Long> entry : this.lastSampled.entrySet()) {
+				if (entry.getValue().longValue() < since) {
+					evict(entry.getKey());
+					count++;
 				}
 			}
+			return count;
+		}
 
-			return result;
+		/**
+		 * Copies the rings of all the ports into <code>statistics</code>.
+		 */
+		private void copyStatistics(Map<NodeConnector, long[]> statistics) {
+			for (Map.Entry<NodeConnector, long[]> entry : this.statisticsMap.entrySet()) {
+				statistics.put(entry.getKey(), entry.getValue().clone());
+			}
 		}
 
 		/**
-		 * Calculates the bandwidth usage of an edge which's ends are connected
-		 * at node connector {# tail} and {# head} respectively. The bandwidth
-		 * usage of an edge is roughly equal to:
-		 * (Forwarding_Rate(nodeConnectorTail)+Forwarding_Rate(nodeConnectorHead))/Max_Bandwidth_of_Edge
+		 * Filters the shortest path with the lowest load rate from the given
+		 * <code>List</code>. The load rate of the path depends on the highest
+		 * load rate in all segments.
 		 * 
-		 * @param tail
-		 *            original nodeConnector
-		 * @param head
-		 *            terminal nodeConnector
-		 * @return the bandwidth usage of an edge
-		 * @throws Exception
-		 *             throws an exception when tail or head is null
+		 * @param paths
+		 *            a candidate list of paths
+		 * @return a shortest path with the lowest load rate
 		 */
-		private double calculateBWUtilizationRate(NodeConnector tail, NodeConnector head) throws Exception {
-			if (tail == null || head == null) {
-				// StringExpression message=StringFormatter.format("Fail to
-				// calculate utilization rate of bandwidth about the edge
-				// between tail { } and head { } due to tail or head
-				// NodeConnector is null.", tail,head);
-				throw new Exception(
-						"Fail to calculate utilization rate of bandwidth about the edge between "
-						+ "tail and head due to tail or head NodeConnector is null.");
-			}
-			long[] tailDatas = this.statisticsMap.get(tail);
-			long[] headDatas = this.statisticsMap.get(head);
-			double result = (calculateNCForwardingRate(tailDatas) + calculateNCForwardingRate(headDatas))
-					/ DEFAULT_LINK_SPEED;
-			return result;
+		private NuptPath getOptimalPath(List<NuptPath> paths) {
+			return this.pathLoadEvaluator.getOptimalPath(paths);
 		}
 
 		/**
-		 * Calculates the data forwarding rate for a port({@link NodeConnector}).
-		 * The data forwarding rate of a port is roughly equal to:
-		 * (Total_Amount_of_Data*Sampling_Interval)/Sampling_Cycle
+		 * Same as {@link #getOptimalPath(List)}, but stops at the first
+		 * candidate whose load rate is below <code>goodEnough</code>.
 		 * 
-		 * @param datas
-		 *            an array that storages statistics
-		 * @return the data forwarding rate for a {@link NodeConnector}
+		 * @param paths
+		 *            the candidate paths in order of their cost
+		 * @param goodEnough
+		 *            the load rate below which a path is taken at once
+		 * @return a shortest path with the lowest load rate, or NULL if there
+		 *         is no candidate
 		 */
-		private double calculateNCForwardingRate(long[] datas) {
-			long bytesSum = 0;
-			for(int i=datas.length-1;i>0;i--){
-				bytesSum+=datas[i]-datas[i-1];
-			}
-			double rate = (bytesSum * TIME_SAMPLING_INTERVAL) * 1.0 / TIME_SAMPLING_CYCLE;
-			return rate;
+		private NuptPath getOptimalPath(Iterator<NuptPath> paths, double goodEnough) {
+			return this.pathLoadEvaluator.getOptimalPath(paths, goodEnough);
 		}
 
 	}
@@ -639,17 +1784,49 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 	 */
 	class StatisticsSamplingTimerTask implements Runnable {
 		private ConcurrentHashMap<NodeConnector, long[]> statisticsMap;
+		private Set<NodeConnector> restored;
+		private DirectionalCounters directionalCounters;
+		private ConcurrentHashMap<NodeConnector, Long> lastSampled;
 		private int dataLength = 0;
 
-		public StatisticsSamplingTimerTask(ConcurrentHashMap<NodeConnector, long[]> statisticsMap, int size) {
+		public StatisticsSamplingTimerTask(ConcurrentHashMap<NodeConnector, long[]> statisticsMap,
+				Set<NodeConnector> restored, DirectionalCounters directionalCounters,
+				ConcurrentHashMap<NodeConnector, Long> lastSampled, int size) {
 			super();
 			this.statisticsMap = statisticsMap;
+			this.restored = restored;
+			this.directionalCounters = directionalCounters;
+			this.lastSampled = lastSampled;
 			this.dataLength = size;
 		}
 
 		public void run() {
-			Graph<Node, Edge> g = topologyBWAware.get(0);
-			Collection<Node> nodes = g.getVertices();
+			IRoutingMetrics metrics = routingMetrics;
+			boolean measured = metrics != null && metrics.isEnabled();
+			long begin = measured ? System.nanoTime() : 0L;
+			Long now = Long.valueOf(System.currentTimeMillis());
+			ClusterRouteCache shared = clusterRouteCache;
+			if (shared != null && !shared.isPublisher() && shared.readUtilization(this.statisticsMap) > 0) {
+				// the coordinator polls the switches for the whole cluster
+				for (NodeConnector connector : this.statisticsMap.keySet()) {
+					this.lastSampled.put(connector, now);
+				}
+				if (trafficMatrixEstimator != null) {
+					estimateTrafficMatrix();
+				}
+				if (measured) {
+					metrics.recordSamplingRound(System.nanoTime() - begin);
+				}
+				return;
+			}
+			Graph<Node, Edge> g = topologyBWAware.get(Short.valueOf((short) 0));
+			Collection<Node> nodes;
+			topologyLock.readLock().lock();
+			try {
+				nodes = new ArrayList<Node>(g.getVertices());
+			} finally {
+				topologyLock.readLock().unlock();
+			}
 			List<NodeConnectorStatistics> ncsList = null;
 			NodeConnector curNodeConnector = null;
 			long[] datas = null;
@@ -663,10 +1840,23 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 					if (datas == null) {
 						datas = new long[dataLength];
 						this.statisticsMap.put(curNodeConnector, datas);
+					} else if (this.restored.remove(curNodeConnector)) {
+						rebaseData(datas, data);
 					}
 					updateData(datas, data);
+					this.directionalCounters.update(ncs);
+					this.lastSampled.put(curNodeConnector, now);
 				}
 			}
+			if (shared != null && shared.isPublisher()) {
+				shared.publishUtilization(this.statisticsMap);
+			}
+			if (trafficMatrixEstimator != null) {
+				estimateTrafficMatrix();
+			}
+			if (measured) {
+				metrics.recordSamplingRound(System.nanoTime() - begin);
+			}
 		}
 
 		/**
@@ -686,6 +1876,26 @@ public class LoadBalancingImplementation implements IRouting, ITopologyManagerCl
 			datas[i] = newData;
 		}
 
+		/**
+		 * Shifts a ring restored from a snapshot onto the counter of the
+		 * switch, so that the time the controller was down counts as one
+		 * average sampling interval instead of a burst of traffic, and a
+		 * counter reset by a restarted switch does not look negative.
+		 * 
+		 * @param datas
+		 *            an array that storages historical statistics
+		 * @param newData
+		 *            the first sampling data after the restart
+		 */
+		private void rebaseData(long[] datas, long newData) {
+			int last = datas.length - 1;
+			long average = (datas[last] - datas[0]) / last;
+			long offset = newData - average - datas[last];
+			for (int i = 0; i < datas.length; i++) {
+				datas[i] += offset;
+			}
+		}
+
 	}
 
 }
@@ -0,0 +1,97 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Predicts the traffic of a port a few sampling intervals ahead
+ *               by Holt's linear exponential smoothing of the bytes forwarded
+ *               in each interval of the statistics window. The level follows
+ *               the recent intervals with weight <code>alpha</code>, the trend
+ *               follows the change of the level with weight
+ *               <code>beta</code>, and the forecast is the level plus
+ *               <code>horizon</code> times the trend; with <code>beta</code>
+ *               set to 0 it is a plain exponentially weighted moving
+ *               average. The forecast is computed from the window every time,
+ *               so that it needs no state of its own and follows the window
+ *               wherever it comes from.
+ */
+public class LoadForecaster {
+	private final double alpha;
+	private final double beta;
+	private final double horizon;
+
+	/**
+	 * Creates a LoadForecaster.
+	 *
+	 * @param alpha
+	 *            the smoothing of the level, in (0, 1]; higher follows the
+	 *            last intervals more closely
+	 * @param beta
+	 *            the smoothing of the trend, in [0, 1]; 0 ignores the trend
+	 * @param horizon
+	 *            how many sampling intervals ahead to predict
+	 * @throws IllegalArgumentException
+	 *             if a parameter is out of range
+	 */
+	public LoadForecaster(double alpha, double beta, double horizon) {
+		if (!(alpha > 0D && alpha <= 1D) || !(beta >= 0D && beta <= 1D) || !(horizon >= 0D)) {
+			throw new IllegalArgumentException("alpha=" + alpha + ", beta=" + beta + ", horizon=" + horizon);
+		}
+		this.alpha = alpha;
+		this.beta = beta;
+		this.horizon = horizon;
+	}
+
+	public double getAlpha() {
+		return alpha;
+	}
+
+	public double getBeta() {
+		return beta;
+	}
+
+	public double getHorizon() {
+		return horizon;
+	}
+
+	/**
+	 * Predicts the bytes a port will forward in one sampling interval,
+	 * <code>horizon</code> intervals after the last sample. Samples taken
+	 * before the first one of the port are skipped, and a counter which went
+	 * backwards, e.g. after a switch restarted, counts as an idle interval.
+	 *
+	 * @param datas
+	 *            the statistics window of the port, oldest first
+	 * @return the predicted bytes per interval, never negative; 0 if the
+	 *         window holds less than one interval
+	 */
+	public double forecast(long[] datas) {
+		if (datas == null) {
+			return 0D;
+		}
+		int first = 0;
+		while (first < datas.length && datas[first] == 0L) {
+			first++;
+		}
+		if (datas.length - first < 2) {
+			return 0D;
+		}
+		double level = Math.max(0L, datas[first + 1] - datas[first]);
+		double trend = 0D;
+		for (int i = first + 2; i < datas.length; i++) {
+			double observed = Math.max(0L, datas[i] - datas[i - 1]);
+			double previous = level;
+			level = this.alpha * observed + (1D - this.alpha) * (level + trend);
+			trend = this.beta * (level - previous) + (1D - this.beta) * trend;
+		}
+		return Math.max(0D, level + this.horizon * trend);
+	}
+
+	@Override
+	public String toString() {
+		return "LoadForecaster [alpha=" + alpha + ", beta=" + beta + ", horizon=" + horizon + "]";
+	}
+
+}
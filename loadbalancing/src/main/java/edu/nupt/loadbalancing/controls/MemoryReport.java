@@ -0,0 +1,147 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @Project: loadbalancing
+ * @Description: How much state each subsystem of the load balancer holds: the
+ *               number of its entries and an estimate of the heap they take.
+ *               The estimates count the arrays and map entries the state is
+ *               made of with a 64-bit JVM's compressed object layout, not the
+ *               objects shared with the rest of the controller such as the
+ *               nodes and edges, so that they show how the state grows rather
+ *               than its exact size.
+ */
+public class MemoryReport implements Serializable {
+	private static final long serialVersionUID = -4021856271906573327L;
+	/**
+	 * An entry of a hash map, with its key and value references.
+	 */
+	static final long MAP_ENTRY_BYTES = 48L;
+	/**
+	 * The header of an array.
+	 */
+	static final long ARRAY_BYTES = 16L;
+	/**
+	 * A small object, such as a counter or a request.
+	 */
+	static final long OBJECT_BYTES = 32L;
+	private final long createdMillis;
+	private final List<Subsystem> subsystems;
+
+	public MemoryReport(long createdMillis) {
+		this.createdMillis = createdMillis;
+		this.subsystems = new ArrayList<Subsystem>();
+	}
+
+	/**
+	 * Adds the state of a subsystem to the report.
+	 *
+	 * @param name
+	 *            the subsystem
+	 * @param entries
+	 *            the number of its entries
+	 * @param estimatedBytes
+	 *            the estimated heap they take
+	 */
+	void add(String name, long entries, long estimatedBytes) {
+		this.subsystems.add(new Subsystem(name, entries, estimatedBytes));
+	}
+
+	/**
+	 * Estimates the heap taken by the windows of long counters of the ports.
+	 *
+	 * @param ports
+	 *            the number of ports
+	 * @param windows
+	 *            the number of windows per port
+	 * @param length
+	 *            the length of a window
+	 */
+	static long windowBytes(long ports, int windows, int length) {
+		return ports * windows * (MAP_ENTRY_BYTES + ARRAY_BYTES + 8L * length);
+	}
+
+	public long getCreatedMillis() {
+		return createdMillis;
+	}
+
+	public List<Subsystem> getSubsystems() {
+		return Collections.unmodifiableList(subsystems);
+	}
+
+	/**
+	 * Gets a subsystem by its name.
+	 *
+	 * @return the subsystem, NULL if it is not in the report
+	 */
+	public Subsystem getSubsystem(String name) {
+		for (Subsystem subsystem : this.subsystems) {
+			if (subsystem.name.equals(name)) {
+				return subsystem;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the estimated heap taken by all the subsystems
+	 */
+	public long getTotalBytes() {
+		long total = 0L;
+		for (Subsystem subsystem : this.subsystems) {
+			total += subsystem.estimatedBytes;
+		}
+		return total;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("MemoryReport [");
+		for (Subsystem subsystem : this.subsystems) {
+			sb.append(subsystem).append(", ");
+		}
+		return sb.append("total=").append(getTotalBytes()).append(" bytes]").toString();
+	}
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: The state of one subsystem.
+	 */
+	public static class Subsystem implements Serializable {
+		private static final long serialVersionUID = 6470402913478012617L;
+		private final String name;
+		private final long entries;
+		private final long estimatedBytes;
+
+		Subsystem(String name, long entries, long estimatedBytes) {
+			this.name = name;
+			this.entries = entries;
+			this.estimatedBytes = estimatedBytes;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getEntries() {
+			return entries;
+		}
+
+		public long getEstimatedBytes() {
+			return estimatedBytes;
+		}
+
+		@Override
+		public String toString() {
+			return name + "=" + entries + " entries/" + estimatedBytes + " bytes";
+		}
+	}
+
+}
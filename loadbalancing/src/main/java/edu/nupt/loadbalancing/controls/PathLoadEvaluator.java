@@ -0,0 +1,429 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.nupt.loadbalancing.beans.NuptPath;
+
+/**
+ * @Project: loadbalancing
+ * @Description: The class scores candidate paths by the sampled load of their
+ *               links and picks the least loaded one. It only reads the
+ *               statistics window kept by
+ *               {@link LoadBalancingImplementation.DataStatisticsExecutor}, so
+ *               it can also be fed with a synthetic window, e.g. by the
+ *               benchmarks. Given the {@link DirectionalCounters} of the
+ *               ports, it scores a directed link by its own direction only:
+ *               the higher of the rates its tail transmitted and its head
+ *               received, over the speed of the link, plus a penalty for the
+ *               share of the packets lost on the way. Otherwise the received
+ *               rates of both ends are added, as they always were.
+ */
+public class PathLoadEvaluator {
+	private static Logger log = LoggerFactory.getLogger(PathLoadEvaluator.class);
+	private final Map<NodeConnector, long[]> statisticsMap;
+	private final long linkSpeed;
+	private final long samplingInterval;
+	private final long samplingCycle;
+	private volatile LoadPolicy loadPolicy = LoadPolicy.OBSERVED;
+	private volatile LoadForecaster forecaster;
+	private volatile ReservationLedger reservationLedger;
+	private volatile DirectionalCounters directionalCounters;
+	private volatile double congestionWeight;
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: Which load of a port the paths are scored by.
+	 */
+	public enum LoadPolicy {
+		/**
+		 * The average over the statistics window.
+		 */
+		OBSERVED,
+		/**
+		 * The forecast of the {@link LoadForecaster}, which anticipates the
+		 * ramps of the traffic.
+		 */
+		PREDICTED,
+		/**
+		 * The higher of both, so that a port is neither given flows while
+		 * its traffic grows nor before a drop of its traffic is confirmed.
+		 */
+		PESSIMISTIC
+	}
+
+	/**
+	 * Creates a PathLoadEvaluator over a statistics window.
+	 *
+	 * @param statisticsMap
+	 *            the sampled byte counters of every {@link NodeConnector}
+	 * @param linkSpeed
+	 *            the bandwidth assumed for every link
+	 * @param samplingInterval
+	 *            the time between two samples, in seconds
+	 * @param samplingCycle
+	 *            the time covered by the window, in seconds
+	 */
+	public PathLoadEvaluator(Map<NodeConnector, long[]> statisticsMap, long linkSpeed, long samplingInterval,
+			long samplingCycle) {
+		this.statisticsMap = statisticsMap;
+		this.linkSpeed = linkSpeed;
+		this.samplingInterval = samplingInterval;
+		this.samplingCycle = samplingCycle;
+	}
+
+	public LoadPolicy getLoadPolicy() {
+		return loadPolicy;
+	}
+
+	public LoadForecaster getForecaster() {
+		return forecaster;
+	}
+
+	/**
+	 * Chooses the load the paths are scored by.
+	 *
+	 * @param loadPolicy
+	 *            the load of a port to use
+	 * @param forecaster
+	 *            the forecaster of the predicted load, only needed by the
+	 *            policies other than {@link LoadPolicy#OBSERVED}
+	 * @throws IllegalArgumentException
+	 *             if the policy needs a forecaster and there is none
+	 */
+	public void setLoadPolicy(LoadPolicy loadPolicy, LoadForecaster forecaster) {
+		if (loadPolicy != LoadPolicy.OBSERVED && forecaster == null) {
+			throw new IllegalArgumentException(loadPolicy + " needs a forecaster");
+		}
+		this.forecaster = forecaster;
+		this.loadPolicy = loadPolicy;
+	}
+
+	public ReservationLedger getReservationLedger() {
+		return reservationLedger;
+	}
+
+	/**
+	 * Adds the rates reserved on the edges to their sampled load.
+	 *
+	 * @param reservationLedger
+	 *            the reservations of the admitted flows, NULL to only use the
+	 *            sampled load
+	 */
+	public void setReservationLedger(ReservationLedger reservationLedger) {
+		this.reservationLedger = reservationLedger;
+	}
+
+	public DirectionalCounters getDirectionalCounters() {
+		return directionalCounters;
+	}
+
+	public double getCongestionWeight() {
+		return congestionWeight;
+	}
+
+	/**
+	 * Scores every link by the direction it is used in.
+	 *
+	 * @param directionalCounters
+	 *            the transmit and loss counters of the ports, NULL to score
+	 *            the links by the received rates of both ends
+	 * @param congestionWeight
+	 *            the load rate added to a link which loses all its packets;
+	 *            a link which loses a share of them gets that share of it
+	 */
+	public void setDirectionalCounters(DirectionalCounters directionalCounters, double congestionWeight) {
+		this.congestionWeight = congestionWeight;
+		this.directionalCounters = directionalCounters;
+	}
+
+	/**
+	 * Filters the shortest path with the lowest load rate from the given
+	 * <code>List</code>. The load rate of the path depends on the highest load
+	 * rate in all segments.
+	 *
+	 * @param paths
+	 *            a candidate list of paths
+	 * @return a shortest path with the lowest load rate
+	 */
+	public NuptPath getOptimalPath(List<NuptPath> paths) {
+		return getOptimalPath(paths.iterator(), 0D);
+	}
+
+	/**
+	 * Same as {@link #getOptimalPath(List)}, but takes the candidates one by
+	 * one and stops at the first path whose load rate is below
+	 * <code>goodEnough</code>, so that the candidates after it never need to
+	 * be computed when <code>paths</code> produces them lazily.
+	 *
+	 * @param paths
+	 *            the candidate paths, in order of preference
+	 * @param goodEnough
+	 *            the load rate below which a path is taken at once, 0 to
+	 *            always look at all candidates
+	 * @return a path with the lowest load rate, or NULL if there is no
+	 *         candidate
+	 */
+	public NuptPath getOptimalPath(Iterator<NuptPath> paths, double goodEnough) {
+		NuptPath result = null;
+		double pathLoadRate = Integer.MAX_VALUE;
+		while (paths.hasNext()) {
+			NuptPath path = paths.next();
+			double edgeLoadRate = getPathLoadRate(path);
+			if (edgeLoadRate < pathLoadRate) {
+				pathLoadRate = edgeLoadRate;
+				result = path;
+			}
+			if (pathLoadRate < goodEnough) {
+				break;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the load rate of a path, which is the highest load rate of all its
+	 * segments. The load of a segment includes the rate reserved on it.
+	 *
+	 * @param path
+	 *            the path to be scored
+	 * @return the load rate of the bottleneck link
+	 */
+	public double getPathLoadRate(NuptPath path) {
+		double edgeLoadRate = 0D;
+		double temp = 0D;
+		for (Edge edge : path.getEdges()) {
+			temp = getEdgeLoadRate(edge);
+			if (temp > edgeLoadRate) {
+				edgeLoadRate = temp;
+			}
+		}
+		return edgeLoadRate;
+	}
+
+	/**
+	 * Gets the load rate of one segment, including the rate reserved on it.
+	 *
+	 * @param edge
+	 *            the segment to be scored
+	 * @return the load rate of the link, 0 if it cannot be calculated
+	 */
+	public double getEdgeLoadRate(Edge edge) {
+		double temp = 0D;
+		DirectionalCounters counters = this.directionalCounters;
+		if (counters != null) {
+			temp = getUtilization(edge) + this.congestionWeight * getLossRatio(edge);
+		} else {
+			try {
+				temp = calculateBWUtilizationRate(edge.getTailNodeConnector(), edge.getHeadNodeConnector());
+			} catch (Exception e) {
+				log.error(e.getMessage());
+			}
+		}
+		ReservationLedger ledger = this.reservationLedger;
+		if (ledger != null) {
+			temp += getLoadRate(ledger.getReserved(edge));
+		}
+		return temp;
+	}
+
+	/**
+	 * Converts a rate into the load rate it adds to a link.
+	 *
+	 * @param bytesPerSecond
+	 *            the rate of a flow
+	 * @return its share of the link, in the unit of
+	 *         {@link #getEdgeLoadRate(Edge)}
+	 */
+	public double getLoadRate(long bytesPerSecond) {
+		if (this.directionalCounters != null) {
+			return bytesPerSecond * 8.0 / this.linkSpeed;
+		}
+		// in the unit of the sampled load: bytes per sampling interval
+		return bytesPerSecond * this.samplingInterval * 1.0 / this.linkSpeed;
+	}
+
+	/**
+	 * Calculates the utilization of a directed link: the higher of the rates
+	 * its tail transmitted and its head received, according to the load
+	 * policy, over the speed of the link. Both sides skip the samples taken
+	 * before the first one of their port, as counted by the
+	 * {@link DirectionalCounters}. Without them, only the head is looked at.
+	 *
+	 * @param edge
+	 *            the link
+	 * @return the used share of the capacity of its direction
+	 */
+	public double getUtilization(Edge edge) {
+		DirectionalCounters counters = this.directionalCounters;
+		NodeConnector head = edge.getHeadNodeConnector();
+		long[] datas = this.statisticsMap.get(head);
+		if (counters == null) {
+			return calculateDirectionalRate(datas, firstSample(datas)) * 8.0 / this.linkSpeed;
+		}
+		NodeConnector tail = edge.getTailNodeConnector();
+		double transmitted = calculateDirectionalRate(counters.getTransmitBytes(tail), counters.getFirstSample(tail));
+		// a receive counter may well be 0 when it is first sampled
+		double received = calculateDirectionalRate(datas, counters.getFirstSample(head));
+		return Math.max(transmitted, received) * 8.0 / this.linkSpeed;
+	}
+
+	/**
+	 * Calculates the share of the packets a directed link lost over the
+	 * statistics window: those its tail dropped or failed to transmit and
+	 * those its head dropped or received damaged, out of those the tail
+	 * tried to transmit.
+	 *
+	 * @param edge
+	 *            the link
+	 * @return the loss ratio in [0, 1], 0 without loss counters
+	 */
+	public double getLossRatio(Edge edge) {
+		DirectionalCounters counters = this.directionalCounters;
+		if (counters == null) {
+			return 0D;
+		}
+		NodeConnector tail = edge.getTailNodeConnector();
+		NodeConnector head = edge.getHeadNodeConnector();
+		long tailLost = delta(counters.getTransmitLosses(tail), counters.getFirstSample(tail));
+		long lost = tailLost + delta(counters.getReceiveLosses(head), counters.getFirstSample(head));
+		if (lost == 0L) {
+			return 0D;
+		}
+		long sent = delta(counters.getTransmitPackets(tail), counters.getFirstSample(tail)) + tailLost;
+		return sent <= lost ? 1D : lost * 1.0 / sent;
+	}
+
+	/**
+	 * Calculates the rate of a port in one direction according to the load
+	 * policy. Unlike {@link #calculateNCForwardingRate(long[])}, the samples
+	 * taken before the first one of the port are skipped, so that a port
+	 * which was just found does not count all it ever forwarded as a burst.
+	 *
+	 * @param datas
+	 *            the window of a byte counter
+	 * @param first
+	 *            the index of the first sample of the port in the window
+	 * @return the bytes per second
+	 */
+	public double calculateDirectionalRate(long[] datas, int first) {
+		LoadPolicy policy = this.loadPolicy;
+		LoadForecaster f = this.forecaster;
+		double observed = 0D;
+		if (policy != LoadPolicy.PREDICTED || f == null) {
+			if (datas != null && first < datas.length - 1) {
+				observed = delta(datas, first) * 1.0 / ((datas.length - 1 - first) * this.samplingInterval);
+			}
+			if (policy == LoadPolicy.OBSERVED || f == null) {
+				return observed;
+			}
+		}
+		// the forecaster skips the samples taken before the first one itself
+		return Math.max(observed, f.forecast(datas) / this.samplingInterval);
+	}
+
+	/**
+	 * Finds the first sample of a window of the statistics map, which only
+	 * holds zeros before it.
+	 */
+	private static int firstSample(long[] datas) {
+		if (datas == null) {
+			return 0;
+		}
+		int first = 0;
+		while (first < datas.length && datas[first] == 0L) {
+			first++;
+		}
+		return first;
+	}
+
+	/**
+	 * Gets how much a counter grew since the given sample, 0 if it went
+	 * backwards, e.g. after a switch restarted.
+	 */
+	private static long delta(long[] datas, int first) {
+		if (datas == null || first >= datas.length - 1) {
+			return 0L;
+		}
+		return Math.max(0L, datas[datas.length - 1] - datas[first]);
+	}
+
+	/**
+	 * Calculates the bandwidth usage of an edge which's ends are connected at
+	 * node connector {# tail} and {# head} respectively. The bandwidth usage of
+	 * an edge is roughly equal to:
+	 * (Forwarding_Rate(nodeConnectorTail)+Forwarding_Rate(nodeConnectorHead))/Max_Bandwidth_of_Edge
+	 *
+	 * @param tail
+	 *            original nodeConnector
+	 * @param head
+	 *            terminal nodeConnector
+	 * @return the bandwidth usage of an edge
+	 * @throws Exception
+	 *             throws an exception when tail or head is null
+	 */
+	public double calculateBWUtilizationRate(NodeConnector tail, NodeConnector head) throws Exception {
+		if (tail == null || head == null) {
+			throw new Exception("Fail to calculate utilization rate of bandwidth about the edge between "
+					+ "tail and head due to tail or head NodeConnector is null.");
+		}
+		long[] tailDatas = this.statisticsMap.get(tail);
+		long[] headDatas = this.statisticsMap.get(head);
+		double result = (calculateNCLoad(tailDatas) + calculateNCLoad(headDatas)) / this.linkSpeed;
+		return result;
+	}
+
+	/**
+	 * Calculates the load of a port according to the load policy, in the
+	 * unit of {@link #calculateNCForwardingRate(long[])}.
+	 *
+	 * @param datas
+	 *            an array that storages statistics
+	 * @return the observed or predicted load of the port
+	 */
+	public double calculateNCLoad(long[] datas) {
+		LoadPolicy policy = this.loadPolicy;
+		LoadForecaster f = this.forecaster;
+		if (policy == LoadPolicy.OBSERVED || f == null) {
+			return calculateNCForwardingRate(datas);
+		}
+		double predicted = f.forecast(datas);
+		if (policy == LoadPolicy.PREDICTED) {
+			return predicted;
+		}
+		return Math.max(predicted, calculateNCForwardingRate(datas));
+	}
+
+	/**
+	 * Calculates the data forwarding rate for a port({@link NodeConnector}).
+	 * The data forwarding rate of a port is roughly equal to:
+	 * (Total_Amount_of_Data*Sampling_Interval)/Sampling_Cycle. A port which
+	 * has not been sampled yet is regarded as idle.
+	 *
+	 * @param datas
+	 *            an array that storages statistics
+	 * @return the data forwarding rate for a {@link NodeConnector}
+	 */
+	public double calculateNCForwardingRate(long[] datas) {
+		if (datas == null) {
+			return 0D;
+		}
+		long bytesSum = 0;
+		for (int i = datas.length - 1; i > 0; i--) {
+			bytesSum += datas[i] - datas[i - 1];
+		}
+		double rate = (bytesSum * this.samplingInterval) * 1.0 / this.samplingCycle;
+		return rate;
+	}
+
+}
@@ -0,0 +1,227 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opendaylight.controller.sal.core.Edge;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Keeps the bandwidth reserved on every edge by the flows which
+ *               were just given a route, so that the flows which come before
+ *               the next statistics sample do not all pile onto the same
+ *               least loaded path. The reserved rate of an edge is an atomic
+ *               counter, which reservations add to and releases subtract
+ *               from without any lock. A reservation which is not released
+ *               expires after its time to live: it is put into the slot of a
+ *               hashed timer wheel which {@link #tick()} reaches at that time,
+ *               and a slot only expires the reservations whose deadline has
+ *               come, so that a time to live may be longer than one turn of
+ *               the wheel. Expiry is accurate to one tick.
+ */
+public class ReservationLedger {
+	private static final int WHEEL_SIZE = 512;
+	private final ConcurrentMap<Edge, AtomicLong> reserved;
+	private final ConcurrentLinkedQueue<Reservation>[] wheel;
+	private final long tickMillis;
+	private final AtomicInteger active;
+	/**
+	 * The number of ticks so far, only written by {@link #tick()}.
+	 */
+	private volatile long ticks;
+
+	/**
+	 * Creates a ReservationLedger.
+	 *
+	 * @param tickMillis
+	 *            the time between two calls of {@link #tick()}
+	 */
+	@SuppressWarnings("unchecked")
+	public ReservationLedger(long tickMillis) {
+		if (tickMillis <= 0) {
+			throw new IllegalArgumentException("tick of " + tickMillis + " ms");
+		}
+		this.reserved = new ConcurrentHashMap<Edge, AtomicLong>();
+		this.wheel = new ConcurrentLinkedQueue[WHEEL_SIZE];
+		for (int i = 0; i < WHEEL_SIZE; i++) {
+			this.wheel[i] = new ConcurrentLinkedQueue<Reservation>();
+		}
+		this.tickMillis = tickMillis;
+		this.active = new AtomicInteger();
+	}
+
+	public long getTickMillis() {
+		return this.tickMillis;
+	}
+
+	/**
+	 * Reserves a rate on every edge of a path.
+	 *
+	 * @param edges
+	 *            the edges of the path
+	 * @param bytesPerSecond
+	 *            the expected rate of the flow
+	 * @param ttl
+	 *            the time after which the reservation expires if it is not
+	 *            released
+	 * @param unit
+	 *            the unit of <code>ttl</code>
+	 * @return the reservation, to be released when the flow ends or its
+	 *         traffic shows in the statistics
+	 * @throws IllegalArgumentException
+	 *             if the rate or the time to live is not positive
+	 */
+	public Reservation reserve(List<Edge> edges, long bytesPerSecond, long ttl, TimeUnit unit) {
+		if (bytesPerSecond <= 0 || ttl <= 0) {
+			throw new IllegalArgumentException("rate " + bytesPerSecond + ", time to live " + ttl);
+		}
+		long delay = Math.max(1L, (unit.toMillis(ttl) + this.tickMillis - 1) / this.tickMillis);
+		long deadline = this.ticks + delay;
+		AtomicLong[] counters = new AtomicLong[edges.size()];
+		int i = 0;
+		for (Edge edge : edges) {
+			counters[i] = counter(edge);
+			counters[i++].addAndGet(bytesPerSecond);
+		}
+		Reservation reservation = new Reservation(counters, bytesPerSecond, deadline);
+		this.active.incrementAndGet();
+		this.wheel[(int) (deadline % WHEEL_SIZE)].add(reservation);
+		if (this.ticks >= deadline) {
+			// the wheel passed the slot while the reservation was added
+			reservation.release();
+		}
+		return reservation;
+	}
+
+	private AtomicLong counter(Edge edge) {
+		AtomicLong counter = this.reserved.get(edge);
+		if (counter == null) {
+			AtomicLong created = new AtomicLong();
+			counter = this.reserved.putIfAbsent(edge, created);
+			if (counter == null) {
+				counter = created;
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * Gets the rate reserved on an edge.
+	 *
+	 * @param edge
+	 *            the edge
+	 * @return the sum of the rates of its reservations, in bytes per second
+	 */
+	public long getReserved(Edge edge) {
+		AtomicLong counter = this.reserved.get(edge);
+		return counter == null ? 0L : counter.get();
+	}
+
+	/**
+	 * Forgets the counters of links which are gone. The reservations still
+	 * held on them give their rate back to the forgotten counters, so that
+	 * the counters of the links never go negative if they come back.
+	 *
+	 * @param edges
+	 *            the removed links
+	 */
+	public void forget(Collection<Edge> edges) {
+		for (Edge edge : edges) {
+			this.reserved.remove(edge);
+		}
+	}
+
+	/**
+	 * Gets the number of links which have a counter.
+	 */
+	public int getCounterCount() {
+		return this.reserved.size();
+	}
+
+	/**
+	 * Gets the number of reservations which are neither released nor
+	 * expired.
+	 */
+	public int getActiveReservations() {
+		return this.active.get();
+	}
+
+	/**
+	 * Advances the wheel by one tick and expires the reservations which are
+	 * due. Called every {@link #getTickMillis()} milliseconds by one thread.
+	 */
+	public void tick() {
+		long now = this.ticks + 1;
+		this.ticks = now;
+		Iterator<Reservation> it = this.wheel[(int) (now % WHEEL_SIZE)].iterator();
+		while (it.hasNext()) {
+			Reservation reservation = it.next();
+			if (reservation.isReleased()) {
+				it.remove();
+			} else if (reservation.deadline <= now) {
+				it.remove();
+				reservation.release();
+			}
+		}
+	}
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: The rate reserved for one flow along its path.
+	 */
+	public class Reservation {
+		/**
+		 * The counters the rate was added to.
+		 */
+		private final AtomicLong[] counters;
+		private final long rate;
+		private final AtomicBoolean released;
+		/**
+		 * The tick at which the reservation expires.
+		 */
+		private final long deadline;
+
+		private Reservation(AtomicLong[] counters, long rate, long deadline) {
+			this.counters = counters;
+			this.rate = rate;
+			this.released = new AtomicBoolean();
+			this.deadline = deadline;
+		}
+
+		public long getRate() {
+			return this.rate;
+		}
+
+		public boolean isReleased() {
+			return this.released.get();
+		}
+
+		/**
+		 * Gives the reserved rate back. Only the first call has an effect.
+		 *
+		 * @return TRUE if the reservation was still held
+		 */
+		public boolean release() {
+			if (!this.released.compareAndSet(false, true)) {
+				return false;
+			}
+			for (AtomicLong counter : this.counters) {
+				counter.addAndGet(-this.rate);
+			}
+			active.decrementAndGet();
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.opendaylight.controller.sal.core.Path;
+
+/**
+ * @Project: loadbalancing
+ * @Description: The pending answers to a bulk route query. The routes are
+ *               handed out in the order they are computed, not in the order
+ *               of the requests, so that a caller can install the first ones
+ *               while the rest are still being searched. It is meant to be
+ *               drained by one thread. A route completed after the batch was
+ *               cancelled is dropped, so that nothing comes after the end.
+ */
+public class RouteBatch {
+	private static final Route END = new Route(null, null);
+	private final int size;
+	private final BlockingQueue<Route> finished;
+	private final AtomicInteger taken;
+	private final AtomicBoolean cancelled;
+
+	RouteBatch(int size) {
+		this.size = size;
+		this.finished = new LinkedBlockingQueue<Route>();
+		this.taken = new AtomicInteger();
+		this.cancelled = new AtomicBoolean();
+	}
+
+	/**
+	 * Gets the number of routes in the batch.
+	 *
+	 * @return the number of requests
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Waits for the next computed route.
+	 *
+	 * @return the route, or NULL when all routes were taken or the batch was
+	 *         cancelled
+	 * @throws InterruptedException
+	 *             if the thread was interrupted while waiting
+	 */
+	public Route take() throws InterruptedException {
+		if (this.taken.get() >= this.size) {
+			return null;
+		}
+		return next(this.finished.take());
+	}
+
+	/**
+	 * Waits at most the given time for the next computed route.
+	 *
+	 * @param timeout
+	 *            the time to wait
+	 * @param unit
+	 *            the unit of <code>timeout</code>
+	 * @return the route, or NULL when none came in time, all routes were taken
+	 *         or the batch was cancelled
+	 * @throws InterruptedException
+	 *             if the thread was interrupted while waiting
+	 */
+	public Route poll(long timeout, TimeUnit unit) throws InterruptedException {
+		if (this.taken.get() >= this.size) {
+			return null;
+		}
+		Route route = this.finished.poll(timeout, unit);
+		return route == null ? null : next(route);
+	}
+
+	private Route next(Route route) {
+		if (route == END || this.cancelled.get()) {
+			// leave the end for the next call
+			this.finished.add(END);
+			return null;
+		}
+		this.taken.incrementAndGet();
+		return route;
+	}
+
+	/**
+	 * Tells whether every route was taken, or the batch was cancelled.
+	 *
+	 * @return TRUE if nothing more will come
+	 */
+	public boolean isDone() {
+		return this.cancelled.get() || this.taken.get() >= this.size;
+	}
+
+	/**
+	 * Stops the routes not yet started. The ones already computed are
+	 * dropped.
+	 */
+	public void cancel() {
+		if (!this.cancelled.compareAndSet(false, true)) {
+			return;
+		}
+		synchronized (this.finished) {
+			this.finished.clear();
+			this.finished.add(END);
+		}
+	}
+
+	boolean isCancelled() {
+		return this.cancelled.get();
+	}
+
+	/**
+	 * Delivers a computed route, unless the batch was cancelled.
+	 *
+	 * @return FALSE if the route was dropped
+	 */
+	boolean complete(RouteRequest request, Path path) {
+		synchronized (this.finished) {
+			// checked under the lock that cancel() clears the queue with
+			if (this.cancelled.get()) {
+				return false;
+			}
+			this.finished.add(new Route(request, path));
+			return true;
+		}
+	}
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: A request of the batch and its route.
+	 */
+	public static class Route {
+		private final RouteRequest request;
+		private final Path path;
+
+		private Route(RouteRequest request, Path path) {
+			this.request = request;
+			this.path = path;
+		}
+
+		public RouteRequest getRequest() {
+			return request;
+		}
+
+		/**
+		 * Gets the computed route.
+		 *
+		 * @return the path, or NULL if there is no route
+		 */
+		public Path getPath() {
+			return path;
+		}
+
+		@Override
+		public String toString() {
+			return "Route [request=" + request + ", path=" + path + "]";
+		}
+	}
+
+}
@@ -0,0 +1,224 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.Path;
+
+import edu.nupt.loadbalancing.metrics.IRoutingMetrics;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Runs route computations on a dedicated pool of threads, and
+ *               merges concurrent requests for the same source, destination,
+ *               bandwidth and topology version into one computation whose
+ *               result all the requesters share. A request which arrives
+ *               after the computation finished starts a new one, so a result
+ *               is never reused beyond its burst.
+ */
+class RouteComputationExecutor {
+	private final ExecutorService executor;
+	private final ConcurrentMap<RouteKey, FutureTask<Path>> inFlight;
+	private final AtomicLong coalesced;
+
+	/**
+	 * Creates a RouteComputationExecutor with the given number of threads.
+	 * 
+	 * @param threads
+	 *            the number of threads computing routes
+	 */
+	RouteComputationExecutor(int threads) {
+		this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "loadbalancing-route-" + this.count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.inFlight = new ConcurrentHashMap<RouteKey, FutureTask<Path>>();
+		this.coalesced = new AtomicLong();
+	}
+
+	/**
+	 * Submits a route computation, or joins the one already running for the
+	 * same request.
+	 * 
+	 * @param src
+	 *            the source switch
+	 * @param dst
+	 *            the destination switch
+	 * @param bw
+	 *            the bandwidth of the topology to route on
+	 * @param topologyVersion
+	 *            the version of the topology the request was made against
+	 * @param computation
+	 *            computes the route when no computation is in flight
+	 * @param metrics
+	 *            the registry the coalesced requests are counted into, or
+	 *            NULL
+	 * @return the pending route, which cannot be cancelled because other
+	 *         requesters may share it
+	 * @throws RejectedExecutionException
+	 *             if the executor was shut down
+	 */
+	Future<Path> submit(Node src, Node dst, Short bw, long topologyVersion, Callable<Path> computation,
+			IRoutingMetrics metrics) {
+		final RouteKey key = new RouteKey(src, dst, bw, topologyVersion);
+		FutureTask<Path> task = new FutureTask<Path>(computation) {
+			@Override
+			protected void done() {
+				inFlight.remove(key, this);
+			}
+		};
+		FutureTask<Path> running;
+		while ((running = this.inFlight.putIfAbsent(key, task)) != null) {
+			if (!running.isDone()) {
+				this.coalesced.incrementAndGet();
+				if (metrics != null && metrics.isEnabled()) {
+					metrics.recordCoalescedRoute();
+				}
+				return new SharedFuture(running);
+			}
+			// finished, but not yet removed by its done()
+			this.inFlight.remove(key, running);
+		}
+		try {
+			this.executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			this.inFlight.remove(key, task);
+			throw e;
+		}
+		return new SharedFuture(task);
+	}
+
+	/**
+	 * Gets a result which is already there, for the requests which need no
+	 * computation.
+	 * 
+	 * @param path
+	 *            the result
+	 * @return a completed route
+	 */
+	static Future<Path> completed(Path path) {
+		FutureTask<Path> task = new FutureTask<Path>(new Runnable() {
+			public void run() {
+			}
+		}, path);
+		task.run();
+		return task;
+	}
+
+	/**
+	 * Gets the number of requests which joined a computation in flight.
+	 * 
+	 * @return the number of coalesced requests
+	 */
+	long getCoalesced() {
+		return this.coalesced.get();
+	}
+
+	/**
+	 * Stops the pool; pending requests are abandoned.
+	 */
+	void shutdown() {
+		this.executor.shutdownNow();
+		for (FutureTask<Path> task : this.inFlight.values()) {
+			task.cancel(false);
+		}
+	}
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: The identity of a route request.
+	 */
+	private static class RouteKey {
+		private final Node src;
+		private final Node dst;
+		private final Short bw;
+		private final long topologyVersion;
+
+		private RouteKey(Node src, Node dst, Short bw, long topologyVersion) {
+			this.src = src;
+			this.dst = dst;
+			this.bw = bw;
+			this.topologyVersion = topologyVersion;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + ((src == null) ? 0 : src.hashCode());
+			result = prime * result + ((dst == null) ? 0 : dst.hashCode());
+			result = prime * result + ((bw == null) ? 0 : bw.hashCode());
+			result = prime * result + (int) (topologyVersion ^ (topologyVersion >>> 32));
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof RouteKey))
+				return false;
+			RouteKey other = (RouteKey) obj;
+			return topologyVersion == other.topologyVersion && (src == null ? other.src == null : src.equals(other.src))
+					&& (dst == null ? other.dst == null : dst.equals(other.dst))
+					&& (bw == null ? other.bw == null : bw.equals(other.bw));
+		}
+	}
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: The view of a shared computation handed to one requester.
+	 *               Cancelling it would cancel the computation for everybody,
+	 *               so it refuses to.
+	 */
+	private static class SharedFuture implements Future<Path> {
+		private final Future<Path> task;
+
+		private SharedFuture(Future<Path> task) {
+			this.task = task;
+		}
+
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			return false;
+		}
+
+		public boolean isCancelled() {
+			return this.task.isCancelled();
+		}
+
+		public boolean isDone() {
+			return this.task.isDone();
+		}
+
+		public Path get() throws InterruptedException, ExecutionException {
+			return this.task.get();
+		}
+
+		public Path get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+				TimeoutException {
+			return this.task.get(timeout, unit);
+		}
+	}
+
+}
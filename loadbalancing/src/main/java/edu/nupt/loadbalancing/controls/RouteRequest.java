@@ -0,0 +1,65 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.io.Serializable;
+
+import org.opendaylight.controller.sal.core.Node;
+
+/**
+ * @Project: loadbalancing
+ * @Description: One entry of a bulk route query: the switches to connect and
+ *               the bandwidth of the topology to route on.
+ */
+public class RouteRequest implements Serializable {
+	private static final long serialVersionUID = -6259315405786871843L;
+	private final Node src;
+	private final Node dst;
+	private final Short bw;
+
+	public RouteRequest(Node src, Node dst, Short bw) {
+		this.src = src;
+		this.dst = dst;
+		this.bw = bw == null ? Short.valueOf((short) 0) : bw;
+	}
+
+	public Node getSrc() {
+		return src;
+	}
+
+	public Node getDst() {
+		return dst;
+	}
+
+	public Short getBw() {
+		return bw;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((src == null) ? 0 : src.hashCode());
+		result = prime * result + ((dst == null) ? 0 : dst.hashCode());
+		result = prime * result + bw.hashCode();
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof RouteRequest))
+			return false;
+		RouteRequest other = (RouteRequest) obj;
+		return (src == null ? other.src == null : src.equals(other.src))
+				&& (dst == null ? other.dst == null : dst.equals(other.dst)) && bw.equals(other.bw);
+	}
+
+	@Override
+	public String toString() {
+		return "RouteRequest [src=" + src + ", dst=" + dst + ", bw=" + bw + "]";
+	}
+
+}
@@ -0,0 +1,50 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.io.Serializable;
+
+import org.opendaylight.controller.sal.core.Path;
+
+/**
+ * @Project: loadbalancing
+ * @Description: The answer to a bounded route query: the chosen path, if any,
+ *               and whether the search could look at every candidate it
+ *               wanted to before the deadline. An incomplete result still
+ *               carries the best path found so far.
+ */
+public class RouteResult implements Serializable {
+	private static final long serialVersionUID = 4378563307465529190L;
+	private final Path path;
+	private final boolean complete;
+
+	public RouteResult(Path path, boolean complete) {
+		this.path = path;
+		this.complete = complete;
+	}
+
+	/**
+	 * Gets the chosen path.
+	 *
+	 * @return the path, or NULL if none was found in time or none exists
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Tells whether the search finished before the deadline.
+	 *
+	 * @return TRUE if the path was chosen among all the wanted candidates
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	@Override
+	public String toString() {
+		return "RouteResult [path=" + path + ", complete=" + complete + "]";
+	}
+
+}
@@ -0,0 +1,347 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Keeps a snapshot of the state of the load balancer in a file,
+ *               so that a restarted controller does not begin with an empty
+ *               statistics window and cold route searches. The file is
+ *               written to a temporary file through a memory mapping and then
+ *               renamed over the previous one, so that a crash never leaves a
+ *               torn snapshot, and it is read back through a read-only
+ *               mapping.
+ *
+ *               The layout is, in big-endian order:
+ *
+ *               <pre>
+ * int magic 'NLBS', int version, long created (ms), int length, long crc32
+ * section*: int tag, int length, byte[length]
+ *               </pre>
+ *
+ *               where the CRC covers the sections. The sections are the
+ *               string table of nodes and ports (tag 1), the edges as pairs
+ *               of port indexes (tag 2), the sampled counters of every port
+ *               (tag 3) and the recently routed pairs (tag 4). A reader skips
+ *               the sections it does not know, so that sections can be added
+ *               without a new version; the version only changes when an
+ *               existing section changes.
+ */
+class SnapshotStore {
+	private static Logger log = LoggerFactory.getLogger(SnapshotStore.class);
+	private static final int MAGIC = 0x4E4C4253;
+	private static final int VERSION = 1;
+	private static final int HEADER_LENGTH = 4 + 4 + 8 + 4 + 8;
+	private static final int STRINGS = 1;
+	private static final int EDGES = 2;
+	private static final int STATISTICS = 3;
+	private static final int ROUTES = 4;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private final File file;
+
+	SnapshotStore(File file) {
+		this.file = file;
+	}
+
+	File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Writes the snapshot, replacing the previous one.
+	 *
+	 * @param snapshot
+	 *            the state to keep
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	void save(Snapshot snapshot) throws IOException {
+		StringTable strings = new StringTable();
+		ByteBuffer edges = encodeEdges(snapshot.edges, strings);
+		ByteBuffer statistics = encodeStatistics(snapshot.statistics, strings);
+		ByteBuffer routes = encodeRoutes(snapshot.routes, strings);
+		ByteBuffer table = strings.encode();
+
+		int length = 0;
+		for (ByteBuffer section : new ByteBuffer[] { table, edges, statistics, routes }) {
+			length += 8 + section.remaining();
+		}
+		File parent = this.file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		File temp = new File(parent, this.file.getName() + ".tmp");
+		RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+		try {
+			raf.setLength(HEADER_LENGTH + length);
+			FileChannel channel = raf.getChannel();
+			MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_LENGTH + length);
+			out.position(HEADER_LENGTH);
+			putSection(out, STRINGS, table);
+			putSection(out, EDGES, edges);
+			putSection(out, STATISTICS, statistics);
+			putSection(out, ROUTES, routes);
+			ByteBuffer payload = out.duplicate();
+			payload.position(HEADER_LENGTH);
+			out.position(0);
+			out.putInt(MAGIC);
+			out.putInt(VERSION);
+			out.putLong(snapshot.createdMillis);
+			out.putInt(length);
+			out.putLong(crc(payload));
+			out.force();
+		} finally {
+			raf.close();
+		}
+		Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads the snapshot back.
+	 *
+	 * @return the snapshot, or NULL if there is none or it cannot be used
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	Snapshot load() throws IOException {
+		if (!this.file.isFile() || this.file.length() < HEADER_LENGTH) {
+			return null;
+		}
+		RandomAccessFile raf = new RandomAccessFile(this.file, "r");
+		try {
+			MappedByteBuffer in = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+			if (in.getInt() != MAGIC) {
+				log.warn("{} is not a load balancing snapshot", this.file);
+				return null;
+			}
+			int version = in.getInt();
+			if (version != VERSION) {
+				log.warn("Snapshot {} has version {}, expected {}", new Object[] { this.file, version, VERSION });
+				return null;
+			}
+			long created = in.getLong();
+			int length = in.getInt();
+			long crc = in.getLong();
+			if (length != in.remaining()) {
+				log.warn("Snapshot {} is truncated", this.file);
+				return null;
+			}
+			if (crc(in.duplicate()) != crc) {
+				log.warn("Snapshot {} is corrupted", this.file);
+				return null;
+			}
+			return decode(in, created);
+		} catch (BufferUnderflowException e) {
+			log.warn("Snapshot {} is malformed", this.file);
+			return null;
+		} catch (IllegalArgumentException e) {
+			log.warn("Snapshot {} is malformed: {}", this.file, e.getMessage());
+			return null;
+		} finally {
+			raf.close();
+		}
+	}
+
+	private static Snapshot decode(ByteBuffer in, long created) {
+		Snapshot snapshot = new Snapshot(created);
+		List<String> strings = new ArrayList<String>();
+		while (in.hasRemaining()) {
+			int tag = in.getInt();
+			int length = in.getInt();
+			ByteBuffer section = in.slice();
+			section.limit(length);
+			in.position(in.position() + length);
+			switch (tag) {
+			case STRINGS:
+				int count = section.getInt();
+				for (int i = 0; i < count; i++) {
+					byte[] bytes = new byte[section.getShort() & 0xFFFF];
+					section.get(bytes);
+					strings.add(new String(bytes, UTF8));
+				}
+				break;
+			case EDGES:
+				for (int i = section.getInt(); i > 0; i--) {
+					NodeConnector tail = connector(strings, section.getInt());
+					NodeConnector head = connector(strings, section.getInt());
+					try {
+						snapshot.edges.add(new Edge(tail, head));
+					} catch (ConstructionException e) {
+						log.debug("Skipping the edge between {} and {}", tail, head);
+					}
+				}
+				break;
+			case STATISTICS:
+				for (int i = section.getInt(); i > 0; i--) {
+					NodeConnector connector = connector(strings, section.getInt());
+					long[] datas = new long[section.getShort() & 0xFFFF];
+					for (int j = 0; j < datas.length; j++) {
+						datas[j] = section.getLong();
+					}
+					snapshot.statistics.put(connector, datas);
+				}
+				break;
+			case ROUTES:
+				for (int i = section.getInt(); i > 0; i--) {
+					Node src = node(strings, section.getInt());
+					Node dst = node(strings, section.getInt());
+					snapshot.routes.add(new RouteRequest(src, dst, section.getShort()));
+				}
+				break;
+			default:
+				// written by a later release
+				break;
+			}
+		}
+		return snapshot;
+	}
+
+	private static NodeConnector connector(List<String> strings, int index) {
+		NodeConnector connector = NodeConnector.fromString(strings.get(index));
+		if (connector == null) {
+			throw new IllegalArgumentException("bad port " + strings.get(index));
+		}
+		return connector;
+	}
+
+	private static Node node(List<String> strings, int index) {
+		Node node = Node.fromString(strings.get(index));
+		if (node == null) {
+			throw new IllegalArgumentException("bad node " + strings.get(index));
+		}
+		return node;
+	}
+
+	private static ByteBuffer encodeEdges(List<Edge> edges, StringTable strings) {
+		ByteBuffer buffer = ByteBuffer.allocate(4 + 8 * edges.size());
+		buffer.putInt(edges.size());
+		for (Edge edge : edges) {
+			buffer.putInt(strings.index(edge.getTailNodeConnector().toString()));
+			buffer.putInt(strings.index(edge.getHeadNodeConnector().toString()));
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private static ByteBuffer encodeStatistics(Map<NodeConnector, long[]> statistics, StringTable strings) {
+		int length = 4;
+		for (long[] datas : statistics.values()) {
+			length += 4 + 2 + 8 * datas.length;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		buffer.putInt(statistics.size());
+		for (Map.Entry<NodeConnector, long[]> entry : statistics.entrySet()) {
+			buffer.putInt(strings.index(entry.getKey().toString()));
+			long[] datas = entry.getValue();
+			buffer.putShort((short) datas.length);
+			for (long data : datas) {
+				buffer.putLong(data);
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private static ByteBuffer encodeRoutes(List<RouteRequest> routes, StringTable strings) {
+		ByteBuffer buffer = ByteBuffer.allocate(4 + 10 * routes.size());
+		buffer.putInt(routes.size());
+		for (RouteRequest route : routes) {
+			buffer.putInt(strings.index(route.getSrc().toString()));
+			buffer.putInt(strings.index(route.getDst().toString()));
+			buffer.putShort(route.getBw().shortValue());
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private static void putSection(ByteBuffer out, int tag, ByteBuffer section) {
+		out.putInt(tag);
+		out.putInt(section.remaining());
+		out.put(section);
+	}
+
+	private static long crc(ByteBuffer payload) {
+		CRC32 crc = new CRC32();
+		byte[] chunk = new byte[8192];
+		while (payload.hasRemaining()) {
+			int n = Math.min(chunk.length, payload.remaining());
+			payload.get(chunk, 0, n);
+			crc.update(chunk, 0, n);
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: The strings of the snapshot, each written once and
+	 *               referred to by index.
+	 */
+	private static class StringTable {
+		private final Map<String, Integer> indexes = new LinkedHashMap<String, Integer>();
+		private int length = 4;
+
+		private int index(String string) {
+			Integer index = this.indexes.get(string);
+			if (index == null) {
+				index = Integer.valueOf(this.indexes.size());
+				this.indexes.put(string, index);
+				this.length += 2 + string.getBytes(UTF8).length;
+			}
+			return index.intValue();
+		}
+
+		private ByteBuffer encode() {
+			ByteBuffer buffer = ByteBuffer.allocate(this.length);
+			buffer.putInt(this.indexes.size());
+			for (String string : this.indexes.keySet()) {
+				byte[] bytes = string.getBytes(UTF8);
+				buffer.putShort((short) bytes.length);
+				buffer.put(bytes);
+			}
+			buffer.flip();
+			return buffer;
+		}
+	}
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: The state kept across a restart.
+	 */
+	static class Snapshot {
+		final long createdMillis;
+		final List<Edge> edges = new ArrayList<Edge>();
+		final Map<NodeConnector, long[]> statistics = new HashMap<NodeConnector, long[]>();
+		final List<RouteRequest> routes = new ArrayList<RouteRequest>();
+
+		Snapshot(long createdMillis) {
+			this.createdMillis = createdMillis;
+		}
+	}
+
+}
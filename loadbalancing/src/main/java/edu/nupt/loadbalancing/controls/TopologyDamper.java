@@ -0,0 +1,312 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.UpdateType;
+import org.opendaylight.controller.sal.topology.TopoEdgeUpdate;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Stands between the topology manager and the graphs, so that a
+ *               flapping link does not reset the shortest path trees many
+ *               times a second. The updates received within a window are
+ *               coalesced per edge: only the last one counts, and a removal
+ *               followed by an addition of an edge which was in the graphs
+ *               leaves the graphs alone. Every removal of an edge also adds
+ *               to its flap penalty, which halves every half-life. An edge
+ *               whose penalty goes over the suppress limit is taken out of
+ *               the graphs and its additions are held back until the
+ *               penalty has decayed below the reuse limit, as in the route
+ *               flap damping of BGP. The penalty is capped so that no edge
+ *               is suppressed for longer than the given maximum. An update
+ *               which never reaches the graphs, being cancelled, redundant or
+ *               held back, is counted as suppressed. The methods are
+ *               synchronized: {@link #endWindow(long)} is called at the end
+ *               of every window, and {@link #releaseSuppressed(long)}
+ *               regularly, without touching the window.
+ */
+public class TopologyDamper {
+	private final long windowMillis;
+	private final double penalty;
+	private final double suppressLimit;
+	private final double reuseLimit;
+	private final double maxPenalty;
+	private final long halfLifeMillis;
+	/**
+	 * The updates of the current window, the last one per edge with the
+	 * number received.
+	 */
+	private final Map<Edge, Pending> pending;
+	/**
+	 * The edges which are in the graphs or have a penalty left.
+	 */
+	private final Map<Edge, EdgeState> states;
+	private boolean windowOpen;
+	private long suppressed;
+
+	/**
+	 * The last update of an edge within the current window.
+	 */
+	private static class Pending {
+		private TopoEdgeUpdate update;
+		private int count;
+	}
+
+	/**
+	 * What the graphs know of an edge, and its flap penalty as of
+	 * <code>updated</code>.
+	 */
+	private static class EdgeState {
+		private boolean present;
+		private double penalty;
+		private long updated;
+		private boolean suppressed;
+		/**
+		 * The addition held back while the edge is suppressed.
+		 */
+		private TopoEdgeUpdate held;
+	}
+
+	/**
+	 * Creates a TopologyDamper.
+	 *
+	 * @param windowMillis
+	 *            the time during which updates are coalesced, 0 to apply
+	 *            every batch at once
+	 * @param penalty
+	 *            what a removal adds to the penalty of an edge, 0 not to damp
+	 * @param suppressLimit
+	 *            the penalty above which an edge is suppressed
+	 * @param reuseLimit
+	 *            the penalty below which a suppressed edge is used again
+	 * @param halfLifeMillis
+	 *            the time in which a penalty halves
+	 * @param maxSuppressMillis
+	 *            the longest time an edge stays suppressed after its last
+	 *            flap
+	 */
+	public TopologyDamper(long windowMillis, double penalty, double suppressLimit, double reuseLimit,
+			long halfLifeMillis, long maxSuppressMillis) {
+		if (windowMillis < 0 || penalty < 0 || reuseLimit <= 0 || suppressLimit < reuseLimit || halfLifeMillis <= 0
+				|| maxSuppressMillis < 0) {
+			throw new IllegalArgumentException("window of " + windowMillis + " ms, penalty " + penalty
+					+ ", limits " + suppressLimit + "/" + reuseLimit + ", half-life of " + halfLifeMillis
+					+ " ms, suppression of " + maxSuppressMillis + " ms");
+		}
+		this.windowMillis = windowMillis;
+		this.penalty = penalty;
+		this.suppressLimit = suppressLimit;
+		this.reuseLimit = reuseLimit;
+		this.maxPenalty = reuseLimit * Math.pow(2D, (double) maxSuppressMillis / halfLifeMillis);
+		this.halfLifeMillis = halfLifeMillis;
+		this.pending = new LinkedHashMap<Edge, Pending>();
+		this.states = new HashMap<Edge, EdgeState>();
+	}
+
+	public long getWindowMillis() {
+		return this.windowMillis;
+	}
+
+	/**
+	 * Takes a batch of updates from the topology manager.
+	 *
+	 * @param updates
+	 *            the updates, in the order they happened
+	 * @param now
+	 *            the current time in milliseconds
+	 * @return TRUE if the batch opened a new window, at the end of which
+	 *         {@link #endWindow(long)} has to be called
+	 */
+	public synchronized boolean offer(List<TopoEdgeUpdate> updates, long now) {
+		boolean opened = false;
+		for (TopoEdgeUpdate update : updates) {
+			Edge edge = update.getEdge();
+			if (edge == null || update.getUpdateType() == null) {
+				this.suppressed++;
+				continue;
+			}
+			if (update.getUpdateType() == UpdateType.REMOVED && this.penalty > 0) {
+				charge(edge, now);
+			}
+			Pending last = this.pending.get(edge);
+			if (last == null) {
+				last = new Pending();
+				this.pending.put(edge, last);
+				last.update = update;
+			} else if (update.getUpdateType() != UpdateType.CHANGED
+					|| last.update.getUpdateType() == UpdateType.CHANGED) {
+				// a change of the properties does not undo an addition or a
+				// removal
+				last.update = update;
+			}
+			last.count++;
+			if (!this.windowOpen) {
+				this.windowOpen = true;
+				opened = true;
+			}
+		}
+		return opened;
+	}
+
+	/**
+	 * Adds the penalty of one flap to an edge.
+	 */
+	private void charge(Edge edge, long now) {
+		EdgeState state = this.states.get(edge);
+		if (state == null) {
+			state = new EdgeState();
+			// an edge the graphs may have had before the damper
+			state.present = true;
+			state.updated = now;
+			this.states.put(edge, state);
+		}
+		decay(state, now);
+		state.penalty = Math.min(this.maxPenalty, state.penalty + this.penalty);
+		if (state.penalty > this.suppressLimit) {
+			state.suppressed = true;
+		}
+	}
+
+	private void decay(EdgeState state, long now) {
+		if (now > state.updated) {
+			state.penalty *= Math.pow(0.5D, (double) (now - state.updated) / this.halfLifeMillis);
+			state.updated = now;
+		}
+	}
+
+	/**
+	 * Ends the current window.
+	 *
+	 * @param now
+	 *            the current time in milliseconds
+	 * @return the updates to apply to the graphs, in order
+	 */
+	public synchronized List<TopoEdgeUpdate> endWindow(long now) {
+		List<TopoEdgeUpdate> out = new ArrayList<TopoEdgeUpdate>();
+		for (Map.Entry<Edge, Pending> entry : this.pending.entrySet()) {
+			int emitted = apply(entry.getKey(), entry.getValue().update, now, out);
+			this.suppressed += entry.getValue().count - emitted;
+		}
+		this.pending.clear();
+		this.windowOpen = false;
+		return out;
+	}
+
+	/**
+	 * Releases the suppressed edges whose penalty has decayed, and forgets
+	 * the edges which are out of the graphs and have no penalty left. The
+	 * updates of the current window are left alone.
+	 *
+	 * @param now
+	 *            the current time in milliseconds
+	 * @return the held additions to apply to the graphs
+	 */
+	public synchronized List<TopoEdgeUpdate> releaseSuppressed(long now) {
+		List<TopoEdgeUpdate> out = new ArrayList<TopoEdgeUpdate>();
+		Iterator<Map.Entry<Edge, EdgeState>> it = this.states.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Edge, EdgeState> entry = it.next();
+			EdgeState state = entry.getValue();
+			decay(state, now);
+			if (state.suppressed && state.penalty < this.reuseLimit) {
+				state.suppressed = false;
+				if (state.held != null) {
+					out.add(state.held);
+					state.present = true;
+					state.held = null;
+				}
+			}
+			if (!state.present && !state.suppressed && state.penalty < this.reuseLimit
+					&& !this.pending.containsKey(entry.getKey())) {
+				it.remove();
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Decides what the last update of an edge in a window does to the graphs.
+	 *
+	 * @return the number of updates received which are applied
+	 */
+	private int apply(Edge edge, TopoEdgeUpdate update, long now, List<TopoEdgeUpdate> out) {
+		EdgeState state = this.states.get(edge);
+		if (state == null) {
+			state = new EdgeState();
+			state.present = update.getUpdateType() != UpdateType.ADDED;
+			state.updated = now;
+			this.states.put(edge, state);
+		}
+		switch (update.getUpdateType()) {
+		case ADDED:
+			if (state.suppressed) {
+				state.held = update;
+				if (state.present) {
+					// a flapping edge is kept out of the graphs
+					TopoEdgeUpdate removal = new TopoEdgeUpdate(edge, null, UpdateType.REMOVED);
+					removal.setLocal(update.isLocal());
+					out.add(removal);
+					state.present = false;
+				}
+				return 0;
+			}
+			if (state.present) {
+				return 0;
+			}
+			state.present = true;
+			out.add(update);
+			return 1;
+		case REMOVED:
+			state.held = null;
+			if (!state.present) {
+				return 0;
+			}
+			state.present = false;
+			out.add(update);
+			return 1;
+		default:
+			if (!state.present) {
+				return 0;
+			}
+			out.add(update);
+			return 1;
+		}
+	}
+
+	/**
+	 * @return the number of updates which did not reach the graphs so far
+	 */
+	public synchronized long getSuppressedCount() {
+		return this.suppressed;
+	}
+
+	/**
+	 * @return the number of edges currently suppressed
+	 */
+	public synchronized int getSuppressedEdgeCount() {
+		int count = 0;
+		for (EdgeState state : this.states.values()) {
+			if (state.suppressed) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of edges whose state is kept
+	 */
+	public synchronized int getEdgeCount() {
+		return this.states.size();
+	}
+
+}
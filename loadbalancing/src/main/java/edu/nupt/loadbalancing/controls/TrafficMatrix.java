@@ -0,0 +1,173 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.opendaylight.controller.sal.core.Node;
+
+/**
+ * @Project: loadbalancing
+ * @Description: The estimated demand between every two switches, in bytes per
+ *               second: the traffic which enters the network at the host
+ *               ports of the first switch and leaves it at the host ports of
+ *               the second one. A matrix is never changed once it is made,
+ *               the estimator makes a new one after every sampling round.
+ */
+public class TrafficMatrix implements Serializable {
+	private static final long serialVersionUID = 2719351264735541803L;
+	private final long estimatedMillis;
+	private final long topologyVersion;
+	private final List<Node> nodes;
+	private final Map<Node, Integer> index;
+	private final double[][] demand;
+
+	/**
+	 * Creates a TrafficMatrix.
+	 *
+	 * @param estimatedMillis
+	 *            when the estimate was made
+	 * @param topologyVersion
+	 *            the version of the topology it was made on
+	 * @param nodes
+	 *            the switches, in the order of the rows and columns
+	 * @param demand
+	 *            the demand from the switch of each row to the switch of each
+	 *            column, which is not copied
+	 */
+	public TrafficMatrix(long estimatedMillis, long topologyVersion, List<Node> nodes, double[][] demand) {
+		this.estimatedMillis = estimatedMillis;
+		this.topologyVersion = topologyVersion;
+		this.nodes = Collections.unmodifiableList(new ArrayList<Node>(nodes));
+		this.index = new HashMap<Node, Integer>();
+		for (int i = 0; i < nodes.size(); i++) {
+			this.index.put(nodes.get(i), Integer.valueOf(i));
+		}
+		this.demand = demand;
+	}
+
+	public long getEstimatedMillis() {
+		return estimatedMillis;
+	}
+
+	public long getTopologyVersion() {
+		return topologyVersion;
+	}
+
+	public List<Node> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Gets the demand between two switches.
+	 *
+	 * @param src
+	 *            the switch where the traffic enters the network
+	 * @param dst
+	 *            the switch where it leaves the network
+	 * @return the demand in bytes per second, 0 if a switch is not known
+	 */
+	public double getDemand(Node src, Node dst) {
+		Integer i = this.index.get(src);
+		Integer j = this.index.get(dst);
+		if (i == null || j == null) {
+			return 0D;
+		}
+		return this.demand[i.intValue()][j.intValue()];
+	}
+
+	/**
+	 * Gets the traffic which enters the network at a switch.
+	 *
+	 * @param src
+	 *            the switch
+	 * @return the sum of its demands to all the switches, in bytes per second
+	 */
+	public double getIngress(Node src) {
+		Integer i = this.index.get(src);
+		double sum = 0D;
+		if (i != null) {
+			for (double d : this.demand[i.intValue()]) {
+				sum += d;
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Gets the traffic which leaves the network at a switch.
+	 *
+	 * @param dst
+	 *            the switch
+	 * @return the sum of the demands of all the switches to it, in bytes per
+	 *         second
+	 */
+	public double getEgress(Node dst) {
+		Integer j = this.index.get(dst);
+		double sum = 0D;
+		if (j != null) {
+			for (double[] row : this.demand) {
+				sum += row[j.intValue()];
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Gets the traffic of the whole network.
+	 *
+	 * @return the sum of all the demands, in bytes per second
+	 */
+	public double getTotal() {
+		double sum = 0D;
+		for (double[] row : this.demand) {
+			for (double d : row) {
+				sum += d;
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Gets the pairs of switches with the largest demands, e.g. to compute
+	 * their routes before their flows come.
+	 *
+	 * @param count
+	 *            the most pairs to return
+	 * @return the pairs with a demand, the largest first
+	 */
+	public List<RouteRequest> getLargestDemands(int count) {
+		List<int[]> pairs = new ArrayList<int[]>();
+		for (int i = 0; i < this.demand.length; i++) {
+			for (int j = 0; j < this.demand.length; j++) {
+				if (this.demand[i][j] > 0D) {
+					pairs.add(new int[] { i, j });
+				}
+			}
+		}
+		Collections.sort(pairs, new Comparator<int[]>() {
+			public int compare(int[] a, int[] b) {
+				return Double.compare(demand[b[0]][b[1]], demand[a[0]][a[1]]);
+			}
+		});
+		List<RouteRequest> largest = new ArrayList<RouteRequest>(Math.min(count, pairs.size()));
+		for (int[] pair : pairs.subList(0, Math.min(count, pairs.size()))) {
+			largest.add(new RouteRequest(this.nodes.get(pair[0]), this.nodes.get(pair[1]), null));
+		}
+		return largest;
+	}
+
+	@Override
+	public String toString() {
+		return "TrafficMatrix [nodes=" + nodes.size() + ", total=" + getTotal() + ", topologyVersion="
+				+ topologyVersion + "]";
+	}
+
+}
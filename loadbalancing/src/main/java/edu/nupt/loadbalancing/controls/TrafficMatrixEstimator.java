@@ -0,0 +1,302 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.nupt.loadbalancing.beans.NuptPath;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Estimates the {@link TrafficMatrix} of the network from the
+ *               received byte counters of the ports. The host ports of a
+ *               switch, i.e. the ports which are not the end of a link, give
+ *               the traffic which enters the network there. The traffic
+ *               which leaves it at a switch is what enters the switch minus
+ *               what it forwards on its links. The gravity model spreads the
+ *               traffic of every switch over the others in proportion to
+ *               what leaves the network there. That first estimate is then
+ *               fitted to the measured load of the links, as tomogravity
+ *               does: every demand is assumed to take the shortest path of
+ *               its pair, and iterative proportional fitting scales the
+ *               demands on each link, and those of each row and column, in
+ *               turn until they agree with the counters. Each round starts
+ *               from a blend of the new gravity model and the previous
+ *               estimate, and the routes of the pairs are only computed
+ *               again when the topology changed, so that an estimate after
+ *               each sampling round costs a few passes over the demands.
+ */
+public class TrafficMatrixEstimator {
+	private static Logger log = LoggerFactory.getLogger(TrafficMatrixEstimator.class);
+	private final Routes routes;
+	private final long samplingInterval;
+	private final int iterations;
+	private final double priorWeight;
+	/**
+	 * The routes of the pairs on {@link #routedVersion} of the topology, an
+	 * empty list for a pair without route. Only used by the thread which
+	 * runs the estimates.
+	 */
+	private final Map<RouteRequest, List<Edge>> routed;
+	private long routedVersion = -1L;
+	private volatile TrafficMatrix last;
+
+	/**
+	 * @Project: loadbalancing
+	 * @Description: Gives the route the traffic of a pair is assumed to take.
+	 */
+	public interface Routes {
+
+		/**
+		 * Computes the route of a pair on the current topology.
+		 *
+		 * @param src
+		 *            the source switch
+		 * @param dst
+		 *            the destination switch
+		 * @return the route, NULL if there is none
+		 */
+		public NuptPath getRoute(Node src, Node dst);
+	}
+
+	/**
+	 * Creates a TrafficMatrixEstimator.
+	 *
+	 * @param routes
+	 *            the routes of the pairs
+	 * @param samplingInterval
+	 *            the time between two samples of the counters, in seconds
+	 * @param iterations
+	 *            the passes of proportional fitting per estimate
+	 * @param priorWeight
+	 *            the weight of the new gravity model against the previous
+	 *            estimate, in (0, 1]; 1 forgets the previous estimate
+	 * @throws IllegalArgumentException
+	 *             if a parameter is out of range
+	 */
+	public TrafficMatrixEstimator(Routes routes, long samplingInterval, int iterations, double priorWeight) {
+		if (samplingInterval <= 0 || iterations < 0 || !(priorWeight > 0D && priorWeight <= 1D)) {
+			throw new IllegalArgumentException("samplingInterval=" + samplingInterval + ", iterations="
+					+ iterations + ", priorWeight=" + priorWeight);
+		}
+		this.routes = routes;
+		this.samplingInterval = samplingInterval;
+		this.iterations = iterations;
+		this.priorWeight = priorWeight;
+		this.routed = new HashMap<RouteRequest, List<Edge>>();
+	}
+
+	/**
+	 * Gets the last estimate.
+	 *
+	 * @return the matrix, NULL before the first estimate
+	 */
+	public TrafficMatrix getLast() {
+		return this.last;
+	}
+
+	/**
+	 * Estimates the demands from the current counters. Called by one thread
+	 * at a time, after a sampling round.
+	 *
+	 * @param edges
+	 *            the links of the network
+	 * @param statisticsMap
+	 *            the sampled received byte counters of the ports
+	 * @param topologyVersion
+	 *            the version of the topology of <code>edges</code>
+	 * @return the new estimate
+	 */
+	public TrafficMatrix estimate(Collection<Edge> edges, Map<NodeConnector, long[]> statisticsMap,
+			long topologyVersion) {
+		Map<Node, Integer> index = new LinkedHashMap<Node, Integer>();
+		Map<Edge, Integer> edgeIndex = new HashMap<Edge, Integer>();
+		Set<NodeConnector> linkPorts = new HashSet<NodeConnector>();
+		for (Edge edge : edges) {
+			index(index, edge.getTailNodeConnector().getNode());
+			index(index, edge.getHeadNodeConnector().getNode());
+			linkPorts.add(edge.getTailNodeConnector());
+			linkPorts.add(edge.getHeadNodeConnector());
+		}
+		int n = index.size();
+		List<Node> nodes = new ArrayList<Node>(index.keySet());
+		double[] ingress = new double[n];
+		double[] egress = new double[n];
+		for (Map.Entry<NodeConnector, long[]> entry : statisticsMap.entrySet()) {
+			Integer i = index.get(entry.getKey().getNode());
+			if (i != null && !linkPorts.contains(entry.getKey())) {
+				ingress[i.intValue()] += rate(entry.getValue());
+			}
+		}
+		// the load of a link is received at its head
+		List<Double> linkLoad = new ArrayList<Double>();
+		for (Edge edge : edges) {
+			long[] datas = statisticsMap.get(edge.getHeadNodeConnector());
+			if (datas == null || edgeIndex.containsKey(edge)) {
+				continue;
+			}
+			double load = rate(datas);
+			edgeIndex.put(edge, Integer.valueOf(linkLoad.size()));
+			linkLoad.add(Double.valueOf(load));
+			egress[index.get(edge.getHeadNodeConnector().getNode()).intValue()] += load;
+			egress[index.get(edge.getTailNodeConnector().getNode()).intValue()] -= load;
+		}
+		double egressSum = 0D;
+		for (int j = 0; j < n; j++) {
+			egress[j] = Math.max(0D, egress[j] + ingress[j]);
+			egressSum += egress[j];
+		}
+
+		double[][] demand = new double[n][n];
+		TrafficMatrix previous = this.last;
+		for (int i = 0; i < n; i++) {
+			double others = egressSum - egress[i];
+			for (int j = 0; j < n; j++) {
+				if (i == j) {
+					continue;
+				}
+				double prior = others > 0D ? ingress[i] * egress[j] / others : 0D;
+				demand[i][j] = previous == null ? prior : this.priorWeight * prior + (1D - this.priorWeight)
+						* previous.getDemand(nodes.get(i), nodes.get(j));
+			}
+		}
+
+		if (topologyVersion != this.routedVersion) {
+			this.routed.clear();
+			this.routedVersion = topologyVersion;
+		}
+		int[] pairsPerLink = new int[linkLoad.size()];
+		int[][] pairLinks = new int[n * n][];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				if (demand[i][j] <= 0D) {
+					continue;
+				}
+				List<Edge> route = route(nodes.get(i), nodes.get(j));
+				if (route.isEmpty()) {
+					// the pair cannot exchange traffic
+					demand[i][j] = 0D;
+					continue;
+				}
+				int[] links = new int[route.size()];
+				int count = 0;
+				for (Edge edge : route) {
+					Integer l = edgeIndex.get(edge);
+					if (l != null) {
+						links[count++] = l.intValue();
+						pairsPerLink[l.intValue()]++;
+					}
+				}
+				pairLinks[i * n + j] = count == links.length ? links : Arrays.copyOf(links, count);
+			}
+		}
+		int[][] linkPairs = new int[linkLoad.size()][];
+		for (int l = 0; l < linkPairs.length; l++) {
+			linkPairs[l] = new int[pairsPerLink[l]];
+			pairsPerLink[l] = 0;
+		}
+		for (int p = 0; p < pairLinks.length; p++) {
+			if (pairLinks[p] != null) {
+				for (int l : pairLinks[p]) {
+					linkPairs[l][pairsPerLink[l]++] = p;
+				}
+			}
+		}
+
+		for (int k = 0; k < this.iterations; k++) {
+			for (int l = 0; l < linkPairs.length; l++) {
+				double sum = 0D;
+				for (int p : linkPairs[l]) {
+					sum += demand[p / n][p % n];
+				}
+				if (sum > 0D) {
+					double factor = linkLoad.get(l).doubleValue() / sum;
+					for (int p : linkPairs[l]) {
+						demand[p / n][p % n] *= factor;
+					}
+				}
+			}
+			for (int i = 0; i < n; i++) {
+				double sum = 0D;
+				for (int j = 0; j < n; j++) {
+					sum += demand[i][j];
+				}
+				if (sum > 0D) {
+					for (int j = 0; j < n; j++) {
+						demand[i][j] *= ingress[i] / sum;
+					}
+				}
+			}
+			for (int j = 0; j < n; j++) {
+				double sum = 0D;
+				for (int i = 0; i < n; i++) {
+					sum += demand[i][j];
+				}
+				if (sum > 0D) {
+					for (int i = 0; i < n; i++) {
+						demand[i][j] *= egress[j] / sum;
+					}
+				}
+			}
+		}
+		TrafficMatrix matrix = new TrafficMatrix(System.currentTimeMillis(), topologyVersion, nodes, demand);
+		log.trace("Estimated {}", matrix);
+		this.last = matrix;
+		return matrix;
+	}
+
+	private static void index(Map<Node, Integer> index, Node node) {
+		if (!index.containsKey(node)) {
+			index.put(node, Integer.valueOf(index.size()));
+		}
+	}
+
+	private List<Edge> route(Node src, Node dst) {
+		RouteRequest pair = new RouteRequest(src, dst, null);
+		List<Edge> route = this.routed.get(pair);
+		if (route == null) {
+			NuptPath path = this.routes.getRoute(src, dst);
+			route = path == null ? Collections.<Edge> emptyList() : path.getEdges();
+			this.routed.put(pair, route);
+		}
+		return route;
+	}
+
+	/**
+	 * Calculates the rate of a port over the statistics window, skipping the
+	 * samples taken before the first one of the port.
+	 *
+	 * @param datas
+	 *            the statistics window of the port, oldest first
+	 * @return the bytes per second, 0 if the window holds less than one
+	 *         interval or the counter went backwards
+	 */
+	private double rate(long[] datas) {
+		int first = 0;
+		while (first < datas.length && datas[first] == 0L) {
+			first++;
+		}
+		int last = datas.length - 1;
+		if (last - first < 1) {
+			return 0D;
+		}
+		return Math.max(0L, datas[last] - datas[first]) * 1.0 / ((last - first) * this.samplingInterval);
+	}
+
+}
@@ -0,0 +1,134 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @Project: loadbalancing
+ * @Description: A lock-free histogram of non-negative long values such as
+ *               latencies in nanoseconds or per-query counts. Values are
+ *               counted into log-linear buckets: every power of two is split
+ *               into {@link #SUB_BUCKETS} equal sub-buckets, so a recorded
+ *               value is reported back with a relative error of at most
+ *               1/{@link #SUB_BUCKETS}. Recording is one array increment plus
+ *               a few atomic updates, and never allocates.
+ */
+public class Histogram {
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts;
+	private final AtomicLong count;
+	private final AtomicLong sum;
+	private final AtomicLong max;
+
+	public Histogram() {
+		this.counts = new AtomicLongArray(BUCKET_COUNT);
+		this.count = new AtomicLong();
+		this.sum = new AtomicLong();
+		this.max = new AtomicLong();
+	}
+
+	/**
+	 * Records a value. Negative values are counted as 0.
+	 *
+	 * @param value
+	 *            the value to be recorded
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		this.counts.incrementAndGet(bucketIndex(value));
+		this.count.incrementAndGet();
+		this.sum.addAndGet(value);
+		long current = this.max.get();
+		while (value > current && !this.max.compareAndSet(current, value)) {
+			current = this.max.get();
+		}
+	}
+
+	/**
+	 * Takes a point-in-time copy of the histogram. Concurrent recordings may
+	 * or may not be part of the copy.
+	 *
+	 * @return a snapshot of the recorded values
+	 */
+	public HistogramSnapshot snapshot() {
+		long[] copy = new long[BUCKET_COUNT];
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			copy[i] = this.counts.get(i);
+			total += copy[i];
+		}
+		long sumValue = this.sum.get();
+		double mean = total == 0 ? 0D : (double) sumValue / total;
+		return new HistogramSnapshot(total, mean, this.max.get(), valueAt(copy, total, 0.5),
+				valueAt(copy, total, 0.99), valueAt(copy, total, 0.999));
+	}
+
+	/**
+	 * Clears all recorded values.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			this.counts.set(i, 0);
+		}
+		this.count.set(0);
+		this.sum.set(0);
+		this.max.set(0);
+	}
+
+	public long getCount() {
+		return this.count.get();
+	}
+
+	private static long valueAt(long[] copy, long total, double quantile) {
+		if (total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(quantile * total);
+		long seen = 0;
+		for (int i = 0; i < copy.length; i++) {
+			seen += copy[i];
+			if (seen >= rank) {
+				return bucketValue(i);
+			}
+		}
+		return bucketValue(copy.length - 1);
+	}
+
+	/**
+	 * Values below {@link #SUB_BUCKETS} get a bucket of their own, every
+	 * larger value lands in sub-bucket
+	 * <tt>(value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS</tt> of the
+	 * power of two it belongs to.
+	 */
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int sub = (int) (value >>> shift) - SUB_BUCKETS;
+		return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Returns the middle of the value range covered by the given bucket.
+	 */
+	static long bucketValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+		int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+		long lower = ((long) (SUB_BUCKETS + sub)) << shift;
+		return lower + ((1L << shift) >>> 1);
+	}
+
+}
@@ -0,0 +1,61 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.metrics;
+
+import java.io.Serializable;
+
+/**
+ * @Project: loadbalancing
+ * @Description: An immutable summary of a {@link Histogram} at one point in
+ *               time.
+ */
+public class HistogramSnapshot implements Serializable {
+	private static final long serialVersionUID = 4871196870563370381L;
+	private final long count;
+	private final double mean;
+	private final long max;
+	private final long p50;
+	private final long p99;
+	private final long p999;
+
+	public HistogramSnapshot(long count, double mean, long max, long p50, long p99, long p999) {
+		this.count = count;
+		this.mean = mean;
+		this.max = max;
+		this.p50 = p50;
+		this.p99 = p99;
+		this.p999 = p999;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public long getP50() {
+		return p50;
+	}
+
+	public long getP99() {
+		return p99;
+	}
+
+	public long getP999() {
+		return p999;
+	}
+
+	@Override
+	public String toString() {
+		return "[count=" + count + ", mean=" + String.format("%.1f", mean) + ", p50=" + p50 + ", p99=" + p99
+				+ ", p999=" + p999 + ", max=" + max + "]";
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.metrics;
+
+import edu.nupt.loadbalancing.beans.SearchContext;
+
+/**
+ * @Project: loadbalancing
+ * @Description: The service exported by the load balancer to observe how the
+ *               route computation behaves. The routing component reports into
+ *               it, and any other bundle can read a
+ *               {@link RoutingMetricsSnapshot} or switch the recording on and
+ *               off at run time. While the registry is disabled the routing
+ *               component skips all timing calls, so the remaining cost is a
+ *               volatile read per query.
+ */
+public interface IRoutingMetrics {
+
+	/**
+	 * Tells whether the registry records anything at all.
+	 *
+	 * @return TRUE if metrics are recorded
+	 */
+	public boolean isEnabled();
+
+	/**
+	 * Switches the recording on or off. Switching off keeps the values
+	 * recorded so far.
+	 *
+	 * @param enabled
+	 *            TRUE to record metrics
+	 */
+	public void setEnabled(boolean enabled);
+
+	/**
+	 * Records one completed <code>getRoute</code> query.
+	 *
+	 * @param bandwidth
+	 *            the bandwidth the route was requested for
+	 * @param elapsedNanos
+	 *            the latency of the query
+	 * @param context
+	 *            the search work counted during the query
+	 */
+	public void recordRoute(Short bandwidth, long elapsedNanos, SearchContext context);
+
+	/**
+	 * Records one asynchronous route request which joined a computation
+	 * already in flight for the same request instead of starting its own.
+	 */
+	public void recordCoalescedRoute();
+
+	/**
+	 * Records one completed statistics sampling round.
+	 *
+	 * @param elapsedNanos
+	 *            the duration of the round
+	 */
+	public void recordSamplingRound(long elapsedNanos);
+
+	/**
+	 * Records topology updates received from the topology manager.
+	 *
+	 * @param updates
+	 *            the number of edge updates
+	 */
+	public void recordTopologyUpdates(int updates);
+
+	/**
+	 * Records topology updates which were cancelled by a later update of the
+	 * same edge, or held back because the edge flaps.
+	 *
+	 * @param updates
+	 *            the number of edge updates
+	 */
+	public void recordSuppressedTopologyUpdates(int updates);
+
+	/**
+	 * Takes a point-in-time copy of all metrics.
+	 *
+	 * @return the current values
+	 */
+	public RoutingMetricsSnapshot getSnapshot();
+
+	/**
+	 * Clears all recorded values.
+	 */
+	public void reset();
+}
@@ -0,0 +1,101 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Project: loadbalancing
+ * @Description: Measures the rate of events as an exponentially weighted
+ *               moving average over about one minute. Events are only counted
+ *               when they are marked, and the average is brought up to date
+ *               lazily in steps of {@link #TICK_INTERVAL} on the next mark or
+ *               read, so there is no timer thread behind it.
+ */
+public class RateMeter {
+	private static final long TICK_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+	private static final double ALPHA = 1 - Math.exp(-5D / 60D);
+
+	private final AtomicLong count;
+	private final AtomicLong uncounted;
+	private final AtomicLong lastTick;
+	private volatile double rate;
+	private volatile boolean initialized;
+
+	public RateMeter() {
+		this.count = new AtomicLong();
+		this.uncounted = new AtomicLong();
+		this.lastTick = new AtomicLong(System.nanoTime());
+	}
+
+	/**
+	 * Marks the occurrence of <code>n</code> events.
+	 *
+	 * @param n
+	 *            the number of events
+	 */
+	public void mark(long n) {
+		tickIfNecessary();
+		this.count.addAndGet(n);
+		this.uncounted.addAndGet(n);
+	}
+
+	/**
+	 * Gets the total number of marked events.
+	 *
+	 * @return the number of events since creation or the last reset
+	 */
+	public long getCount() {
+		return this.count.get();
+	}
+
+	/**
+	 * Gets the one-minute moving average rate.
+	 *
+	 * @return events per second
+	 */
+	public double getOneMinuteRate() {
+		tickIfNecessary();
+		return this.rate;
+	}
+
+	public void reset() {
+		this.count.set(0);
+		this.uncounted.set(0);
+		this.lastTick.set(System.nanoTime());
+		this.rate = 0D;
+		this.initialized = false;
+	}
+
+	private void tickIfNecessary() {
+		long old = this.lastTick.get();
+		long now = System.nanoTime();
+		long age = now - old;
+		if (age < TICK_INTERVAL) {
+			return;
+		}
+		long newTick = now - age % TICK_INTERVAL;
+		if (!this.lastTick.compareAndSet(old, newTick)) {
+			// another thread is ticking
+			return;
+		}
+		long ticks = age / TICK_INTERVAL;
+		for (long i = 0; i < ticks; i++) {
+			tick();
+		}
+	}
+
+	private void tick() {
+		long events = this.uncounted.getAndSet(0);
+		double instantRate = events / (double) TimeUnit.NANOSECONDS.toSeconds(TICK_INTERVAL);
+		if (this.initialized) {
+			this.rate += ALPHA * (instantRate - this.rate);
+		} else {
+			this.rate = instantRate;
+			this.initialized = true;
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.nupt.loadbalancing.beans.SearchContext;
+
+/**
+ * @Project: loadbalancing
+ * @Description: The default implementation of {@link IRoutingMetrics}, which
+ *               is registered with the OSGi framework by
+ *               {@link edu.nupt.loadbalancing.Activator}. Whether it starts
+ *               enabled is read from the system property
+ *               <tt>loadbalancing.metrics.enabled</tt> (TRUE by default).
+ */
+public class RoutingMetrics implements IRoutingMetrics {
+	private static Logger log = LoggerFactory.getLogger(RoutingMetrics.class);
+	private volatile boolean enabled;
+	private final ConcurrentMap<Short, Histogram> routeLatency;
+	private final AtomicLong routeQueries;
+	private final AtomicLong yenIterations;
+	private final AtomicLong spurSearches;
+	private final AtomicLong truncatedQueries;
+	private final AtomicLong coalescedQueries;
+	private final AtomicLong reusedTrees;
+	private final Histogram settledVertices;
+	private final Histogram edgeRelaxations;
+	private final Histogram candidateSetSize;
+	private final Histogram samplingRoundDuration;
+	private final RateMeter topologyUpdates;
+	private final AtomicLong suppressedTopologyUpdates;
+
+	public RoutingMetrics() {
+		this.enabled = Boolean.parseBoolean(System.getProperty("loadbalancing.metrics.enabled", "true"));
+		this.routeLatency = new ConcurrentHashMap<Short, Histogram>();
+		this.routeQueries = new AtomicLong();
+		this.yenIterations = new AtomicLong();
+		this.spurSearches = new AtomicLong();
+		this.truncatedQueries = new AtomicLong();
+		this.coalescedQueries = new AtomicLong();
+		this.reusedTrees = new AtomicLong();
+		this.settledVertices = new Histogram();
+		this.edgeRelaxations = new Histogram();
+		this.candidateSetSize = new Histogram();
+		this.samplingRoundDuration = new Histogram();
+		this.topologyUpdates = new RateMeter();
+		this.suppressedTopologyUpdates = new AtomicLong();
+	}
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		log.info("Routing metrics {}", enabled ? "enabled" : "disabled");
+		this.enabled = enabled;
+	}
+
+	public void recordRoute(Short bandwidth, long elapsedNanos, SearchContext context) {
+		if (!this.enabled) {
+			return;
+		}
+		Histogram latency = this.routeLatency.get(bandwidth);
+		if (latency == null) {
+			this.routeLatency.putIfAbsent(bandwidth, new Histogram());
+			latency = this.routeLatency.get(bandwidth);
+		}
+		latency.record(elapsedNanos);
+		this.routeQueries.incrementAndGet();
+		if (context != null) {
+			this.yenIterations.addAndGet(context.getYenIterations());
+			this.spurSearches.addAndGet(context.getSpurSearches());
+			this.reusedTrees.addAndGet(context.getReusedTrees());
+			this.settledVertices.record(context.getSettledVertices());
+			this.edgeRelaxations.record(context.getEdgeRelaxations());
+			this.candidateSetSize.record(context.getMaxCandidateSize());
+			if (context.isTruncated()) {
+				this.truncatedQueries.incrementAndGet();
+			}
+		}
+	}
+
+	public void recordCoalescedRoute() {
+		if (this.enabled) {
+			this.coalescedQueries.incrementAndGet();
+		}
+	}
+
+	public void recordSamplingRound(long elapsedNanos) {
+		if (this.enabled) {
+			this.samplingRoundDuration.record(elapsedNanos);
+		}
+	}
+
+	public void recordTopologyUpdates(int updates) {
+		if (this.enabled) {
+			this.topologyUpdates.mark(updates);
+		}
+	}
+
+	public void recordSuppressedTopologyUpdates(int updates) {
+		if (this.enabled) {
+			this.suppressedTopologyUpdates.addAndGet(updates);
+		}
+	}
+
+	public RoutingMetricsSnapshot getSnapshot() {
+		Map<Short, HistogramSnapshot> latencies = new HashMap<Short, HistogramSnapshot>();
+		for (Entry<Short, Histogram> entry : this.routeLatency.entrySet()) {
+			latencies.put(entry.getKey(), entry.getValue().snapshot());
+		}
+		return new RoutingMetricsSnapshot(latencies, this.routeQueries.get(), this.yenIterations.get(),
+				this.spurSearches.get(), this.truncatedQueries.get(), this.coalescedQueries.get(),
+				this.reusedTrees.get(), this.settledVertices.snapshot(), this.edgeRelaxations.snapshot(),
+				this.candidateSetSize.snapshot(), this.samplingRoundDuration.snapshot(),
+				this.topologyUpdates.getCount(), this.topologyUpdates.getOneMinuteRate(),
+				this.suppressedTopologyUpdates.get());
+	}
+
+	public void reset() {
+		this.routeLatency.clear();
+		this.routeQueries.set(0);
+		this.yenIterations.set(0);
+		this.spurSearches.set(0);
+		this.truncatedQueries.set(0);
+		this.coalescedQueries.set(0);
+		this.reusedTrees.set(0);
+		this.settledVertices.reset();
+		this.edgeRelaxations.reset();
+		this.candidateSetSize.reset();
+		this.samplingRoundDuration.reset();
+		this.topologyUpdates.reset();
+		this.suppressedTopologyUpdates.set(0);
+	}
+
+}
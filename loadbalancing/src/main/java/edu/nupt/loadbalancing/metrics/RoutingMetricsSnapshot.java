@@ -0,0 +1,166 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.metrics;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * @Project: loadbalancing
+ * @Description: An immutable copy of everything held by
+ *               {@link RoutingMetrics}. Latencies and durations are in
+ *               nanoseconds, the per-query histograms count vertices, edges
+ *               and paths.
+ */
+public class RoutingMetricsSnapshot implements Serializable {
+	private static final long serialVersionUID = -1802342911270930571L;
+	private final Map<Short, HistogramSnapshot> routeLatency;
+	private final long routeQueries;
+	private final long yenIterations;
+	private final long spurSearches;
+	private final long truncatedQueries;
+	private final long coalescedQueries;
+	private final long reusedTrees;
+	private final HistogramSnapshot settledVertices;
+	private final HistogramSnapshot edgeRelaxations;
+	private final HistogramSnapshot candidateSetSize;
+	private final HistogramSnapshot samplingRoundDuration;
+	private final long topologyUpdates;
+	private final double topologyUpdateRate;
+	private final long suppressedTopologyUpdates;
+
+	public RoutingMetricsSnapshot(Map<Short, HistogramSnapshot> routeLatency, long routeQueries, long yenIterations,
+			long spurSearches, long truncatedQueries, long coalescedQueries, long reusedTrees,
+			HistogramSnapshot settledVertices, HistogramSnapshot edgeRelaxations, HistogramSnapshot candidateSetSize,
+			HistogramSnapshot samplingRoundDuration, long topologyUpdates, double topologyUpdateRate,
+			long suppressedTopologyUpdates) {
+		this.routeLatency = Collections.unmodifiableMap(routeLatency);
+		this.routeQueries = routeQueries;
+		this.yenIterations = yenIterations;
+		this.spurSearches = spurSearches;
+		this.truncatedQueries = truncatedQueries;
+		this.coalescedQueries = coalescedQueries;
+		this.reusedTrees = reusedTrees;
+		this.settledVertices = settledVertices;
+		this.edgeRelaxations = edgeRelaxations;
+		this.candidateSetSize = candidateSetSize;
+		this.samplingRoundDuration = samplingRoundDuration;
+		this.topologyUpdates = topologyUpdates;
+		this.topologyUpdateRate = topologyUpdateRate;
+		this.suppressedTopologyUpdates = suppressedTopologyUpdates;
+	}
+
+	/**
+	 * Gets the <code>getRoute</code> latency histograms keyed by the requested
+	 * bandwidth.
+	 */
+	public Map<Short, HistogramSnapshot> getRouteLatency() {
+		return routeLatency;
+	}
+
+	public long getRouteQueries() {
+		return routeQueries;
+	}
+
+	public long getYenIterations() {
+		return yenIterations;
+	}
+
+	public long getSpurSearches() {
+		return spurSearches;
+	}
+
+	/**
+	 * Gets the number of queries which hit their deadline or were cancelled
+	 * before the search finished.
+	 */
+	public long getTruncatedQueries() {
+		return truncatedQueries;
+	}
+
+	/**
+	 * Gets the number of asynchronous requests which shared the computation
+	 * of an identical request in flight.
+	 */
+	public long getCoalescedQueries() {
+		return coalescedQueries;
+	}
+
+	/**
+	 * Gets the number of searches which continued a cached shortest-path tree
+	 * instead of starting from scratch.
+	 */
+	public long getReusedTrees() {
+		return reusedTrees;
+	}
+
+	/**
+	 * Gets the distribution of settled vertices per query.
+	 */
+	public HistogramSnapshot getSettledVertices() {
+		return settledVertices;
+	}
+
+	/**
+	 * Gets the distribution of edge relaxations per query.
+	 */
+	public HistogramSnapshot getEdgeRelaxations() {
+		return edgeRelaxations;
+	}
+
+	/**
+	 * Gets the distribution of the largest candidate set seen per query.
+	 */
+	public HistogramSnapshot getCandidateSetSize() {
+		return candidateSetSize;
+	}
+
+	public HistogramSnapshot getSamplingRoundDuration() {
+		return samplingRoundDuration;
+	}
+
+	public long getTopologyUpdates() {
+		return topologyUpdates;
+	}
+
+	/**
+	 * Gets the one-minute moving average of topology updates per second.
+	 */
+	public double getTopologyUpdateRate() {
+		return topologyUpdateRate;
+	}
+
+	/**
+	 * Gets the number of topology updates which never reached the graphs,
+	 * being cancelled by a later update of the same edge or damped.
+	 */
+	public long getSuppressedTopologyUpdates() {
+		return suppressedTopologyUpdates;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Entry<Short, HistogramSnapshot> entry : this.routeLatency.entrySet()) {
+			sb.append("routeLatency[bw=").append(entry.getKey()).append("]=").append(entry.getValue()).append("\n");
+		}
+		sb.append("routeQueries=").append(routeQueries).append("\n");
+		sb.append("yenIterations=").append(yenIterations).append("\n");
+		sb.append("spurSearches=").append(spurSearches).append("\n");
+		sb.append("truncatedQueries=").append(truncatedQueries).append("\n");
+		sb.append("coalescedQueries=").append(coalescedQueries).append("\n");
+		sb.append("reusedTrees=").append(reusedTrees).append("\n");
+		sb.append("settledVertices=").append(settledVertices).append("\n");
+		sb.append("edgeRelaxations=").append(edgeRelaxations).append("\n");
+		sb.append("candidateSetSize=").append(candidateSetSize).append("\n");
+		sb.append("samplingRoundDuration=").append(samplingRoundDuration).append("\n");
+		sb.append("topologyUpdates=").append(topologyUpdates).append("\n");
+		sb.append("topologyUpdateRate=").append(String.format("%.3f", topologyUpdateRate)).append("\n");
+		sb.append("suppressedTopologyUpdates=").append(suppressedTopologyUpdates);
+		return sb.toString();
+	}
+
+}
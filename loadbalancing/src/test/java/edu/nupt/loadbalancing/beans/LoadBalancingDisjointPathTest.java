@@ -0,0 +1,89 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.beans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.utils.NodeConnectorCreator;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+import edu.nupt.loadbalancing.beans.LoadBalancingDisjointPath.Disjointness;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.SparseMultigraph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class LoadBalancingDisjointPathTest {
+	private final Graph<Node, Edge> g = new SparseMultigraph<Node, Edge>();
+	private short port = 1;
+
+	private Node node(long id) {
+		return NodeCreator.createOFNode(id);
+	}
+
+	private void link(Node tail, Node head) throws ConstructionException {
+		Edge edge = new Edge(NodeConnectorCreator.createOFNodeConnector(this.port++, tail),
+				NodeConnectorCreator.createOFNodeConnector(this.port++, head));
+		this.g.addEdge(edge, tail, head, EdgeType.DIRECTED);
+	}
+
+	@Test
+	public void testTrapTopology() throws ConstructionException {
+		// the shortest path 1-2-3-4 blocks every second path which avoids
+		// its edges, but 1-2-5-6-4 and 1-7-8-3-4 are disjoint
+		Node s = node(1), a = node(2), b = node(3), t = node(4);
+		link(s, a);
+		link(a, b);
+		link(b, t);
+		link(a, node(5));
+		link(node(5), node(6));
+		link(node(6), t);
+		link(s, node(7));
+		link(node(7), node(8));
+		link(node(8), b);
+
+		LoadBalancingDisjointPath<Node, Edge> dp = new LoadBalancingDisjointPath<Node, Edge>(this.g, 3);
+		List<NuptPath> paths = dp.getPath(s, t, Disjointness.EDGE);
+		assertEquals(2, paths.size());
+		Set<Edge> used = new HashSet<Edge>();
+		for (NuptPath path : paths) {
+			assertEquals(s, path.firstNode());
+			assertEquals(t, path.lastNode());
+			assertEquals(4, path.size());
+			for (Edge edge : path.getEdges()) {
+				assertTrue("edge used twice: " + edge, used.add(edge));
+			}
+		}
+		assertEquals(2, dp.getPath(s, t, Disjointness.NODE).size());
+	}
+
+	@Test
+	public void testNodeDisjointness() throws ConstructionException {
+		// two parallel links on either side of switch 2
+		Node s = node(1), m = node(2), t = node(3);
+		link(s, m);
+		link(s, m);
+		link(m, t);
+		link(m, t);
+
+		LoadBalancingDisjointPath<Node, Edge> dp = new LoadBalancingDisjointPath<Node, Edge>(this.g, 3);
+		assertEquals(2, dp.getPath(s, t, Disjointness.EDGE).size());
+		assertEquals(1, dp.getPath(s, t, Disjointness.NODE).size());
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.beans;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.collections15.Transformer;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.utils.NodeConnectorCreator;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.SparseMultigraph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class LoadBalancingDistanceTest {
+	private final Graph<Node, Edge> g = new SparseMultigraph<Node, Edge>();
+	private final Map<Edge, Double> weights = new HashMap<Edge, Double>();
+	private short port = 1;
+	private Node s, t;
+
+	private void link(Node tail, Node head, double weight) throws ConstructionException {
+		Edge edge = new Edge(NodeConnectorCreator.createOFNodeConnector(this.port++, tail),
+				NodeConnectorCreator.createOFNodeConnector(this.port++, head));
+		this.g.addEdge(edge, tail, head, EdgeType.DIRECTED);
+		this.weights.put(edge, Double.valueOf(weight));
+	}
+
+	/**
+	 * Two ways from s to t: s-a-t is shorter in sum, s-b-t has the smaller
+	 * largest weight.
+	 */
+	@Before
+	public void setUp() throws ConstructionException {
+		this.s = NodeCreator.createOFNode(1L);
+		Node a = NodeCreator.createOFNode(2L);
+		Node b = NodeCreator.createOFNode(3L);
+		this.t = NodeCreator.createOFNode(4L);
+		link(this.s, a, 1);
+		link(a, this.t, 6);
+		link(this.s, b, 4);
+		link(b, this.t, 4);
+	}
+
+	private LoadBalancingDistance<Node, Edge> distance() {
+		LoadBalancingDistance<Node, Edge> distance = new LoadBalancingShortestPath<Node, Edge>(this.g, 2);
+		distance.transformer = new Transformer<Edge, Number>() {
+			public Number transform(Edge edge) {
+				return weights.get(edge);
+			}
+		};
+		return distance;
+	}
+
+	private double distanceTo(LoadBalancingDistance<Node, Edge> distance, boolean regular) {
+		return distance.singleSourceShortestPath(this.s, Collections.singleton(this.t), Integer.MAX_VALUE, regular)
+				.get(this.t).doubleValue();
+	}
+
+	@Test
+	public void testModesDoNotShareTrees() {
+		assertEquals(7D, distanceTo(distance(), true), 0D);
+		assertEquals(4D, distanceTo(distance(), false), 0D);
+
+		LoadBalancingDistance<Node, Edge> distance = distance();
+		assertEquals(7D, distanceTo(distance, true), 0D);
+		assertEquals(4D, distanceTo(distance, false), 0D);
+		assertEquals(7D, distanceTo(distance, true), 0D);
+
+		distance = distance();
+		assertEquals(4D, distanceTo(distance, false), 0D);
+		assertEquals(7D, distanceTo(distance, true), 0D);
+		assertEquals(4D, distanceTo(distance, false), 0D);
+		// only the sums are cached
+		assertEquals(1, distance.getCachedSourceCount());
+	}
+
+}
@@ -0,0 +1,232 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.beans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.collections15.Transformer;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.utils.NodeConnectorCreator;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.SparseMultigraph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class LoadBalancingShortestPathTest {
+	private static final int SIDE = 3;
+	private final Graph<Node, Edge> g = new SparseMultigraph<Node, Edge>();
+	private final Map<Edge, Integer> weights = new HashMap<Edge, Integer>();
+	private short port = 1;
+
+	private Node node(long id) {
+		return NodeCreator.createOFNode(id);
+	}
+
+	/**
+	 * Adds a link weighing twice the link added before it, so that no two
+	 * paths weigh the same and the order of the K shortest paths is unique.
+	 */
+	private Edge link(Node tail, Node head) throws ConstructionException {
+		Edge edge = new Edge(NodeConnectorCreator.createOFNodeConnector(this.port++, tail),
+				NodeConnectorCreator.createOFNodeConnector(this.port++, head));
+		this.g.addEdge(edge, tail, head, EdgeType.DIRECTED);
+		this.weights.put(edge, Integer.valueOf(1 << this.weights.size()));
+		return edge;
+	}
+
+	/**
+	 * A grid with links both ways between neighbours, in a scrambled order of
+	 * weights.
+	 */
+	private Node[][] grid() throws ConstructionException {
+		Node[][] grid = new Node[SIDE][SIDE];
+		for (int i = 0; i < SIDE; i++) {
+			for (int j = 0; j < SIDE; j++) {
+				grid[i][j] = node(i * SIDE + j + 1);
+			}
+		}
+		for (int i = SIDE - 1; i >= 0; i--) {
+			for (int j = 0; j < SIDE; j++) {
+				if (i + 1 < SIDE) {
+					link(grid[i + 1][j], grid[i][j]);
+					link(grid[i][j], grid[i + 1][j]);
+				}
+				if (j + 1 < SIDE) {
+					link(grid[i][j], grid[i][j + 1]);
+					link(grid[i][j + 1], grid[i][j]);
+				}
+			}
+		}
+		return grid;
+	}
+
+	private LoadBalancingShortestPath<Node, Edge> spt(int k, boolean weighted) {
+		LoadBalancingShortestPath<Node, Edge> spt = new LoadBalancingShortestPath<Node, Edge>(this.g, k);
+		if (weighted) {
+			spt.transformer = new Transformer<Edge, Number>() {
+				public Number transform(Edge edge) {
+					return weights.get(edge);
+				}
+			};
+		}
+		return spt;
+	}
+
+	/**
+	 * All the loopless paths from <code>source</code> to <code>target</code>,
+	 * by a depth-first walk.
+	 */
+	private void allPaths(Node node, Node target, LinkedList<Edge> path, Set<Node> visited, List<List<Edge>> out) {
+		if (node.equals(target)) {
+			out.add(new ArrayList<Edge>(path));
+			return;
+		}
+		visited.add(node);
+		for (Edge edge : this.g.getOutEdges(node)) {
+			Node next = this.g.getOpposite(node, edge);
+			if (!visited.contains(next)) {
+				path.addLast(edge);
+				allPaths(next, target, path, visited, out);
+				path.removeLast();
+			}
+		}
+		visited.remove(node);
+	}
+
+	private int weight(List<Edge> path) {
+		int weight = 0;
+		for (Edge edge : path) {
+			weight += this.weights.get(edge).intValue();
+		}
+		return weight;
+	}
+
+	private List<List<Edge>> bruteForce(Node source, Node target, int k) {
+		List<List<Edge>> paths = new ArrayList<List<Edge>>();
+		allPaths(source, target, new LinkedList<Edge>(), new HashSet<Node>(), paths);
+		Collections.sort(paths, new Comparator<List<Edge>>() {
+			public int compare(List<Edge> a, List<Edge> b) {
+				return Integer.valueOf(weight(a)).compareTo(Integer.valueOf(weight(b)));
+			}
+		});
+		return paths.subList(0, Math.min(k, paths.size()));
+	}
+
+	private static List<List<Edge>> edges(List<NuptPath> paths) {
+		List<List<Edge>> edges = new ArrayList<List<Edge>>();
+		for (NuptPath path : paths) {
+			edges.add(path.getEdges());
+		}
+		return edges;
+	}
+
+	@Test
+	public void testSameAsBruteForce() throws ConstructionException {
+		Node[][] grid = grid();
+		Node source = grid[0][0], target = grid[SIDE - 1][SIDE - 1];
+		for (int k : new int[] { 1, 5, 8, 50 }) {
+			List<List<Edge>> expected = bruteForce(source, target, k);
+			LoadBalancingShortestPath<Node, Edge> spt = spt(k, true);
+			assertEquals("K=" + k, expected, edges(spt.getPath(source, target)));
+			spt.setDeviationIndexed(false);
+			assertEquals("K=" + k + " without deviation index", expected, edges(spt.getPath(source, target)));
+		}
+		// from the middle, where paths go back and forth
+		List<List<Edge>> expected = bruteForce(grid[1][1], grid[0][2], 50);
+		assertEquals(expected, edges(spt(50, true).getPath(grid[1][1], grid[0][2])));
+	}
+
+	@Test
+	public void testParallelLinksAreNotDuplicated() throws ConstructionException {
+		// two links on either side of m, and a longer way round through n
+		Node s = node(1), m = node(2), n = node(3), t = node(4);
+		link(s, m);
+		link(s, m);
+		link(m, t);
+		link(m, t);
+		link(s, n);
+		link(n, m);
+		List<List<Edge>> expected = bruteForce(s, t, 20);
+		assertEquals(6, expected.size());
+		for (boolean weighted : new boolean[] { true, false }) {
+			List<NuptPath> paths = spt(20, weighted).getPath(s, t);
+			assertEquals(6, paths.size());
+			Set<List<Edge>> distinct = new HashSet<List<Edge>>(edges(paths));
+			assertEquals(6, distinct.size());
+			assertEquals(new HashSet<List<Edge>>(expected), distinct);
+		}
+		assertEquals(expected, edges(spt(20, true).getPath(s, t)));
+		// the same number of hops all the way
+		List<NuptPath> paths = spt(20, false).getPath(s, t);
+		for (int i = 1; i < paths.size(); i++) {
+			assertTrue(paths.get(i - 1).size() <= paths.get(i).size());
+		}
+	}
+
+	@Test
+	public void testPathsAreComputedOnDemand() throws ConstructionException {
+		Node[][] grid = grid();
+		Node source = grid[0][0], target = grid[SIDE - 1][SIDE - 1];
+		SearchContext context = new SearchContext();
+		Iterator<NuptPath> paths = spt(8, true).iterator(source, target, context);
+		assertTrue(paths.hasNext());
+		assertEquals(bruteForce(source, target, 1).get(0), paths.next().getEdges());
+		// the first path is a single Dijkstra run
+		assertEquals(0, context.getYenIterations());
+		assertEquals(0, context.getSpurSearches());
+		paths.hasNext();
+		assertEquals(1, context.getYenIterations());
+	}
+
+	@Test
+	public void testExpiredContextTruncatesCleanly() throws ConstructionException {
+		Node[][] grid = grid();
+		Node source = grid[0][0], target = grid[SIDE - 1][SIDE - 1];
+		LoadBalancingShortestPath<Node, Edge> spt = spt(8, true);
+
+		SearchContext context = new SearchContext();
+		context.setDeadline(System.nanoTime());
+		assertTrue(spt.getPath(source, target, context).isEmpty());
+		assertTrue(context.isTruncated());
+
+		// stopped between two paths, the paths found so far are kept
+		context = new SearchContext();
+		Iterator<NuptPath> paths = spt.iterator(source, target, context);
+		List<Edge> first = paths.next().getEdges();
+		assertEquals(bruteForce(source, target, 2).get(1), paths.next().getEdges());
+		context.cancel();
+		assertFalse(paths.hasNext());
+		assertFalse(paths.hasNext());
+		assertTrue(context.isTruncated());
+
+		// the truncated query left nothing behind for the next one
+		List<List<Edge>> expected = bruteForce(source, target, 8);
+		assertEquals(first, expected.get(0));
+		assertEquals(expected, edges(spt.getPath(source, target)));
+	}
+
+}
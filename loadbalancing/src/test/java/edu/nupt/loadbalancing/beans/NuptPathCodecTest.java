@@ -0,0 +1,141 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.beans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.utils.NodeConnectorCreator;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class NuptPathCodecTest {
+	private static final int SWITCHES = 300;
+	private final List<Edge> edges = new ArrayList<Edge>();
+	private final List<NuptPath> paths = new ArrayList<NuptPath>();
+
+	private Edge link(long tail, long head) throws ConstructionException {
+		Node t = NodeCreator.createOFNode(tail);
+		Node h = NodeCreator.createOFNode(head);
+		// the ports are numbered after the switch at the other end
+		return new Edge(NodeConnectorCreator.createOFNodeConnector((short) head, t),
+				NodeConnectorCreator.createOFNodeConnector((short) tail, h));
+	}
+
+	@Before
+	public void setUp() throws ConstructionException {
+		// a ring in both directions, enough edges for two-byte numbers
+		for (long i = 1; i <= SWITCHES; i++) {
+			long next = i % SWITCHES + 1;
+			this.edges.add(link(i, next));
+			this.edges.add(link(next, i));
+		}
+		this.paths.add(new NuptPath());
+		for (int start = 1; start <= SWITCHES; start += 7) {
+			List<Edge> hops = new ArrayList<Edge>();
+			long at = start;
+			for (int i = 0; i < 1 + start % 12; i++) {
+				long next = at % SWITCHES + 1;
+				hops.add(link(at, next));
+				at = next;
+			}
+			this.paths.add(new NuptPath(hops));
+		}
+	}
+
+	@Test
+	public void testRoundTripThroughSmallBuffer() {
+		NuptPathCodec codec = new NuptPathCodec(new TopologyDictionary(this.edges));
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		codec.writeHeader(buffer);
+		buffer.flip();
+		codec.readHeader(buffer);
+		buffer.clear();
+
+		// stream the table through a buffer which holds a few paths only
+		List<NuptPath> decoded = new ArrayList<NuptPath>();
+		int next = 0;
+		while (next < this.paths.size()) {
+			while (next < this.paths.size() && codec.encode(this.paths.get(next), buffer)) {
+				next++;
+			}
+			assertTrue("a path is larger than the buffer", buffer.position() > 0);
+			buffer.flip();
+			NuptPath path;
+			while ((path = codec.decode(buffer)) != null) {
+				decoded.add(path);
+			}
+			buffer.compact();
+		}
+		buffer.flip();
+		assertNull(codec.decode(buffer));
+		assertEquals(this.paths, decoded);
+	}
+
+	@Test
+	public void testDictionaryIsIndependentOfOrder() {
+		TopologyDictionary dictionary = new TopologyDictionary(this.edges);
+		List<Edge> shuffled = new ArrayList<Edge>(this.edges);
+		Collections.reverse(shuffled);
+		TopologyDictionary same = new TopologyDictionary(shuffled);
+		assertEquals(dictionary.getVersion(), same.getVersion());
+		for (Edge edge : this.edges) {
+			assertEquals(dictionary.idOf(edge), same.idOf(edge));
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+		dictionary.writeTo(buffer);
+		buffer.flip();
+		TopologyDictionary read = TopologyDictionary.readFrom(buffer);
+		assertEquals(dictionary.getVersion(), read.getVersion());
+		assertEquals(dictionary.size(), read.size());
+
+		// a table written against another topology is refused
+		TopologyDictionary other = new TopologyDictionary(this.edges.subList(1, this.edges.size()));
+		assertFalse(dictionary.getVersion() == other.getVersion());
+		buffer.clear();
+		new NuptPathCodec(dictionary).writeHeader(buffer);
+		buffer.flip();
+		try {
+			new NuptPathCodec(other).readHeader(buffer);
+			fail("the header of another topology was accepted");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testSmallerThanSerialization() throws Exception {
+		NuptPathCodec codec = new NuptPathCodec(new TopologyDictionary(this.edges));
+		NuptPath path = this.paths.get(this.paths.size() - 1);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(path);
+		out.close();
+		// one byte for the length, two for each edge number above 127
+		assertEquals(1 + 2 * path.size(), codec.encodedSize(path));
+		assertTrue(codec.encodedSize(path) * 10 < bytes.size());
+	}
+
+}
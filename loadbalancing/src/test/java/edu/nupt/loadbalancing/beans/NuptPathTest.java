@@ -0,0 +1,141 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.beans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.utils.NodeConnectorCreator;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class NuptPathTest {
+	private static final int HOPS = 6;
+	private final List<Edge> edges = new ArrayList<Edge>();
+	private final List<Node> nodes = new ArrayList<Node>();
+	private NuptPath path;
+
+	/**
+	 * A chain of HOPS links through the switches 1 to HOPS + 1.
+	 */
+	@Before
+	public void setUp() throws ConstructionException {
+		for (int i = 0; i <= HOPS; i++) {
+			this.nodes.add(NodeCreator.createOFNode(Long.valueOf(i + 1)));
+		}
+		for (int i = 0; i < HOPS; i++) {
+			this.edges.add(new Edge(NodeConnectorCreator.createOFNodeConnector((short) 2, this.nodes.get(i)),
+					NodeConnectorCreator.createOFNodeConnector((short) 1, this.nodes.get(i + 1))));
+		}
+		this.path = new NuptPath(this.edges);
+	}
+
+	private static byte[] serialize(Object object) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(object);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+		try {
+			return in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testSubPathsAreViews() {
+		NuptPath sub = this.path.getSubPathByNodeIndex(2, 5);
+		assertEquals(3, sub.size());
+		assertEquals(4, sub.nodeSize());
+		assertEquals(this.edges.subList(2, 5), sub.getEdges());
+		assertEquals(this.nodes.subList(2, 6), sub.getNodes());
+		assertEquals(this.nodes.get(2), sub.firstNode());
+		assertEquals(this.nodes.get(5), sub.lastNode());
+		assertEquals(this.edges.get(3), sub.getEdge(1));
+		assertNull(sub.getEdge(3));
+
+		// a view on a view starts from the view
+		NuptPath inner = sub.getSubPathByNodeIndex(1, 2);
+		assertEquals(this.edges.subList(3, 4), inner.getEdges());
+		assertEquals(0, sub.getSubPathByNodeIndex(1, 1).size());
+		assertNull(sub.getSubPathByNodeIndex(2, 1));
+		assertNull(sub.getSubPathByNodeIndex(0, 4));
+
+		// growing a view copies it, and leaves the parent alone
+		NuptPath longer = sub.append(this.edges.get(5));
+		assertEquals(this.edges.subList(2, 6), longer.getEdges());
+		assertEquals(this.edges, this.path.getEdges());
+		assertNull(sub.append(this.edges.get(0)));
+		assertEquals(this.path, this.path.getSubPathByNodeIndex(0, 2).concat(this.path.getSubPathByNodeIndex(2,
+				HOPS)));
+	}
+
+	@Test
+	public void testViewEqualsCopy() throws ConstructionException {
+		NuptPath view = this.path.getSubPathByNodeIndex(1, 4);
+		NuptPath copy = new NuptPath(new ArrayList<Edge>(this.edges.subList(1, 4)));
+		assertEquals(copy, view);
+		assertEquals(view, copy);
+		assertEquals(copy.hashCode(), view.hashCode());
+		assertEquals(this.edges.subList(1, 4).hashCode(), view.hashCode());
+		// once both hash codes are cached
+		assertEquals(copy, view);
+
+		Set<NuptPath> set = new HashSet<NuptPath>();
+		set.add(view);
+		assertTrue(set.contains(copy));
+		assertFalse(set.contains(this.path.getSubPathByNodeIndex(2, 5)));
+		assertFalse(view.equals(this.path.getSubPathByNodeIndex(1, 3)));
+		assertEquals(new NuptPath(view), copy);
+	}
+
+	@Test
+	public void testSerializationRoundTrip() throws Exception {
+		NuptPath whole = (NuptPath) deserialize(serialize(this.path));
+		assertEquals(this.path, whole);
+		assertEquals(this.path.hashCode(), whole.hashCode());
+		assertEquals(this.nodes, whole.getNodes());
+
+		NuptPath sub = this.path.getSubPathByNodeIndex(4, 6);
+		byte[] bytes = serialize(sub);
+		NuptPath view = (NuptPath) deserialize(bytes);
+		assertEquals(sub, view);
+		assertEquals(this.edges.subList(4, 6), view.getEdges());
+		assertEquals(this.nodes.get(4), view.firstNode());
+		// a view only writes its own edges
+		assertTrue(bytes.length < serialize(this.path).length);
+
+		NuptPath empty = (NuptPath) deserialize(serialize(new NuptPath()));
+		assertEquals(0, empty.size());
+		assertNull(empty.firstNode());
+	}
+
+}
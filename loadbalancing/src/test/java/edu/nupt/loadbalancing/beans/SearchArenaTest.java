@@ -0,0 +1,159 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.beans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.utils.NodeConnectorCreator;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.SparseMultigraph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class SearchArenaTest {
+	private static final int SIDE = 4;
+	private final Graph<Node, Edge> g = new SparseMultigraph<Node, Edge>();
+	private final Node[][] grid = new Node[SIDE][SIDE];
+	private short port = 1;
+	private LoadBalancingShortestPath<Node, Edge> spt;
+
+	private void link(Node tail, Node head) throws ConstructionException {
+		Edge edge = new Edge(NodeConnectorCreator.createOFNodeConnector(this.port++, tail),
+				NodeConnectorCreator.createOFNodeConnector(this.port++, head));
+		this.g.addEdge(edge, tail, head, EdgeType.DIRECTED);
+	}
+
+	/**
+	 * A grid with links both ways between neighbours, which has many paths of
+	 * equal length between its corners.
+	 */
+	@Before
+	public void setUp() throws ConstructionException {
+		for (int i = 0; i < SIDE; i++) {
+			for (int j = 0; j < SIDE; j++) {
+				this.grid[i][j] = NodeCreator.createOFNode(Long.valueOf(i * SIDE + j + 1));
+			}
+		}
+		for (int i = 0; i < SIDE; i++) {
+			for (int j = 0; j < SIDE; j++) {
+				if (i + 1 < SIDE) {
+					link(this.grid[i][j], this.grid[i + 1][j]);
+					link(this.grid[i + 1][j], this.grid[i][j]);
+				}
+				if (j + 1 < SIDE) {
+					link(this.grid[i][j], this.grid[i][j + 1]);
+					link(this.grid[i][j + 1], this.grid[i][j]);
+				}
+			}
+		}
+		this.spt = new LoadBalancingShortestPath<Node, Edge>(this.g, 8);
+	}
+
+	/**
+	 * Searches over the copy of the graph with the given exclusions.
+	 */
+	private NuptPath search(Node source, Node target, Set<Node> nodes, Set<Edge> edges)
+			throws ConstructionException {
+		IndexedGraph<Node, Edge> graph = this.spt.getIndexedGraph();
+		SearchArena arena = LoadBalancingDistance.getArena(graph);
+		arena.clearExcludedVertices();
+		for (Node node : nodes) {
+			arena.excludeVertex(graph.vertexId(node));
+		}
+		arena.clearExcludedEdges();
+		for (Edge edge : edges) {
+			arena.excludeEdge(graph.edgeId(edge));
+		}
+		int size = arena.search(graph, graph.vertexId(source), graph.vertexId(target), Double.POSITIVE_INFINITY,
+				Integer.MAX_VALUE, new SearchContext());
+		if (size < 0) {
+			return null;
+		}
+		Edge[] path = new Edge[size];
+		arena.copyPath(graph, graph.vertexId(target), path, size);
+		return NuptPath.wrap(path);
+	}
+
+	@Test
+	public void testSameSpurPathsAsTheGraphSearch() throws ConstructionException {
+		Node source = this.grid[0][0], target = this.grid[SIDE - 1][SIDE - 1];
+		NuptPath first = this.spt.getShortestPathByDijkstra(source, target);
+		Set<Node> nodes = new HashSet<Node>();
+		Set<Edge> edges = new HashSet<Edge>();
+		for (int i = 0; i < first.size(); i++) {
+			edges.add(first.getEdge(i));
+			assertEquals(this.spt.getShortestPathByDijkstra(first.getNode(i), target, nodes, edges,
+					new SearchContext()), search(first.getNode(i), target, nodes, edges));
+			nodes.add(first.getNode(i));
+		}
+		// the target cut off from the source
+		Set<Node> walls = new HashSet<Node>();
+		walls.add(this.grid[SIDE - 2][SIDE - 1]);
+		walls.add(this.grid[SIDE - 1][SIDE - 2]);
+		assertEquals(null, search(source, target, walls, Collections.<Edge> emptySet()));
+	}
+
+	@Test
+	public void testCopyFollowsTheGraph() throws ConstructionException {
+		IndexedGraph<Node, Edge> before = this.spt.getIndexedGraph();
+		assertSame(before, this.spt.getIndexedGraph());
+		Node source = this.grid[0][0], target = this.grid[SIDE - 1][SIDE - 1];
+		List<NuptPath> paths = this.spt.getPath(source, target);
+		assertEquals(8, paths.size());
+
+		// a longer way round through a new switch, found after a reset
+		Node extra = NodeCreator.createOFNode(Long.valueOf(100));
+		link(source, extra);
+		link(extra, target);
+		this.spt.reset();
+		assertNotSame(before, this.spt.getIndexedGraph());
+		paths = this.spt.getPath(source, target);
+		assertEquals(2, paths.get(0).size());
+		for (int i = 1; i < paths.size(); i++) {
+			assertEquals(6, paths.get(i).size());
+		}
+	}
+
+	@Test
+	public void testFreshArenaExcludesNothing() throws ConstructionException {
+		Node source = this.grid[0][0], target = this.grid[SIDE - 1][SIDE - 1];
+		IndexedGraph<Node, Edge> graph = this.spt.getIndexedGraph();
+		SearchArena arena = new SearchArena();
+		arena.prepare(graph);
+		assertEquals(2 * (SIDE - 1), arena.search(graph, graph.vertexId(source), graph.vertexId(target),
+				Double.POSITIVE_INFINITY, Integer.MAX_VALUE, new SearchContext()));
+
+		// an arena grown for a larger graph starts afresh as well
+		arena.clearExcludedVertices();
+		arena.excludeVertex(graph.vertexId(this.grid[0][1]));
+		Node extra = NodeCreator.createOFNode(Long.valueOf(100));
+		link(source, extra);
+		link(extra, target);
+		this.spt.reset();
+		graph = this.spt.getIndexedGraph();
+		arena.prepare(graph);
+		assertEquals(2, arena.search(graph, graph.vertexId(source), graph.vertexId(target),
+				Double.POSITIVE_INFINITY, Integer.MAX_VALUE, new SearchContext()));
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.Path;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class BulkRouteExecutorTest {
+	private BulkRouteExecutor executor;
+
+	@Before
+	public void setUp() {
+		this.executor = new BulkRouteExecutor(3);
+	}
+
+	@After
+	public void tearDown() {
+		this.executor.shutdown();
+	}
+
+	private static List<RouteRequest> requests(int sources, int destinations) {
+		List<RouteRequest> requests = new ArrayList<RouteRequest>();
+		for (int s = 1; s <= sources; s++) {
+			for (int d = 1; d <= destinations; d++) {
+				requests.add(new RouteRequest(NodeCreator.createOFNode(Long.valueOf(s)),
+						NodeCreator.createOFNode(Long.valueOf(1000 + d)), (short) 0));
+			}
+		}
+		return requests;
+	}
+
+	@Test
+	public void testEveryRouteIsDeliveredOnce() throws Exception {
+		final ConcurrentMap<Node, AtomicInteger> prepared = new ConcurrentHashMap<Node, AtomicInteger>();
+		List<RouteRequest> requests = requests(4, 50);
+		RouteBatch batch = this.executor.submit(requests, new BulkRouteExecutor.RouteComputation() {
+			public void prepare(Node src, Collection<Node> dsts, Short bw) {
+				Assert.assertEquals(50, dsts.size());
+				prepared.putIfAbsent(src, new AtomicInteger());
+				prepared.get(src).incrementAndGet();
+			}
+
+			public Path compute(Node src, Node dst, Short bw) {
+				return null;
+			}
+		});
+
+		Set<RouteRequest> delivered = new HashSet<RouteRequest>();
+		RouteBatch.Route route;
+		while ((route = batch.poll(5, TimeUnit.SECONDS)) != null) {
+			Assert.assertTrue(delivered.add(route.getRequest()));
+		}
+		Assert.assertEquals(new HashSet<RouteRequest>(requests), delivered);
+		Assert.assertTrue(batch.isDone());
+		// the search state of each source is prepared once for its group
+		Assert.assertEquals(4, prepared.size());
+		for (AtomicInteger count : prepared.values()) {
+			Assert.assertEquals(1, count.get());
+		}
+	}
+
+	@Test
+	public void testCancelledBatchEnds() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		RouteBatch batch = this.executor.submit(requests(2, 10), new BulkRouteExecutor.RouteComputation() {
+			public void prepare(Node src, Collection<Node> dsts, Short bw) {
+			}
+
+			public Path compute(Node src, Node dst, Short bw) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return null;
+			}
+		});
+		batch.cancel();
+		release.countDown();
+		Assert.assertNull(batch.take());
+		Assert.assertTrue(batch.isDone());
+	}
+
+	@Test
+	public void testNothingIsDeliveredAfterCancel() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch computed = new CountDownLatch(1);
+		RouteBatch batch = this.executor.submit(requests(1, 1), new BulkRouteExecutor.RouteComputation() {
+			public void prepare(Node src, Collection<Node> dsts, Short bw) {
+			}
+
+			public Path compute(Node src, Node dst, Short bw) {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				computed.countDown();
+				return null;
+			}
+		});
+		// the route is being computed when the batch is cancelled
+		Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+		batch.cancel();
+		release.countDown();
+		Assert.assertTrue(computed.await(5, TimeUnit.SECONDS));
+		Assert.assertNull(batch.poll(200, TimeUnit.MILLISECONDS));
+		Assert.assertNull(batch.take());
+
+		// a route completed before the cancel is dropped too
+		RouteRequest request = requests(1, 1).get(0);
+		batch = new RouteBatch(2);
+		Assert.assertTrue(batch.complete(request, null));
+		batch.cancel();
+		batch.cancel();
+		Assert.assertFalse(batch.complete(request, null));
+		Assert.assertNull(batch.take());
+		Assert.assertNull(batch.take());
+		Assert.assertTrue(batch.isDone());
+	}
+
+}
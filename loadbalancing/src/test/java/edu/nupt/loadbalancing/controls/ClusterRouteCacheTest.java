@@ -0,0 +1,124 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import static edu.nupt.loadbalancing.stubs.TopologyFixtures.link;
+import static edu.nupt.loadbalancing.stubs.TopologyFixtures.node;
+import static edu.nupt.loadbalancing.stubs.TopologyFixtures.port;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.clustering.services.IClusterContainerServices;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.core.Path;
+
+import edu.nupt.loadbalancing.stubs.InMemoryClusterServices;
+import edu.nupt.loadbalancing.stubs.LocalCluster;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class ClusterRouteCacheTest {
+	private LocalCluster cluster;
+	private InMemoryClusterServices first;
+	private InMemoryClusterServices second;
+
+	@Before
+	public void setUp() {
+		this.cluster = new LocalCluster();
+		this.first = this.cluster.join();
+		this.second = this.cluster.join();
+	}
+
+	private static ClusterRouteCache cache(InMemoryClusterServices member, long ttlMillis) {
+		return new ClusterRouteCache(member.as(IClusterContainerServices.class), ttlMillis);
+	}
+
+	@Test
+	public void testCoordinatorPublishesRoutes() throws Exception {
+		ClusterRouteCache coordinator = cache(this.first, 60000);
+		ClusterRouteCache member = cache(this.second, 60000);
+		Assert.assertTrue(coordinator.isPublisher());
+		Assert.assertFalse(member.isPublisher());
+
+		RouteRequest request = new RouteRequest(node(1), node(2),
+				(short) 0);
+		Path path = new Path(Arrays.asList(link(port(1, node(1)), port(1, node(2)))));
+		Assert.assertNull(member.getRoute(request));
+		coordinator.putRoute(request, path);
+		Assert.assertEquals(path, member.getRoute(request));
+		// an outdated route is not served
+		Assert.assertNull(cache(this.second, -1).getRoute(request));
+
+		// the next member becomes the coordinator when the first one leaves
+		this.cluster.leave(this.first);
+		Assert.assertTrue(member.isPublisher());
+	}
+
+	@Test
+	public void testChangedLinksWithdrawRoutes() throws Exception {
+		ClusterRouteCache coordinator = cache(this.first, 60000);
+		Edge changed = link(port(1, node(1)), port(1, node(2)));
+		RouteRequest crossing = new RouteRequest(node(1), node(3),
+				(short) 0);
+		coordinator.putRoute(crossing,
+				new Path(Arrays.asList(changed, link(port(2, node(2)), port(1, node(3))))));
+		RouteRequest other = new RouteRequest(node(2), node(3),
+				(short) 0);
+		Path kept = new Path(Arrays.asList(link(port(2, node(2)), port(1, node(3)))));
+		coordinator.putRoute(other, kept);
+
+		Assert.assertEquals(1, coordinator.invalidateRoutes(Arrays.asList(changed)));
+		Assert.assertNull(coordinator.getRoute(crossing));
+		Assert.assertEquals(kept, coordinator.getRoute(other));
+		// the withdrawn request is still refreshed
+		Assert.assertTrue(coordinator.getRequests().contains(crossing));
+		Assert.assertEquals(0, coordinator.invalidateRoutes(Arrays.asList(changed)));
+	}
+
+	@Test
+	public void testMembersReadPublishedUtilization() {
+		ClusterRouteCache coordinator = cache(this.first, 60000);
+		ClusterRouteCache member = cache(this.second, 60000);
+		Map<NodeConnector, long[]> statistics = new HashMap<NodeConnector, long[]>();
+		Assert.assertEquals(0, member.readUtilization(statistics));
+
+		Map<NodeConnector, long[]> sampled = new HashMap<NodeConnector, long[]>();
+		sampled.put(port(1, node(1)), new long[] { 10, 20, 30 });
+		sampled.put(port(1, node(2)), new long[] { 5, 5, 5 });
+		coordinator.publishUtilization(sampled);
+		Assert.assertEquals(2, member.readUtilization(statistics));
+		for (NodeConnector nc : sampled.keySet()) {
+			Assert.assertTrue(Arrays.equals(sampled.get(nc), statistics.get(nc)));
+		}
+
+		// a port evicted by the coordinator is dropped by the members
+		sampled.remove(port(1, node(2)));
+		coordinator.publishUtilization(sampled);
+		Assert.assertEquals(1, member.readUtilization(statistics));
+		Assert.assertEquals(sampled.keySet(), statistics.keySet());
+	}
+
+	@Test
+	public void testIdleRoutesAreEvicted() throws Exception {
+		ClusterRouteCache coordinator = cache(this.first, 60000);
+		RouteRequest request = new RouteRequest(node(1), node(2),
+				(short) 0);
+		coordinator.putRoute(request, new Path(Arrays.asList(link(port(1, node(1)), port(1, node(2))))));
+		Assert.assertEquals(0, coordinator.evictRoutes(60000));
+		Assert.assertEquals(1, coordinator.getRouteCount());
+		Assert.assertEquals(1, coordinator.evictRoutes(-1));
+		Assert.assertEquals(0, coordinator.getRouteCount());
+	}
+
+}
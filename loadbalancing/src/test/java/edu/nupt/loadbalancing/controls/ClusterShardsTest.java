@@ -0,0 +1,101 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.clustering.services.IClusterContainerServices;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+import edu.nupt.loadbalancing.stubs.InMemoryClusterServices;
+import edu.nupt.loadbalancing.stubs.LocalCluster;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class ClusterShardsTest {
+	private static final int SWITCHES = 3000;
+	private LocalCluster cluster;
+	private List<InMemoryClusterServices> members;
+	private List<ClusterShards> shards;
+	private List<Node> nodes;
+
+	@Before
+	public void setUp() {
+		this.cluster = new LocalCluster();
+		this.members = new ArrayList<InMemoryClusterServices>();
+		this.shards = new ArrayList<ClusterShards>();
+		for (int i = 0; i < 3; i++) {
+			InMemoryClusterServices member = this.cluster.join();
+			this.members.add(member);
+		}
+		for (InMemoryClusterServices member : this.members) {
+			this.shards.add(new ClusterShards(member.as(IClusterContainerServices.class)));
+		}
+		this.nodes = new ArrayList<Node>();
+		for (long i = 1; i <= SWITCHES; i++) {
+			this.nodes.add(NodeCreator.createOFNode(Long.valueOf(i)));
+		}
+	}
+
+	private Map<Node, InetAddress> owners(ClusterShards shards) {
+		Map<Node, InetAddress> owners = new HashMap<Node, InetAddress>();
+		for (Node node : this.nodes) {
+			owners.put(node, shards.ownerOf(node));
+		}
+		return owners;
+	}
+
+	@Test
+	public void testEverySwitchHasOneOwner() {
+		Map<Node, InetAddress> owners = owners(this.shards.get(0));
+		for (ClusterShards other : this.shards) {
+			Assert.assertEquals(owners, owners(other));
+		}
+		for (int i = 0; i < this.members.size(); i++) {
+			int owned = 0;
+			for (Node node : this.nodes) {
+				boolean mine = this.shards.get(i).owns(node);
+				Assert.assertEquals(this.members.get(i).getMyAddress().equals(owners.get(node)), mine);
+				owned += mine ? 1 : 0;
+			}
+			// each member gets roughly a third of the switches
+			Assert.assertTrue("member " + i + " owns " + owned, owned > SWITCHES / 5 && owned < SWITCHES / 2);
+		}
+	}
+
+	@Test
+	public void testOnlyTheSwitchesOfALeavingMemberMove() {
+		Map<Node, InetAddress> before = owners(this.shards.get(0));
+		InMemoryClusterServices leaving = this.members.get(1);
+		this.cluster.leave(leaving);
+		Assert.assertTrue(this.shards.get(0).refresh());
+		Assert.assertFalse(this.shards.get(0).refresh());
+		Map<Node, InetAddress> after = owners(this.shards.get(0));
+		for (Node node : this.nodes) {
+			Assert.assertFalse(leaving.getMyAddress().equals(after.get(node)));
+			if (!leaving.getMyAddress().equals(before.get(node))) {
+				Assert.assertEquals(before.get(node), after.get(node));
+			}
+		}
+
+		// a member joining back takes its share again
+		InMemoryClusterServices joined = this.cluster.join();
+		Assert.assertTrue(this.shards.get(0).refresh());
+		ClusterShards mine = new ClusterShards(joined.as(IClusterContainerServices.class));
+		Assert.assertEquals(owners(this.shards.get(0)), owners(mine));
+	}
+
+}
@@ -0,0 +1,143 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.reader.NodeConnectorStatistics;
+import org.opendaylight.controller.sal.utils.NodeConnectorCreator;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+import edu.nupt.loadbalancing.beans.NuptPath;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class DirectionalCountersTest {
+	private static final double DELTA = 1E-9;
+	/**
+	 * 1000000 bytes per second.
+	 */
+	private static final long LINK_SPEED = 8000000L;
+	private NodeConnector a1;
+	private NodeConnector b1;
+	private NodeConnector a2;
+	private NodeConnector b2;
+	private Map<NodeConnector, long[]> statisticsMap;
+	private DirectionalCounters counters;
+	private PathLoadEvaluator evaluator;
+
+	@Before
+	public void setUp() {
+		Node a = NodeCreator.createOFNode(1L), b = NodeCreator.createOFNode(2L);
+		this.a1 = NodeConnectorCreator.createOFNodeConnector((short) 1, a);
+		this.b1 = NodeConnectorCreator.createOFNodeConnector((short) 1, b);
+		this.a2 = NodeConnectorCreator.createOFNodeConnector((short) 2, a);
+		this.b2 = NodeConnectorCreator.createOFNodeConnector((short) 2, b);
+		this.statisticsMap = new HashMap<NodeConnector, long[]>();
+		this.counters = new DirectionalCounters(11);
+		this.evaluator = new PathLoadEvaluator(this.statisticsMap, LINK_SPEED, 10, 100);
+	}
+
+	/**
+	 * Samples a port ten times, every 10 seconds, at the given rates.
+	 */
+	private void sample(NodeConnector port, long txRate, long rxRate, long txLossRate) {
+		long[] received = new long[11];
+		for (int i = 0; i <= 10; i++) {
+			NodeConnectorStatistics ncs = new NodeConnectorStatistics();
+			ncs.setNodeConnector(port);
+			// the counters were already running when the port was found
+			ncs.setTransmitByteCount(5000L + i * 10 * txRate);
+			ncs.setTransmitPacketCount(5000L + i * 10 * txRate / 1000);
+			ncs.setTransmitDropCount(i * 10 * txLossRate);
+			received[i] = 5000L + i * 10 * rxRate;
+			this.counters.update(ncs);
+		}
+		this.statisticsMap.put(port, received);
+	}
+
+	@Test
+	public void testDirectionsAreScoredApart() throws Exception {
+		// a to b is quiet on link 1 while b to a is busy, link 2 is half used
+		sample(this.a1, 100000L, 900000L, 0L);
+		sample(this.b1, 900000L, 100000L, 0L);
+		sample(this.a2, 500000L, 0L, 0L);
+		sample(this.b2, 0L, 500000L, 0L);
+		NuptPath quiet = new NuptPath(Arrays.asList(new Edge(this.a1, this.b1)));
+		NuptPath half = new NuptPath(Arrays.asList(new Edge(this.a2, this.b2)));
+
+		// both ends received 1000000 bytes per second: more than the link
+		Assert.assertEquals(half, this.evaluator.getOptimalPath(Arrays.asList(quiet, half)));
+		this.evaluator.setDirectionalCounters(this.counters, 1.0);
+		Assert.assertEquals(0.1D, this.evaluator.getUtilization(new Edge(this.a1, this.b1)), DELTA);
+		Assert.assertEquals(0.9D, this.evaluator.getUtilization(new Edge(this.b1, this.a1)), DELTA);
+		Assert.assertEquals(0.5D, this.evaluator.getUtilization(new Edge(this.a2, this.b2)), DELTA);
+		Assert.assertEquals(quiet, this.evaluator.getOptimalPath(Arrays.asList(quiet, half)));
+		// a reservation counts in the unit of the utilization
+		Assert.assertEquals(0.5D, this.evaluator.getLoadRate(500000L), DELTA);
+	}
+
+	@Test
+	public void testFullDuplexStaysWithinCapacity() throws Exception {
+		sample(this.a1, 1000000L, 1000000L, 0L);
+		sample(this.b1, 1000000L, 1000000L, 0L);
+		Edge edge = new Edge(this.a1, this.b1);
+		Assert.assertEquals(2.5D, this.evaluator.getEdgeLoadRate(edge), DELTA);
+		this.evaluator.setDirectionalCounters(this.counters, 1.0);
+		Assert.assertEquals(1D, this.evaluator.getEdgeLoadRate(edge), DELTA);
+	}
+
+	@Test
+	public void testLossesAreCongestion() throws Exception {
+		// 100 packets per second sent, 25 dropped by the tail
+		sample(this.a1, 100000L, 0L, 25L);
+		sample(this.b1, 0L, 100000L, 0L);
+		sample(this.a2, 200000L, 0L, 0L);
+		sample(this.b2, 0L, 200000L, 0L);
+		NuptPath lossy = new NuptPath(Arrays.asList(new Edge(this.a1, this.b1)));
+		NuptPath busier = new NuptPath(Arrays.asList(new Edge(this.a2, this.b2)));
+		this.evaluator.setDirectionalCounters(this.counters, 0D);
+		Assert.assertEquals(lossy, this.evaluator.getOptimalPath(Arrays.asList(lossy, busier)));
+		Assert.assertEquals(0.2D, this.evaluator.getLossRatio(new Edge(this.a1, this.b1)), DELTA);
+		this.evaluator.setDirectionalCounters(this.counters, 1.0);
+		Assert.assertEquals(0.1D + 0.2D, this.evaluator.getEdgeLoadRate(new Edge(this.a1, this.b1)), DELTA);
+		Assert.assertEquals(busier, this.evaluator.getOptimalPath(Arrays.asList(lossy, busier)));
+	}
+
+	@Test
+	public void testNewLinkIsScoredTheSameBothWays() throws Exception {
+		// a link just found, both ports sampled twice 10 seconds apart: b to a
+		// is only seen by the transmit counter of b, a to b only by the
+		// receive counter of b, which started at 0
+		this.counters.record(this.a1, 0L, 0L, 0L, 0L);
+		this.counters.record(this.a1, 0L, 0L, 0L, 0L);
+		this.counters.record(this.b1, 0L, 0L, 0L, 0L);
+		this.counters.record(this.b1, 1000000L, 1000L, 0L, 0L);
+		long[] received = new long[11];
+		received[10] = 1000000L;
+		this.statisticsMap.put(this.b1, received);
+		this.statisticsMap.put(this.a1, new long[11]);
+		Assert.assertEquals(2, this.counters.getSampleCount(this.b1));
+		Assert.assertEquals(9, this.counters.getFirstSample(this.b1));
+		Assert.assertEquals(0, this.counters.getSampleCount(this.a2));
+		Assert.assertEquals(11, this.counters.getFirstSample(this.a2));
+
+		this.evaluator.setDirectionalCounters(this.counters, 1.0);
+		Assert.assertEquals(0.1D, this.evaluator.getUtilization(new Edge(this.a1, this.b1)), DELTA);
+		Assert.assertEquals(0.1D, this.evaluator.getUtilization(new Edge(this.b1, this.a1)), DELTA);
+	}
+
+}
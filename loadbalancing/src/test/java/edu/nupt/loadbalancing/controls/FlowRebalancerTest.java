@@ -0,0 +1,130 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.utils.NodeConnectorCreator;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+import edu.nupt.loadbalancing.beans.NuptPath;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class FlowRebalancerTest {
+	private NuptPath hot;
+	private NuptPath idle;
+	private RouteRequest request;
+	private PathLoadEvaluator evaluator;
+	private FlowRebalancer.CandidatePaths candidates;
+
+	@Before
+	public void setUp() throws Exception {
+		Node a = NodeCreator.createOFNode(1L), b = NodeCreator.createOFNode(2L);
+		NodeConnector a1 = NodeConnectorCreator.createOFNodeConnector((short) 1, a);
+		NodeConnector b1 = NodeConnectorCreator.createOFNodeConnector((short) 1, b);
+		NodeConnector a2 = NodeConnectorCreator.createOFNodeConnector((short) 2, a);
+		NodeConnector b2 = NodeConnectorCreator.createOFNodeConnector((short) 2, b);
+		this.hot = new NuptPath(Arrays.asList(new Edge(a1, b1)));
+		this.idle = new NuptPath(Arrays.asList(new Edge(a2, b2)));
+		this.request = new RouteRequest(a, b, null);
+
+		// four flows of 2000 bytes per second load the hot link at 0.8
+		Map<NodeConnector, long[]> statisticsMap = new HashMap<NodeConnector, long[]>();
+		long[] datas = new long[11];
+		for (int i = 1; i < datas.length; i++) {
+			datas[i] = datas[i - 1] + 80000L;
+		}
+		statisticsMap.put(a1, datas);
+		this.evaluator = new PathLoadEvaluator(statisticsMap, 100000L, 10, 100);
+		this.candidates = new FlowRebalancer.CandidatePaths() {
+			public List<NuptPath> getCandidates(RouteRequest request) {
+				return Arrays.asList(hot, idle);
+			}
+		};
+	}
+
+	private FlowRebalancer rebalancer(int maxMoves) {
+		FlowRebalancer rebalancer = new FlowRebalancer(this.evaluator, this.candidates, maxMoves, 0.05, 3);
+		for (int i = 0; i < 4; i++) {
+			rebalancer.assign("flow" + i, this.request, this.hot, 2000L);
+		}
+		return rebalancer;
+	}
+
+	private int countOn(FlowRebalancer rebalancer, NuptPath path) {
+		int count = 0;
+		for (int i = 0; i < 4; i++) {
+			if (path.equals(rebalancer.getPath("flow" + i))) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testHotspotIsSpread() throws Exception {
+		FlowRebalancer rebalancer = rebalancer(8);
+		List<FlowMove> moves = rebalancer.rebalance();
+		// 0.8/0 -> 0.6/0.2 -> 0.4/0.4, a third move would make 0.6 again
+		Assert.assertEquals(2, moves.size());
+		Assert.assertEquals(2, countOn(rebalancer, this.hot));
+		Assert.assertEquals(2, countOn(rebalancer, this.idle));
+		for (FlowMove move : moves) {
+			Assert.assertEquals(this.hot.toPath(), move.getFrom());
+			Assert.assertEquals(this.idle.toPath(), move.getTo());
+			Assert.assertEquals(this.idle, rebalancer.getPath(move.getFlowId()));
+		}
+		Assert.assertTrue(rebalancer.remove(moves.get(0).getFlowId()));
+		Assert.assertFalse(rebalancer.remove(moves.get(0).getFlowId()));
+		Assert.assertEquals(3, rebalancer.getFlowCount());
+	}
+
+	@Test
+	public void testMovesAreBounded() {
+		FlowRebalancer rebalancer = rebalancer(1);
+		Assert.assertEquals(1, rebalancer.rebalance().size());
+		Assert.assertEquals(1, rebalancer.rebalance().size());
+		// the counters have not caught up, the earlier moves still count
+		Assert.assertEquals(0, rebalancer.rebalance().size());
+		Assert.assertEquals(0, rebalancer(0).rebalance().size());
+	}
+
+	@Test
+	public void testSettledMovesAreForgotten() {
+		FlowRebalancer rebalancer = new FlowRebalancer(this.evaluator, this.candidates, 1, 0.05, 1);
+		for (int i = 0; i < 4; i++) {
+			rebalancer.assign("flow" + i, this.request, this.hot, 2000L);
+		}
+		Assert.assertEquals(1, rebalancer.rebalance().size());
+		Assert.assertEquals(1, rebalancer.rebalance().size());
+		// the counters of this test never show the moves: once the first one
+		// settled, the hot link looks hotter than it is
+		Assert.assertEquals(1, rebalancer.rebalance().size());
+		Assert.assertEquals(3, countOn(rebalancer, this.idle));
+	}
+
+	@Test
+	public void testSmallGainsAreIgnored() {
+		FlowRebalancer rebalancer = new FlowRebalancer(this.evaluator, this.candidates, 8, 0.7, 3);
+		rebalancer.assign("flow", this.request, this.hot, 2000L);
+		// 0.8 to 0.2 saves less than the minimum gain
+		Assert.assertTrue(rebalancer.rebalance().isEmpty());
+		Assert.assertEquals(this.hot, rebalancer.getPath("flow"));
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.utils.NodeConnectorCreator;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+import edu.nupt.loadbalancing.beans.NuptPath;
+import edu.nupt.loadbalancing.controls.PathLoadEvaluator.LoadPolicy;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class LoadForecasterTest {
+	private static final double DELTA = 1E-9;
+
+	/**
+	 * A window of counters which grow by the given bytes per interval.
+	 */
+	private static long[] window(long... perInterval) {
+		long[] datas = new long[perInterval.length + 1];
+		datas[0] = 1000L;
+		for (int i = 0; i < perInterval.length; i++) {
+			datas[i + 1] = datas[i] + perInterval[i];
+		}
+		return datas;
+	}
+
+	@Test
+	public void testSteadyTraffic() {
+		LoadForecaster forecaster = new LoadForecaster(0.5, 0.3, 1);
+		Assert.assertEquals(500D, forecaster.forecast(window(500, 500, 500, 500, 500)), DELTA);
+		Assert.assertEquals(0D, forecaster.forecast(null), DELTA);
+		// the port was only sampled once, nothing to predict yet
+		Assert.assertEquals(0D, forecaster.forecast(new long[] { 0, 0, 0, 1000 }), DELTA);
+	}
+
+	@Test
+	public void testRampIsAnticipated() {
+		long[] ramp = window(100, 200, 300, 400, 500, 600, 700, 800, 900, 1000);
+		double average = 550D;
+		double ewma = new LoadForecaster(0.5, 0, 1).forecast(ramp);
+		double holt = new LoadForecaster(0.5, 0.3, 1).forecast(ramp);
+		double further = new LoadForecaster(0.5, 0.3, 3).forecast(ramp);
+		Assert.assertTrue("ewma " + ewma, ewma > average && ewma < 1000D);
+		Assert.assertTrue("holt " + holt, holt > ewma);
+		Assert.assertTrue("further " + further, further > holt);
+		// a falling ramp is never predicted below zero
+		Assert.assertEquals(0D, new LoadForecaster(0.9, 0.9, 10).forecast(window(900, 600, 300, 0)), DELTA);
+	}
+
+	@Test
+	public void testPredictedLoadAvoidsRampingLink() throws Exception {
+		Node a = NodeCreator.createOFNode(1L), b = NodeCreator.createOFNode(2L);
+		NodeConnector a1 = NodeConnectorCreator.createOFNodeConnector((short) 1, a);
+		NodeConnector b1 = NodeConnectorCreator.createOFNodeConnector((short) 1, b);
+		NodeConnector a2 = NodeConnectorCreator.createOFNodeConnector((short) 2, a);
+		NodeConnector b2 = NodeConnectorCreator.createOFNodeConnector((short) 2, b);
+		NuptPath ramping = new NuptPath(Arrays.asList(new Edge(a1, b1)));
+		NuptPath steady = new NuptPath(Arrays.asList(new Edge(a2, b2)));
+
+		Map<NodeConnector, long[]> statisticsMap = new HashMap<NodeConnector, long[]>();
+		// the ramping link has carried less on average, but carries more now
+		statisticsMap.put(a1, window(0, 0, 0, 0, 0, 0, 200, 400, 800, 1600));
+		statisticsMap.put(a2, window(400, 400, 400, 400, 400, 400, 400, 400, 400, 400));
+		PathLoadEvaluator evaluator = new PathLoadEvaluator(statisticsMap, 100000L, 10, 100);
+		Assert.assertEquals(ramping, evaluator.getOptimalPath(Arrays.asList(ramping, steady)));
+
+		evaluator.setLoadPolicy(LoadPolicy.PREDICTED, new LoadForecaster(0.5, 0.3, 1));
+		Assert.assertEquals(steady, evaluator.getOptimalPath(Arrays.asList(ramping, steady)));
+		evaluator.setLoadPolicy(LoadPolicy.PESSIMISTIC, new LoadForecaster(0.5, 0.3, 1));
+		Assert.assertEquals(steady, evaluator.getOptimalPath(Arrays.asList(ramping, steady)));
+		try {
+			evaluator.setLoadPolicy(LoadPolicy.PREDICTED, null);
+			Assert.fail("a policy without forecaster was accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import static edu.nupt.loadbalancing.stubs.TopologyFixtures.link;
+import static edu.nupt.loadbalancing.stubs.TopologyFixtures.node;
+import static edu.nupt.loadbalancing.stubs.TopologyFixtures.port;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.Path;
+import org.opendaylight.controller.sal.core.UpdateType;
+import org.opendaylight.controller.sal.topology.TopoEdgeUpdate;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class MemoryReportTest {
+	private LoadBalancingImplementation routing;
+	private Node a;
+	private Node c;
+	private List<Edge> edges;
+
+	/**
+	 * A line a - b - c.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		this.routing = new LoadBalancingImplementation();
+		this.routing.init();
+		this.a = node(1);
+		Node b = node(2);
+		this.c = node(3);
+		this.edges = new ArrayList<Edge>();
+		this.edges.add(link(port(1, a), port(1, b)));
+		this.edges.add(link(port(1, b), port(1, a)));
+		this.edges.add(link(port(2, b), port(1, c)));
+		this.edges.add(link(port(1, c), port(2, b)));
+		this.routing.edgeUpdate(updates(UpdateType.ADDED));
+	}
+
+	@After
+	public void tearDown() {
+		this.routing.destroy();
+	}
+
+	private List<TopoEdgeUpdate> updates(UpdateType type) {
+		List<TopoEdgeUpdate> updates = new ArrayList<TopoEdgeUpdate>();
+		for (Edge edge : this.edges) {
+			updates.add(new TopoEdgeUpdate(edge, null, type));
+		}
+		return updates;
+	}
+
+	@Test
+	public void testStateIsReleasedWhenTheTopologyIsGone() {
+		Path path = this.routing.getRoute(this.a, this.c);
+		Assert.assertNotNull(path);
+		this.routing.reserve(path, 1000, 10, TimeUnit.SECONDS);
+		MemoryReport before = this.routing.getMemoryReport();
+		Assert.assertEquals(3 + 4, before.getSubsystem("topology").getEntries());
+		Assert.assertEquals(1, before.getSubsystem("shortestPathTrees").getEntries());
+		// two link counters and the reservation
+		Assert.assertEquals(3, before.getSubsystem("reservations").getEntries());
+		Assert.assertTrue(before.getTotalBytes() > 0);
+
+		this.routing.edgeUpdate(updates(UpdateType.REMOVED));
+		MemoryReport after = this.routing.getMemoryReport();
+		Assert.assertEquals(0, after.getSubsystem("topology").getEntries());
+		Assert.assertEquals(0, after.getSubsystem("shortestPathTrees").getEntries());
+		// the reservation is held until it is released or expires
+		Assert.assertEquals(1, after.getSubsystem("reservations").getEntries());
+		Assert.assertEquals(0, after.getSubsystem("statistics").getEntries());
+		Assert.assertTrue(after.getTotalBytes() < before.getTotalBytes());
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.utils.NodeConnectorCreator;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+import edu.nupt.loadbalancing.beans.LoadBalancingShortestPath;
+import edu.nupt.loadbalancing.beans.NuptPath;
+import edu.nupt.loadbalancing.beans.SearchContext;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.SparseMultigraph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class PathLoadEvaluatorTest {
+	private final Graph<Node, Edge> g = new SparseMultigraph<Node, Edge>();
+	private final Map<NodeConnector, long[]> statisticsMap = new HashMap<NodeConnector, long[]>();
+	private PathLoadEvaluator evaluator;
+	private LoadBalancingShortestPath<Node, Edge> spt;
+	private Node s, t;
+	private Edge direct;
+	private short port = 1;
+
+	private Edge link(Node tail, Node head) throws ConstructionException {
+		Edge edge = new Edge(NodeConnectorCreator.createOFNodeConnector(this.port++, tail),
+				NodeConnectorCreator.createOFNodeConnector(this.port++, head));
+		this.g.addEdge(edge, tail, head, EdgeType.DIRECTED);
+		return edge;
+	}
+
+	/**
+	 * A direct link from s to t, and two ways round through m and n.
+	 */
+	@Before
+	public void setUp() throws ConstructionException {
+		this.s = NodeCreator.createOFNode(1L);
+		Node m = NodeCreator.createOFNode(2L), n = NodeCreator.createOFNode(3L);
+		this.t = NodeCreator.createOFNode(4L);
+		this.direct = link(this.s, this.t);
+		link(this.s, m);
+		link(m, this.t);
+		link(this.s, n);
+		link(n, this.t);
+		this.evaluator = new PathLoadEvaluator(this.statisticsMap, 8000000L, 10, 100);
+		this.spt = new LoadBalancingShortestPath<Node, Edge>(this.g, 3);
+	}
+
+	@Test
+	public void testOptimalPathStopsAtTheFirstGoodEnoughPath() {
+		SearchContext context = new SearchContext();
+		NuptPath path = this.evaluator.getOptimalPath(this.spt.iterator(this.s, this.t, context), 0.3);
+		Assert.assertEquals(1, path.size());
+		// the first path was good enough, Yen's algorithm never ran
+		Assert.assertEquals(0, context.getYenIterations());
+
+		// the direct link is saturated, the next path is taken at once
+		long[] received = new long[11];
+		for (int i = 0; i < received.length; i++) {
+			received[i] = 1000000000L * (i + 1);
+		}
+		this.statisticsMap.put(this.direct.getHeadNodeConnector(), received);
+		context = new SearchContext();
+		path = this.evaluator.getOptimalPath(this.spt.iterator(this.s, this.t, context), 0.3);
+		Assert.assertEquals(2, path.size());
+		Assert.assertEquals(1, context.getYenIterations());
+
+		// without a good enough load rate all K paths are computed
+		context = new SearchContext();
+		path = this.evaluator.getOptimalPath(this.spt.iterator(this.s, this.t, context), 0D);
+		Assert.assertEquals(2, path.size());
+		Assert.assertEquals(2, context.getYenIterations());
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import static edu.nupt.loadbalancing.stubs.TopologyFixtures.link;
+import static edu.nupt.loadbalancing.stubs.TopologyFixtures.node;
+import static edu.nupt.loadbalancing.stubs.TopologyFixtures.port;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+
+import edu.nupt.loadbalancing.beans.NuptPath;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class ReservationLedgerTest {
+	private ReservationLedger ledger;
+	private Edge first;
+	private Edge second;
+	private Edge parallel;
+
+	@Before
+	public void setUp() throws Exception {
+		this.ledger = new ReservationLedger(1000);
+		Node a = node(1), b = node(2), c = node(3);
+		this.first = link(port(1, a), port(1, b));
+		this.second = link(port(2, b), port(1, c));
+		this.parallel = link(port(2, a), port(3, b));
+	}
+
+	@Test
+	public void testReserveAndRelease() {
+		List<Edge> path = Arrays.asList(this.first, this.second);
+		ReservationLedger.Reservation one = this.ledger.reserve(path, 1000, 10, TimeUnit.SECONDS);
+		ReservationLedger.Reservation two = this.ledger.reserve(Arrays.asList(this.first), 500, 10,
+				TimeUnit.SECONDS);
+		Assert.assertEquals(1500, this.ledger.getReserved(this.first));
+		Assert.assertEquals(1000, this.ledger.getReserved(this.second));
+		Assert.assertEquals(2, this.ledger.getActiveReservations());
+
+		Assert.assertTrue(one.release());
+		Assert.assertFalse(one.release());
+		Assert.assertEquals(500, this.ledger.getReserved(this.first));
+		Assert.assertEquals(0, this.ledger.getReserved(this.second));
+		Assert.assertTrue(two.release());
+		Assert.assertEquals(0, this.ledger.getReserved(this.first));
+		Assert.assertEquals(0, this.ledger.getActiveReservations());
+	}
+
+	@Test
+	public void testRemovedLinksAreForgotten() {
+		ReservationLedger.Reservation held = this.ledger.reserve(Arrays.asList(this.first, this.second), 1000, 10,
+				TimeUnit.SECONDS);
+		Assert.assertEquals(2, this.ledger.getCounterCount());
+		this.ledger.forget(Arrays.asList(this.first));
+		Assert.assertEquals(1, this.ledger.getCounterCount());
+		Assert.assertEquals(0, this.ledger.getReserved(this.first));
+
+		// the link comes back before the reservation is released
+		this.ledger.reserve(Arrays.asList(this.first), 300, 10, TimeUnit.SECONDS);
+		Assert.assertTrue(held.release());
+		Assert.assertEquals(300, this.ledger.getReserved(this.first));
+		Assert.assertEquals(0, this.ledger.getReserved(this.second));
+	}
+
+	@Test
+	public void testReservationsExpire() {
+		ReservationLedger.Reservation shortLived = this.ledger.reserve(Arrays.asList(this.first), 100, 2500,
+				TimeUnit.MILLISECONDS);
+		// longer than one turn of the wheel
+		ReservationLedger.Reservation longLived = this.ledger.reserve(Arrays.asList(this.second), 100, 600,
+				TimeUnit.SECONDS);
+		this.ledger.tick();
+		this.ledger.tick();
+		Assert.assertFalse(shortLived.isReleased());
+		this.ledger.tick();
+		Assert.assertTrue(shortLived.isReleased());
+		Assert.assertEquals(0, this.ledger.getReserved(this.first));
+
+		for (int i = 3; i < 599; i++) {
+			this.ledger.tick();
+		}
+		Assert.assertFalse(longLived.isReleased());
+		this.ledger.tick();
+		Assert.assertTrue(longLived.isReleased());
+		Assert.assertEquals(0, this.ledger.getActiveReservations());
+	}
+
+	@Test
+	public void testReservedLoadSteersPaths() throws Exception {
+		NuptPath reserved = new NuptPath(Arrays.asList(this.first));
+		NuptPath free = new NuptPath(Arrays.asList(this.parallel));
+		PathLoadEvaluator evaluator = new PathLoadEvaluator(new HashMap<NodeConnector, long[]>(), 100000L, 10, 100);
+		evaluator.setReservationLedger(this.ledger);
+		// both are idle, the first candidate wins
+		Assert.assertEquals(reserved, evaluator.getOptimalPath(Arrays.asList(reserved, free)));
+		this.ledger.reserve(reserved.getEdges(), 1000, 10, TimeUnit.SECONDS);
+		Assert.assertEquals(free, evaluator.getOptimalPath(Arrays.asList(reserved, free)));
+		Assert.assertEquals(0.1D, evaluator.getPathLoadRate(reserved), 1E-9);
+	}
+
+}
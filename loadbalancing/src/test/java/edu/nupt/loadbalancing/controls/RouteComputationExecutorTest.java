@@ -0,0 +1,117 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.core.Path;
+import org.opendaylight.controller.sal.utils.NodeConnectorCreator;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class RouteComputationExecutorTest {
+	private RouteComputationExecutor executor;
+	private Node node1;
+	private Node node2;
+	private Path path;
+
+	@Before
+	public void setUp() throws Exception {
+		this.executor = new RouteComputationExecutor(2);
+		this.node1 = NodeCreator.createOFNode(Long.valueOf(1));
+		this.node2 = NodeCreator.createOFNode(Long.valueOf(2));
+		NodeConnector nc11 = NodeConnectorCreator.createOFNodeConnector((short) 1, this.node1);
+		NodeConnector nc21 = NodeConnectorCreator.createOFNodeConnector((short) 1, this.node2);
+		List<Edge> edges = new ArrayList<Edge>();
+		edges.add(new Edge(nc11, nc21));
+		this.path = new Path(edges);
+	}
+
+	@After
+	public void tearDown() {
+		this.executor.shutdown();
+	}
+
+	@Test
+	public void testIdenticalRequestsShareOneComputation() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger computations = new AtomicInteger();
+		Callable<Path> computation = new Callable<Path>() {
+			public Path call() throws Exception {
+				computations.incrementAndGet();
+				release.await();
+				return path;
+			}
+		};
+		Short bw = Short.valueOf((short) 0);
+		Future<Path> first = this.executor.submit(this.node1, this.node2, bw, 7, computation, null);
+		Future<Path> second = this.executor.submit(this.node1, this.node2, bw, 7, computation, null);
+		Future<Path> otherVersion = this.executor.submit(this.node1, this.node2, bw, 8, computation, null);
+		Assert.assertFalse(second.cancel(true));
+		release.countDown();
+
+		Assert.assertSame(this.path, first.get(5, TimeUnit.SECONDS));
+		Assert.assertSame(this.path, second.get(5, TimeUnit.SECONDS));
+		Assert.assertSame(this.path, otherVersion.get(5, TimeUnit.SECONDS));
+		Assert.assertEquals(2, computations.get());
+		Assert.assertEquals(1, this.executor.getCoalesced());
+	}
+
+	@Test
+	public void testFinishedComputationIsNotReused() throws Exception {
+		final AtomicInteger computations = new AtomicInteger();
+		Callable<Path> computation = new Callable<Path>() {
+			public Path call() {
+				computations.incrementAndGet();
+				return path;
+			}
+		};
+		Short bw = Short.valueOf((short) 0);
+		this.executor.submit(this.node1, this.node2, bw, 1, computation, null).get(5, TimeUnit.SECONDS);
+		this.executor.submit(this.node1, this.node2, bw, 1, computation, null).get(5, TimeUnit.SECONDS);
+		Assert.assertEquals(2, computations.get());
+	}
+
+	@Test
+	public void testMissingArgumentsGiveNoRoute() throws Exception {
+		Callable<Path> computation = new Callable<Path>() {
+			public Path call() {
+				return null;
+			}
+		};
+		Assert.assertNull(this.executor.submit(null, this.node2, null, 1, computation, null).get(5,
+				TimeUnit.SECONDS));
+
+		LoadBalancingImplementation routing = new LoadBalancingImplementation();
+		routing.init();
+		try {
+			Short bw = Short.valueOf((short) 0);
+			Assert.assertNull(routing.getRouteAsync(null, this.node2, bw).get(5, TimeUnit.SECONDS));
+			Assert.assertNull(routing.getRouteAsync(this.node1, null, bw).get(5, TimeUnit.SECONDS));
+			Assert.assertNull(routing.getRouteAsync(this.node1, this.node2, null).get(5, TimeUnit.SECONDS));
+			Assert.assertNull(routing.getRouteAsync(this.node1, this.node2, bw).get(5, TimeUnit.SECONDS));
+		} finally {
+			routing.destroy();
+		}
+	}
+
+}
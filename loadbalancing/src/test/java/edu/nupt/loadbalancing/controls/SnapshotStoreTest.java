@@ -0,0 +1,157 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import static edu.nupt.loadbalancing.stubs.TopologyFixtures.link;
+import static edu.nupt.loadbalancing.stubs.TopologyFixtures.node;
+import static edu.nupt.loadbalancing.stubs.TopologyFixtures.port;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.core.UpdateType;
+import org.opendaylight.controller.sal.topology.TopoEdgeUpdate;
+import org.opendaylight.controller.topologymanager.ITopologyManager;
+
+import edu.nupt.loadbalancing.stubs.InMemoryTopologyManager;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class SnapshotStoreTest {
+	private File file;
+	private SnapshotStore store;
+
+	@Before
+	public void setUp() throws Exception {
+		this.file = File.createTempFile("loadbalancing", ".snapshot");
+		this.file.delete();
+		this.store = new SnapshotStore(this.file);
+	}
+
+	@After
+	public void tearDown() {
+		this.file.delete();
+		System.clearProperty("loadbalancing.snapshot.file");
+		System.clearProperty("loadbalancing.snapshot.interval");
+	}
+
+	/**
+	 * Starts a controller on the snapshot file and the given topology.
+	 */
+	private LoadBalancingImplementation start(InMemoryTopologyManager topology) {
+		System.setProperty("loadbalancing.snapshot.file", this.file.getPath());
+		LoadBalancingImplementation routing = new LoadBalancingImplementation();
+		routing.setTopologyManager(topology.as(ITopologyManager.class));
+		routing.init();
+		routing.start();
+		return routing;
+	}
+
+	private static SnapshotStore.Snapshot snapshot() throws Exception {
+		SnapshotStore.Snapshot snapshot = new SnapshotStore.Snapshot(123456789L);
+		snapshot.edges.add(link(port(1, node(1)), port(1, node(2))));
+		snapshot.edges.add(link(port(1, node(2)), port(1, node(1))));
+		snapshot.edges.add(link(port(2, node(2)), port(1, node(3))));
+		snapshot.statistics.put(port(1, node(1)), new long[] { 1, 2, 3, Long.MAX_VALUE });
+		snapshot.statistics.put(port(1, node(3)), new long[11]);
+		snapshot.routes.add(new RouteRequest(node(1), node(3),
+				(short) 0));
+		return snapshot;
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		SnapshotStore.Snapshot saved = snapshot();
+		this.store.save(saved);
+		SnapshotStore.Snapshot loaded = this.store.load();
+		Assert.assertNotNull(loaded);
+		Assert.assertEquals(saved.createdMillis, loaded.createdMillis);
+		Assert.assertEquals(new HashSet<Edge>(saved.edges), new HashSet<Edge>(loaded.edges));
+		Assert.assertEquals(saved.statistics.keySet(), loaded.statistics.keySet());
+		for (NodeConnector nc : saved.statistics.keySet()) {
+			Assert.assertTrue(Arrays.equals(saved.statistics.get(nc), loaded.statistics.get(nc)));
+		}
+		Assert.assertEquals(saved.routes, loaded.routes);
+		// a second save replaces the first one
+		this.store.save(new SnapshotStore.Snapshot(1L));
+		Assert.assertTrue(this.store.load().edges.isEmpty());
+	}
+
+	@Test
+	public void testDamagedSnapshotIsIgnored() throws Exception {
+		Assert.assertNull(this.store.load());
+		this.store.save(snapshot());
+		RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+		try {
+			raf.seek(raf.length() - 1);
+			int last = raf.read();
+			raf.seek(raf.length() - 1);
+			raf.write(last ^ 0xFF);
+		} finally {
+			raf.close();
+		}
+		Assert.assertNull(this.store.load());
+	}
+
+	@Test
+	public void testUnconfirmedLinksAreDropped() throws Exception {
+		SnapshotStore.Snapshot saved = snapshot();
+		SnapshotStore.Snapshot fresh = new SnapshotStore.Snapshot(System.currentTimeMillis());
+		fresh.edges.addAll(saved.edges);
+		this.store.save(fresh);
+		Node n1 = node(1), n2 = node(2);
+		Node n3 = node(3);
+		InMemoryTopologyManager topology = new InMemoryTopologyManager();
+		LoadBalancingImplementation routing = start(topology);
+		try {
+			// the links of the snapshot are used until the topology manager
+			// reports its own
+			Assert.assertNotNull(routing.getRoute(n1, n3));
+			// the link to 3 went away while the controller was down
+			List<TopoEdgeUpdate> updates = new ArrayList<TopoEdgeUpdate>();
+			updates.add(topology.update(saved.edges.get(0), UpdateType.ADDED));
+			updates.add(topology.update(saved.edges.get(1), UpdateType.ADDED));
+			routing.edgeUpdate(updates);
+			Assert.assertNull(routing.getRoute(n1, n3));
+			Assert.assertNotNull(routing.getRoute(n2, n1));
+			routing.stop();
+			Assert.assertEquals(new HashSet<Edge>(saved.edges.subList(0, 2)),
+					new HashSet<Edge>(this.store.load().edges));
+		} finally {
+			routing.destroy();
+		}
+	}
+
+	@Test
+	public void testColdBootIsSaved() throws Exception {
+		System.setProperty("loadbalancing.snapshot.interval", "1");
+		LoadBalancingImplementation routing = start(new InMemoryTopologyManager());
+		try {
+			// no link was discovered yet, the snapshot is saved all the same
+			for (int i = 0; i < 50 && !this.file.exists(); i++) {
+				Thread.sleep(100);
+			}
+			Assert.assertTrue(this.file.exists());
+			Assert.assertTrue(this.store.load().edges.isEmpty());
+		} finally {
+			routing.destroy();
+		}
+	}
+
+}
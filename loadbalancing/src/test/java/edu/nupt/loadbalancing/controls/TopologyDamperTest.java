@@ -0,0 +1,136 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.UpdateType;
+import org.opendaylight.controller.sal.topology.TopoEdgeUpdate;
+import org.opendaylight.controller.sal.utils.NodeConnectorCreator;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class TopologyDamperTest {
+	private static final long HALF_LIFE = 15000L;
+	private Edge edge;
+
+	@Before
+	public void setUp() throws Exception {
+		Node a = NodeCreator.createOFNode(1L);
+		Node b = NodeCreator.createOFNode(2L);
+		this.edge = new Edge(NodeConnectorCreator.createOFNodeConnector((short) 1, a),
+				NodeConnectorCreator.createOFNodeConnector((short) 1, b));
+	}
+
+	private List<TopoEdgeUpdate> updates(UpdateType... types) {
+		List<TopoEdgeUpdate> updates = new ArrayList<TopoEdgeUpdate>();
+		for (UpdateType type : types) {
+			updates.add(new TopoEdgeUpdate(this.edge, null, type));
+		}
+		return updates;
+	}
+
+	private static List<UpdateType> types(List<TopoEdgeUpdate> updates) {
+		List<UpdateType> types = new ArrayList<UpdateType>();
+		for (TopoEdgeUpdate update : updates) {
+			types.add(update.getUpdateType());
+		}
+		return types;
+	}
+
+	@Test
+	public void testOppositeUpdatesCancel() {
+		// no damping, only the window
+		TopologyDamper damper = new TopologyDamper(100, 0, 1500, 750, HALF_LIFE, 0);
+		Assert.assertTrue(damper.offer(updates(UpdateType.ADDED), 0));
+		Assert.assertEquals(Collections.singletonList(UpdateType.ADDED), types(damper.endWindow(100)));
+
+		Assert.assertTrue(damper.offer(updates(UpdateType.REMOVED), 200));
+		Assert.assertFalse(damper.offer(updates(UpdateType.ADDED, UpdateType.CHANGED), 250));
+		Assert.assertTrue(damper.endWindow(300).isEmpty());
+		Assert.assertEquals(3, damper.getSuppressedCount());
+
+		Assert.assertTrue(damper.offer(updates(UpdateType.ADDED, UpdateType.REMOVED), 400));
+		Assert.assertEquals(Collections.singletonList(UpdateType.REMOVED), types(damper.endWindow(500)));
+		Assert.assertEquals(4, damper.getSuppressedCount());
+		Assert.assertTrue(damper.releaseSuppressed(600).isEmpty());
+		Assert.assertEquals(0, damper.getEdgeCount());
+	}
+
+	@Test
+	public void testFlappingLinkIsSuppressed() {
+		TopologyDamper damper = new TopologyDamper(0, 1000, 1500, 750, HALF_LIFE, 300000);
+		damper.offer(updates(UpdateType.ADDED), 0);
+		Assert.assertEquals(1, damper.endWindow(0).size());
+		damper.offer(updates(UpdateType.REMOVED), 1000);
+		Assert.assertEquals(1, damper.endWindow(1000).size());
+		damper.offer(updates(UpdateType.ADDED), 2000);
+		Assert.assertEquals(1, damper.endWindow(2000).size());
+
+		// the second removal within a half-life suppresses the link
+		damper.offer(updates(UpdateType.REMOVED), 3000);
+		Assert.assertEquals(Collections.singletonList(UpdateType.REMOVED), types(damper.endWindow(3000)));
+		Assert.assertEquals(1, damper.getSuppressedEdgeCount());
+		damper.offer(updates(UpdateType.ADDED), 4000);
+		Assert.assertTrue(damper.endWindow(4000).isEmpty());
+		Assert.assertTrue(damper.releaseSuppressed(3000 + HALF_LIFE).isEmpty());
+		Assert.assertEquals(1, damper.getSuppressedCount());
+
+		// the held addition is applied once the penalty decayed
+		Assert.assertEquals(Collections.singletonList(UpdateType.ADDED),
+				types(damper.releaseSuppressed(3000 + 2 * HALF_LIFE)));
+		Assert.assertEquals(0, damper.getSuppressedEdgeCount());
+	}
+
+	@Test
+	public void testFlapsWithinAWindowWithdrawTheLink() {
+		TopologyDamper damper = new TopologyDamper(100, 1000, 1500, 750, HALF_LIFE, 4 * HALF_LIFE);
+		damper.offer(updates(UpdateType.ADDED), 0);
+		damper.endWindow(100);
+
+		// the link ends up added, but it flapped too often to be used
+		damper.offer(updates(UpdateType.REMOVED, UpdateType.ADDED, UpdateType.REMOVED, UpdateType.ADDED), 200);
+		Assert.assertEquals(Collections.singletonList(UpdateType.REMOVED), types(damper.endWindow(300)));
+		Assert.assertEquals(4, damper.getSuppressedCount());
+
+		// the penalty of a link which keeps flapping is capped, so that it is
+		// used again at most four half-lives after its last flap
+		for (int i = 0; i < 50; i++) {
+			damper.offer(updates(UpdateType.REMOVED, UpdateType.ADDED), 400);
+		}
+		Assert.assertTrue(damper.endWindow(500).isEmpty());
+		Assert.assertTrue(damper.releaseSuppressed(400 + 3 * HALF_LIFE).isEmpty());
+		Assert.assertEquals(Collections.singletonList(UpdateType.ADDED),
+				types(damper.releaseSuppressed(500 + 4 * HALF_LIFE)));
+	}
+
+	@Test
+	public void testReleaseLeavesTheWindowOpen() {
+		TopologyDamper damper = new TopologyDamper(5000, 1000, 1500, 750, HALF_LIFE, 300000);
+		damper.offer(updates(UpdateType.ADDED), 0);
+		damper.endWindow(5000);
+
+		// a flap straddling the regular releases is still coalesced
+		Assert.assertTrue(damper.offer(updates(UpdateType.REMOVED), 6000));
+		Assert.assertTrue(damper.releaseSuppressed(7000).isEmpty());
+		Assert.assertFalse(damper.offer(updates(UpdateType.ADDED), 7500));
+		Assert.assertTrue(damper.releaseSuppressed(8000).isEmpty());
+		Assert.assertTrue(damper.endWindow(11000).isEmpty());
+		Assert.assertEquals(2, damper.getSuppressedCount());
+		Assert.assertEquals(1, damper.getEdgeCount());
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.controls;
+
+import static edu.nupt.loadbalancing.stubs.TopologyFixtures.link;
+import static edu.nupt.loadbalancing.stubs.TopologyFixtures.node;
+import static edu.nupt.loadbalancing.stubs.TopologyFixtures.port;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+
+import edu.nupt.loadbalancing.beans.NuptPath;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class TrafficMatrixEstimatorTest {
+	private Node a;
+	private Node b;
+	private Node c;
+	private List<Edge> edges;
+	private Map<NodeConnector, long[]> statisticsMap;
+	private TrafficMatrixEstimator.Routes routes;
+	private int routed;
+
+	/**
+	 * A window of counters which grow by the given bytes per second, sampled
+	 * every 10 seconds.
+	 */
+	private static long[] window(long bytesPerSecond) {
+		long[] datas = new long[11];
+		datas[0] = 1000L;
+		for (int i = 1; i < datas.length; i++) {
+			datas[i] = datas[i - 1] + 10 * bytesPerSecond;
+		}
+		return datas;
+	}
+
+	/**
+	 * A line a - b - c, whose host ports are port 9 of every switch, carrying
+	 * a to c 1000, a to b 500 and b to c 200 bytes per second.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		this.a = node(1);
+		this.b = node(2);
+		this.c = node(3);
+		final Edge ab = link(port(1, a), port(1, b));
+		final Edge ba = link(port(1, b), port(1, a));
+		final Edge bc = link(port(2, b), port(1, c));
+		final Edge cb = link(port(1, c), port(2, b));
+		this.edges = Arrays.asList(ab, ba, bc, cb);
+		this.statisticsMap = new HashMap<NodeConnector, long[]>();
+		this.statisticsMap.put(port(9, a), window(1500));
+		this.statisticsMap.put(port(9, b), window(200));
+		this.statisticsMap.put(port(9, c), window(0));
+		this.statisticsMap.put(port(1, b), window(1500));
+		this.statisticsMap.put(port(1, a), window(0));
+		this.statisticsMap.put(port(1, c), window(1200));
+		this.statisticsMap.put(port(2, b), window(0));
+		this.routes = new TrafficMatrixEstimator.Routes() {
+			public NuptPath getRoute(Node src, Node dst) {
+				routed++;
+				List<Edge> route = new ArrayList<Edge>();
+				int from = (int) (((Long) src.getID()).longValue()), to = (int) (((Long) dst.getID()).longValue());
+				for (int i = from; i < to; i++) {
+					route.add(i == 1 ? ab : bc);
+				}
+				for (int i = from; i > to; i--) {
+					route.add(i == 3 ? cb : ba);
+				}
+				try {
+					return new NuptPath(route);
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		};
+	}
+
+	@Test
+	public void testDemandsAreRecovered() {
+		TrafficMatrixEstimator estimator = new TrafficMatrixEstimator(this.routes, 10, 50, 1.0);
+		Assert.assertNull(estimator.getLast());
+		TrafficMatrix matrix = estimator.estimate(this.edges, this.statisticsMap, 1L);
+		Assert.assertSame(matrix, estimator.getLast());
+		Assert.assertEquals(1000D, matrix.getDemand(this.a, this.c), 20D);
+		Assert.assertEquals(500D, matrix.getDemand(this.a, this.b), 20D);
+		Assert.assertEquals(200D, matrix.getDemand(this.b, this.c), 20D);
+		Assert.assertEquals(0D, matrix.getDemand(this.c, this.a), 1E-9);
+		Assert.assertEquals(1500D, matrix.getIngress(this.a), 1D);
+		Assert.assertEquals(1200D, matrix.getEgress(this.c), 1D);
+		Assert.assertEquals(1700D, matrix.getTotal(), 1D);
+
+		List<RouteRequest> largest = matrix.getLargestDemands(2);
+		Assert.assertEquals(2, largest.size());
+		Assert.assertEquals(new RouteRequest(this.a, this.c, null), largest.get(0));
+		Assert.assertEquals(new RouteRequest(this.a, this.b, null), largest.get(1));
+	}
+
+	@Test
+	public void testRoundsAreIncremental() {
+		TrafficMatrixEstimator estimator = new TrafficMatrixEstimator(this.routes, 10, 5, 0.5);
+		TrafficMatrix first = estimator.estimate(this.edges, this.statisticsMap, 1L);
+		int computed = this.routed;
+		TrafficMatrix second = estimator.estimate(this.edges, this.statisticsMap, 1L);
+		// the routes are kept while the topology does not change
+		Assert.assertEquals(computed, this.routed);
+		// starting from the previous estimate brings the next one closer
+		Assert.assertTrue(Math.abs(second.getDemand(this.a, this.c) - 1000D) <= Math.abs(first.getDemand(this.a,
+				this.c) - 1000D));
+		estimator.estimate(this.edges, this.statisticsMap, 2L);
+		Assert.assertTrue(this.routed > computed);
+	}
+
+}
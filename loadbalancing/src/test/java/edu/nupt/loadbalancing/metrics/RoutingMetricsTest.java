@@ -0,0 +1,61 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.nupt.loadbalancing.beans.SearchContext;
+
+/**
+ *
+ *@Project: loadbalancing
+ *@Description:
+ *				JUnit Test
+ */
+public class RoutingMetricsTest {
+
+	@Test
+	public void testHistogramPercentiles() {
+		Histogram histogram = new Histogram();
+		for (long i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000);
+		}
+		HistogramSnapshot snapshot = histogram.snapshot();
+		Assert.assertEquals(1000, snapshot.getCount());
+		Assert.assertEquals(1000000, snapshot.getMax());
+		// log-linear buckets keep the relative error below 1/16
+		Assert.assertEquals(500000, snapshot.getP50(), 500000 / 16);
+		Assert.assertEquals(990000, snapshot.getP99(), 990000 / 16);
+		Assert.assertEquals(500500, snapshot.getMean(), 1);
+	}
+
+	@Test
+	public void testRecordRoute() {
+		RoutingMetrics metrics = new RoutingMetrics();
+		metrics.setEnabled(true);
+		SearchContext context = new SearchContext();
+		context.vertexSettled();
+		context.vertexSettled();
+		context.edgeRelaxed();
+		context.spurSearched();
+		context.yenIterated(3);
+		metrics.recordRoute(Short.valueOf((short) 0), 2000, context);
+		metrics.recordTopologyUpdates(4);
+
+		RoutingMetricsSnapshot snapshot = metrics.getSnapshot();
+		Assert.assertEquals(1, snapshot.getRouteQueries());
+		Assert.assertEquals(1, snapshot.getRouteLatency().get(Short.valueOf((short) 0)).getCount());
+		Assert.assertEquals(1, snapshot.getYenIterations());
+		Assert.assertEquals(1, snapshot.getSpurSearches());
+		Assert.assertEquals(2, snapshot.getSettledVertices().getMax());
+		Assert.assertEquals(3, snapshot.getCandidateSetSize().getMax());
+		Assert.assertEquals(4, snapshot.getTopologyUpdates());
+
+		metrics.setEnabled(false);
+		metrics.recordRoute(Short.valueOf((short) 0), 2000, context);
+		Assert.assertEquals(1, metrics.getSnapshot().getRouteQueries());
+	}
+
+}
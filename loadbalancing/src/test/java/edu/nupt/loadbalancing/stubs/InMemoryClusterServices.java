@@ -0,0 +1,73 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.stubs;
+
+import java.net.InetAddress;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.opendaylight.controller.clustering.services.CacheExistException;
+import org.opendaylight.controller.clustering.services.IClusterContainerServices;
+import org.opendaylight.controller.clustering.services.IClusterServices;
+
+/**
+ * @Project: loadbalancing
+ * @Description: An in-memory stand-in for {@link IClusterContainerServices}.
+ *               It is one member of a {@link LocalCluster}; a single
+ *               controller is simply a cluster with one member.
+ */
+public class InMemoryClusterServices extends ServiceStandIn {
+	private final LocalCluster cluster;
+	private final InetAddress address;
+
+	InMemoryClusterServices(LocalCluster cluster, InetAddress address) {
+		this.cluster = cluster;
+		this.address = address;
+	}
+
+	public ConcurrentMap<?, ?> createCache(String cacheName, Set<IClusterServices.cacheMode> cMode)
+			throws CacheExistException {
+		ConcurrentMap<Object, Object> cache = new ConcurrentHashMap<Object, Object>();
+		if (this.cluster.getCaches().putIfAbsent(cacheName, cache) != null) {
+			throw new CacheExistException();
+		}
+		return cache;
+	}
+
+	public ConcurrentMap<?, ?> getCache(String cacheName) {
+		return this.cluster.getCaches().get(cacheName);
+	}
+
+	public void destroyCache(String cacheName) {
+		this.cluster.getCaches().remove(cacheName);
+	}
+
+	public boolean existCache(String cacheName) {
+		return this.cluster.getCaches().containsKey(cacheName);
+	}
+
+	public Set<String> getCacheList() {
+		return new HashSet<String>(this.cluster.getCaches().keySet());
+	}
+
+	public boolean amICoordinator() {
+		return this.address.equals(this.cluster.getCoordinatorAddress());
+	}
+
+	public InetAddress getCoordinatorAddress() {
+		return this.cluster.getCoordinatorAddress();
+	}
+
+	public List<InetAddress> getClusteredControllers() {
+		return this.cluster.getAddresses();
+	}
+
+	public InetAddress getMyAddress() {
+		return this.address;
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.stubs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.reader.NodeConnectorStatistics;
+import org.opendaylight.controller.statisticsmanager.IStatisticsManager;
+
+/**
+ * @Project: loadbalancing
+ * @Description: An in-memory stand-in for {@link IStatisticsManager} with
+ *               synthetic port counters. Every port has a transmit and a
+ *               receive rate in bytes per second, and {@link #advance(long)}
+ *               moves all counters forward as if that much time had passed,
+ *               so a test controls exactly what the sampling task will see.
+ */
+public class InMemoryStatisticsManager extends ServiceStandIn {
+	private final Map<Node, Map<NodeConnector, PortCounters>> ports = new ConcurrentHashMap<Node, Map<NodeConnector, PortCounters>>();
+
+	/**
+	 * Sets the rates of a port, creating the port if needed.
+	 *
+	 * @param connector
+	 *            the port
+	 * @param transmitRate
+	 *            transmitted bytes per second
+	 * @param receiveRate
+	 *            received bytes per second
+	 */
+	public void setRate(NodeConnector connector, long transmitRate, long receiveRate) {
+		PortCounters counters = counters(connector);
+		synchronized (counters) {
+			counters.transmitRate = transmitRate;
+			counters.receiveRate = receiveRate;
+		}
+	}
+
+	/**
+	 * Moves all counters forward by the given time at their current rates.
+	 *
+	 * @param millis
+	 *            the elapsed time in milliseconds
+	 */
+	public void advance(long millis) {
+		for (Map<NodeConnector, PortCounters> nodePorts : this.ports.values()) {
+			for (PortCounters counters : nodePorts.values()) {
+				synchronized (counters) {
+					counters.transmitBytes += counters.transmitRate * millis / 1000;
+					counters.receiveBytes += counters.receiveRate * millis / 1000;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Drops a port and its counters.
+	 *
+	 * @param connector
+	 *            the port
+	 */
+	public void removePort(NodeConnector connector) {
+		Map<NodeConnector, PortCounters> nodePorts = this.ports.get(connector.getNode());
+		if (nodePorts != null) {
+			nodePorts.remove(connector);
+		}
+	}
+
+	public List<NodeConnectorStatistics> getNodeConnectorStatistics(Node node) {
+		List<NodeConnectorStatistics> list = new ArrayList<NodeConnectorStatistics>();
+		Map<NodeConnector, PortCounters> nodePorts = this.ports.get(node);
+		if (nodePorts != null) {
+			for (Map.Entry<NodeConnector, PortCounters> entry : nodePorts.entrySet()) {
+				list.add(statistics(entry.getKey(), entry.getValue()));
+			}
+		}
+		return list;
+	}
+
+	public NodeConnectorStatistics getNodeConnectorStatistics(NodeConnector connector) {
+		Map<NodeConnector, PortCounters> nodePorts = this.ports.get(connector.getNode());
+		PortCounters counters = nodePorts == null ? null : nodePorts.get(connector);
+		return counters == null ? null : statistics(connector, counters);
+	}
+
+	private PortCounters counters(NodeConnector connector) {
+		Map<NodeConnector, PortCounters> nodePorts = this.ports.get(connector.getNode());
+		if (nodePorts == null) {
+			nodePorts = new ConcurrentHashMap<NodeConnector, PortCounters>();
+			this.ports.put(connector.getNode(), nodePorts);
+		}
+		PortCounters counters = nodePorts.get(connector);
+		if (counters == null) {
+			counters = new PortCounters();
+			nodePorts.put(connector, counters);
+		}
+		return counters;
+	}
+
+	private static NodeConnectorStatistics statistics(NodeConnector connector, PortCounters counters) {
+		NodeConnectorStatistics statistics = new NodeConnectorStatistics();
+		statistics.setNodeConnector(connector);
+		synchronized (counters) {
+			statistics.setTransmitByteCount(counters.transmitBytes);
+			statistics.setReceiveByteCount(counters.receiveBytes);
+		}
+		return statistics;
+	}
+
+	private static class PortCounters {
+		private long transmitRate;
+		private long receiveRate;
+		private long transmitBytes;
+		private long receiveBytes;
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.stubs;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.opendaylight.controller.sal.core.Bandwidth;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.core.Property;
+import org.opendaylight.controller.switchmanager.ISwitchManager;
+
+/**
+ * @Project: loadbalancing
+ * @Description: An in-memory stand-in for {@link ISwitchManager} which knows
+ *               the switches, their ports and the bandwidth of every port.
+ */
+public class InMemorySwitchManager extends ServiceStandIn {
+	private final Map<Node, Set<NodeConnector>> nodes = new ConcurrentHashMap<Node, Set<NodeConnector>>();
+	private final Map<NodeConnector, Bandwidth> bandwidths = new ConcurrentHashMap<NodeConnector, Bandwidth>();
+
+	/**
+	 * Adds a port with its bandwidth, and its switch if needed.
+	 *
+	 * @param connector
+	 *            the port
+	 * @param bandwidth
+	 *            the port speed in bits per second
+	 */
+	public synchronized void addPort(NodeConnector connector, long bandwidth) {
+		Set<NodeConnector> connectors = this.nodes.get(connector.getNode());
+		if (connectors == null) {
+			connectors = new HashSet<NodeConnector>();
+			this.nodes.put(connector.getNode(), connectors);
+		}
+		connectors.add(connector);
+		this.bandwidths.put(connector, new Bandwidth(bandwidth));
+	}
+
+	public Set<Node> getNodes() {
+		return new HashSet<Node>(this.nodes.keySet());
+	}
+
+	public synchronized Set<NodeConnector> getNodeConnectors(Node node) {
+		Set<NodeConnector> connectors = this.nodes.get(node);
+		return connectors == null ? null : new HashSet<NodeConnector>(connectors);
+	}
+
+	public Property getNodeConnectorProp(NodeConnector connector, String propName) {
+		return Bandwidth.BandwidthPropName.equals(propName) ? this.bandwidths.get(connector) : null;
+	}
+
+	public Map<String, Property> getNodeConnectorProps(NodeConnector connector) {
+		Map<String, Property> props = new HashMap<String, Property>();
+		Bandwidth bandwidth = this.bandwidths.get(connector);
+		if (bandwidth != null) {
+			props.put(Bandwidth.BandwidthPropName, bandwidth);
+		}
+		return props;
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.stubs;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.Property;
+import org.opendaylight.controller.sal.core.UpdateType;
+import org.opendaylight.controller.sal.topology.TopoEdgeUpdate;
+import org.opendaylight.controller.topologymanager.ITopologyManager;
+
+/**
+ * @Project: loadbalancing
+ * @Description: An in-memory stand-in for {@link ITopologyManager}. It keeps
+ *               the current edge set and turns changes into the
+ *               {@link TopoEdgeUpdate}s the real topology manager would send.
+ */
+public class InMemoryTopologyManager extends ServiceStandIn {
+	private final Map<Edge, Set<Property>> edges = new ConcurrentHashMap<Edge, Set<Property>>();
+
+	/**
+	 * Applies an update to the edge set and returns it, ready to be handed to
+	 * an <code>ITopologyManagerAware</code> listener.
+	 *
+	 * @param edge
+	 *            the edge which changed
+	 * @param type
+	 *            the kind of change
+	 * @return the corresponding update
+	 */
+	public TopoEdgeUpdate update(Edge edge, UpdateType type) {
+		Set<Property> props = new HashSet<Property>();
+		if (type == UpdateType.REMOVED) {
+			this.edges.remove(edge);
+		} else {
+			this.edges.put(edge, props);
+		}
+		return new TopoEdgeUpdate(edge, props, type);
+	}
+
+	public Map<Edge, Set<Property>> getEdges() {
+		return new HashMap<Edge, Set<Property>>(this.edges);
+	}
+
+	public Map<Node, Set<Edge>> getNodeEdges() {
+		Map<Node, Set<Edge>> nodeEdges = new HashMap<Node, Set<Edge>>();
+		for (Edge edge : this.edges.keySet()) {
+			addNodeEdge(nodeEdges, edge.getTailNodeConnector().getNode(), edge);
+			addNodeEdge(nodeEdges, edge.getHeadNodeConnector().getNode(), edge);
+		}
+		return nodeEdges;
+	}
+
+	public boolean isInternal(org.opendaylight.controller.sal.core.NodeConnector p) {
+		for (Edge edge : this.edges.keySet()) {
+			if (edge.getTailNodeConnector().equals(p) || edge.getHeadNodeConnector().equals(p)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the current edges without the properties.
+	 *
+	 * @return a read-only view of the edges
+	 */
+	public Set<Edge> edges() {
+		return Collections.unmodifiableSet(this.edges.keySet());
+	}
+
+	private static void addNodeEdge(Map<Node, Set<Edge>> nodeEdges, Node node, Edge edge) {
+		Set<Edge> set = nodeEdges.get(node);
+		if (set == null) {
+			set = new HashSet<Edge>();
+			nodeEdges.put(node, set);
+		}
+		set.add(edge);
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.stubs;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @Project: loadbalancing
+ * @Description: A cluster of controllers living in one JVM. Its members share
+ *               the caches created through any of them, and the member which
+ *               joined first is the coordinator, as with the real clustering
+ *               services.
+ */
+public class LocalCluster {
+	private final ConcurrentMap<String, ConcurrentMap<Object, Object>> caches = new ConcurrentHashMap<String, ConcurrentMap<Object, Object>>();
+	private final List<InMemoryClusterServices> members = new CopyOnWriteArrayList<InMemoryClusterServices>();
+	private int joined;
+
+	/**
+	 * Adds a controller to the cluster. Members get the addresses
+	 * 127.0.0.1, 127.0.0.2 and so on in the order they join, and an address
+	 * is not given again after its member left.
+	 *
+	 * @return the clustering services of the new member
+	 */
+	public synchronized InMemoryClusterServices join() {
+		byte[] ip = new byte[] { 127, 0, 0, (byte) ++this.joined };
+		InetAddress address;
+		try {
+			address = InetAddress.getByAddress(ip);
+		} catch (UnknownHostException e) {
+			throw new IllegalStateException(e);
+		}
+		InMemoryClusterServices member = new InMemoryClusterServices(this, address);
+		this.members.add(member);
+		return member;
+	}
+
+	/**
+	 * Removes a controller from the cluster, as if it had crashed.
+	 *
+	 * @param member
+	 *            the member to remove
+	 */
+	public void leave(InMemoryClusterServices member) {
+		this.members.remove(member);
+	}
+
+	ConcurrentMap<String, ConcurrentMap<Object, Object>> getCaches() {
+		return this.caches;
+	}
+
+	InetAddress getCoordinatorAddress() {
+		return this.members.isEmpty() ? null : this.members.get(0).getMyAddress();
+	}
+
+	List<InetAddress> getAddresses() {
+		List<InetAddress> addresses = new ArrayList<InetAddress>();
+		for (InMemoryClusterServices member : this.members) {
+			addresses.add(member.getMyAddress());
+		}
+		return addresses;
+	}
+
+}
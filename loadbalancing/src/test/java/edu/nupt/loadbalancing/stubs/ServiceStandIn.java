@@ -0,0 +1,108 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.stubs;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Project: loadbalancing
+ * @Description: The base class of the in-memory stand-ins for OpenDaylight
+ *               services. A stand-in is handed out as a dynamic proxy of the
+ *               service interface: a call is forwarded to the public method of
+ *               the stand-in with the same name and parameter types, and every
+ *               other method of the interface answers with an empty value
+ *               (null, FALSE, 0 or an empty collection). That way a stand-in
+ *               only implements what the load balancer really uses, and does
+ *               not break when the service interface grows.
+ */
+public abstract class ServiceStandIn implements InvocationHandler {
+	private static final Object NONE = new Object();
+	private final Map<Method, Object> dispatch = new ConcurrentHashMap<Method, Object>();
+
+	/**
+	 * Gets the stand-in as an implementation of the given service interface.
+	 *
+	 * @param service
+	 *            the service interface
+	 * @return a proxy which forwards to this stand-in
+	 */
+	public <T> T as(Class<T> service) {
+		return service.cast(Proxy.newProxyInstance(service.getClassLoader(), new Class<?>[] { service }, this));
+	}
+
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if (method.getDeclaringClass() == Object.class) {
+			if ("equals".equals(method.getName())) {
+				return proxy == args[0];
+			}
+			if ("hashCode".equals(method.getName())) {
+				return System.identityHashCode(proxy);
+			}
+			return getClass().getSimpleName();
+		}
+		Object target = this.dispatch.get(method);
+		if (target == null) {
+			try {
+				target = getClass().getMethod(method.getName(), method.getParameterTypes());
+			} catch (NoSuchMethodException e) {
+				target = NONE;
+			}
+			this.dispatch.put(method, target);
+		}
+		if (target == NONE) {
+			return emptyValue(method.getReturnType());
+		}
+		try {
+			return ((Method) target).invoke(this, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static Object emptyValue(Class<?> type) {
+		if (type == boolean.class) {
+			return Boolean.FALSE;
+		}
+		if (type == int.class) {
+			return Integer.valueOf(0);
+		}
+		if (type == long.class) {
+			return Long.valueOf(0);
+		}
+		if (type == short.class) {
+			return Short.valueOf((short) 0);
+		}
+		if (type == byte.class) {
+			return Byte.valueOf((byte) 0);
+		}
+		if (type == char.class) {
+			return Character.valueOf((char) 0);
+		}
+		if (type == double.class) {
+			return Double.valueOf(0);
+		}
+		if (type == float.class) {
+			return Float.valueOf(0);
+		}
+		if (type == List.class) {
+			return Collections.emptyList();
+		}
+		if (type == Set.class) {
+			return Collections.emptySet();
+		}
+		if (type == Map.class) {
+			return Collections.emptyMap();
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,48 @@
+/*
+ * @Copyright (c) 2017 Nanjing University Of Posts And Telecommunications (NUPT).  All rights reserved.
+ */
+package edu.nupt.loadbalancing.stubs;
+
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Edge;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.utils.NodeConnectorCreator;
+import org.opendaylight.controller.sal.utils.NodeCreator;
+
+/**
+ * @Project: loadbalancing
+ * @Description: The OpenFlow nodes, ports and links the tests build their
+ *               topologies of.
+ */
+public final class TopologyFixtures {
+
+	private TopologyFixtures() {
+	}
+
+	/**
+	 * Gets the OpenFlow node of the given id.
+	 */
+	public static Node node(long id) {
+		return NodeCreator.createOFNode(Long.valueOf(id));
+	}
+
+	/**
+	 * Gets the OpenFlow port of the given id on the given node.
+	 */
+	public static NodeConnector port(int id, Node node) {
+		return NodeConnectorCreator.createOFNodeConnector(Short.valueOf((short) id), node);
+	}
+
+	/**
+	 * Gets the link from the given tail port to the given head port.
+	 */
+	public static Edge link(NodeConnector tail, NodeConnector head) {
+		try {
+			return new Edge(tail, head);
+		} catch (ConstructionException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+}